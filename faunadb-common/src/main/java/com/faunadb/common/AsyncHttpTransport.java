@@ -0,0 +1,224 @@
+package com.faunadb.common;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import org.asynchttpclient.AsyncHandler;
+import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.HttpResponseBodyPart;
+import org.asynchttpclient.HttpResponseHeaders;
+import org.asynchttpclient.HttpResponseStatus;
+import org.asynchttpclient.Request;
+import org.asynchttpclient.RequestBuilder;
+import org.asynchttpclient.handler.AsyncHandlerExtensions;
+import org.asynchttpclient.netty.request.NettyRequest;
+import org.asynchttpclient.request.body.Body;
+import org.asynchttpclient.request.body.generator.BodyGenerator;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+/**
+ * The default {@link Transport}, which sends requests through an {@link AsyncHttpClient}.
+ *
+ * <p>A body that fits in a single chunk is handed to the client as is; anything larger is streamed from its chunks.
+ * The client's connection events are passed on to the handler.
+ */
+final class AsyncHttpTransport implements Transport {
+  private final AsyncHttpClient client;
+
+  AsyncHttpTransport(AsyncHttpClient client) {
+    this.client = client;
+  }
+
+  @Override
+  public Future<?> execute(TransportRequest request, TransportHandler handler) {
+    return client.executeRequest(toRequest(request), new Handler(handler, request.url().startsWith("https:")));
+  }
+
+  @Override
+  public void close() throws IOException {
+    client.close();
+  }
+
+  private static Request toRequest(TransportRequest request) {
+    RequestBuilder builder = new RequestBuilder(request.method()).setUrl(request.url());
+    for (Map.Entry<String, String> header : request.headers().entries()) {
+      builder.addHeader(header.getKey(), header.getValue());
+    }
+
+    if (request.timeoutMillis() > 0) {
+      builder.setRequestTimeout(request.timeoutMillis());
+    }
+
+    List<ByteBuffer> body = request.body();
+    if (body.size() == 1 && request.contentLength() >= 0) {
+      builder.setBody(body.get(0));
+    } else if (!body.isEmpty()) {
+      builder.setBody(new ContentGenerator(request));
+    }
+
+    return builder.build();
+  }
+
+  private static final class ContentGenerator implements BodyGenerator {
+    private final TransportRequest request;
+
+    ContentGenerator(TransportRequest request) {
+      this.request = request;
+    }
+
+    @Override
+    public Body createBody() {
+      return new ContentBody(request.body(), request.contentLength());
+    }
+  }
+
+  private static final class ContentBody implements Body {
+    private final List<ByteBuffer> parts;
+    private final long contentLength;
+    private int index = 0;
+
+    ContentBody(List<ByteBuffer> parts, long contentLength) {
+      this.parts = parts;
+      this.contentLength = contentLength;
+    }
+
+    @Override
+    public long getContentLength() {
+      return contentLength;
+    }
+
+    @Override
+    public BodyState transferTo(ByteBuf target) {
+      while (target.isWritable() && index < parts.size()) {
+        ByteBuffer part = parts.get(index);
+        int len = Math.min(target.writableBytes(), part.remaining());
+        ByteBuffer slice = part.duplicate();
+        slice.limit(slice.position() + len);
+        target.writeBytes(slice);
+        part.position(part.position() + len);
+        if (!part.hasRemaining()) {
+          index++;
+        }
+      }
+      return index < parts.size() ? BodyState.CONTINUE : BodyState.STOP;
+    }
+
+    @Override
+    public void close() {
+      // The content is owned by the connection.
+    }
+  }
+
+  /**
+   * Passes the client's callbacks on to a {@link TransportHandler}.
+   */
+  private static final class Handler implements AsyncHandler<Void>, AsyncHandlerExtensions {
+    private final TransportHandler handler;
+    private final boolean secure;
+
+    Handler(TransportHandler handler, boolean secure) {
+      this.handler = handler;
+      this.secure = secure;
+    }
+
+    @Override
+    public State onStatusReceived(HttpResponseStatus status) {
+      handler.onStatus(status.getStatusCode(), status.getStatusText());
+      return State.CONTINUE;
+    }
+
+    @Override
+    public State onHeadersReceived(HttpResponseHeaders headers) {
+      handler.onHeaders(headers.getHeaders());
+      return State.CONTINUE;
+    }
+
+    @Override
+    public State onBodyPartReceived(HttpResponseBodyPart part) {
+      if (part.length() > 0) {
+        handler.onBodyPart(ByteBuffer.wrap(part.getBodyPartBytes()));
+      }
+      return State.CONTINUE;
+    }
+
+    @Override
+    public Void onCompleted() {
+      handler.onCompleted();
+      return null;
+    }
+
+    @Override
+    public void onThrowable(Throwable t) {
+      handler.onThrowable(t);
+    }
+
+    @Override
+    public void onConnectionPoolAttempt() {
+      handler.onConnectionRequested();
+    }
+
+    @Override
+    public void onConnectionPooled(Channel channel) {
+      handler.onConnectionObtained();
+    }
+
+    @Override
+    public void onHostnameResolutionAttempt(String name) {
+      handler.onConnecting();
+    }
+
+    @Override
+    public void onHostnameResolutionSuccess(String name, List<InetSocketAddress> addresses) {
+    }
+
+    @Override
+    public void onHostnameResolutionFailure(String name, Throwable cause) {
+    }
+
+    @Override
+    public void onTcpConnectAttempt(InetSocketAddress address) {
+    }
+
+    @Override
+    public void onTcpConnectSuccess(InetSocketAddress address, Channel channel) {
+      if (!secure) {
+        handler.onConnected();
+      }
+    }
+
+    @Override
+    public void onTcpConnectFailure(InetSocketAddress address, Throwable cause) {
+    }
+
+    @Override
+    public void onTlsHandshakeAttempt() {
+    }
+
+    @Override
+    public void onTlsHandshakeSuccess() {
+      handler.onConnected();
+    }
+
+    @Override
+    public void onTlsHandshakeFailure(Throwable cause) {
+    }
+
+    @Override
+    public void onConnectionOffer(Channel channel) {
+    }
+
+    @Override
+    public void onRequestSend(NettyRequest request) {
+      handler.onRequestWritten();
+    }
+
+    @Override
+    public void onRetry() {
+    }
+  }
+}
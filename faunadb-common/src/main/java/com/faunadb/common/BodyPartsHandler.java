@@ -0,0 +1,330 @@
+package com.faunadb.common;
+
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaders;
+import org.asynchttpclient.HttpResponseBodyPart;
+import org.asynchttpclient.HttpResponseHeaders;
+import org.asynchttpclient.HttpResponseStatus;
+import org.asynchttpclient.Response;
+import org.asynchttpclient.netty.NettyResponse;
+import org.asynchttpclient.uri.Uri;
+
+import java.io.InputStream;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A {@link TransportHandler} that collects the body of a response as its parts arrive from the transport.
+ *
+ * <p>The parts are never concatenated. {@link Response#getResponseBodyAsStream()} reads across them in place, so a
+ * JSON parser can decode the body as UTF-8 bytes without it first being copied into a single array and then decoded
+ * into a {@link String}.
+ *
+ * <p>The handler also notes when the transport obtains a connection and sends the request, for transports that report
+ * it, and passes those phases on to the request's {@link RequestTrace}, if it has one. The trace is attached to the
+ * response, so that a client can report when it has decoded it.
+ *
+ * <p>A request is finished by whichever of {@link #onCompleted(Response)} and {@link #onFailed(Throwable)} is called
+ * first, and the other is then never called. A transport may report a failure after the response has completed:
+ * async-http-client, for one, reports a {@link java.util.concurrent.CancellationException} whenever a request's future
+ * is cancelled, even once it is done. Such late reports are dropped, so that a request is only ever accounted for once.
+ */
+abstract class BodyPartsHandler extends TransportHandler {
+  private final List<ByteBuffer> parts = new ArrayList<>();
+  private final AtomicBoolean finished = new AtomicBoolean(false);
+  private final Uri uri;
+  private int statusCode;
+  private String statusText;
+  private final HttpHeaders headers = new DefaultHttpHeaders();
+  private long bodyLength = 0;
+  private long poolAttemptAt = -1;
+  private long channelAt = -1;
+  private long connectAt = -1;
+  private long connectedAt = -1;
+  private long sentAt = -1;
+  private long statusAt = -1;
+  private final RequestTrace trace;
+
+  /**
+   * @param request the request whose response this handles.
+   * @param trace the trace of the request, or null if it is not traced.
+   */
+  BodyPartsHandler(TransportRequest request, RequestTrace trace) {
+    this.uri = Uri.create(request.url());
+    this.trace = trace;
+  }
+
+  /**
+   * Returns the trace attached to {@code response}, or null if it has none.
+   */
+  static RequestTrace traceOf(Response response) {
+    return response instanceof BodyPartsResponse ? ((BodyPartsResponse) response).trace : null;
+  }
+
+  /**
+   * Invoked once the full response has been received, unless the request has already failed.
+   */
+  abstract void onCompleted(Response response);
+
+  /**
+   * Invoked if the request fails, unless its response has already been received.
+   */
+  abstract void onFailed(Throwable t);
+
+  /**
+   * Finishes the request without invoking either callback, for a transport that refused it by throwing. Returns false
+   * if the transport had already finished it.
+   */
+  boolean abandon() {
+    return finished.compareAndSet(false, true);
+  }
+
+  /**
+   * Returns the number of body bytes received so far, after any decompression by the transport.
+   */
+  long bodyLength() {
+    return bodyLength;
+  }
+
+  /**
+   * Returns the time spent obtaining a connection, or -1 if the transport did not report it.
+   */
+  long poolWaitNanos() {
+    return poolAttemptAt < 0 || channelAt < 0 ? -1 : channelAt - poolAttemptAt;
+  }
+
+  /**
+   * Returns the time spent opening a new connection, or -1 if a pooled one was used or the transport did not report
+   * it.
+   */
+  long connectNanos() {
+    return connectAt < 0 || connectedAt < 0 ? -1 : connectedAt - connectAt;
+  }
+
+  /**
+   * Returns the time from sending the request until its response status arrived, or -1 if the transport did not
+   * report when it was sent.
+   */
+  long timeToFirstByteNanos() {
+    return sentAt < 0 || statusAt < 0 ? -1 : statusAt - sentAt;
+  }
+
+  @Override
+  public void onStatus(int statusCode, String statusText) {
+    this.statusCode = statusCode;
+    this.statusText = statusText;
+    this.statusAt = System.nanoTime();
+    if (trace != null) {
+      trace.firstByte(statusCode);
+    }
+  }
+
+  @Override
+  public void onHeaders(Iterable<Map.Entry<String, String>> headers) {
+    for (Map.Entry<String, String> header : headers) {
+      this.headers.add(header.getKey(), header.getValue());
+    }
+  }
+
+  @Override
+  public void onBodyPart(ByteBuffer part) {
+    if (part.hasRemaining()) {
+      parts.add(part);
+      bodyLength += part.remaining();
+    }
+  }
+
+  @Override
+  public void onConnectionRequested() {
+    poolAttemptAt = System.nanoTime();
+  }
+
+  @Override
+  public void onConnectionObtained() {
+    channelAt = System.nanoTime();
+  }
+
+  @Override
+  public void onConnecting() {
+    connectAt = System.nanoTime();
+    if (channelAt < 0) {
+      channelAt = connectAt;
+    }
+  }
+
+  @Override
+  public void onConnected() {
+    connectedAt = System.nanoTime();
+  }
+
+  @Override
+  public void onRequestWritten() {
+    sentAt = System.nanoTime();
+    if (trace != null) {
+      trace.reach(RequestPhase.WRITTEN);
+    }
+  }
+
+  @Override
+  public final void onThrowable(Throwable t) {
+    if (finished.compareAndSet(false, true)) {
+      onFailed(t);
+    }
+  }
+
+  @Override
+  public final void onCompleted() {
+    if (finished.compareAndSet(false, true)) {
+      Response response = new BodyPartsResponse(new Status(uri, statusCode, statusText),
+        new HttpResponseHeaders(headers), parts, trace);
+      onCompleted(response);
+    }
+  }
+
+  private static final class BodyPartsResponse extends NettyResponse {
+    private final List<ByteBuffer> parts;
+    private final RequestTrace trace;
+
+    BodyPartsResponse(HttpResponseStatus status, HttpResponseHeaders headers, List<ByteBuffer> parts,
+                      RequestTrace trace) {
+      super(status, headers, wrap(parts));
+      this.parts = parts;
+      this.trace = trace;
+    }
+
+    @Override
+    public InputStream getResponseBodyAsStream() {
+      return new BodyPartsInputStream(parts);
+    }
+
+    private static List<HttpResponseBodyPart> wrap(List<ByteBuffer> parts) {
+      List<HttpResponseBodyPart> wrapped = new ArrayList<>(parts.size());
+      for (final ByteBuffer part : parts) {
+        wrapped.add(new HttpResponseBodyPart(false) {
+          @Override
+          public int length() {
+            return part.remaining();
+          }
+
+          @Override
+          public byte[] getBodyPartBytes() {
+            byte[] bytes = new byte[part.remaining()];
+            part.duplicate().get(bytes);
+            return bytes;
+          }
+
+          @Override
+          public ByteBuffer getBodyByteBuffer() {
+            return part.duplicate();
+          }
+        });
+      }
+      return wrapped;
+    }
+  }
+
+  /**
+   * The status line of a response, as reported by a transport.
+   */
+  private static final class Status extends HttpResponseStatus {
+    private final int statusCode;
+    private final String statusText;
+
+    Status(Uri uri, int statusCode, String statusText) {
+      super(uri, null);
+      this.statusCode = statusCode;
+      this.statusText = statusText;
+    }
+
+    @Override
+    public int getStatusCode() {
+      return statusCode;
+    }
+
+    @Override
+    public String getStatusText() {
+      return statusText;
+    }
+
+    @Override
+    public String getProtocolName() {
+      return "HTTP";
+    }
+
+    @Override
+    public int getProtocolMajorVersion() {
+      return 1;
+    }
+
+    @Override
+    public int getProtocolMinorVersion() {
+      return 1;
+    }
+
+    @Override
+    public String getProtocolText() {
+      return "HTTP/1.1";
+    }
+
+    @Override
+    public SocketAddress getRemoteAddress() {
+      return null;
+    }
+
+    @Override
+    public SocketAddress getLocalAddress() {
+      return null;
+    }
+  }
+
+  private static final class BodyPartsInputStream extends InputStream {
+    private final List<ByteBuffer> parts;
+    private int partIdx = 0;
+    private ByteBuffer current;
+
+    BodyPartsInputStream(List<ByteBuffer> parts) {
+      this.parts = parts;
+    }
+
+    @Override
+    public int read() {
+      if (!advance()) {
+        return -1;
+      }
+      return current.get() & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+      if (len == 0) {
+        return 0;
+      }
+      if (!advance()) {
+        return -1;
+      }
+
+      int n = Math.min(len, current.remaining());
+      current.get(b, off, n);
+      return n;
+    }
+
+    @Override
+    public int available() {
+      return current == null ? 0 : current.remaining();
+    }
+
+    private boolean advance() {
+      while (current == null || !current.hasRemaining()) {
+        if (partIdx == parts.size()) {
+          return false;
+        }
+        current = parts.get(partIdx++).duplicate();
+      }
+      return true;
+    }
+  }
+}
@@ -0,0 +1,123 @@
+package com.faunadb.common;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A request body encoded once, with holes where named parameters are spliced in each time it is sent.
+ *
+ * <p>A template is split from an encoded body by finding every occurrence of each parameter's marker, the bytes its
+ * placeholder was encoded as. Binding it to encoded parameter values returns a {@link Connection.BodyWriter} that
+ * writes the constant parts as they are, so sending a bound template costs no more encoding than its parameters.
+ *
+ * <p>Instances are immutable, and may be bound any number of times from any thread.
+ */
+public final class BodyTemplate {
+  /**
+   * Splits {@code body} around the occurrences of the markers in {@code markers}, keyed by parameter name.
+   *
+   * @throws IllegalArgumentException if a marker does not occur in {@code body}.
+   */
+  public static BodyTemplate split(byte[] body, Map<String, byte[]> markers) {
+    List<int[]> holes = new ArrayList<>();
+    List<String> names = new ArrayList<>();
+    for (Map.Entry<String, byte[]> marker : markers.entrySet()) {
+      int found = 0;
+      for (int at = indexOf(body, marker.getValue(), 0); at >= 0;
+           at = indexOf(body, marker.getValue(), at + marker.getValue().length)) {
+        int i = 0;
+        while (i < holes.size() && holes.get(i)[0] < at) {
+          i++;
+        }
+        holes.add(i, new int[] { at, at + marker.getValue().length });
+        names.add(i, marker.getKey());
+        found++;
+      }
+
+      if (found == 0) {
+        throw new IllegalArgumentException("Parameter " + marker.getKey() + " was not found in the encoded body.");
+      }
+    }
+
+    ImmutableList.Builder<byte[]> segments = ImmutableList.builder();
+    int start = 0;
+    for (int[] hole : holes) {
+      segments.add(copy(body, start, hole[0]));
+      start = hole[1];
+    }
+    segments.add(copy(body, start, body.length));
+
+    return new BodyTemplate(segments.build(), ImmutableList.copyOf(names));
+  }
+
+  private final ImmutableList<byte[]> segments;
+  private final ImmutableList<String> holes;
+  private final ImmutableSet<String> parameters;
+
+  private BodyTemplate(ImmutableList<byte[]> segments, ImmutableList<String> holes) {
+    this.segments = segments;
+    this.holes = holes;
+    this.parameters = ImmutableSet.copyOf(holes);
+  }
+
+  /**
+   * Returns the names of the template's parameters.
+   */
+  public ImmutableSet<String> parameters() {
+    return parameters;
+  }
+
+  /**
+   * Returns a writer of the template with each parameter replaced by its encoded value.
+   *
+   * @param values the encoded value of every parameter, keyed by name.
+   * @throws IllegalArgumentException unless {@code values} has exactly the template's parameters.
+   */
+  public Connection.BodyWriter bind(final Map<String, byte[]> values) {
+    if (!parameters.equals(values.keySet())) {
+      throw new IllegalArgumentException("Expected values for parameters " + parameters + " but got " +
+        values.keySet() + ".");
+    }
+
+    return new Connection.BodyWriter() {
+      @Override
+      public void writeTo(OutputStream out) throws IOException {
+        out.write(segments.get(0));
+        for (int i = 0; i < holes.size(); i++) {
+          out.write(values.get(holes.get(i)));
+          out.write(segments.get(i + 1));
+        }
+      }
+    };
+  }
+
+  @Override
+  public String toString() {
+    return "BodyTemplate(parameters=" + parameters + ", holes=" + holes.size() + ")";
+  }
+
+  private static int indexOf(byte[] array, byte[] target, int from) {
+    outer:
+    for (int i = from; i <= array.length - target.length; i++) {
+      for (int j = 0; j < target.length; j++) {
+        if (array[i + j] != target[j]) {
+          continue outer;
+        }
+      }
+      return i;
+    }
+    return -1;
+  }
+
+  private static byte[] copy(byte[] array, int from, int to) {
+    byte[] copy = new byte[to - from];
+    System.arraycopy(array, from, copy, 0, copy.length);
+    return copy;
+  }
+}
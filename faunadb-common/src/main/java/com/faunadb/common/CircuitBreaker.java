@@ -0,0 +1,219 @@
+package com.faunadb.common;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Guards a single {@link Endpoint}, following a {@link CircuitBreakerPolicy}.
+ *
+ * <p>Outcomes are kept in a ring of the most recent {@code windowSize} requests, with running counts of failed and
+ * slow ones, so that recording an outcome and checking the rates take constant time. The move from open to
+ * half-open happens lazily, when a request next asks for a permit.
+ *
+ * <p>Each state change marks a meter named after the new state and is passed to the listener, outside of the
+ * breaker's lock.
+ */
+final class CircuitBreaker {
+  private static final byte FAILED = 1;
+  private static final byte SLOW = 2;
+
+  private final String endpoint;
+  private final CircuitBreakerPolicy policy;
+  private final ConnectionMetrics metrics;
+  private final CircuitBreakerListener listener;
+  private final long slowCallNanos;
+  private final long openNanos;
+  private final byte[] window;
+
+  private final Logger log = LoggerFactory.getLogger(getClass());
+
+  private CircuitState state = CircuitState.CLOSED;
+  private int next = 0;
+  private int recorded = 0;
+  private int failed = 0;
+  private int slow = 0;
+  private long openedAt = 0;
+  private int trialPermits = 0;
+  private int trialSuccesses = 0;
+
+  CircuitBreaker(String endpoint, CircuitBreakerPolicy policy, ConnectionMetrics metrics, CircuitBreakerListener listener) {
+    this.endpoint = endpoint;
+    this.policy = policy;
+    this.metrics = metrics;
+    this.listener = listener;
+    this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(policy.slowCallDurationMs());
+    this.openNanos = TimeUnit.MILLISECONDS.toNanos(policy.openDurationMs());
+    this.window = new byte[policy.isEnabled() ? policy.windowSize() : 0];
+  }
+
+  synchronized CircuitState state() {
+    return state;
+  }
+
+  /**
+   * Returns true if a request may be sent to the endpoint now, without taking a permit.
+   */
+  synchronized boolean isCallPermitted() {
+    switch (state) {
+      case CLOSED:
+        return true;
+      case OPEN:
+        return System.nanoTime() - openedAt >= openNanos;
+      default:
+        return trialPermits > 0;
+    }
+  }
+
+  /**
+   * Takes a permit to send a request to the endpoint. Every permit taken must be followed by a call to
+   * {@link #onResult(long, boolean)} or {@link #onCancelled()}.
+   */
+  boolean tryAcquire() {
+    if (!policy.isEnabled()) {
+      return true;
+    }
+
+    CircuitState from;
+    synchronized (this) {
+      from = state;
+      switch (state) {
+        case CLOSED:
+          return true;
+        case HALF_OPEN:
+          if (trialPermits > 0) {
+            trialPermits--;
+            return true;
+          }
+          return false;
+        default:
+          if (System.nanoTime() - openedAt < openNanos) {
+            return false;
+          }
+          state = CircuitState.HALF_OPEN;
+          trialPermits = policy.halfOpenCalls() - 1;
+          trialSuccesses = 0;
+      }
+    }
+
+    transitioned(from, CircuitState.HALF_OPEN);
+    return true;
+  }
+
+  /**
+   * Records the outcome of a request sent with a permit.
+   *
+   * @param latencyNanos the time the request took.
+   * @param failed true if the request failed in a way that points to the node itself being unavailable.
+   */
+  void onResult(long latencyNanos, boolean failed) {
+    if (!policy.isEnabled()) {
+      return;
+    }
+
+    boolean isSlow = latencyNanos >= slowCallNanos;
+    CircuitState from;
+    CircuitState to;
+    synchronized (this) {
+      from = state;
+      switch (state) {
+        case CLOSED:
+          record((byte) ((failed ? FAILED : 0) | (isSlow ? SLOW : 0)));
+          to = isTripped() ? CircuitState.OPEN : CircuitState.CLOSED;
+          break;
+        case HALF_OPEN:
+          if (failed || isSlow) {
+            to = CircuitState.OPEN;
+          } else if (++trialSuccesses >= policy.halfOpenCalls()) {
+            to = CircuitState.CLOSED;
+          } else {
+            to = CircuitState.HALF_OPEN;
+          }
+          break;
+        default:
+          to = CircuitState.OPEN;
+      }
+
+      if (from == to) {
+        return;
+      }
+
+      state = to;
+      if (to == CircuitState.OPEN) {
+        openedAt = System.nanoTime();
+      }
+      reset();
+    }
+
+    transitioned(from, to);
+  }
+
+  /**
+   * Gives back a permit without recording an outcome, as for a request that was never sent or was cancelled.
+   */
+  synchronized void onCancelled() {
+    if (state == CircuitState.HALF_OPEN && trialPermits + trialSuccesses < policy.halfOpenCalls()) {
+      trialPermits++;
+    }
+  }
+
+  private void record(byte outcome) {
+    if (recorded == window.length) {
+      byte evicted = window[next];
+      if ((evicted & FAILED) != 0) failed--;
+      if ((evicted & SLOW) != 0) slow--;
+    } else {
+      recorded++;
+    }
+
+    window[next] = outcome;
+    next = (next + 1) % window.length;
+    if ((outcome & FAILED) != 0) failed++;
+    if ((outcome & SLOW) != 0) slow++;
+  }
+
+  private boolean isTripped() {
+    return recorded >= policy.minimumCalls() &&
+      ((double) failed / recorded >= policy.failureRateThreshold() ||
+        (double) slow / recorded >= policy.slowCallRateThreshold());
+  }
+
+  private void reset() {
+    next = 0;
+    recorded = 0;
+    failed = 0;
+    slow = 0;
+    trialPermits = 0;
+    trialSuccesses = 0;
+  }
+
+  private void transitioned(CircuitState from, CircuitState to) {
+    metrics.meter("fauna-endpoint", endpoint, metricName(to)).mark();
+
+    if (to == CircuitState.OPEN) {
+      log.warn("Opened the circuit breaker for FaunaDB endpoint " + endpoint + ".");
+    } else {
+      log.info("Circuit breaker for FaunaDB endpoint " + endpoint + " is now " + to + ".");
+    }
+
+    if (listener != null) {
+      try {
+        listener.onStateChange(endpoint, from, to);
+      } catch (RuntimeException ex) {
+        log.warn("Circuit breaker listener failed.", ex);
+      }
+    }
+  }
+
+  private static String metricName(CircuitState to) {
+    switch (to) {
+      case OPEN:
+        return "circuit-opened";
+      case HALF_OPEN:
+        return "circuit-half-opened";
+      default:
+        return "circuit-closed";
+    }
+  }
+}
@@ -0,0 +1,20 @@
+package com.faunadb.common;
+
+/**
+ * Receives the state changes of the circuit breakers of a {@link Connection}.
+ *
+ * <p>Callbacks run on whichever thread caused the change, which may be an I/O thread, so they must return quickly
+ * and must not block.
+ *
+ * @see Connection.Builder#withCircuitBreakerListener(CircuitBreakerListener)
+ */
+public interface CircuitBreakerListener {
+  /**
+   * Called when the circuit breaker of a node changes state.
+   *
+   * @param endpoint the node, as {@code host:port}.
+   * @param from the previous state.
+   * @param to the new state.
+   */
+  void onStateChange(String endpoint, CircuitState from, CircuitState to);
+}
@@ -0,0 +1,161 @@
+package com.faunadb.common;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Controls the circuit breaker that a {@link Connection} keeps for each FaunaDB node.
+ *
+ * <p>While a breaker is {@link CircuitState#CLOSED closed}, the outcomes of the most recent {@code windowSize}
+ * requests to its node are recorded. Once at least {@code minimumCalls} have been, the breaker opens if the fraction
+ * that failed reaches the failure rate threshold, or if the fraction slower than the slow call duration reaches the
+ * slow call rate threshold. Only connection failures, timeouts and {@code 502}, {@code 503} and {@code 504} responses
+ * count as failures.
+ *
+ * <p>While a breaker is {@link CircuitState#OPEN open}, no requests are sent to its node. A request with nowhere else
+ * to go fails immediately with a {@link CircuitOpenException}, rather than waiting on a node that is known to be
+ * struggling. Once the open duration has passed the breaker becomes {@link CircuitState#HALF_OPEN half-open}, and lets
+ * {@code halfOpenCalls} trial requests through. If they all succeed promptly it closes again, and if any fails or is
+ * slow it opens again.
+ *
+ * <p>Instances are immutable. The {@code withX} methods each return a copy.
+ *
+ * @see Connection.Builder#withCircuitBreakerPolicy(CircuitBreakerPolicy)
+ */
+public final class CircuitBreakerPolicy {
+  /**
+   * Opens after half of the last 100 requests, and at least 20, failed, or 80% took longer than 10s. Stays open for
+   * 5s, then sends 3 trial requests.
+   */
+  public static final CircuitBreakerPolicy DEFAULT = new CircuitBreakerPolicy(true, 100, 20, 0.5, 0.8,
+    TimeUnit.SECONDS.toMillis(10), TimeUnit.SECONDS.toMillis(5), 3);
+
+  /**
+   * Never opens.
+   */
+  public static final CircuitBreakerPolicy NONE = new CircuitBreakerPolicy(false, 100, 20, 0.5, 0.8,
+    TimeUnit.SECONDS.toMillis(10), TimeUnit.SECONDS.toMillis(5), 3);
+
+  private final boolean enabled;
+  private final int windowSize;
+  private final int minimumCalls;
+  private final double failureRateThreshold;
+  private final double slowCallRateThreshold;
+  private final long slowCallDurationMs;
+  private final long openDurationMs;
+  private final int halfOpenCalls;
+
+  CircuitBreakerPolicy(boolean enabled, int windowSize, int minimumCalls, double failureRateThreshold,
+                       double slowCallRateThreshold, long slowCallDurationMs, long openDurationMs, int halfOpenCalls) {
+    this.enabled = enabled;
+    this.windowSize = windowSize;
+    this.minimumCalls = minimumCalls;
+    this.failureRateThreshold = failureRateThreshold;
+    this.slowCallRateThreshold = slowCallRateThreshold;
+    this.slowCallDurationMs = slowCallDurationMs;
+    this.openDurationMs = openDurationMs;
+    this.halfOpenCalls = halfOpenCalls;
+  }
+
+  /**
+   * Returns a copy of this with the number of requests the rates are computed over set.
+   * @param windowSize the number of most recent requests whose outcomes are recorded.
+   * @param minimumCalls the number of requests that must be recorded before the breaker can open.
+   */
+  public CircuitBreakerPolicy withWindow(int windowSize, int minimumCalls) {
+    if (windowSize < 1 || minimumCalls < 1 || minimumCalls > windowSize) {
+      throw new IllegalArgumentException("Circuit breaker windows must satisfy 1 <= minimumCalls <= windowSize.");
+    }
+    return new CircuitBreakerPolicy(enabled, windowSize, minimumCalls, failureRateThreshold, slowCallRateThreshold,
+      slowCallDurationMs, openDurationMs, halfOpenCalls);
+  }
+
+  /**
+   * Returns a copy of this with the failure rate at which the breaker opens set.
+   * @param rate the fraction of failed requests, between 0 and 1.
+   */
+  public CircuitBreakerPolicy withFailureRateThreshold(double rate) {
+    checkRate(rate);
+    return new CircuitBreakerPolicy(enabled, windowSize, minimumCalls, rate, slowCallRateThreshold,
+      slowCallDurationMs, openDurationMs, halfOpenCalls);
+  }
+
+  /**
+   * Returns a copy of this with the slow call rate at which the breaker opens set.
+   * @param rate the fraction of slow requests, between 0 and 1.
+   * @param duration the time after which a request counts as slow, whether or not it succeeds.
+   * @param unit the unit of {@code duration}.
+   */
+  public CircuitBreakerPolicy withSlowCallThreshold(double rate, long duration, TimeUnit unit) {
+    checkRate(rate);
+    return new CircuitBreakerPolicy(enabled, windowSize, minimumCalls, failureRateThreshold, rate,
+      unit.toMillis(duration), openDurationMs, halfOpenCalls);
+  }
+
+  /**
+   * Returns a copy of this with the time the breaker stays open before sending trial requests set.
+   * @param duration the time the breaker stays open.
+   * @param unit the unit of {@code duration}.
+   */
+  public CircuitBreakerPolicy withOpenDuration(long duration, TimeUnit unit) {
+    return new CircuitBreakerPolicy(enabled, windowSize, minimumCalls, failureRateThreshold, slowCallRateThreshold,
+      slowCallDurationMs, unit.toMillis(duration), halfOpenCalls);
+  }
+
+  /**
+   * Returns a copy of this with the number of trial requests sent while half-open set.
+   * @param calls the number of trial requests that must succeed for the breaker to close.
+   */
+  public CircuitBreakerPolicy withHalfOpenCalls(int calls) {
+    if (calls < 1) {
+      throw new IllegalArgumentException("At least one half-open call is required.");
+    }
+    return new CircuitBreakerPolicy(enabled, windowSize, minimumCalls, failureRateThreshold, slowCallRateThreshold,
+      slowCallDurationMs, openDurationMs, calls);
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public int windowSize() {
+    return windowSize;
+  }
+
+  public int minimumCalls() {
+    return minimumCalls;
+  }
+
+  public double failureRateThreshold() {
+    return failureRateThreshold;
+  }
+
+  public double slowCallRateThreshold() {
+    return slowCallRateThreshold;
+  }
+
+  public long slowCallDurationMs() {
+    return slowCallDurationMs;
+  }
+
+  public long openDurationMs() {
+    return openDurationMs;
+  }
+
+  public int halfOpenCalls() {
+    return halfOpenCalls;
+  }
+
+  private static void checkRate(double rate) {
+    if (rate <= 0 || rate > 1) {
+      throw new IllegalArgumentException("Circuit breaker thresholds must be greater than 0 and at most 1.");
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "CircuitBreakerPolicy(enabled=" + enabled + ", windowSize=" + windowSize + ", minimumCalls=" +
+      minimumCalls + ", failureRateThreshold=" + failureRateThreshold + ", slowCallRateThreshold=" +
+      slowCallRateThreshold + ", slowCallDurationMs=" + slowCallDurationMs + ", openDurationMs=" + openDurationMs +
+      ", halfOpenCalls=" + halfOpenCalls + ")";
+  }
+}
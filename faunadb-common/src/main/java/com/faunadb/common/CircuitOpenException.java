@@ -0,0 +1,13 @@
+package com.faunadb.common;
+
+/**
+ * Signals that a {@link Connection} failed a request without sending it, because the circuit breaker of every node it
+ * could have been sent to is open.
+ *
+ * @see CircuitBreakerPolicy
+ */
+public class CircuitOpenException extends RequestRejectedException {
+  public CircuitOpenException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,23 @@
+package com.faunadb.common;
+
+/**
+ * The state of the circuit breaker guarding a FaunaDB node.
+ *
+ * @see CircuitBreakerPolicy
+ */
+public enum CircuitState {
+  /**
+   * Requests flow normally, and their outcomes are recorded.
+   */
+  CLOSED,
+
+  /**
+   * The node has failed or slowed down too often. No requests are sent to it until the open duration has passed.
+   */
+  OPEN,
+
+  /**
+   * The open duration has passed, and a few trial requests are being sent to find out whether the node has recovered.
+   */
+  HALF_OPEN
+}
@@ -0,0 +1,134 @@
+package com.faunadb.common;
+
+import java.util.zip.Deflater;
+
+/**
+ * Controls how a {@link Connection} compresses request bodies, and whether it asks for compressed responses.
+ *
+ * <p>Request bodies longer than the threshold are compressed before they are first sent, streaming from the encoded
+ * body into pooled buffers, and are sent with a {@code Content-Encoding} header. Retries and hedges reuse the
+ * compressed body. Shorter bodies are sent as is, since the saving would not pay for the extra work.
+ *
+ * <p>If response compression is accepted, requests carry an {@code Accept-Encoding: gzip, deflate} header, and
+ * compressed responses are decompressed by the transport before they are parsed.
+ *
+ * <p>The sizes of request bodies before and after compression are counted by {@code fauna-request-body-bytes} and
+ * {@code fauna-request-body-wire-bytes}, and the size of decoded response bodies by
+ * {@code fauna-response-body-bytes}. Instances are immutable. The {@code withX} methods each return a copy.
+ *
+ * @see Connection.Builder#withCompressionPolicy(CompressionPolicy)
+ */
+public final class CompressionPolicy {
+  /**
+   * The encodings that request bodies may be compressed with.
+   */
+  public enum Encoding {
+    GZIP("gzip"),
+    DEFLATE("deflate");
+
+    private final String header;
+
+    Encoding(String header) {
+      this.header = header;
+    }
+
+    /**
+     * Returns the name of this encoding, as used in {@code Content-Encoding} headers.
+     */
+    public String header() {
+      return header;
+    }
+  }
+
+  static final String ACCEPT_ENCODING = "gzip, deflate";
+
+  /**
+   * Never compresses requests, and does not ask for compressed responses. This is the default for a
+   * {@link Connection}.
+   */
+  public static final CompressionPolicy NONE = new CompressionPolicy(null, Integer.MAX_VALUE, Deflater.DEFAULT_COMPRESSION, false);
+
+  /**
+   * Compresses request bodies longer than 4KB with gzip, and accepts compressed responses.
+   */
+  public static final CompressionPolicy GZIP = new CompressionPolicy(Encoding.GZIP, 4096, Deflater.DEFAULT_COMPRESSION, true);
+
+  /**
+   * Compresses request bodies longer than 4KB with deflate, and accepts compressed responses.
+   */
+  public static final CompressionPolicy DEFLATE = new CompressionPolicy(Encoding.DEFLATE, 4096, Deflater.DEFAULT_COMPRESSION, true);
+
+  private final Encoding encoding;
+  private final int thresholdBytes;
+  private final int level;
+  private final boolean acceptCompressedResponses;
+
+  CompressionPolicy(Encoding encoding, int thresholdBytes, int level, boolean acceptCompressedResponses) {
+    this.encoding = encoding;
+    this.thresholdBytes = thresholdBytes;
+    this.level = level;
+    this.acceptCompressedResponses = acceptCompressedResponses;
+  }
+
+  /**
+   * Returns a copy of this with the size above which request bodies are compressed set.
+   * @param bytes the threshold, in bytes.
+   */
+  public CompressionPolicy withThreshold(int bytes) {
+    if (bytes < 0) {
+      throw new IllegalArgumentException("The compression threshold cannot be negative.");
+    }
+    return new CompressionPolicy(encoding, bytes, level, acceptCompressedResponses);
+  }
+
+  /**
+   * Returns a copy of this with the compression level set.
+   * @param level the level, from 1 for the fastest to 9 for the smallest output.
+   */
+  public CompressionPolicy withLevel(int level) {
+    if (level < Deflater.BEST_SPEED || level > Deflater.BEST_COMPRESSION) {
+      throw new IllegalArgumentException("The compression level must be between 1 and 9.");
+    }
+    return new CompressionPolicy(encoding, thresholdBytes, level, acceptCompressedResponses);
+  }
+
+  /**
+   * Returns a copy of this that does or does not ask for compressed responses.
+   * @param accept true to send an {@code Accept-Encoding} header with each request.
+   */
+  public CompressionPolicy withCompressedResponses(boolean accept) {
+    return new CompressionPolicy(encoding, thresholdBytes, level, accept);
+  }
+
+  /**
+   * Returns the encoding used for request bodies, or null if they are never compressed.
+   */
+  public Encoding encoding() {
+    return encoding;
+  }
+
+  public int thresholdBytes() {
+    return thresholdBytes;
+  }
+
+  public int level() {
+    return level;
+  }
+
+  public boolean acceptsCompressedResponses() {
+    return acceptCompressedResponses;
+  }
+
+  /**
+   * Returns true if a request body of {@code length} bytes should be compressed.
+   */
+  boolean shouldCompress(int length) {
+    return encoding != null && length > thresholdBytes;
+  }
+
+  @Override
+  public String toString() {
+    return "CompressionPolicy(encoding=" + encoding + ", thresholdBytes=" + thresholdBytes + ", level=" + level +
+      ", acceptCompressedResponses=" + acceptCompressedResponses + ")";
+  }
+}
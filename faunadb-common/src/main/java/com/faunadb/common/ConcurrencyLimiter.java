@@ -0,0 +1,218 @@
+package com.faunadb.common;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * Limits the number of requests a {@link Connection} has in flight, following a {@link ConcurrencyPolicy}.
+ *
+ * <p>The limit is adjusted after every completed request by comparing a short-term average of round trip times with
+ * a long-term one. Their ratio, multiplied by a tolerance and clamped to {@code [0.5, 1]}, scales the limit, and a
+ * headroom of {@code sqrt(limit)} is added so that the limit can grow while latency stays flat. The change is
+ * smoothed, and ignored while fewer than half the permitted requests are in flight, since the limit is then not what
+ * holds throughput back. A dropped request, such as one that timed out, cuts the limit by a tenth.
+ *
+ * <p>If the long-term average falls far behind, as after a sustained change in FaunaDB's baseline latency, it is
+ * pulled towards the short-term one so that the limit does not stay pinned at its minimum.
+ *
+ * <p>Queued requests are run on the thread that frees their slot. A request that fails as soon as it runs frees its
+ * slot again straight away, so requests freed while others are being run on the same thread are added to those
+ * rather than run from within them. Draining a long queue of such requests thus takes a loop rather than a stack
+ * frame for each of them.
+ */
+final class ConcurrencyLimiter {
+  enum Admission { ACQUIRED, QUEUED, REJECTED }
+
+  private static final double TOLERANCE = 1.5;
+  private static final double SMOOTHING = 0.2;
+  private static final double BACKOFF = 0.9;
+  private static final int SHORT_WINDOW = 10;
+  private static final int LONG_WINDOW = 500;
+
+  private final ConcurrencyPolicy policy;
+  private final Queue<Runnable> queue = new ArrayDeque<>();
+  private final ThreadLocal<Queue<Runnable>> running = new ThreadLocal<>();
+  private final Meter rejections;
+
+  private double limit;
+  private int inFlight = 0;
+  private double shortRtt = 0;
+  private double longRtt = 0;
+
+  ConcurrencyLimiter(ConcurrencyPolicy policy, ConnectionMetrics metrics, RegisteredMetrics gauges) {
+    this.policy = policy;
+    this.limit = policy.initialLimit();
+    this.rejections = metrics.meter("fauna-concurrency", "rejections");
+
+    if (policy.isEnabled()) {
+      gauges.register(metrics.name("fauna-concurrency", "limit"), new Gauge<Integer>() {
+        @Override
+        public Integer getValue() {
+          return limit();
+        }
+      });
+
+      gauges.register(metrics.name("fauna-concurrency", "in-flight"), new Gauge<Integer>() {
+        @Override
+        public Integer getValue() {
+          return inFlight();
+        }
+      });
+
+      gauges.register(metrics.name("fauna-concurrency", "queue-depth"), new Gauge<Integer>() {
+        @Override
+        public Integer getValue() {
+          return queueDepth();
+        }
+      });
+    }
+  }
+
+  synchronized int limit() {
+    return (int) limit;
+  }
+
+  synchronized int inFlight() {
+    return inFlight;
+  }
+
+  synchronized int queueDepth() {
+    return queue.size();
+  }
+
+  /**
+   * Takes a slot if one is free.
+   */
+  boolean tryAcquire() {
+    if (!policy.isEnabled()) {
+      return true;
+    }
+
+    synchronized (this) {
+      if (inFlight < (int) limit) {
+        inFlight++;
+        return true;
+      }
+      return false;
+    }
+  }
+
+  /**
+   * Takes a slot if one is free. Otherwise, queues {@code task} to be run once a slot has been handed to it, or
+   * rejects it if the queue is full.
+   */
+  Admission acquire(Runnable task) {
+    if (tryAcquire()) {
+      return Admission.ACQUIRED;
+    }
+
+    synchronized (this) {
+      if (queue.size() < policy.maxQueue()) {
+        queue.add(task);
+        return Admission.QUEUED;
+      }
+    }
+
+    rejections.mark();
+    return Admission.REJECTED;
+  }
+
+  /**
+   * Gives back a slot without recording a sample, as for a request that was never sent or was cancelled.
+   */
+  void release() {
+    if (policy.isEnabled()) {
+      List<Runnable> ready;
+      synchronized (this) {
+        inFlight--;
+        ready = drain();
+      }
+      run(ready);
+    }
+  }
+
+  /**
+   * Gives back a slot, and adjusts the limit using the request's outcome.
+   *
+   * @param rttNanos the round trip time of the request.
+   * @param dropped true if the request timed out or was turned away by an overloaded server.
+   */
+  void release(long rttNanos, boolean dropped) {
+    if (policy.isEnabled()) {
+      List<Runnable> ready;
+      synchronized (this) {
+        update(rttNanos, dropped);
+        inFlight--;
+        ready = drain();
+      }
+      run(ready);
+    }
+  }
+
+  private void update(long rttNanos, boolean dropped) {
+    if (dropped) {
+      limit = Math.max(policy.minLimit(), limit * BACKOFF);
+      return;
+    }
+
+    shortRtt = shortRtt == 0 ? rttNanos : shortRtt + (rttNanos - shortRtt) / SHORT_WINDOW;
+    longRtt = longRtt == 0 ? rttNanos : longRtt + (rttNanos - longRtt) / LONG_WINDOW;
+
+    if (longRtt / shortRtt > 2) {
+      longRtt *= 0.95;
+    }
+
+    if (inFlight < limit / 2) {
+      return;
+    }
+
+    double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / shortRtt));
+    double target = limit * gradient + Math.sqrt(limit);
+    double next = limit * (1 - SMOOTHING) + target * SMOOTHING;
+    limit = Math.max(policy.minLimit(), Math.min(policy.maxLimit(), next));
+  }
+
+  private List<Runnable> drain() {
+    List<Runnable> ready = null;
+    while (inFlight < (int) limit && !queue.isEmpty()) {
+      if (ready == null) {
+        ready = new ArrayList<>();
+      }
+      inFlight++;
+      ready.add(queue.poll());
+    }
+    return ready;
+  }
+
+  /**
+   * Runs requests that have been handed a slot, unless this thread is already running others, in which case they are
+   * run after those.
+   */
+  private void run(List<Runnable> ready) {
+    if (ready == null) {
+      return;
+    }
+
+    Queue<Runnable> tasks = running.get();
+    if (tasks != null) {
+      tasks.addAll(ready);
+      return;
+    }
+
+    tasks = new ArrayDeque<>(ready);
+    running.set(tasks);
+    try {
+      Runnable task;
+      while ((task = tasks.poll()) != null) {
+        task.run();
+      }
+    } finally {
+      running.remove();
+    }
+  }
+}
@@ -0,0 +1,97 @@
+package com.faunadb.common;
+
+/**
+ * Controls how many requests a {@link Connection} may have in flight at once.
+ *
+ * <p>The limit adapts to the latency FaunaDB is showing. While recent round trips are about as fast as the long-term
+ * average, the limit grows; as they slow down, which is a sign that requests are queueing somewhere, it shrinks. A
+ * timeout or a {@code 503} response cuts it immediately. The limit always stays between the minimum and the maximum.
+ *
+ * <p>Requests over the limit wait in a queue, in the order they were issued, until a request in flight completes.
+ * Once the queue is full, further requests fail immediately with a {@link RequestRejectedException} rather than
+ * adding to the backlog.
+ *
+ * <p>Connections have no limit unless they are given one: a limit that is too low for an application's workload would
+ * hold back its requests for no gain.
+ *
+ * <p>Instances are immutable. The {@code withX} methods each return a copy.
+ *
+ * @see Connection.Builder#withConcurrencyPolicy(ConcurrencyPolicy)
+ */
+public final class ConcurrencyPolicy {
+  /**
+   * Starts at 20 requests in flight, adapts between 4 and 1000, and queues up to 1000 more. An application that
+   * issues more than 20 requests at once will see the excess queued until the limit has grown.
+   */
+  public static final ConcurrencyPolicy DEFAULT = new ConcurrencyPolicy(true, 20, 4, 1000, 1000);
+
+  /**
+   * Sends every request immediately, however many are in flight. This is the default.
+   */
+  public static final ConcurrencyPolicy NONE = new ConcurrencyPolicy(false, 0, 0, 0, 0);
+
+  private final boolean enabled;
+  private final int initialLimit;
+  private final int minLimit;
+  private final int maxLimit;
+  private final int maxQueue;
+
+  ConcurrencyPolicy(boolean enabled, int initialLimit, int minLimit, int maxLimit, int maxQueue) {
+    this.enabled = enabled;
+    this.initialLimit = initialLimit;
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.maxQueue = maxQueue;
+  }
+
+  /**
+   * Returns a copy of this with the bounds of the limit set.
+   * @param initial the limit to start with.
+   * @param min the smallest the limit may become.
+   * @param max the largest the limit may become.
+   */
+  public ConcurrencyPolicy withLimits(int initial, int min, int max) {
+    if (min < 1 || initial < min || max < initial) {
+      throw new IllegalArgumentException("Concurrency limits must satisfy 1 <= min <= initial <= max.");
+    }
+    return new ConcurrencyPolicy(true, initial, min, max, maxQueue);
+  }
+
+  /**
+   * Returns a copy of this with the length of the queue set.
+   * @param requests the number of requests that may wait for a slot. With 0, requests over the limit are rejected
+   *                 immediately.
+   */
+  public ConcurrencyPolicy withMaxQueue(int requests) {
+    if (requests < 0) {
+      throw new IllegalArgumentException("The queue length cannot be negative.");
+    }
+    return new ConcurrencyPolicy(enabled, initialLimit, minLimit, maxLimit, requests);
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public int initialLimit() {
+    return initialLimit;
+  }
+
+  public int minLimit() {
+    return minLimit;
+  }
+
+  public int maxLimit() {
+    return maxLimit;
+  }
+
+  public int maxQueue() {
+    return maxQueue;
+  }
+
+  @Override
+  public String toString() {
+    return "ConcurrencyPolicy(enabled=" + enabled + ", initialLimit=" + initialLimit + ", minLimit=" + minLimit +
+      ", maxLimit=" + maxLimit + ", maxQueue=" + maxQueue + ")";
+  }
+}
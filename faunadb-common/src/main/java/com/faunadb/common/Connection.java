@@ -1,36 +1,127 @@
 package com.faunadb.common;
 
 import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Snapshot;
 import com.codahale.metrics.Timer;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.TimerTask;
 import org.asynchttpclient.*;
 import org.asynchttpclient.util.Base64;
+import org.asynchttpclient.util.Utf8UrlEncoder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
+import java.net.ConnectException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * The HTTP Connection adapter for FaunaDB clients.
  *
  * <p>Relies on <a href="https://github.com/AsyncHttpClient/async-http-client">async-http-client</a>
- * for the underlying implementation.
+ * for the underlying implementation by default. Another HTTP implementation can be plugged in as a {@link Transport}.
+ *
+ * <p>A connection may be given the roots of several FaunaDB nodes, in which case each request is sent to the node
+ * that is expected to answer it soonest, based on its recent latency and number of requests in flight. Nodes that
+ * fail repeatedly are ejected until a background probe finds them healthy again. The state of each node is reported
+ * to the connection's {@link MetricRegistry} under {@code fauna-endpoint.<host>:<port>}, along with the latency,
+ * status codes, errors, body sizes and connection timings of the requests sent to it.
+ *
+ * <p>Requests that fail transiently are retried according to the connection's {@link RetryPolicy}, possibly on a
+ * different node. Requests that allow it may also be hedged, according to the connection's {@link HedgePolicy}. The
+ * encoded request body is reused for each attempt.
+ *
+ * <p>Each node also has a circuit breaker, set by the connection's {@link CircuitBreakerPolicy}. While a node's
+ * breaker is open no requests are sent to it, and a request with no other node to go to fails immediately with a
+ * {@link CircuitOpenException}. Breaker states are reported under {@code fauna-endpoint.<host>:<port>.circuit-state},
+ * and changes are passed to the connection's {@link CircuitBreakerListener}, if it has one.
+ *
+ * <p>The number of requests in flight may be capped by an adaptive limit, set by the connection's
+ * {@link ConcurrencyPolicy}. There is no limit unless one is set. Requests over the limit are queued, and once the
+ * queue is full they fail with a {@link RequestRejectedException}. The limit, the number in flight and the queue depth
+ * are reported under {@code fauna-concurrency}.
+ *
+ * <p>A request may be given a deadline with {@link RequestOptions#withDeadline(long, TimeUnit)}. Whatever remains of
+ * it is used as the timeout of each attempt, a request still queued when it passes is dropped without being sent,
+ * and the request then fails with a {@link DeadlineExceededException}.
+ *
+ * <p>Request bodies may be compressed, and compressed responses accepted, according to the connection's
+ * {@link CompressionPolicy}.
+ *
+ * <p>Slow, sampled and failed requests are logged according to the connection's {@link RequestLogPolicy}, from a
+ * background thread.
+ *
+ * <p>A connection may open connections to each node as soon as it is built, and keep them open while idle,
+ * according to its {@link WarmPoolPolicy}. {@link #warmed()} tells when the first ones are open.
+ *
+ * <p>{@link #newSessionConnection(String)} returns a connection that sends requests under a different secret but
+ * shares everything else with the one it was created from, including its transport and connection pool. A service
+ * acting for many tenants can use one connection per tenant without opening more threads or sockets.
+ *
+ * <p>A connection may be given a {@link RequestListener}, which is told as each request reaches each
+ * {@link RequestPhase}, from encoding its body to the client decoding its response.
+ *
+ * <p>Latency timers and size histograms keep a log-linear histogram of recent values, so their percentiles hold up in
+ * the tail. A connection may be given a metrics namespace to prefix the names of all its metrics, so that several
+ * connections can share one {@link MetricRegistry}.
+ *
+ * <p>Response bodies are kept as the parts they arrived in. Prefer {@link Response#getResponseBodyAsStream()} to
+ * the {@code String} accessors when parsing them.
  */
 
 public class Connection {
   static final int DEFAULT_CONNECTION_TIMEOUT_MS = 10000;
   static final int DEFAULT_REQUEST_TIMEOUT_MS = 60000;
   static final int DEFAULT_IDLE_TIMEOUT_MS = 4750;
+  static final int DEFAULT_CHUNKED_THRESHOLD_BYTES = 1024 * 1024;
+  static final int DEFAULT_EJECTION_THRESHOLD = 3;
+  static final long DEFAULT_PROBE_INTERVAL_MS = 1000;
+
+  private static final long HEDGE_DELAY_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+  private static final int HEDGE_MIN_SAMPLES = 100;
+
+  /**
+   * Schedules retries and endpoint probes for all connections. Its thread is only started once first needed.
+   */
+  static final HashedWheelTimer TIMER = new HashedWheelTimer(
+    new ThreadFactoryBuilder().setDaemon(true).setNameFormat("fauna-connection-timer-%d").build(),
+    10, TimeUnit.MILLISECONDS);
+
+  /**
+   * Encodes a request body directly into the buffers that will be sent over the wire.
+   *
+   * <p>Implementations should write the complete body to {@code out} and return. The stream does not need to be
+   * closed by the writer.
+   */
+  public interface BodyWriter {
+    void writeTo(OutputStream out) throws IOException;
+  }
 
   /**
    * Returns a new {@link Connection.Builder}.
@@ -44,10 +135,24 @@ public class Connection {
    * an instance of this builder.
    */
   public static class Builder {
-    private URL faunaRoot;
+    private ImmutableList<URL> faunaRoots;
     private String authToken;
     private AsyncHttpClient client;
+    private Transport transport;
     private MetricRegistry metricRegistry;
+    private String metricsNamespace;
+    private int chunkedThreshold = DEFAULT_CHUNKED_THRESHOLD_BYTES;
+    private int ejectionThreshold = DEFAULT_EJECTION_THRESHOLD;
+    private long probeIntervalMs = DEFAULT_PROBE_INTERVAL_MS;
+    private RetryPolicy retryPolicy = RetryPolicy.DEFAULT;
+    private HedgePolicy hedgePolicy = HedgePolicy.NONE;
+    private ConcurrencyPolicy concurrencyPolicy = ConcurrencyPolicy.NONE;
+    private CircuitBreakerPolicy circuitBreakerPolicy = CircuitBreakerPolicy.DEFAULT;
+    private CircuitBreakerListener circuitBreakerListener;
+    private CompressionPolicy compressionPolicy = CompressionPolicy.NONE;
+    private RequestLogPolicy requestLogPolicy = RequestLogPolicy.DEFAULT;
+    private RequestListener requestListener;
+    private WarmPoolPolicy warmPoolPolicy = WarmPoolPolicy.NONE;
 
     private Builder() {
     }
@@ -60,8 +165,7 @@ public class Connection {
      * @throws MalformedURLException if {@code root} is not RFC 2396.
      */
     public Builder withFaunaRoot(String root) throws MalformedURLException {
-      this.faunaRoot = new URL(root);
-      return this;
+      return withFaunaRoot(new URL(root));
     }
 
     /**
@@ -71,7 +175,37 @@ public class Connection {
      * @return this {@link Builder} object
      */
     public Builder withFaunaRoot(URL root) {
-      this.faunaRoot = root;
+      this.faunaRoots = ImmutableList.of(root);
+      return this;
+    }
+
+    /**
+     * Sets the root URLs of the FaunaDB nodes that the built {@link Connection} will balance requests across.
+     *
+     * @param roots the root URLs, as RFC 2396 formatted strings.
+     * @return this {@link Builder} object
+     * @throws MalformedURLException if any of {@code roots} is not RFC 2396.
+     */
+    public Builder withFaunaRoots(String... roots) throws MalformedURLException {
+      ImmutableList.Builder<URL> urls = ImmutableList.builder();
+      for (String root : roots) {
+        urls.add(new URL(root));
+      }
+      return withFaunaRoots(urls.build());
+    }
+
+    /**
+     * Sets the root URLs of the FaunaDB nodes that the built {@link Connection} will balance requests across.
+     *
+     * @param roots the root URLs
+     * @return this {@link Builder} object
+     */
+    public Builder withFaunaRoots(Iterable<URL> roots) {
+      ImmutableList<URL> urls = ImmutableList.copyOf(roots);
+      if (urls.isEmpty()) {
+        throw new IllegalArgumentException("At least one FaunaDB root is required.");
+      }
+      this.faunaRoots = urls;
       return this;
     }
 
@@ -99,6 +233,18 @@ public class Connection {
       return this;
     }
 
+    /**
+     * Sets a custom {@link Transport} that the built {@link Connection} will send its requests through, in place of
+     * an {@link AsyncHttpClient}. Takes precedence over {@link #withHttpClient(AsyncHttpClient)}.
+     *
+     * @param transport the transport.
+     * @return this {@link Builder} object
+     */
+    public Builder withTransport(Transport transport) {
+      this.transport = transport;
+      return this;
+    }
+
     /**
      * Sets a {@link MetricRegistry} that the {@link Connection} will use to register and track Connection-level statistics.
      * @param registry the MetricRegistry instance.
@@ -110,6 +256,165 @@ public class Connection {
       return this;
     }
 
+    /**
+     * Sets a prefix for the names of all the metrics the built {@link Connection} registers, so that several
+     * connections can share one {@link MetricRegistry} without their metrics being merged.
+     *
+     * @param namespace the prefix, such as {@code "orders-db"}. Null or empty for none, the default.
+     * @return this {@link Builder} object
+     */
+    public Builder withMetricsNamespace(String namespace) {
+      this.metricsNamespace = namespace;
+      return this;
+    }
+
+    /**
+     * Sets the size above which request bodies produced by a {@link BodyWriter} are sent using chunked transfer
+     * encoding, rather than with a {@code Content-Length} header.
+     *
+     * @param bytes the threshold, in bytes.
+     * @return this {@link Builder} object
+     */
+    public Builder withChunkedThreshold(int bytes) {
+      this.chunkedThreshold = bytes;
+      return this;
+    }
+
+    /**
+     * Sets the number of consecutive failed requests after which a node is ejected from a multi-node
+     * {@link Connection}. Only connection failures, timeouts and {@code 502}, {@code 503} and {@code 504} responses
+     * count as failures.
+     *
+     * @param failures the number of consecutive failures.
+     * @return this {@link Builder} object
+     */
+    public Builder withEjectionThreshold(int failures) {
+      this.ejectionThreshold = failures;
+      return this;
+    }
+
+    /**
+     * Sets how often an ejected node is probed to see whether it can be re-admitted.
+     *
+     * @param interval the time between probes.
+     * @param unit the unit of {@code interval}.
+     * @return this {@link Builder} object
+     */
+    public Builder withProbeInterval(long interval, TimeUnit unit) {
+      this.probeIntervalMs = unit.toMillis(interval);
+      return this;
+    }
+
+    /**
+     * Sets the {@link RetryPolicy} that the built {@link Connection} will use to retry requests that fail transiently.
+     * Defaults to {@link RetryPolicy#DEFAULT}.
+     *
+     * @param policy the retry policy. Use {@link RetryPolicy#NONE} to disable retries.
+     * @return this {@link Builder} object
+     */
+    public Builder withRetryPolicy(RetryPolicy policy) {
+      this.retryPolicy = policy;
+      return this;
+    }
+
+    /**
+     * Sets the {@link HedgePolicy} that the built {@link Connection} will use for requests that allow hedging.
+     * Defaults to {@link HedgePolicy#NONE}.
+     *
+     * @param policy the hedge policy. Use {@link HedgePolicy#DEFAULT} to enable hedging.
+     * @return this {@link Builder} object
+     * @see RequestOptions#withHedging(boolean)
+     */
+    public Builder withHedgePolicy(HedgePolicy policy) {
+      this.hedgePolicy = policy;
+      return this;
+    }
+
+    /**
+     * Sets the {@link ConcurrencyPolicy} that the built {@link Connection} will use to limit the number of requests
+     * in flight. Defaults to {@link ConcurrencyPolicy#NONE}, which sends every request immediately.
+     *
+     * @param policy the concurrency policy. Use {@link ConcurrencyPolicy#DEFAULT} to enable an adaptive limit.
+     * @return this {@link Builder} object
+     */
+    public Builder withConcurrencyPolicy(ConcurrencyPolicy policy) {
+      this.concurrencyPolicy = policy;
+      return this;
+    }
+
+    /**
+     * Sets the {@link CircuitBreakerPolicy} that the built {@link Connection} will use for the circuit breaker it keeps
+     * for each node. Defaults to {@link CircuitBreakerPolicy#DEFAULT}.
+     *
+     * @param policy the circuit breaker policy. Use {@link CircuitBreakerPolicy#NONE} to disable circuit breakers.
+     * @return this {@link Builder} object
+     */
+    public Builder withCircuitBreakerPolicy(CircuitBreakerPolicy policy) {
+      this.circuitBreakerPolicy = policy;
+      return this;
+    }
+
+    /**
+     * Sets a {@link CircuitBreakerListener} that the built {@link Connection} will notify whenever the circuit breaker
+     * of one of its nodes changes state.
+     *
+     * @param listener the listener.
+     * @return this {@link Builder} object
+     */
+    public Builder withCircuitBreakerListener(CircuitBreakerListener listener) {
+      this.circuitBreakerListener = listener;
+      return this;
+    }
+
+    /**
+     * Sets the {@link CompressionPolicy} that the built {@link Connection} will use to compress request bodies and
+     * to ask for compressed responses. Defaults to {@link CompressionPolicy#NONE}.
+     *
+     * @param policy the compression policy. Use {@link CompressionPolicy#GZIP} to enable compression.
+     * @return this {@link Builder} object
+     */
+    public Builder withCompressionPolicy(CompressionPolicy policy) {
+      this.compressionPolicy = policy;
+      return this;
+    }
+
+    /**
+     * Sets the {@link RequestLogPolicy} that the built {@link Connection} will use to choose which requests to log.
+     * Defaults to {@link RequestLogPolicy#DEFAULT}, which logs slow and failed requests without their bodies.
+     *
+     * @param policy the request log policy. Use {@link RequestLogPolicy#NONE} to log nothing.
+     * @return this {@link Builder} object
+     */
+    public Builder withRequestLogPolicy(RequestLogPolicy policy) {
+      this.requestLogPolicy = policy;
+      return this;
+    }
+
+    /**
+     * Sets a {@link RequestListener} to be told as each request issued by the built {@link Connection} reaches each
+     * {@link RequestPhase}. There is none by default.
+     *
+     * @param listener the request listener.
+     * @return this {@link Builder} object
+     */
+    public Builder withRequestListener(RequestListener listener) {
+      this.requestListener = listener;
+      return this;
+    }
+
+    /**
+     * Sets the {@link WarmPoolPolicy} that the built {@link Connection} will use to open connections to each node
+     * before they are needed. Defaults to {@link WarmPoolPolicy#NONE}.
+     *
+     * @param policy the warm pool policy.
+     * @return this {@link Builder} object
+     * @see Connection#warmed()
+     */
+    public Builder withWarmPoolPolicy(WarmPoolPolicy policy) {
+      this.warmPoolPolicy = policy;
+      return this;
+    }
+
     /**
      * Returns a newly constructed {@link Connection} with configuration based on the settings of this {@link Builder}.
      *
@@ -122,47 +427,137 @@ public class Connection {
         r = new MetricRegistry();
       else
         r = metricRegistry;
+      ConnectionMetrics metrics = new ConnectionMetrics(r, metricsNamespace);
 
-      AsyncHttpClient c;
-      if (client == null) {
+      Transport t;
+      if (transport != null) {
+        t = transport;
+      } else if (client == null) {
         AsyncHttpClientConfig config = new DefaultAsyncHttpClientConfig.Builder()
           .setConnectTimeout(DEFAULT_CONNECTION_TIMEOUT_MS)
           .setRequestTimeout(DEFAULT_REQUEST_TIMEOUT_MS)
           .setPooledConnectionIdleTimeout(DEFAULT_IDLE_TIMEOUT_MS)
           .setMaxRequestRetry(0)
           .build();
-        c = new DefaultAsyncHttpClient(config);
+        t = new AsyncHttpTransport(new DefaultAsyncHttpClient(config));
       } else
-        c = client;
+        t = new AsyncHttpTransport(client);
 
-      URL root;
-      if (faunaRoot == null)
-        root = new URL("https://rest.faunadb.com");
+      List<URL> roots;
+      if (faunaRoots == null)
+        roots = ImmutableList.of(new URL("https://rest.faunadb.com"));
       else
-        root = faunaRoot;
+        roots = faunaRoots;
 
-      return new Connection(root, authToken, c, r);
+      LoadBalancer balancer = new LoadBalancer(roots, t, metrics, TIMER, ejectionThreshold, probeIntervalMs,
+        circuitBreakerPolicy, circuitBreakerListener);
+      ConnectionWarmer warmer = new ConnectionWarmer(warmPoolPolicy, balancer, t, TIMER, metrics);
+      Connection connection = new Connection(balancer, authToken, t, metrics, chunkedThreshold, retryPolicy,
+        hedgePolicy, concurrencyPolicy, compressionPolicy, requestLogPolicy, requestListener, warmer);
+      warmer.start();
+      return connection;
     }
   }
 
-  private static String XFaunaDBHost = "X-FaunaDB-Host";
-  private static String XFaunaDBBuild = "X-FaunaDB-Build";
-
-  private final URL faunaRoot;
+  private final LoadBalancer balancer;
   private final String authToken;
   private final String authHeader;
-  private final AsyncHttpClient client;
-  private final MetricRegistry registry;
+  private final Transport transport;
+  private final ConnectionMetrics metrics;
+  private final int chunkedThreshold;
+  private final RetryPolicy retryPolicy;
+  private final RequestBudget retryBudget;
+  private final HedgePolicy hedgePolicy;
+  private final RequestBudget hedgeBudget;
+  private final RegisteredMetrics gauges;
+  private final ConcurrencyLimiter limiter;
+  private volatile long hedgeDelayMs = -1;
+  private volatile long hedgeDelayComputedAt = System.nanoTime() - HEDGE_DELAY_REFRESH_NANOS;
+  private final CompressionPolicy compressionPolicy;
+  private final RequestLogger requestLog;
+  private final RequestListener requestListener;
+  private final ConnectionWarmer warmer;
+  private final AtomicInteger openConnections;
+  private final AtomicBoolean closed = new AtomicBoolean(false);
+  private final ByteBufAllocator alloc = PooledByteBufAllocator.DEFAULT;
 
   private final Logger log = LoggerFactory.getLogger(getClass());
-  private final ObjectMapper json = new ObjectMapper();
+  private final ObjectMapper json;
 
-  Connection(URL faunaRoot, String authToken, AsyncHttpClient client, MetricRegistry registry) throws UnsupportedEncodingException {
-    this.faunaRoot = faunaRoot;
+  Connection(LoadBalancer balancer, String authToken, Transport transport, ConnectionMetrics metrics, int chunkedThreshold,
+             RetryPolicy retryPolicy, HedgePolicy hedgePolicy, ConcurrencyPolicy concurrencyPolicy,
+             CompressionPolicy compressionPolicy, RequestLogPolicy requestLogPolicy,
+             RequestListener requestListener, ConnectionWarmer warmer) throws UnsupportedEncodingException {
+    this.balancer = balancer;
     this.authToken = authToken;
     this.authHeader = generateAuthHeader(authToken);
-    this.client = client;
-    this.registry = registry;
+    this.transport = transport;
+    this.metrics = metrics;
+    this.chunkedThreshold = chunkedThreshold;
+    this.retryPolicy = retryPolicy;
+    this.retryBudget = retryPolicy.newBudget();
+    this.hedgePolicy = hedgePolicy;
+    this.hedgeBudget = hedgePolicy.newBudget();
+    this.gauges = new RegisteredMetrics(metrics.registry());
+    this.limiter = new ConcurrencyLimiter(concurrencyPolicy, metrics, gauges);
+    this.compressionPolicy = compressionPolicy;
+    this.requestLog = new RequestLogger(requestLogPolicy, metrics);
+    this.requestListener = requestListener;
+    this.warmer = warmer;
+    this.openConnections = new AtomicInteger(1);
+    this.json = new ObjectMapper();
+  }
+
+  /**
+   * Creates a session connection sharing everything but the secret with {@code parent}.
+   */
+  private Connection(Connection parent, String authToken) throws UnsupportedEncodingException {
+    this.balancer = parent.balancer;
+    this.authToken = authToken;
+    this.authHeader = generateAuthHeader(authToken);
+    this.transport = parent.transport;
+    this.metrics = parent.metrics;
+    this.chunkedThreshold = parent.chunkedThreshold;
+    this.retryPolicy = parent.retryPolicy;
+    this.retryBudget = parent.retryBudget;
+    this.hedgePolicy = parent.hedgePolicy;
+    this.hedgeBudget = parent.hedgeBudget;
+    this.gauges = parent.gauges;
+    this.limiter = parent.limiter;
+    this.compressionPolicy = parent.compressionPolicy;
+    this.requestLog = parent.requestLog;
+    this.requestListener = parent.requestListener;
+    this.warmer = parent.warmer;
+    this.openConnections = parent.openConnections;
+    this.json = parent.json;
+  }
+
+  /**
+   * Returns a connection that sends its requests with {@code authToken} as their secret, and otherwise shares
+   * everything with this one: its transport and connection pool, its nodes and their health, its concurrency limit,
+   * its retry and hedge budgets, and its metrics.
+   *
+   * <p>A session connection costs no more than a few objects, so a service acting for many tenants can create one
+   * per tenant, or per request. The shared resources are only released once this connection and every session
+   * connection created from it have been closed.
+   *
+   * @param authToken the secret that the returned connection's requests are sent with.
+   * @return a new session connection.
+   * @throws IllegalStateException if this connection, and every session connection sharing its resources, has been
+   *                               closed.
+   */
+  public Connection newSessionConnection(String authToken) throws UnsupportedEncodingException {
+    for (;;) {
+      int open = openConnections.get();
+      if (open == 0) {
+        throw new IllegalStateException("Cannot create a session connection from a closed connection.");
+      }
+      if (openConnections.compareAndSet(open, open + 1)) {
+        break;
+      }
+    }
+
+    return new Connection(this, authToken);
   }
 
   /**
@@ -173,11 +568,7 @@ public class Connection {
    * @throws IOException if the HTTP request cannot be issued.
    */
   public ListenableFuture<Response> get(String path) throws IOException {
-    Request request = new RequestBuilder("GET")
-      .setUrl(mkUrl(path))
-      .build();
-
-    return performRequest(request);
+    return performRequest("GET", path, null, null, RequestOptions.DEFAULT);
   }
 
   /**
@@ -189,12 +580,7 @@ public class Connection {
    * @throws IOException if the HTTP request cannot be issued.
    */
   public ListenableFuture<Response> get(String path, Map<String, List<String>> params) throws IOException {
-    Request request = new RequestBuilder("GET")
-      .setUrl(mkUrl(path))
-      .setQueryParams(params)
-      .build();
-
-    return performRequest(request);
+    return performRequest("GET", path, params, null, RequestOptions.DEFAULT);
   }
 
   /**
@@ -206,13 +592,62 @@ public class Connection {
    * @throws IOException if the HTTP request cannot be issued.
    */
   public ListenableFuture<Response> post(String path, JsonNode body) throws IOException {
-    Request request = new RequestBuilder("POST")
-      .setUrl(mkUrl(path))
-      .setBody(json.writeValueAsString(body))
-      .setHeader(HttpHeaders.Names.CONTENT_TYPE, "application/json; charset=utf-8")
-      .build();
+    return post(path, jsonBody(body));
+  }
+
+  /**
+   * Issues a {@code POST} request with a pre-encoded JSON request body.
+   *
+   * @param path the relative path of the resource.
+   * @param body the UTF-8 encoded JSON request body. The array must not be modified until the request completes.
+   * @return a {@link ListenableFuture} containing the HTTP response.
+   * @throws IOException if the HTTP request cannot be issued.
+   */
+  public ListenableFuture<Response> post(String path, byte[] body) throws IOException {
+    return performRequest("POST", path, null, EncodedBody.wrap(body), RequestOptions.DEFAULT);
+  }
+
+  /**
+   * Issues a {@code POST} request with a pre-encoded JSON request body.
+   *
+   * @param path the relative path of the resource.
+   * @param body the UTF-8 encoded JSON request body, between its position and limit. The buffer's contents must
+   *             not be modified until the request completes.
+   * @return a {@link ListenableFuture} containing the HTTP response.
+   * @throws IOException if the HTTP request cannot be issued.
+   */
+  public ListenableFuture<Response> post(String path, ByteBuffer body) throws IOException {
+    return performRequest("POST", path, null, EncodedBody.wrap(body), RequestOptions.DEFAULT);
+  }
 
-    return performRequest(request);
+  /**
+   * Issues a {@code POST} request with a JSON request body produced by {@code body}.
+   *
+   * <p>The writer is run before this method returns, encoding straight into pooled buffers. Bodies larger than the
+   * configured chunked threshold are sent with chunked transfer encoding.
+   *
+   * @param path the relative path of the resource.
+   * @param body the writer that will encode the request body.
+   * @return a {@link ListenableFuture} containing the HTTP response.
+   * @throws IOException if the body cannot be encoded or the HTTP request cannot be issued.
+   * @see Builder#withChunkedThreshold(int)
+   */
+  public ListenableFuture<Response> post(String path, BodyWriter body) throws IOException {
+    return post(path, body, RequestOptions.DEFAULT);
+  }
+
+  /**
+   * Issues a {@code POST} request with a JSON request body produced by {@code body}, and the given options.
+   *
+   * @param path the relative path of the resource.
+   * @param body the writer that will encode the request body.
+   * @param options the options for this request.
+   * @return a {@link ListenableFuture} containing the HTTP response.
+   * @throws IOException if the body cannot be encoded or the HTTP request cannot be issued.
+   * @see #post(String, BodyWriter)
+   */
+  public ListenableFuture<Response> post(String path, BodyWriter body, RequestOptions options) throws IOException {
+    return performRequest("POST", path, body, options);
   }
 
   /**
@@ -224,13 +659,48 @@ public class Connection {
    * @throws IOException if the HTTP request cannot be issued.
    */
   public ListenableFuture<Response> put(String path, JsonNode body) throws IOException {
-    Request request = new RequestBuilder("PUT")
-      .setUrl(mkUrl(path))
-      .setBody(json.writeValueAsString(body))
-      .setHeader(HttpHeaders.Names.CONTENT_TYPE, "application/json; charset=utf-8")
-      .build();
+    return put(path, jsonBody(body));
+  }
 
-    return performRequest(request);
+  /**
+   * Issues a {@code PUT} request with a pre-encoded JSON request body.
+   *
+   * @param path the relative path of the resource.
+   * @param body the UTF-8 encoded JSON request body. The array must not be modified until the request completes.
+   * @return a {@link ListenableFuture} containing the HTTP response.
+   * @throws IOException if the HTTP request cannot be issued.
+   */
+  public ListenableFuture<Response> put(String path, byte[] body) throws IOException {
+    return performRequest("PUT", path, null, EncodedBody.wrap(body), RequestOptions.DEFAULT);
+  }
+
+  /**
+   * Issues a {@code PUT} request with a pre-encoded JSON request body.
+   *
+   * @param path the relative path of the resource.
+   * @param body the UTF-8 encoded JSON request body, between its position and limit. The buffer's contents must
+   *             not be modified until the request completes.
+   * @return a {@link ListenableFuture} containing the HTTP response.
+   * @throws IOException if the HTTP request cannot be issued.
+   */
+  public ListenableFuture<Response> put(String path, ByteBuffer body) throws IOException {
+    return performRequest("PUT", path, null, EncodedBody.wrap(body), RequestOptions.DEFAULT);
+  }
+
+  /**
+   * Issues a {@code PUT} request with a JSON request body produced by {@code body}.
+   *
+   * <p>The writer is run before this method returns, encoding straight into pooled buffers. Bodies larger than the
+   * configured chunked threshold are sent with chunked transfer encoding.
+   *
+   * @param path the relative path of the resource.
+   * @param body the writer that will encode the request body.
+   * @return a {@link ListenableFuture} containing the HTTP response.
+   * @throws IOException if the body cannot be encoded or the HTTP request cannot be issued.
+   * @see Builder#withChunkedThreshold(int)
+   */
+  public ListenableFuture<Response> put(String path, BodyWriter body) throws IOException {
+    return performRequest("PUT", path, body, RequestOptions.DEFAULT);
   }
 
   /**
@@ -242,72 +712,789 @@ public class Connection {
    * @throws IOException if the HTTP request cannot be issued.
    */
   public ListenableFuture<Response> patch(String path, JsonNode body) throws IOException {
-    Request request = new RequestBuilder("PATCH")
-      .setUrl(mkUrl(path))
-      .setBody(json.writeValueAsString(body))
-      .setHeader(HttpHeaders.Names.CONTENT_TYPE, "application/json; charset=utf-8")
-      .build();
+    return patch(path, jsonBody(body));
+  }
+
+  /**
+   * Issues a {@code PATCH} request with a pre-encoded JSON request body.
+   *
+   * @param path the relative path of the resource.
+   * @param body the UTF-8 encoded JSON request body. The array must not be modified until the request completes.
+   * @return a {@link ListenableFuture} containing the HTTP response.
+   * @throws IOException if the HTTP request cannot be issued.
+   */
+  public ListenableFuture<Response> patch(String path, byte[] body) throws IOException {
+    return performRequest("PATCH", path, null, EncodedBody.wrap(body), RequestOptions.DEFAULT);
+  }
+
+  /**
+   * Issues a {@code PATCH} request with a pre-encoded JSON request body.
+   *
+   * @param path the relative path of the resource.
+   * @param body the UTF-8 encoded JSON request body, between its position and limit. The buffer's contents must
+   *             not be modified until the request completes.
+   * @return a {@link ListenableFuture} containing the HTTP response.
+   * @throws IOException if the HTTP request cannot be issued.
+   */
+  public ListenableFuture<Response> patch(String path, ByteBuffer body) throws IOException {
+    return performRequest("PATCH", path, null, EncodedBody.wrap(body), RequestOptions.DEFAULT);
+  }
 
-    return performRequest(request);
+  /**
+   * Issues a {@code PATCH} request with a JSON request body produced by {@code body}.
+   *
+   * <p>The writer is run before this method returns, encoding straight into pooled buffers. Bodies larger than the
+   * configured chunked threshold are sent with chunked transfer encoding.
+   *
+   * @param path the relative path of the resource.
+   * @param body the writer that will encode the request body.
+   * @return a {@link ListenableFuture} containing the HTTP response.
+   * @throws IOException if the body cannot be encoded or the HTTP request cannot be issued.
+   * @see Builder#withChunkedThreshold(int)
+   */
+  public ListenableFuture<Response> patch(String path, BodyWriter body) throws IOException {
+    return performRequest("PATCH", path, body, RequestOptions.DEFAULT);
   }
 
   /**
-   * Releases any resources being held by the HTTP client. Also closes the underlying
-   * {@link AsyncHttpClient}.
+   * Releases any resources being held by the HTTP client. Also closes the underlying {@link Transport}, and with it
+   * any {@link AsyncHttpClient}.
+   *
+   * <p>Resources shared with session connections are only released once they have all been closed too.
+   *
+   * @see #newSessionConnection(String)
    */
   public void close() {
+    if (!closed.compareAndSet(false, true) || openConnections.decrementAndGet() > 0) {
+      return;
+    }
+
+    warmer.close();
+    balancer.close();
+    gauges.removeAll();
+
     try {
-      client.close();
+      transport.close();
     } catch (IOException e) {
       // Ignore. Probably already closed.
     }
   }
 
-  private ListenableFuture<Response> performRequest(final Request request) throws IOException {
-    final Timer.Context ctx = registry.timer("fauna-request").time();
-    final SettableFuture<Response> rv = SettableFuture.create();
+  /**
+   * Returns a future that completes once the connections the {@link WarmPoolPolicy} asks for have first been opened,
+   * or have failed to open. It is already complete if the connection does not warm its pool.
+   *
+   * <p>Waiting for it before serving traffic spares the first requests the cost of opening connections.
+   */
+  public ListenableFuture<Void> warmed() {
+    return warmer.warmed();
+  }
+
+  /**
+   * Returns the registry the connection reports its metrics into, so that clients built on it can report theirs
+   * alongside.
+   */
+  public MetricRegistry metricRegistry() {
+    return metrics.registry();
+  }
+
+  /**
+   * Returns the full name of a metric, prefixed with the connection's metrics namespace if it has one.
+   *
+   * @see MetricRegistry#name(String, String...)
+   */
+  public String metricName(String name, String... names) {
+    return metrics.name(name, names);
+  }
+
+  /**
+   * Tells the connection's {@link RequestListener}, if any, that the response to one of its requests has been decoded.
+   * Clients call this once they have finished with a response, so that the listener can see how long decoding took.
+   *
+   * @param response a response returned by this connection.
+   */
+  public void decoded(Response response) {
+    RequestTrace trace = BodyPartsHandler.traceOf(response);
+    if (trace != null) {
+      trace.reach(RequestPhase.DECODE_END);
+    }
+  }
+
+  private ListenableFuture<Response> performRequest(String method, String path, BodyWriter writer,
+                                                    RequestOptions options) throws IOException {
+    RequestTrace trace = startTrace(method, path, options);
+    EncodedBody body;
+    try {
+      body = EncodedBody.encode(alloc, writer, chunkedThreshold);
+    } catch (IOException | RuntimeException ex) {
+      if (trace != null) {
+        trace.failed(ex);
+      }
+      throw ex;
+    }
+    return performRequest(method, path, null, body, options, trace);
+  }
 
-    client.prepareRequest(request)
-      .addHeader("Authorization", authHeader)
-      .execute(new AsyncCompletionHandler<Response>() {
+  private ListenableFuture<Response> performRequest(String method, String path, Map<String, List<String>> params,
+                                                    EncodedBody body, RequestOptions options) throws IOException {
+    return performRequest(method, path, params, body, options, startTrace(method, path, options));
+  }
+
+  private ListenableFuture<Response> performRequest(String method, String path, Map<String, List<String>> params,
+                                                    EncodedBody body, RequestOptions options,
+                                                    RequestTrace trace) throws IOException {
+    if (body != null) {
+      try {
+        body = compress(body);
+      } catch (IOException | RuntimeException ex) {
+        if (trace != null) {
+          trace.failed(ex);
+        }
+        throw ex;
+      }
+    }
+    if (trace != null) {
+      trace.reach(RequestPhase.ENCODE_END);
+    }
+
+    boolean idempotent = options.isIdempotent() || method.equals("GET") || method.equals("PUT");
+    boolean hedging = options.isHedging() && hedgePolicy.isEnabled();
+    Execution execution = new Execution(method, path, params, body, options, idempotent, hedging, trace);
+    retryBudget.deposit();
+    if (hedging) {
+      hedgeBudget.deposit();
+    }
+
+    if (options.hasDeadline() && !execution.scheduleDeadline()) {
+      return execution.result;
+    }
+
+    if (!execution.reserve()) {
+      return execution.result;
+    }
+
+    try {
+      execution.attempt(null);
+    } catch (IOException | RuntimeException ex) {
+      // Failing the execution releases the body and stops its deadline, so neither can happen twice.
+      execution.fail(ex);
+      throw ex;
+    }
+
+    return execution.result;
+  }
+
+  /**
+   * Returns a new trace of a request that has reached {@link RequestPhase#ENCODE_START}, or null if the connection
+   * has no {@link RequestListener}.
+   */
+  private RequestTrace startTrace(String method, String path, RequestOptions options) {
+    if (requestListener == null) {
+      return null;
+    }
+
+    RequestTrace trace = new RequestTrace(requestListener, method, path, options.tags());
+    trace.reach(RequestPhase.ENCODE_START);
+    return trace;
+  }
+
+  /**
+   * Compresses {@code body} if the compression policy calls for it, and counts its size before and after.
+   */
+  private EncodedBody compress(EncodedBody body) throws IOException {
+    int length = body.length();
+    metrics.counter("fauna-request-body-bytes").inc(length);
+
+    if (compressionPolicy.shouldCompress(length)) {
+      try {
+        body = body.compress(alloc, compressionPolicy, chunkedThreshold);
+      } catch (IOException | RuntimeException ex) {
+        releaseBody(body);
+        throw ex;
+      }
+    }
+
+    metrics.counter("fauna-request-body-wire-bytes").inc(body.length());
+    return body;
+  }
+
+  /**
+   * Returns how long a hedged request should wait for an answer before it is sent again, or -1 if there is not yet
+   * enough data to tell.
+   */
+  private long hedgeDelayMs() {
+    long now = System.nanoTime();
+    if (now - hedgeDelayComputedAt >= HEDGE_DELAY_REFRESH_NANOS) {
+      hedgeDelayComputedAt = now;
+
+      Timer timer = metrics.timer("fauna-request");
+      if (timer.getCount() < HEDGE_MIN_SAMPLES) {
+        hedgeDelayMs = -1;
+      } else {
+        Snapshot snapshot = timer.getSnapshot();
+        long percentileMs = TimeUnit.NANOSECONDS.toMillis((long) snapshot.getValue(hedgePolicy.percentile()));
+        hedgeDelayMs = Math.max(hedgePolicy.minDelayMs(), percentileMs);
+      }
+    }
+
+    return hedgeDelayMs;
+  }
+
+  /**
+   * A single request, which may be sent several times before it succeeds or fails for good.
+   *
+   * <p>Retries are sent one after another, but a hedge is sent while the attempt it hedges is still in flight. The
+   * first attempt to succeed completes the request and cancels any other. An attempt that fails while another is
+   * still in flight is ignored. The request body is released once the request is complete and no attempt is still
+   * using it.
+   *
+   * <p>An attempt that is about to be made, whether queued by the concurrency limiter, waiting to be retried or about
+   * to be sent as a hedge, holds a reservation on the body from the moment it is decided on until it is either in
+   * flight or abandoned, so that the body cannot be released while the attempt is still on its way.
+   */
+  private final class Execution {
+    final String method;
+    final String path;
+    final Map<String, List<String>> params;
+    final EncodedBody body;
+    final RequestOptions options;
+    final boolean idempotent;
+    final boolean hedging;
+    final RequestTrace trace;
+    final SettableFuture<Response> result = SettableFuture.create();
+    final long started = System.nanoTime();
+
+    private final List<Attempt> inFlight = new ArrayList<>(2);
+    private int pending = 0;
+    private int attempts = 0;
+    // Only set under the lock, but read without it once a request has been sent.
+    private volatile boolean hedged = false;
+    private boolean released = false;
+    private long lastDelayMs = 0;
+    private Timeout deadline;
+
+    Execution(String method, String path, Map<String, List<String>> params, EncodedBody body, RequestOptions options,
+              boolean idempotent, boolean hedging, final RequestTrace trace) {
+      this.method = method;
+      this.path = path;
+      this.params = params;
+      this.body = body;
+      this.options = options;
+      this.idempotent = idempotent;
+      this.hedging = hedging;
+      this.trace = trace;
+
+      if (trace != null) {
+        Futures.addCallback(result, new FutureCallback<Response>() {
+          @Override
+          public void onSuccess(Response response) {
+            trace.completed(response);
+          }
+
+          @Override
+          public void onFailure(Throwable t) {
+            trace.failed(t);
+          }
+        });
+      }
+    }
+
+    /**
+     * Reserves the request body for an attempt about to be made, which must then be passed to {@link #attempt} or
+     * {@link #send}.
+     *
+     * @return false if the request is already complete, in which case no attempt should be made.
+     */
+    synchronized boolean reserve() {
+      if (result.isDone()) {
+        return false;
+      }
+
+      pending++;
+      return true;
+    }
+
+    /**
+     * Gives up a reservation taken by {@link #reserve} without the attempt having been sent.
+     */
+    private synchronized void unreserve() {
+      pending--;
+      releaseIfIdle();
+    }
+
+    /**
+     * Sends the request as soon as the concurrency limiter allows, or fails it if the limiter rejects it. The caller
+     * must hold a reservation, which is given up if the request is never sent.
+     *
+     * @param avoid the endpoint the previous attempt was sent to, if any.
+     */
+    void attempt(final Endpoint avoid) throws IOException {
+      if (result.isDone()) {
+        unreserve();
+        return;
+      }
+
+      Runnable whenAdmitted = new Runnable() {
         @Override
-        public void onThrowable(Throwable t) {
-          ctx.stop();
-          rv.setException(t);
-          logFailure(request, t);
+        public void run() {
+          if (result.isDone()) {
+            limiter.release();
+            metrics.meter("fauna-request-dropped").mark();
+            unreserve();
+            return;
+          }
+
+          try {
+            send(avoid);
+          } catch (IOException | RuntimeException ex) {
+            fail(ex);
+          }
         }
+      };
 
+      switch (limiter.acquire(whenAdmitted)) {
+        case ACQUIRED:
+          try {
+            send(avoid);
+          } catch (CircuitOpenException ex) {
+            fail(ex);
+          }
+          break;
+        case REJECTED:
+          unreserve();
+          fail(new RequestRejectedException("Too many requests in flight. The request was not sent."));
+          break;
+        case QUEUED:
+          break;
+      }
+    }
+
+    /**
+     * Sends the request to the best available endpoint, unless it has completed in the meantime. The caller must hold
+     * a slot from the concurrency limiter and a reservation, both of which are given up if the request is not sent.
+     */
+    private void send(Endpoint avoid) throws IOException {
+      Endpoint endpoint = balancer.select(avoid);
+      if (endpoint == null) {
+        limiter.release();
+        unreserve();
+        metrics.meter("fauna-request-circuit-open").mark();
+        throw new CircuitOpenException("The circuit breaker of every FaunaDB node is open. The request was not sent.");
+      }
+
+      Attempt attempt;
+      try {
+        attempt = new Attempt(endpoint, buildRequest(endpoint));
+      } catch (IOException | RuntimeException ex) {
+        balancer.requestNotSent(endpoint);
+        limiter.release();
+        unreserve();
+        throw ex;
+      }
+
+      boolean done;
+      synchronized (this) {
+        pending--;
+        done = result.isDone();
+        if (done) {
+          releaseIfIdle();
+        } else {
+          attempts++;
+          inFlight.add(attempt);
+        }
+      }
+
+      if (done) {
+        balancer.requestNotSent(endpoint);
+        limiter.release();
+        metrics.meter("fauna-request-dropped").mark();
+        return;
+      }
+
+      if (trace != null) {
+        trace.sent(endpoint.name());
+      }
+
+      try {
+        attempt.future = execute(attempt);
+      } catch (RuntimeException ex) {
+        synchronized (this) {
+          inFlight.remove(attempt);
+          releaseIfIdle();
+        }
+        limiter.release();
+        throw ex;
+      }
+
+      if (hedging && !hedged) {
+        scheduleHedge(endpoint);
+      }
+    }
+
+    private TransportRequest buildRequest(Endpoint endpoint) throws IOException {
+      StringBuilder url = new StringBuilder(endpoint.url(path));
+      if (params != null) {
+        char separator = '?';
+        for (Map.Entry<String, List<String>> param : params.entrySet()) {
+          for (String value : param.getValue()) {
+            url.append(separator).append(Utf8UrlEncoder.encodeQueryElement(param.getKey()))
+              .append('=').append(Utf8UrlEncoder.encodeQueryElement(value));
+            separator = '&';
+          }
+        }
+      }
+
+      ImmutableListMultimap.Builder<String, String> headers = ImmutableListMultimap.builder();
+      headers.put("Authorization", authHeader);
+
+      if (compressionPolicy.acceptsCompressedResponses()) {
+        headers.put(HttpHeaders.Names.ACCEPT_ENCODING, CompressionPolicy.ACCEPT_ENCODING);
+      }
+
+      int timeoutMillis = 0;
+      if (options.hasDeadline()) {
+        long remainingMs = options.remaining(TimeUnit.MILLISECONDS);
+        timeoutMillis = (int) Math.max(1, Math.min(Integer.MAX_VALUE, remainingMs));
+      }
+
+      if (body != null) {
+        headers.put(HttpHeaders.Names.CONTENT_TYPE, "application/json; charset=utf-8");
+        if (body.encoding() != null) {
+          headers.put(HttpHeaders.Names.CONTENT_ENCODING, body.encoding());
+        }
+      }
+
+      return new TransportRequest(method, url.toString(), headers.build(), body, timeoutMillis);
+    }
+
+    private Future<?> execute(final Attempt attempt) {
+      final Timer.Context ctx = metrics.timer("fauna-request").time();
+      final long start = System.nanoTime();
+      final EndpointMetrics endpointMetrics = attempt.endpoint.metrics();
+
+      attempt.endpoint.requestStarted();
+      endpointMetrics.requestSent(body == null ? 0 : body.length());
+      BodyPartsHandler handler = new BodyPartsHandler(attempt.request, trace) {
         @Override
-        public Response onCompleted(Response response) throws Exception {
+        void onFailed(Throwable t) {
+          long rtt = System.nanoTime() - start;
+          boolean cancelled = t instanceof CancellationException;
+          if (!cancelled) {
+            ctx.stop();
+          }
+          if (cancelled) {
+            balancer.requestCancelled(attempt.endpoint);
+          } else {
+            balancer.requestFinished(attempt.endpoint, rtt, true);
+            endpointMetrics.requestFailed(t, rtt);
+            endpointMetrics.timings(poolWaitNanos(), connectNanos(), timeToFirstByteNanos());
+          }
+          onFailure(attempt, t, null);
+
+          if (cancelled) {
+            limiter.release();
+          } else {
+            limiter.release(rtt, t instanceof TimeoutException);
+          }
+        }
+
+        @Override
+        void onCompleted(Response response) {
+          long rtt = System.nanoTime() - start;
           ctx.stop();
-          rv.set(response);
-          logSuccess(request, response);
-          return response;
+          metrics.counter("fauna-response-body-bytes").inc(bodyLength());
+          endpointMetrics.responseReceived(response.getStatusCode(), rtt, bodyLength());
+          endpointMetrics.timings(poolWaitNanos(), connectNanos(), timeToFirstByteNanos());
+          boolean unavailable = isUnavailable(response);
+          balancer.requestFinished(attempt.endpoint, rtt, unavailable);
+
+          if (unavailable && idempotent) {
+            onFailure(attempt, null, response);
+          } else {
+            onSuccess(attempt, response);
+          }
+
+          limiter.release(rtt, response.getStatusCode() == 503);
+        }
+      };
+
+      try {
+        return transport.execute(attempt.request, handler);
+      } catch (RuntimeException ex) {
+        if (!handler.abandon()) {
+          // The transport reported the failure to the handler before throwing, which has accounted for it already.
+          return null;
+        }
+        // The request never reached the endpoint, so undo its start without counting it either way. Its timer context
+        // lapses unstopped, as a cancelled one does, so that hedge delays are not drawn toward zero by refusals.
+        balancer.requestCancelled(attempt.endpoint);
+        throw ex;
+      }
+    }
+
+    private void onSuccess(Attempt attempt, Response response) {
+      List<Attempt> losers;
+      synchronized (this) {
+        inFlight.remove(attempt);
+        if (result.isDone()) {
+          releaseIfIdle();
+          return;
+        }
+
+        requestLog.success(attempt.request, body, response, System.nanoTime() - started);
+        result.set(response);
+        losers = new ArrayList<>(inFlight);
+      }
+
+      for (Attempt loser : losers) {
+        loser.cancel();
+      }
+
+      synchronized (this) {
+        releaseIfIdle();
+      }
+    }
+
+    /**
+     * Handles an attempt that failed, either with {@code t} or with an unavailable {@code response}.
+     */
+    private void onFailure(Attempt attempt, Throwable t, Response response) {
+      boolean expired;
+      synchronized (this) {
+        inFlight.remove(attempt);
+        if (result.isDone() || !inFlight.isEmpty()) {
+          releaseIfIdle();
+          return;
+        }
+
+        expired = options.remaining(TimeUnit.NANOSECONDS) <= 0;
+        if (!expired) {
+          if (t == null ? canRetry() : canRetry(t)) {
+            pending++;
+            retry(attempt.endpoint, t == null ? "status " + response.getStatusCode() : t.toString());
+            return;
+          }
+
+          if (t == null) {
+            result.set(response);
+          } else {
+            requestLog.failure(attempt.request, body, t, System.nanoTime() - started);
+            result.setException(t);
+          }
+          releaseIfIdle();
+        }
+      }
+
+      if (expired) {
+        expire(t);
+      }
+    }
+
+    /**
+     * Returns true if a request that failed with {@code t} may be sent again. A request that never connected can
+     * always be retried; anything else might have been applied, so is only retried if it is idempotent.
+     */
+    private boolean canRetry(Throwable t) {
+      boolean safe = t instanceof ConnectException ||
+        (idempotent && (t instanceof TimeoutException || t instanceof IOException));
+
+      return safe && canRetry();
+    }
+
+    private boolean canRetry() {
+      if (attempts >= retryPolicy.maxAttempts()) {
+        return false;
+      }
+
+      if (options.remaining(TimeUnit.MILLISECONDS) <= retryPolicy.baseDelayMs()) {
+        return false;
+      }
+
+      if (!retryBudget.tryWithdraw()) {
+        metrics.meter("fauna-request-retries-exhausted").mark();
+        return false;
+      }
+
+      return true;
+    }
+
+    /**
+     * Attempts the request again after a delay. Must be called while holding this execution's lock, and with a
+     * reservation for the retry.
+     */
+    private void retry(final Endpoint failed, String reason) {
+      lastDelayMs = retryPolicy.nextDelayMs(lastDelayMs);
+      metrics.meter("fauna-request-retries").mark();
+      log.debug("Retrying " + method + " " + path + " in " + lastDelayMs + "ms after attempt " + attempts +
+        " failed: " + reason);
+
+      TIMER.newTimeout(new TimerTask() {
+        @Override
+        public void run(Timeout timeout) {
+          try {
+            attempt(failed);
+          } catch (IOException | RuntimeException ex) {
+            fail(ex);
+          }
         }
-      });
+      }, lastDelayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void scheduleHedge(final Endpoint first) {
+      long delay = hedgeDelayMs();
+      if (delay < 0) {
+        return;
+      }
+
+      TIMER.newTimeout(new TimerTask() {
+        @Override
+        public void run(Timeout timeout) {
+          synchronized (Execution.this) {
+            if (hedged || result.isDone() || inFlight.size() != 1) {
+              return;
+            }
+
+            if (!limiter.tryAcquire()) {
+              return;
+            }
+
+            if (!hedgeBudget.tryWithdraw()) {
+              limiter.release();
+              metrics.meter("fauna-request-hedges-exhausted").mark();
+              return;
+            }
+
+            hedged = true;
+            pending++;
+          }
+
+          metrics.meter("fauna-request-hedges").mark();
+          try {
+            send(first);
+          } catch (IOException | RuntimeException ex) {
+            log.debug("Unable to send hedged request.", ex);
+          }
+        }
+      }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Arranges for the request to expire at its deadline.
+     *
+     * @return false if the deadline has already passed, in which case the request has expired without being sent.
+     */
+    boolean scheduleDeadline() {
+      long remaining = options.remaining(TimeUnit.NANOSECONDS);
+      if (remaining <= 0) {
+        metrics.meter("fauna-request-dropped").mark();
+        expire(null);
+        return false;
+      }
+
+      Timeout timeout = TIMER.newTimeout(new TimerTask() {
+        @Override
+        public void run(Timeout timeout) {
+          expire(null);
+        }
+      }, remaining, TimeUnit.NANOSECONDS);
+
+      synchronized (this) {
+        deadline = timeout;
+      }
+      return true;
+    }
 
-    return rv;
+    /**
+     * Fails the request with a {@link DeadlineExceededException}, unless it has already completed, and abandons any
+     * attempts still in flight.
+     */
+    private void expire(Throwable cause) {
+      List<Attempt> abandoned;
+      synchronized (this) {
+        if (result.isDone()) {
+          return;
+        }
+
+        result.setException(new DeadlineExceededException(
+          "The deadline for " + method + " " + path + " passed before it was answered.", cause));
+        abandoned = new ArrayList<>(inFlight);
+        releaseIfIdle();
+      }
+
+      metrics.meter("fauna-request-deadline-exceeded").mark();
+      for (Attempt attempt : abandoned) {
+        attempt.cancel();
+      }
+    }
+
+    /**
+     * Fails the request with {@code t}, unless it has already completed.
+     */
+    void fail(Throwable t) {
+      synchronized (this) {
+        result.setException(t);
+        releaseIfIdle();
+      }
+    }
+
+    /**
+     * Releases the request body once the request is complete and no attempt is still sending it or about to, and
+     * stops waiting for the deadline. Must be called while holding this execution's lock.
+     */
+    private void releaseIfIdle() {
+      if (!released && result.isDone() && inFlight.isEmpty() && pending == 0) {
+        released = true;
+        releaseBody(body);
+
+        if (deadline != null) {
+          deadline.cancel();
+        }
+      }
+    }
   }
 
-  private String mkUrl(String path) throws MalformedURLException {
-    return new URL(faunaRoot, path).toString();
+  /**
+   * One copy of a request, sent to a single endpoint.
+   */
+  private static final class Attempt {
+    final Endpoint endpoint;
+    final TransportRequest request;
+    volatile Future<?> future;
+
+    Attempt(Endpoint endpoint, TransportRequest request) {
+      this.endpoint = endpoint;
+      this.request = request;
+    }
+
+    /**
+     * Cancels this attempt if it has been sent. An attempt that is still being sent is left to complete.
+     */
+    void cancel() {
+      Future<?> f = future;
+      if (f != null) {
+        f.cancel(true);
+      }
+    }
   }
 
-  private void logSuccess(Request request, Response response) throws IOException {
-    String requestData = Optional.fromNullable(request.getStringData()).or("");
-    String faunaHost = Optional.fromNullable(response.getHeader(XFaunaDBHost)).or("Unknown");
-    String faunaBuild = Optional.fromNullable(response.getHeader(XFaunaDBBuild)).or("Unknown");
-    String responseBody = Optional.fromNullable(response.getResponseBody()).or("");
+  private static boolean isUnavailable(Response response) {
+    int status = response.getStatusCode();
+    return status == 502 || status == 503 || status == 504;
+  }
 
-    log.debug("Request: " + request.getMethod() + " " + request.getUrl() + ": " + requestData + ". " +
-      "Response: Status=" + response.getStatusCode() + ", Fauna Host: " + faunaHost + ", " +
-      "Fauna Build: " + faunaBuild + ": " + responseBody);
+  private static void releaseBody(EncodedBody body) {
+    if (body != null) {
+      body.release();
+    }
   }
 
-  private void logFailure(Request request, Throwable ex) {
-    String requestData = Optional.fromNullable(request.getStringData()).or("");
-    log.info("Request: " + request.getMethod() + " " + request.getUrl() + ": " + requestData + ". " +
-      "Failed: " + ex.getMessage(), ex);
+  private BodyWriter jsonBody(final JsonNode body) {
+    return new BodyWriter() {
+      @Override
+      public void writeTo(OutputStream out) throws IOException {
+        json.writeValue(out, body);
+      }
+    };
   }
 
   private static String generateAuthHeader(String authToken) throws UnsupportedEncodingException {
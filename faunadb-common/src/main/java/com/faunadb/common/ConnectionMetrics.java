@@ -0,0 +1,87 @@
+package com.faunadb.common;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Names and creates the metrics of a {@link Connection} in its {@link MetricRegistry}.
+ *
+ * <p>If the connection has a metrics namespace, every name is prefixed with it, so that several connections can
+ * report into one registry without their metrics being merged. Timers and histograms are backed by an
+ * {@link HdrReservoir}, and are looked up in a local cache so that recording into one does not consult the registry.
+ */
+final class ConnectionMetrics {
+  private final MetricRegistry registry;
+  private final String namespace;
+  private final ConcurrentMap<String, Metric> cache = new ConcurrentHashMap<>();
+
+  /**
+   * @param namespace the prefix of every metric name, or null for none.
+   */
+  ConnectionMetrics(MetricRegistry registry, String namespace) {
+    this.registry = registry;
+    this.namespace = namespace == null || namespace.isEmpty() ? null : namespace;
+  }
+
+  MetricRegistry registry() {
+    return registry;
+  }
+
+  /**
+   * Returns the full name of a metric, made of {@code name} and {@code names} joined with dots and prefixed with the
+   * namespace.
+   */
+  String name(String name, String... names) {
+    String base = namespace == null ? name : namespace + "." + name;
+    return MetricRegistry.name(base, names);
+  }
+
+  Meter meter(String name, String... names) {
+    return registry.meter(name(name, names));
+  }
+
+  Counter counter(String name, String... names) {
+    return registry.counter(name(name, names));
+  }
+
+  Timer timer(String name, String... names) {
+    String fullName = name(name, names);
+    Metric metric = cache.get(fullName);
+    if (metric == null) {
+      metric = register(fullName, new Timer(new HdrReservoir()));
+    }
+    return (Timer) metric;
+  }
+
+  Histogram histogram(String name, String... names) {
+    String fullName = name(name, names);
+    Metric metric = cache.get(fullName);
+    if (metric == null) {
+      metric = register(fullName, new Histogram(new HdrReservoir()));
+    }
+    return (Histogram) metric;
+  }
+
+  private Metric register(String fullName, Metric metric) {
+    Metric registered;
+    try {
+      registered = registry.register(fullName, metric);
+    } catch (IllegalArgumentException ex) {
+      // Another connection, or the application, already registered it.
+      registered = registry.getMetrics().get(fullName);
+      if (registered == null) {
+        registered = metric;
+      }
+    }
+
+    Metric prior = cache.putIfAbsent(fullName, registered);
+    return prior == null ? registered : prior;
+  }
+}
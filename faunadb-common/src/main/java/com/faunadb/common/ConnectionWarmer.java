@@ -0,0 +1,144 @@
+package com.faunadb.common;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import io.netty.util.TimerTask;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Opens and keeps open the connections a {@link WarmPoolPolicy} asks for.
+ *
+ * <p>Each round sends the policy's number of concurrent pings to every node that needs them. Pings go straight to the
+ * transport, so they are not counted by the load balancer, the circuit breakers or the concurrency limiter. Rounds
+ * run on the connection's timer.
+ */
+final class ConnectionWarmer {
+  private final WarmPoolPolicy policy;
+  private final LoadBalancer balancer;
+  private final Transport transport;
+  private final Timer timer;
+  private final ConnectionMetrics metrics;
+  private final SettableFuture<Void> warmed = SettableFuture.create();
+  private volatile boolean closed = false;
+
+  ConnectionWarmer(WarmPoolPolicy policy, LoadBalancer balancer, Transport transport, Timer timer,
+                   ConnectionMetrics metrics) {
+    this.policy = policy;
+    this.balancer = balancer;
+    this.transport = transport;
+    this.timer = timer;
+    this.metrics = metrics;
+
+    if (!policy.isEnabled()) {
+      warmed.set(null);
+    }
+  }
+
+  /**
+   * Starts the first round, and schedules the rest if the policy keeps connections warm.
+   */
+  void start() {
+    if (policy.isEnabled()) {
+      warm(warmed);
+    }
+  }
+
+  /**
+   * Returns a future that completes once the first round has finished, whether or not its pings succeeded.
+   */
+  ListenableFuture<Void> warmed() {
+    return warmed;
+  }
+
+  void close() {
+    closed = true;
+  }
+
+  private void scheduleRound() {
+    if (closed || policy.keepWarmIntervalMs() == 0) {
+      return;
+    }
+
+    timer.newTimeout(new TimerTask() {
+      @Override
+      public void run(Timeout timeout) {
+        warm(null);
+      }
+    }, policy.keepWarmIntervalMs(), TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Pings every node that needs it, then schedules the next round.
+   *
+   * @param done completed once every ping has finished. May be null.
+   */
+  private void warm(final SettableFuture<Void> done) {
+    if (closed) {
+      if (done != null) {
+        done.set(null);
+      }
+      return;
+    }
+
+    int pings = 0;
+    for (Endpoint endpoint : balancer.endpoints()) {
+      if (endpoint.isHealthy() && endpoint.inFlight() < policy.connections()) {
+        pings += policy.connections();
+      }
+    }
+
+    if (pings == 0) {
+      if (done != null) {
+        done.set(null);
+      }
+      scheduleRound();
+      return;
+    }
+
+    final AtomicInteger pending = new AtomicInteger(pings);
+    for (Endpoint endpoint : balancer.endpoints()) {
+      if (endpoint.isHealthy() && endpoint.inFlight() < policy.connections()) {
+        for (int i = 0; i < policy.connections(); i++) {
+          ping(endpoint, pending, done);
+        }
+      }
+    }
+  }
+
+  private void ping(Endpoint endpoint, final AtomicInteger pending, final SettableFuture<Void> done) {
+    try {
+      transport.execute(TransportRequest.get(endpoint.url(LoadBalancer.PING_PATH)), new PingHandler() {
+        @Override
+        void onAnswered(int statusCode) {
+          if (statusCode != 200) {
+            metrics.meter("fauna-warm-pool", "failures").mark();
+          }
+          pinged(pending, done);
+        }
+
+        @Override
+        void onFailed(Throwable t) {
+          metrics.meter("fauna-warm-pool", "failures").mark();
+          pinged(pending, done);
+        }
+      });
+      metrics.meter("fauna-warm-pool", "pings").mark();
+    } catch (Exception ex) {
+      metrics.meter("fauna-warm-pool", "failures").mark();
+      pinged(pending, done);
+    }
+  }
+
+  private void pinged(AtomicInteger pending, SettableFuture<Void> done) {
+    if (pending.decrementAndGet() == 0) {
+      if (done != null) {
+        done.set(null);
+      }
+      scheduleRound();
+    }
+  }
+}
@@ -0,0 +1,19 @@
+package com.faunadb.common;
+
+import java.io.IOException;
+
+/**
+ * Signals that a request's deadline passed before it was answered. The request may have been dropped before it was
+ * ever sent, or abandoned while in flight.
+ *
+ * @see RequestOptions#withDeadline(long, java.util.concurrent.TimeUnit)
+ */
+public class DeadlineExceededException extends IOException {
+  public DeadlineExceededException(String message) {
+    super(message);
+  }
+
+  public DeadlineExceededException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
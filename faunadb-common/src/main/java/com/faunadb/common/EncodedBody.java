@@ -0,0 +1,238 @@
+package com.faunadb.common;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A request body that has already been encoded into bytes.
+ *
+ * <p>Bodies produced by a {@link Connection.BodyWriter} are written into fixed-size chunks taken from a pooled
+ * allocator, so an encoded query is never held as a {@link String} or as a single contiguous array. Bodies larger
+ * than the chunked threshold are sent using chunked transfer encoding, straight from those chunks.
+ *
+ * <p>Each call to {@link #buffers()} returns independent views of the content, so the same encoded body can be sent
+ * more than once. The content must be returned with {@link #release()} once it is no longer needed.
+ *
+ * <p>A body may be compressed with {@link #compress}, which streams it through a compressor into a new set of pooled
+ * chunks. The compressed body is sent with a matching {@code Content-Encoding} header.
+ */
+final class EncodedBody {
+  static final int CHUNK_SIZE = 8192;
+
+  /**
+   * Wraps already encoded content. The body takes ownership of {@code content}.
+   */
+  static EncodedBody wrap(ByteBuf content) {
+    return new EncodedBody(content, false, null);
+  }
+
+  static EncodedBody wrap(byte[] content) {
+    return wrap(Unpooled.wrappedBuffer(content));
+  }
+
+  static EncodedBody wrap(ByteBuffer content) {
+    return wrap(Unpooled.wrappedBuffer(content));
+  }
+
+  /**
+   * Runs {@code writer} against a stream backed by chunks from {@code alloc}.
+   *
+   * @param chunkedThreshold bodies longer than this many bytes are sent with chunked transfer encoding.
+   */
+  static EncodedBody encode(ByteBufAllocator alloc, Connection.BodyWriter writer, int chunkedThreshold) throws IOException {
+    CompositeByteBuf content = alloc.compositeBuffer(Integer.MAX_VALUE);
+    ChunkedOutputStream out = new ChunkedOutputStream(alloc, content);
+
+    try {
+      writer.writeTo(out);
+      out.close();
+    } catch (IOException | RuntimeException ex) {
+      out.discard();
+      content.release();
+      throw ex;
+    }
+
+    return new EncodedBody(content, content.readableBytes() > chunkedThreshold, null);
+  }
+
+  private final ByteBuf content;
+  private final boolean chunked;
+  private final String encoding;
+
+  private EncodedBody(ByteBuf content, boolean chunked, String encoding) {
+    this.content = content;
+    this.chunked = chunked;
+    this.encoding = encoding;
+  }
+
+  /**
+   * Compresses this body into chunks from {@code alloc}, following {@code policy}, and releases it. The returned body
+   * must be released in its place.
+   *
+   * @param chunkedThreshold compressed bodies longer than this many bytes are sent with chunked transfer encoding.
+   */
+  EncodedBody compress(ByteBufAllocator alloc, CompressionPolicy policy, int chunkedThreshold) throws IOException {
+    CompositeByteBuf compressed = alloc.compositeBuffer(Integer.MAX_VALUE);
+    ChunkedOutputStream chunks = new ChunkedOutputStream(alloc, compressed);
+    Deflater deflater = null;
+
+    try {
+      DeflaterOutputStream out;
+      if (policy.encoding() == CompressionPolicy.Encoding.GZIP) {
+        GzipOutputStream gzip = new GzipOutputStream(chunks, policy.level());
+        deflater = gzip.deflater();
+        out = gzip;
+      } else {
+        deflater = new Deflater(policy.level());
+        out = new DeflaterOutputStream(chunks, deflater, CHUNK_SIZE);
+      }
+
+      content.getBytes(content.readerIndex(), out, content.readableBytes());
+      out.close();
+    } catch (IOException | RuntimeException ex) {
+      chunks.discard();
+      compressed.release();
+      throw ex;
+    } finally {
+      if (deflater != null) {
+        deflater.end();
+      }
+    }
+
+    release();
+    return new EncodedBody(compressed, compressed.readableBytes() > chunkedThreshold, policy.encoding().header());
+  }
+
+  /**
+   * Returns the encoded length of this body, in bytes.
+   */
+  int length() {
+    return content.readableBytes();
+  }
+
+  /**
+   * Returns the {@code Content-Encoding} of this body, or null if it is not compressed.
+   */
+  String encoding() {
+    return encoding;
+  }
+
+  /**
+   * Returns true if this body will be sent with chunked transfer encoding.
+   */
+  boolean isChunked() {
+    return chunked;
+  }
+
+  /**
+   * Returns read-only views of the chunks of this body, in order, without copying them.
+   */
+  List<ByteBuffer> buffers() {
+    ByteBuffer[] buffers = content.nioBuffers();
+    for (int i = 0; i < buffers.length; i++) {
+      buffers[i] = buffers[i].asReadOnlyBuffer();
+    }
+    return Arrays.asList(buffers);
+  }
+
+  /**
+   * Returns up to {@code maxBytes} of this body decoded with {@code charset}, followed by an ellipsis if it was cut
+   * short, or a summary of it if it is compressed.
+   */
+  String toString(Charset charset, int maxBytes) {
+    if (encoding != null) {
+      return "(" + length() + " bytes, " + encoding + ")";
+    }
+
+    int length = content.readableBytes();
+    if (length <= maxBytes) {
+      return content.toString(charset);
+    }
+    return content.toString(content.readerIndex(), maxBytes, charset) + "...";
+  }
+
+  void release() {
+    content.release();
+  }
+
+  /**
+   * A gzip stream at a given level, whose deflater can be ended even if the stream is never closed.
+   */
+  private static final class GzipOutputStream extends GZIPOutputStream {
+    GzipOutputStream(OutputStream out, int level) throws IOException {
+      super(out, CHUNK_SIZE);
+      def.setLevel(level);
+    }
+
+    Deflater deflater() {
+      return def;
+    }
+  }
+
+  private static final class ChunkedOutputStream extends OutputStream {
+    private final ByteBufAllocator alloc;
+    private final CompositeByteBuf content;
+    private ByteBuf chunk;
+
+    ChunkedOutputStream(ByteBufAllocator alloc, CompositeByteBuf content) {
+      this.alloc = alloc;
+      this.content = content;
+    }
+
+    @Override
+    public void write(int b) {
+      ensureWritable();
+      chunk.writeByte(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      while (len > 0) {
+        ensureWritable();
+        int n = Math.min(len, chunk.writableBytes());
+        chunk.writeBytes(b, off, n);
+        off += n;
+        len -= n;
+      }
+    }
+
+    @Override
+    public void close() {
+      appendChunk();
+    }
+
+    void discard() {
+      if (chunk != null) {
+        chunk.release();
+        chunk = null;
+      }
+    }
+
+    private void ensureWritable() {
+      if (chunk == null || !chunk.isWritable()) {
+        appendChunk();
+        chunk = alloc.buffer(CHUNK_SIZE, CHUNK_SIZE);
+      }
+    }
+
+    private void appendChunk() {
+      if (chunk != null) {
+        content.addComponent(chunk);
+        content.writerIndex(content.writerIndex() + chunk.readableBytes());
+        chunk = null;
+      }
+    }
+  }
+}
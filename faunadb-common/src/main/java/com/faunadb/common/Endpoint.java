@@ -0,0 +1,135 @@
+package com.faunadb.common;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A single FaunaDB node that a {@link Connection} can send requests to, along with the statistics used to balance
+ * load across nodes.
+ *
+ * <p>Latency is tracked as a peak-sensitive exponentially weighted moving average: a response slower than the
+ * current average replaces it outright, while faster responses pull it down gradually. This makes a node that
+ * suddenly slows down lose traffic immediately, and regain it only once it has proven itself again.
+ */
+final class Endpoint {
+  private static final double DECAY_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+  private final URL root;
+  private final String name;
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicInteger consecutiveFailures = new AtomicInteger();
+  private final CircuitBreaker breaker;
+  private final EndpointMetrics metrics;
+
+  private double latencyEwma = 0;
+  private long lastObserved = System.nanoTime();
+  private volatile boolean healthy = true;
+
+  Endpoint(URL root, CircuitBreakerPolicy breakerPolicy, ConnectionMetrics metrics, CircuitBreakerListener listener) {
+    this.root = root;
+    this.name = root.getHost() + ":" + (root.getPort() == -1 ? root.getDefaultPort() : root.getPort());
+    this.breaker = new CircuitBreaker(name, breakerPolicy, metrics, listener);
+    this.metrics = new EndpointMetrics(metrics, name);
+  }
+
+  URL root() {
+    return root;
+  }
+
+  /**
+   * Returns a short name for this endpoint, of the form {@code host:port}.
+   */
+  String name() {
+    return name;
+  }
+
+  String url(String path) throws MalformedURLException {
+    return new URL(root, path).toString();
+  }
+
+  CircuitBreaker breaker() {
+    return breaker;
+  }
+
+  EndpointMetrics metrics() {
+    return metrics;
+  }
+
+  int inFlight() {
+    return inFlight.get();
+  }
+
+  boolean isHealthy() {
+    return healthy;
+  }
+
+  synchronized double latencyEwma() {
+    return latencyEwma;
+  }
+
+  /**
+   * Returns the expected cost of sending one more request to this endpoint. Lower is better.
+   */
+  double cost() {
+    return (latencyEwma() + 1) * (inFlight.get() + 1);
+  }
+
+  void requestStarted() {
+    inFlight.incrementAndGet();
+  }
+
+  /**
+   * Records the outcome of a request sent to this endpoint.
+   *
+   * @return the number of consecutive failures, including this one, or 0 if the request succeeded.
+   */
+  int requestFinished(long latencyNanos, boolean failed) {
+    inFlight.decrementAndGet();
+    observe(latencyNanos);
+
+    if (failed) {
+      return consecutiveFailures.incrementAndGet();
+    } else {
+      consecutiveFailures.set(0);
+      return 0;
+    }
+  }
+
+  /**
+   * Records that a request sent to this endpoint was cancelled before it was answered. Since the endpoint never gave
+   * an answer, neither its latency average nor its run of failures is touched.
+   */
+  void requestCancelled() {
+    inFlight.decrementAndGet();
+  }
+
+  void eject() {
+    healthy = false;
+  }
+
+  void readmit() {
+    consecutiveFailures.set(0);
+    healthy = true;
+  }
+
+  private synchronized void observe(long latencyNanos) {
+    long now = System.nanoTime();
+    double latency = latencyNanos;
+
+    if (latency > latencyEwma) {
+      latencyEwma = latency;
+    } else {
+      double w = Math.exp(-(now - lastObserved) / DECAY_NANOS);
+      latencyEwma = latencyEwma * w + latency * (1 - w);
+    }
+
+    lastObserved = now;
+  }
+
+  @Override
+  public String toString() {
+    return "Endpoint(" + root + ")";
+  }
+}
@@ -0,0 +1,92 @@
+package com.faunadb.common;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Timer;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The metrics recorded for the requests sent to one {@link Endpoint}, under {@code fauna-endpoint.<host>:<port>}.
+ *
+ * <ul>
+ *   <li>{@code latency}: the round trip time of every attempt, answered or not.</li>
+ *   <li>{@code status.<code>}: the round trip time of attempts answered with each status code.</li>
+ *   <li>{@code errors.<exception>}: the attempts that failed with each class of exception.</li>
+ *   <li>{@code request-bytes} and {@code response-bytes}: the sizes of request bodies as sent, and of response
+ *   bodies as decoded.</li>
+ *   <li>{@code pool-wait}: the time taken to obtain a connection, either from the pool or by starting a new one.</li>
+ *   <li>{@code connect-time}: the time taken to open a new connection, including any TLS handshake.</li>
+ *   <li>{@code time-to-first-byte}: the time from sending a request to receiving its response status.</li>
+ * </ul>
+ *
+ * <p>Connection timings are only available from transports that report them, as the default one does. The metrics
+ * handles are resolved once, so recording does not consult the registry except for the first use of a status code or
+ * exception class.
+ */
+final class EndpointMetrics {
+  private final ConnectionMetrics metrics;
+  private final String endpoint;
+  private final Timer latency;
+  private final Timer poolWait;
+  private final Timer connectTime;
+  private final Timer timeToFirstByte;
+  private final Histogram requestBytes;
+  private final Histogram responseBytes;
+  private final ConcurrentMap<Integer, Timer> statuses = new ConcurrentHashMap<>();
+
+  EndpointMetrics(ConnectionMetrics metrics, String endpoint) {
+    this.metrics = metrics;
+    this.endpoint = endpoint;
+    this.latency = metrics.timer("fauna-endpoint", endpoint, "latency");
+    this.poolWait = metrics.timer("fauna-endpoint", endpoint, "pool-wait");
+    this.connectTime = metrics.timer("fauna-endpoint", endpoint, "connect-time");
+    this.timeToFirstByte = metrics.timer("fauna-endpoint", endpoint, "time-to-first-byte");
+    this.requestBytes = metrics.histogram("fauna-endpoint", endpoint, "request-bytes");
+    this.responseBytes = metrics.histogram("fauna-endpoint", endpoint, "response-bytes");
+  }
+
+  void requestSent(int bodyBytes) {
+    requestBytes.update(bodyBytes);
+  }
+
+  void responseReceived(int status, long latencyNanos, long bodyBytes) {
+    latency.update(latencyNanos, TimeUnit.NANOSECONDS);
+    status(status).update(latencyNanos, TimeUnit.NANOSECONDS);
+    responseBytes.update(bodyBytes);
+  }
+
+  void requestFailed(Throwable t, long latencyNanos) {
+    latency.update(latencyNanos, TimeUnit.NANOSECONDS);
+    metrics.meter("fauna-endpoint", endpoint, "errors", t.getClass().getSimpleName()).mark();
+  }
+
+  /**
+   * Records the connection timings reported by the transport. Each is ignored if it is negative, meaning it was not
+   * reported.
+   */
+  void timings(long poolWaitNanos, long connectNanos, long timeToFirstByteNanos) {
+    if (poolWaitNanos >= 0) {
+      poolWait.update(poolWaitNanos, TimeUnit.NANOSECONDS);
+    }
+    if (connectNanos >= 0) {
+      connectTime.update(connectNanos, TimeUnit.NANOSECONDS);
+    }
+    if (timeToFirstByteNanos >= 0) {
+      timeToFirstByte.update(timeToFirstByteNanos, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  private Timer status(int status) {
+    Timer timer = statuses.get(status);
+    if (timer == null) {
+      timer = metrics.timer("fauna-endpoint", endpoint, "status", Integer.toString(status));
+      Timer prior = statuses.putIfAbsent(status, timer);
+      if (prior != null) {
+        timer = prior;
+      }
+    }
+    return timer;
+  }
+}
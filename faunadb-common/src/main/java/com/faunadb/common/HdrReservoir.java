@@ -0,0 +1,257 @@
+package com.faunadb.common;
+
+import com.codahale.metrics.Reservoir;
+import com.codahale.metrics.Snapshot;
+
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A {@link Reservoir} that counts values in log-linear buckets, in the manner of an HdrHistogram.
+ *
+ * <p>Values below 128 are counted exactly. Above that, each power of two is split into 64 buckets, so every value is
+ * counted within 1.6% of its true size however large it is, and every percentile up to the maximum is reported with
+ * the same precision. Unlike a sampling reservoir, no value is ever discarded, so the rare slow requests that make up
+ * the tail are always visible. Values up to 2<sup>36</sup>, about 68 seconds in nanoseconds, are distinguished;
+ * larger ones are counted as the largest.
+ *
+ * <p>Values are counted into the current of two intervals, and a snapshot covers both. The intervals are rotated
+ * whenever the current one is older than the interval length, so a snapshot reflects between one and two interval
+ * lengths of recent values. Recording a value takes constant time and allocates nothing.
+ */
+final class HdrReservoir implements Reservoir {
+  private static final int SUB_BITS = 7;
+  private static final int SUB_COUNT = 1 << SUB_BITS;
+  private static final int HALF_COUNT = SUB_COUNT >> 1;
+  private static final int MAX_SHIFT = 29;
+  private static final int BUCKETS = SUB_COUNT + MAX_SHIFT * HALF_COUNT;
+  static final long MAX_VALUE = ((long) SUB_COUNT << MAX_SHIFT) - 1;
+
+  private static final long DEFAULT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+  private final long intervalNanos;
+  private volatile Interval current = new Interval();
+  private volatile Interval previous = new Interval();
+  private volatile long rotateAt;
+
+  HdrReservoir() {
+    this(DEFAULT_INTERVAL_NANOS, TimeUnit.NANOSECONDS);
+  }
+
+  HdrReservoir(long interval, TimeUnit unit) {
+    this.intervalNanos = unit.toNanos(interval);
+    this.rotateAt = System.nanoTime() + intervalNanos;
+  }
+
+  @Override
+  public int size() {
+    rotateIfDue();
+    return (int) Math.min(Integer.MAX_VALUE, current.count.get() + previous.count.get());
+  }
+
+  @Override
+  public void update(long value) {
+    rotateIfDue();
+    long v = Math.max(0, Math.min(MAX_VALUE, value));
+    Interval interval = current;
+    interval.counts.incrementAndGet(bucket(v));
+    interval.count.incrementAndGet();
+    interval.sum.addAndGet(v);
+  }
+
+  @Override
+  public Snapshot getSnapshot() {
+    rotateIfDue();
+    Interval a = previous;
+    Interval b = current;
+
+    long[] counts = new long[BUCKETS];
+    long count = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      counts[i] = a.counts.get(i) + b.counts.get(i);
+      count += counts[i];
+    }
+
+    return new HdrSnapshot(counts, count, a.sum.get() + b.sum.get());
+  }
+
+  private void rotateIfDue() {
+    long now = System.nanoTime();
+    if (now - rotateAt < 0) {
+      return;
+    }
+
+    synchronized (this) {
+      if (now - rotateAt < 0) {
+        return;
+      }
+
+      Interval recycled = previous;
+      recycled.clear();
+      if (now - rotateAt >= intervalNanos) {
+        current.clear();
+      }
+
+      previous = current;
+      current = recycled;
+      rotateAt = now + intervalNanos;
+    }
+  }
+
+  static int bucket(long value) {
+    if (value < SUB_COUNT) {
+      return (int) value;
+    }
+
+    int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BITS - 1);
+    return SUB_COUNT + (shift - 1) * HALF_COUNT + (int) ((value >>> shift) - HALF_COUNT);
+  }
+
+  static long lowestValue(int bucket) {
+    if (bucket < SUB_COUNT) {
+      return bucket;
+    }
+
+    int k = bucket - SUB_COUNT;
+    return (long) (k % HALF_COUNT + HALF_COUNT) << (k / HALF_COUNT + 1);
+  }
+
+  static long highestValue(int bucket) {
+    if (bucket < SUB_COUNT) {
+      return bucket;
+    }
+
+    return lowestValue(bucket) + (1L << ((bucket - SUB_COUNT) / HALF_COUNT + 1)) - 1;
+  }
+
+  private static long medianValue(int bucket) {
+    return (lowestValue(bucket) + highestValue(bucket)) / 2;
+  }
+
+  private static final class Interval {
+    final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    final AtomicLong count = new AtomicLong();
+    final AtomicLong sum = new AtomicLong();
+
+    void clear() {
+      for (int i = 0; i < BUCKETS; i++) {
+        counts.set(i, 0);
+      }
+      count.set(0);
+      sum.set(0);
+    }
+  }
+
+  /**
+   * A snapshot of bucket counts. Percentiles are reported as the highest value in the bucket they fall in, so they
+   * are never understated.
+   */
+  private static final class HdrSnapshot extends Snapshot {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final long[] counts;
+    private final long count;
+    private final long sum;
+
+    HdrSnapshot(long[] counts, long count, long sum) {
+      this.counts = counts;
+      this.count = count;
+      this.sum = sum;
+    }
+
+    @Override
+    public double getValue(double quantile) {
+      if (quantile < 0 || quantile > 1 || Double.isNaN(quantile)) {
+        throw new IllegalArgumentException(quantile + " is not in [0..1]");
+      }
+
+      if (count == 0) {
+        return 0;
+      }
+
+      long rank = Math.max(1, (long) Math.ceil(quantile * count));
+      long seen = 0;
+      for (int i = 0; i < counts.length; i++) {
+        seen += counts[i];
+        if (seen >= rank) {
+          return highestValue(i);
+        }
+      }
+      return getMax();
+    }
+
+    @Override
+    public long[] getValues() {
+      long[] values = new long[(int) Math.min(Integer.MAX_VALUE - 8, count)];
+      int n = 0;
+      for (int i = 0; i < counts.length && n < values.length; i++) {
+        long value = medianValue(i);
+        for (long j = 0; j < counts[i] && n < values.length; j++) {
+          values[n++] = value;
+        }
+      }
+      return values;
+    }
+
+    @Override
+    public int size() {
+      return (int) Math.min(Integer.MAX_VALUE, count);
+    }
+
+    @Override
+    public long getMax() {
+      for (int i = counts.length - 1; i >= 0; i--) {
+        if (counts[i] > 0) {
+          return highestValue(i);
+        }
+      }
+      return 0;
+    }
+
+    @Override
+    public double getMean() {
+      return count == 0 ? 0 : (double) sum / count;
+    }
+
+    @Override
+    public long getMin() {
+      for (int i = 0; i < counts.length; i++) {
+        if (counts[i] > 0) {
+          return lowestValue(i);
+        }
+      }
+      return 0;
+    }
+
+    @Override
+    public double getStdDev() {
+      if (count <= 1) {
+        return 0;
+      }
+
+      double mean = getMean();
+      double variance = 0;
+      for (int i = 0; i < counts.length; i++) {
+        if (counts[i] > 0) {
+          double diff = medianValue(i) - mean;
+          variance += counts[i] * diff * diff;
+        }
+      }
+      return Math.sqrt(variance / (count - 1));
+    }
+
+    @Override
+    public void dump(OutputStream output) {
+      try (PrintWriter out = new PrintWriter(new OutputStreamWriter(output, UTF8))) {
+        for (long value : getValues()) {
+          out.printf("%d%n", value);
+        }
+      }
+    }
+  }
+}
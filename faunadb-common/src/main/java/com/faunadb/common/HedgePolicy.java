@@ -0,0 +1,115 @@
+package com.faunadb.common;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Controls whether and when a {@link Connection} hedges requests.
+ *
+ * <p>A hedged request that has not been answered within the hedge delay is sent a second time, to a different node
+ * where one is available, or otherwise over a different pooled connection. Whichever copy is answered first is
+ * returned, and the other is cancelled. This cuts the tail latency caused by a single slow node or a stalled
+ * connection, at the cost of some extra load.
+ *
+ * <p>The hedge delay follows the connection's own latency: it is the given percentile of the {@code fauna-request}
+ * timer, recomputed at most once a second, and never less than the minimum delay. No requests are hedged until the
+ * timer has recorded enough requests for the percentile to be meaningful.
+ *
+ * <p>Hedges are limited by a budget in the same way as retries: every request adds {@code budgetRatio} of a token,
+ * and every hedge spends a whole one.
+ *
+ * <p>Only requests marked with {@link RequestOptions#withHedging(boolean)} are hedged, as only requests without side
+ * effects can safely be sent twice. Instances are immutable. The {@code withX} methods each return a copy.
+ *
+ * @see Connection.Builder#withHedgePolicy(HedgePolicy)
+ */
+public final class HedgePolicy {
+  /**
+   * Hedges requests slower than the 95th percentile, after at least 5ms, and hedges at most 5% of requests plus 1 per
+   * second.
+   */
+  public static final HedgePolicy DEFAULT = new HedgePolicy(true, 0.95, 5, 0.05, 1);
+
+  /**
+   * Never hedges. This is the default for a {@link Connection}.
+   */
+  public static final HedgePolicy NONE = new HedgePolicy(false, 0.95, 5, 0, 0);
+
+  private final boolean enabled;
+  private final double percentile;
+  private final long minDelayMs;
+  private final double budgetRatio;
+  private final int minHedgesPerSecond;
+
+  HedgePolicy(boolean enabled, double percentile, long minDelayMs, double budgetRatio, int minHedgesPerSecond) {
+    this.enabled = enabled;
+    this.percentile = percentile;
+    this.minDelayMs = minDelayMs;
+    this.budgetRatio = budgetRatio;
+    this.minHedgesPerSecond = minHedgesPerSecond;
+  }
+
+  /**
+   * Returns a copy of this with the latency percentile after which requests are hedged set.
+   * @param percentile the percentile, between 0 and 1.
+   */
+  public HedgePolicy withPercentile(double percentile) {
+    if (percentile <= 0 || percentile >= 1) {
+      throw new IllegalArgumentException("The hedge percentile must be between 0 and 1.");
+    }
+    return new HedgePolicy(enabled, percentile, minDelayMs, budgetRatio, minHedgesPerSecond);
+  }
+
+  /**
+   * Returns a copy of this with the smallest hedge delay set.
+   * @param delay the smallest delay before a request is hedged.
+   * @param unit the unit of {@code delay}.
+   */
+  public HedgePolicy withMinDelay(long delay, TimeUnit unit) {
+    if (delay < 0) {
+      throw new IllegalArgumentException("The minimum hedge delay cannot be negative.");
+    }
+    return new HedgePolicy(enabled, percentile, unit.toMillis(delay), budgetRatio, minHedgesPerSecond);
+  }
+
+  /**
+   * Returns a copy of this with the hedge budget set.
+   * @param ratio the fraction of requests that may be hedged.
+   * @param minHedgesPerSecond the number of hedges allowed each second, regardless of {@code ratio}.
+   */
+  public HedgePolicy withBudget(double ratio, int minHedgesPerSecond) {
+    if (ratio < 0 || minHedgesPerSecond < 0) {
+      throw new IllegalArgumentException("Hedge budgets cannot be negative.");
+    }
+    return new HedgePolicy(enabled, percentile, minDelayMs, ratio, minHedgesPerSecond);
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public double percentile() {
+    return percentile;
+  }
+
+  public long minDelayMs() {
+    return minDelayMs;
+  }
+
+  public double budgetRatio() {
+    return budgetRatio;
+  }
+
+  public int minHedgesPerSecond() {
+    return minHedgesPerSecond;
+  }
+
+  RequestBudget newBudget() {
+    return new RequestBudget(budgetRatio, minHedgesPerSecond);
+  }
+
+  @Override
+  public String toString() {
+    return "HedgePolicy(enabled=" + enabled + ", percentile=" + percentile + ", minDelayMs=" + minDelayMs +
+      ", budgetRatio=" + budgetRatio + ", minHedgesPerSecond=" + minHedgesPerSecond + ")";
+  }
+}
@@ -0,0 +1,267 @@
+package com.faunadb.common;
+
+import com.codahale.metrics.Gauge;
+import com.google.common.collect.ImmutableList;
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import io.netty.util.TimerTask;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chooses the {@link Endpoint} each request is sent to.
+ *
+ * <p>Selection uses the "power of two choices": two healthy endpoints are picked at random, and the one with the
+ * lower {@link Endpoint#cost()} wins. Cost combines each endpoint's latency average with its number of requests in
+ * flight, so a slow or busy node receives proportionally less traffic without every request having to scan every
+ * node.
+ *
+ * <p>An endpoint that fails {@code ejectionThreshold} requests in a row is ejected and receives no further traffic
+ * until a background probe of its {@code /ping} resource succeeds. If every endpoint has been ejected, requests are
+ * spread across all of them rather than failing outright. Probes run on the connection's timer.
+ *
+ * <p>A connection with a single endpoint never ejects it, and runs no probes.
+ *
+ * <p>Independently of ejection, each endpoint has a {@link CircuitBreaker}. An endpoint whose breaker is open is never
+ * selected, even when every endpoint is, so that requests fail fast instead of piling onto struggling nodes.
+ */
+final class LoadBalancer {
+  static final String PING_PATH = "/ping";
+
+  private final ImmutableList<Endpoint> endpoints;
+  private final Transport transport;
+  private final ConnectionMetrics metrics;
+  private final int ejectionThreshold;
+  private final long probeIntervalMs;
+  private final Timer timer;
+  private final RegisteredMetrics gauges;
+  private volatile boolean closed = false;
+
+  private final Logger log = LoggerFactory.getLogger(getClass());
+
+  LoadBalancer(List<URL> roots, Transport transport, ConnectionMetrics metrics, Timer timer, int ejectionThreshold,
+               long probeIntervalMs, CircuitBreakerPolicy breakerPolicy, CircuitBreakerListener breakerListener) {
+    ImmutableList.Builder<Endpoint> eps = ImmutableList.builder();
+    for (URL root : roots) {
+      eps.add(new Endpoint(root, breakerPolicy, metrics, breakerListener));
+    }
+
+    this.endpoints = eps.build();
+    this.transport = transport;
+    this.metrics = metrics;
+    this.timer = timer;
+    this.gauges = new RegisteredMetrics(metrics.registry());
+    this.ejectionThreshold = ejectionThreshold;
+    this.probeIntervalMs = probeIntervalMs;
+
+    for (Endpoint endpoint : endpoints) {
+      registerMetrics(endpoint, breakerPolicy.isEnabled());
+    }
+  }
+
+  ImmutableList<Endpoint> endpoints() {
+    return endpoints;
+  }
+
+  /**
+   * Returns the endpoint the next request should be sent to, having taken a permit from its circuit breaker, or null
+   * if every endpoint's circuit breaker is open. The request's outcome must then be passed to
+   * {@link #requestFinished}, {@link #requestCancelled} or {@link #requestNotSent}.
+   *
+   * @param avoid an endpoint to pass over if any other is available, such as the one a retried request last failed
+   *              on. May be null.
+   */
+  Endpoint select(Endpoint avoid) {
+    if (endpoints.size() == 1) {
+      Endpoint endpoint = endpoints.get(0);
+      return endpoint.breaker().tryAcquire() ? endpoint : null;
+    }
+
+    List<Endpoint> permitted = new ArrayList<>(endpoints.size());
+    for (Endpoint endpoint : endpoints) {
+      if (endpoint.breaker().isCallPermitted()) {
+        permitted.add(endpoint);
+      }
+    }
+
+    while (!permitted.isEmpty()) {
+      Endpoint endpoint = choose(permitted, avoid);
+      if (endpoint.breaker().tryAcquire()) {
+        return endpoint;
+      }
+      permitted.remove(endpoint);
+    }
+
+    return null;
+  }
+
+  private static Endpoint choose(List<Endpoint> permitted, Endpoint avoid) {
+    List<Endpoint> candidates = new ArrayList<>(permitted.size());
+    for (Endpoint endpoint : permitted) {
+      if (endpoint.isHealthy() && endpoint != avoid) {
+        candidates.add(endpoint);
+      }
+    }
+
+    if (candidates.isEmpty() && avoid != null && avoid.isHealthy() && permitted.contains(avoid)) {
+      candidates.add(avoid);
+    }
+
+    if (candidates.isEmpty()) {
+      candidates = permitted;
+    }
+
+    if (candidates.size() == 1) {
+      return candidates.get(0);
+    }
+
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    int i = random.nextInt(candidates.size());
+    int j = random.nextInt(candidates.size() - 1);
+    if (j >= i) {
+      j++;
+    }
+
+    Endpoint a = candidates.get(i);
+    Endpoint b = candidates.get(j);
+    return a.cost() <= b.cost() ? a : b;
+  }
+
+  /**
+   * Records a request's outcome against {@code endpoint}, ejecting it if it has now failed too many times in a row.
+   *
+   * @param failed true if the request failed in a way that points to the node itself being unavailable.
+   */
+  void requestFinished(Endpoint endpoint, long latencyNanos, boolean failed) {
+    int failures = endpoint.requestFinished(latencyNanos, failed);
+    endpoint.breaker().onResult(latencyNanos, failed);
+
+    if (endpoints.size() > 1 && failures >= ejectionThreshold && endpoint.isHealthy()) {
+      eject(endpoint);
+    }
+  }
+
+  /**
+   * Records that a request sent to {@code endpoint} was cancelled before it was answered. The cancellation says
+   * nothing about the endpoint, so it counts as neither a success nor a failure.
+   */
+  void requestCancelled(Endpoint endpoint) {
+    endpoint.requestCancelled();
+    endpoint.breaker().onCancelled();
+  }
+
+  /**
+   * Records that a request was never sent to the {@code endpoint} it was given by {@link #select}.
+   */
+  void requestNotSent(Endpoint endpoint) {
+    endpoint.breaker().onCancelled();
+  }
+
+  /**
+   * Stops probing ejected endpoints, and removes this balancer's metrics from the registry.
+   */
+  void close() {
+    closed = true;
+
+    gauges.removeAll();
+  }
+
+  private synchronized void eject(Endpoint endpoint) {
+    if (!endpoint.isHealthy()) {
+      return;
+    }
+
+    endpoint.eject();
+    metrics.meter("fauna-endpoint", endpoint.name(), "ejections").mark();
+    log.warn("Ejected FaunaDB endpoint " + endpoint.root() + " after " + ejectionThreshold + " consecutive failures.");
+
+    scheduleProbe(endpoint);
+  }
+
+  private void scheduleProbe(final Endpoint endpoint) {
+    if (closed) {
+      return;
+    }
+
+    timer.newTimeout(new TimerTask() {
+      @Override
+      public void run(Timeout timeout) {
+        probe(endpoint);
+      }
+    }, probeIntervalMs, TimeUnit.MILLISECONDS);
+  }
+
+  private void probe(final Endpoint endpoint) {
+    if (closed) {
+      return;
+    }
+
+    try {
+      transport.execute(TransportRequest.get(endpoint.url(PING_PATH)), new PingHandler() {
+        @Override
+        void onAnswered(int statusCode) {
+          if (statusCode == 200) {
+            readmit(endpoint);
+          } else {
+            scheduleProbe(endpoint);
+          }
+        }
+
+        @Override
+        void onFailed(Throwable t) {
+          scheduleProbe(endpoint);
+        }
+      });
+    } catch (Exception ex) {
+      scheduleProbe(endpoint);
+    }
+  }
+
+  private void readmit(Endpoint endpoint) {
+    endpoint.readmit();
+    metrics.meter("fauna-endpoint", endpoint.name(), "readmissions").mark();
+    log.info("Re-admitted FaunaDB endpoint " + endpoint.root() + ".");
+  }
+
+  private void registerMetrics(final Endpoint endpoint, boolean breakerEnabled) {
+    gauges.register(metricName(endpoint, "in-flight"), new Gauge<Integer>() {
+      @Override
+      public Integer getValue() {
+        return endpoint.inFlight();
+      }
+    });
+
+    gauges.register(metricName(endpoint, "latency-ewma-ms"), new Gauge<Double>() {
+      @Override
+      public Double getValue() {
+        return endpoint.latencyEwma() / TimeUnit.MILLISECONDS.toNanos(1);
+      }
+    });
+
+    gauges.register(metricName(endpoint, "healthy"), new Gauge<Boolean>() {
+      @Override
+      public Boolean getValue() {
+        return endpoint.isHealthy();
+      }
+    });
+
+    if (breakerEnabled) {
+      gauges.register(metricName(endpoint, "circuit-state"), new Gauge<String>() {
+        @Override
+        public String getValue() {
+          return endpoint.breaker().state().name();
+        }
+      });
+    }
+  }
+
+  private String metricName(Endpoint endpoint, String name) {
+    return metrics.name("fauna-endpoint", endpoint.name(), name);
+  }
+}
@@ -0,0 +1,44 @@
+package com.faunadb.common;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+/**
+ * Handles the response to a ping of an endpoint, of which only the status matters.
+ */
+abstract class PingHandler extends TransportHandler {
+  private volatile int statusCode;
+
+  /**
+   * Invoked once the endpoint has answered with {@code statusCode}.
+   */
+  abstract void onAnswered(int statusCode);
+
+  /**
+   * Invoked if the ping fails without an answer.
+   */
+  abstract void onFailed(Throwable t);
+
+  @Override
+  public void onStatus(int statusCode, String statusText) {
+    this.statusCode = statusCode;
+  }
+
+  @Override
+  public void onHeaders(Iterable<Map.Entry<String, String>> headers) {
+  }
+
+  @Override
+  public void onBodyPart(ByteBuffer part) {
+  }
+
+  @Override
+  public void onCompleted() {
+    onAnswered(statusCode);
+  }
+
+  @Override
+  public void onThrowable(Throwable t) {
+    onFailed(t);
+  }
+}
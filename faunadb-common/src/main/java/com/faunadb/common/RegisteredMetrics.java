@@ -0,0 +1,44 @@
+package com.faunadb.common;
+
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The metrics one component of a {@link Connection} has registered, so that they can be removed again when the
+ * connection is closed.
+ *
+ * <p>Several connections may share a registry. If a metric with the same name is already registered, the existing
+ * one is kept and this component's is not reported.
+ */
+final class RegisteredMetrics {
+  private final MetricRegistry registry;
+  private final Map<String, Metric> metrics = new LinkedHashMap<>();
+
+  RegisteredMetrics(MetricRegistry registry) {
+    this.registry = registry;
+  }
+
+  synchronized void register(String name, Metric metric) {
+    try {
+      registry.register(name, metric);
+      metrics.put(name, metric);
+    } catch (IllegalArgumentException ex) {
+      // Another connection already reports this metric.
+    }
+  }
+
+  /**
+   * Removes every metric registered through this object that is still in the registry.
+   */
+  synchronized void removeAll() {
+    for (Map.Entry<String, Metric> entry : metrics.entrySet()) {
+      if (registry.getMetrics().get(entry.getKey()) == entry.getValue()) {
+        registry.remove(entry.getKey());
+      }
+    }
+    metrics.clear();
+  }
+}
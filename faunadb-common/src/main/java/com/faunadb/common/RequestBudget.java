@@ -0,0 +1,54 @@
+package com.faunadb.common;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A token bucket that limits how many extra requests, such as retries or hedges, a {@link Connection} may send.
+ *
+ * <p>Each request deposits {@code ratio} tokens and each extra request withdraws one. Tokens are also refilled at
+ * {@code minPerSecond}. The bucket holds at most one second's refill plus the deposits of 100 requests, so that a
+ * long quiet period cannot bank an unbounded burst of extra requests.
+ */
+final class RequestBudget {
+  private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+  private static final int CAPACITY_REQUESTS = 100;
+
+  private final double ratio;
+  private final double minPerSecond;
+  private final double capacity;
+
+  private double tokens;
+  private long lastRefill = System.nanoTime();
+
+  RequestBudget(double ratio, int minPerSecond) {
+    this.ratio = ratio;
+    this.minPerSecond = minPerSecond;
+    this.capacity = minPerSecond + ratio * CAPACITY_REQUESTS;
+    this.tokens = capacity;
+  }
+
+  synchronized void deposit() {
+    refill();
+    tokens = Math.min(capacity, tokens + ratio);
+  }
+
+  /**
+   * Withdraws a token for an extra request.
+   *
+   * @return false if the budget is exhausted, in which case the extra request should not be sent.
+   */
+  synchronized boolean tryWithdraw() {
+    refill();
+    if (tokens >= 1) {
+      tokens -= 1;
+      return true;
+    }
+    return false;
+  }
+
+  private void refill() {
+    long now = System.nanoTime();
+    tokens = Math.min(capacity, tokens + minPerSecond * (now - lastRefill) / NANOS_PER_SECOND);
+    lastRefill = now;
+  }
+}
@@ -0,0 +1,22 @@
+package com.faunadb.common;
+
+/**
+ * Receives the phases of each request issued through a {@link Connection}, for example to attribute latency or to
+ * build tracing integrations.
+ *
+ * <p>Callbacks run on whichever thread reached the phase, which is often an I/O thread, so they must return quickly
+ * and must not block. Attempts of a hedged request run concurrently, so their phases may interleave. Exceptions
+ * thrown by a listener are logged and otherwise ignored.
+ *
+ * @see Connection.Builder#withRequestListener(RequestListener)
+ * @see RequestOptions#withTag(String, String)
+ */
+public interface RequestListener {
+  /**
+   * Called when a request reaches {@code phase}.
+   *
+   * @param phase the phase reached.
+   * @param trace the request, with its tags and the times at which it reached each phase so far.
+   */
+  void onPhase(RequestPhase phase, RequestTrace trace);
+}
@@ -0,0 +1,111 @@
+package com.faunadb.common;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Controls which requests a {@link Connection} logs, and how much of each it captures.
+ *
+ * <p>A request that takes longer than the slow threshold is logged at {@code WARN}. Of the remaining successful
+ * requests, a random {@code sampleRate} fraction is logged at {@code INFO}. Failed requests are logged at
+ * {@code INFO} if failure logging is enabled. Each entry records the method, URL, status, latency and serving FaunaDB
+ * host and build. Bodies may carry secrets and user data, so they are only captured if {@link #withMaxBodyBytes}
+ * opts in, and are then truncated to that many bytes.
+ *
+ * <p>Entries are formatted and written by a background thread, never on the I/O thread that received the response.
+ * A request that is not going to be logged costs no more than a comparison of its latency against the threshold and,
+ * if sampling is enabled, one random number. If the background thread falls behind, entries are dropped and counted
+ * by {@code fauna-request-log-dropped} rather than slowing down requests.
+ *
+ * <p>Entries are written to the {@code com.faunadb.common.RequestLogger} logger. Instances are immutable. The
+ * {@code withX} methods each return a copy.
+ *
+ * @see Connection.Builder#withRequestLogPolicy(RequestLogPolicy)
+ */
+public final class RequestLogPolicy {
+  /**
+   * Logs requests slower than 1s and failed requests, without their bodies. Samples no other requests.
+   */
+  public static final RequestLogPolicy DEFAULT = new RequestLogPolicy(TimeUnit.SECONDS.toMillis(1), 0, 0, true);
+
+  /**
+   * Logs nothing.
+   */
+  public static final RequestLogPolicy NONE = new RequestLogPolicy(Long.MAX_VALUE, 0, 0, false);
+
+  private final long slowThresholdMs;
+  private final double sampleRate;
+  private final int maxBodyBytes;
+  private final boolean logFailures;
+
+  RequestLogPolicy(long slowThresholdMs, double sampleRate, int maxBodyBytes, boolean logFailures) {
+    this.slowThresholdMs = slowThresholdMs;
+    this.sampleRate = sampleRate;
+    this.maxBodyBytes = maxBodyBytes;
+    this.logFailures = logFailures;
+  }
+
+  /**
+   * Returns a copy of this with the latency above which requests are logged as slow set.
+   * @param threshold the slow request threshold.
+   * @param unit the unit of {@code threshold}.
+   */
+  public RequestLogPolicy withSlowThreshold(long threshold, TimeUnit unit) {
+    if (threshold < 0) {
+      throw new IllegalArgumentException("The slow request threshold cannot be negative.");
+    }
+    return new RequestLogPolicy(unit.toMillis(threshold), sampleRate, maxBodyBytes, logFailures);
+  }
+
+  /**
+   * Returns a copy of this with the fraction of other successful requests that are logged set.
+   * @param rate the sample rate, between 0 and 1.
+   */
+  public RequestLogPolicy withSampleRate(double rate) {
+    if (rate < 0 || rate > 1) {
+      throw new IllegalArgumentException("The sample rate must be between 0 and 1.");
+    }
+    return new RequestLogPolicy(slowThresholdMs, rate, maxBodyBytes, logFailures);
+  }
+
+  /**
+   * Returns a copy of this with the number of bytes of each body that are captured set. Bodies are written to the log
+   * as is, including any secrets or user data in them.
+   * @param bytes the maximum number of bytes captured from each request and response body, or 0 to capture none.
+   */
+  public RequestLogPolicy withMaxBodyBytes(int bytes) {
+    if (bytes < 0) {
+      throw new IllegalArgumentException("The maximum body size cannot be negative.");
+    }
+    return new RequestLogPolicy(slowThresholdMs, sampleRate, bytes, logFailures);
+  }
+
+  /**
+   * Returns a copy of this that does or does not log failed requests.
+   * @param logFailures true to log failed requests.
+   */
+  public RequestLogPolicy withFailures(boolean logFailures) {
+    return new RequestLogPolicy(slowThresholdMs, sampleRate, maxBodyBytes, logFailures);
+  }
+
+  public long slowThresholdMs() {
+    return slowThresholdMs;
+  }
+
+  public double sampleRate() {
+    return sampleRate;
+  }
+
+  public int maxBodyBytes() {
+    return maxBodyBytes;
+  }
+
+  public boolean logsFailures() {
+    return logFailures;
+  }
+
+  @Override
+  public String toString() {
+    return "RequestLogPolicy(slowThresholdMs=" + slowThresholdMs + ", sampleRate=" + sampleRate + ", maxBodyBytes=" +
+      maxBodyBytes + ", logFailures=" + logFailures + ")";
+  }
+}
@@ -0,0 +1,145 @@
+package com.faunadb.common;
+
+import com.codahale.metrics.Meter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.asynchttpclient.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logs the requests of a {@link Connection} that its {@link RequestLogPolicy} selects.
+ *
+ * <p>The decision whether to log a request is made on the I/O thread, and is only a comparison or two. The request
+ * body is captured there too, since it is released once the request completes, but only up to the policy's limit and
+ * only for requests that will be logged. Everything else, including reading the response body and formatting the
+ * entry, happens on a single background thread shared by all connections. Its queue is bounded, and entries that do
+ * not fit are dropped.
+ */
+final class RequestLogger {
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+  private static final int QUEUE_SIZE = 1024;
+  private static final String FAUNA_HOST = "X-FaunaDB-Host";
+  private static final String FAUNA_BUILD = "X-FaunaDB-Build";
+
+  private static final ThreadPoolExecutor EMITTER = new ThreadPoolExecutor(
+    1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(QUEUE_SIZE),
+    new ThreadFactoryBuilder().setDaemon(true).setNameFormat("fauna-request-log-%d").build());
+
+  private final Logger log = LoggerFactory.getLogger(getClass());
+  private final long slowNanos;
+  private final double sampleRate;
+  private final int maxBodyBytes;
+  private final boolean logFailures;
+  private final Meter dropped;
+
+  RequestLogger(RequestLogPolicy policy, ConnectionMetrics metrics) {
+    this.slowNanos = policy.slowThresholdMs() == Long.MAX_VALUE ?
+      Long.MAX_VALUE : TimeUnit.MILLISECONDS.toNanos(policy.slowThresholdMs());
+    this.sampleRate = policy.sampleRate();
+    this.maxBodyBytes = policy.maxBodyBytes();
+    this.logFailures = policy.logsFailures();
+    this.dropped = metrics.meter("fauna-request-log-dropped");
+  }
+
+  /**
+   * Logs a request that was answered, if it was slow or is sampled.
+   */
+  void success(final TransportRequest request, EncodedBody body, final Response response, final long latencyNanos) {
+    final boolean slow = latencyNanos >= slowNanos;
+    if (!slow && (sampleRate == 0 || ThreadLocalRandom.current().nextDouble() >= sampleRate)) {
+      return;
+    }
+
+    final String requestBody = capture(body);
+    emit(new Runnable() {
+      @Override
+      public void run() {
+        String entry = entry(request, requestBody, latencyNanos) +
+          " status=" + response.getStatusCode() +
+          " faunaHost=" + header(response, FAUNA_HOST) +
+          " faunaBuild=" + header(response, FAUNA_BUILD);
+        if (maxBodyBytes > 0) {
+          entry += " response=" + capture(response);
+        }
+
+        if (slow) {
+          log.warn("Slow FaunaDB request: " + entry);
+        } else {
+          log.info("FaunaDB request: " + entry);
+        }
+      }
+    });
+  }
+
+  /**
+   * Logs a request that failed with {@code t}, if failures are logged.
+   */
+  void failure(final TransportRequest request, EncodedBody body, final Throwable t, final long latencyNanos) {
+    if (!logFailures) {
+      return;
+    }
+
+    final String requestBody = capture(body);
+    emit(new Runnable() {
+      @Override
+      public void run() {
+        log.info("Failed FaunaDB request: " + entry(request, requestBody, latencyNanos) + " error=" + t.getMessage(), t);
+      }
+    });
+  }
+
+  private void emit(Runnable entry) {
+    try {
+      EMITTER.execute(entry);
+    } catch (RejectedExecutionException ex) {
+      dropped.mark();
+    }
+  }
+
+  /**
+   * Returns up to {@code maxBodyBytes} of {@code body}, or null if bodies are not captured.
+   */
+  private String capture(EncodedBody body) {
+    if (maxBodyBytes == 0) {
+      return null;
+    }
+    return body == null ? "" : body.toString(UTF8, maxBodyBytes);
+  }
+
+  private String capture(Response response) {
+    try (InputStream in = response.getResponseBodyAsStream()) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream(Math.min(maxBodyBytes, 4096));
+      byte[] buf = new byte[Math.min(maxBodyBytes, 4096)];
+      int n;
+      while (out.size() < maxBodyBytes && (n = in.read(buf, 0, Math.min(buf.length, maxBodyBytes - out.size()))) >= 0) {
+        out.write(buf, 0, n);
+      }
+      boolean truncated = in.read() >= 0;
+      return out.toString("UTF-8") + (truncated ? "..." : "");
+    } catch (IOException ex) {
+      return "(unreadable)";
+    }
+  }
+
+  private static String entry(TransportRequest request, String requestBody, long latencyNanos) {
+    return "method=" + request.method() +
+      " url=" + request.url() +
+      " latencyMs=" + TimeUnit.NANOSECONDS.toMillis(latencyNanos) +
+      (requestBody == null ? "" : " request=" + requestBody);
+  }
+
+  private static String header(Response response, String name) {
+    String value = response.getHeader(name);
+    return value == null ? "Unknown" : value;
+  }
+}
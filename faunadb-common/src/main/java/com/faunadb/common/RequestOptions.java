@@ -0,0 +1,129 @@
+package com.faunadb.common;
+
+import com.google.common.collect.ImmutableMap;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Options that apply to a single request issued through a {@link Connection}.
+ *
+ * <p>Instances are immutable. The {@code withX} methods each return a copy.
+ */
+public final class RequestOptions {
+  /**
+   * The options used by requests that are not given any.
+   */
+  public static final RequestOptions DEFAULT = new RequestOptions(false, false, false, 0,
+    ImmutableMap.<String, String>of());
+
+  private final boolean idempotent;
+  private final boolean hedging;
+  private final boolean hasDeadline;
+  private final long deadlineNanos;
+  private final ImmutableMap<String, String> tags;
+
+  RequestOptions(boolean idempotent, boolean hedging, boolean hasDeadline, long deadlineNanos,
+                 ImmutableMap<String, String> tags) {
+    this.idempotent = idempotent;
+    this.hedging = hedging;
+    this.hasDeadline = hasDeadline;
+    this.deadlineNanos = deadlineNanos;
+    this.tags = tags;
+  }
+
+  /**
+   * Returns a copy of this with the idempotent flag set.
+   *
+   * <p>An idempotent request has the same effect whether it is applied once or several times, so it may be retried
+   * after a timeout or an unavailable response. {@code GET} and {@code PUT} requests are always treated as
+   * idempotent.
+   *
+   * @param idempotent true if the request may safely be applied more than once.
+   */
+  public RequestOptions withIdempotent(boolean idempotent) {
+    return new RequestOptions(idempotent, hedging, hasDeadline, deadlineNanos, tags);
+  }
+
+  /**
+   * Returns a copy of this with the hedging flag set.
+   *
+   * <p>A request that allows hedging may be sent a second time while the first is still in flight, if the
+   * connection has a {@link HedgePolicy}. Only requests with no side effects at all, such as read-only queries,
+   * should allow it.
+   *
+   * @param hedging true if the request may be hedged.
+   */
+  public RequestOptions withHedging(boolean hedging) {
+    return new RequestOptions(idempotent, hedging, hasDeadline, deadlineNanos, tags);
+  }
+
+  /**
+   * Returns a copy of this with a deadline {@code timeout} from now.
+   *
+   * <p>A request that is still waiting to be sent when its deadline passes is dropped without being sent, and one
+   * that is in flight is abandoned. Either way it fails with a {@link DeadlineExceededException}. Each attempt is
+   * sent with a request timeout of whatever remains of the deadline, and no retry is made that could not complete
+   * before it.
+   *
+   * @param timeout the time from now until the deadline.
+   * @param unit the unit of {@code timeout}.
+   */
+  public RequestOptions withDeadline(long timeout, TimeUnit unit) {
+    return new RequestOptions(idempotent, hedging, true, System.nanoTime() + unit.toNanos(timeout), tags);
+  }
+
+  /**
+   * Returns a copy of this with the tag {@code key} set to {@code value}, replacing any earlier value.
+   *
+   * <p>Tags are not sent to FaunaDB. They are passed to the connection's {@link RequestListener} in the request's
+   * {@link RequestTrace}, for example to carry a trace id.
+   *
+   * @param key the name of the tag.
+   * @param value the value of the tag.
+   */
+  public RequestOptions withTag(String key, String value) {
+    ImmutableMap.Builder<String, String> builder = ImmutableMap.builder();
+    for (Map.Entry<String, String> tag : tags.entrySet()) {
+      if (!tag.getKey().equals(key)) {
+        builder.put(tag);
+      }
+    }
+    builder.put(key, value);
+    return new RequestOptions(idempotent, hedging, hasDeadline, deadlineNanos, builder.build());
+  }
+
+  public boolean isIdempotent() {
+    return idempotent;
+  }
+
+  public boolean isHedging() {
+    return hedging;
+  }
+
+  public boolean hasDeadline() {
+    return hasDeadline;
+  }
+
+  public Map<String, String> tags() {
+    return tags;
+  }
+
+  /**
+   * Returns the time left until the deadline, which is negative once it has passed, or {@link Long#MAX_VALUE} if
+   * there is no deadline.
+   */
+  public long remaining(TimeUnit unit) {
+    if (!hasDeadline) {
+      return Long.MAX_VALUE;
+    }
+    return unit.convert(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public String toString() {
+    return "RequestOptions(idempotent=" + idempotent + ", hedging=" + hedging +
+      (hasDeadline ? ", remainingMs=" + remaining(TimeUnit.MILLISECONDS) : "") +
+      (tags.isEmpty() ? "" : ", tags=" + tags) + ")";
+  }
+}
@@ -0,0 +1,55 @@
+package com.faunadb.common;
+
+/**
+ * The phases a request passes through, in order, as reported to a {@link RequestListener}.
+ *
+ * <p>The time between consecutive phases shows where a request spent its time: {@code ENCODE_START} to
+ * {@code ENCODE_END} encoding and compressing the body, {@code SEND} to {@code WRITTEN} waiting for a connection,
+ * {@code WRITTEN} to {@code FIRST_BYTE} on the network and in FaunaDB, {@code FIRST_BYTE} to {@code COMPLETE}
+ * receiving the response body, and {@code COMPLETE} to {@code DECODE_END} decoding it.
+ *
+ * @see RequestTrace#elapsed(RequestPhase, java.util.concurrent.TimeUnit)
+ */
+public enum RequestPhase {
+  /**
+   * The request was issued, and its body is about to be encoded.
+   */
+  ENCODE_START,
+
+  /**
+   * The request body has been encoded, and compressed if the connection compresses bodies.
+   */
+  ENCODE_END,
+
+  /**
+   * An attempt was handed to the transport. Reported once per attempt, so more than once for retried or hedged
+   * requests.
+   */
+  SEND,
+
+  /**
+   * The transport obtained a connection and started writing an attempt. Only reported by transports that report it,
+   * as the default one does.
+   */
+  WRITTEN,
+
+  /**
+   * The status line of an attempt's response arrived.
+   */
+  FIRST_BYTE,
+
+  /**
+   * The request completed with a response, which may be an error response.
+   */
+  COMPLETE,
+
+  /**
+   * The request failed without a response.
+   */
+  FAILED,
+
+  /**
+   * The client finished decoding the response. Only reported by clients that report it, as the FaunaDB clients do.
+   */
+  DECODE_END
+}
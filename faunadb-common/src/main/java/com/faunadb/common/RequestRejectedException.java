@@ -0,0 +1,13 @@
+package com.faunadb.common;
+
+import java.io.IOException;
+
+/**
+ * Signals that a {@link Connection} refused to send a request, in order to shed load. The request was never sent
+ * to FaunaDB.
+ */
+public class RequestRejectedException extends IOException {
+  public RequestRejectedException(String message) {
+    super(message);
+  }
+}
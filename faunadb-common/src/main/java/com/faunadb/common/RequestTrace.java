@@ -0,0 +1,162 @@
+package com.faunadb.common;
+
+import com.google.common.collect.ImmutableMap;
+import org.asynchttpclient.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The progress of a single request, as passed to a {@link RequestListener}.
+ *
+ * <p>A trace records the time at which its request last reached each {@link RequestPhase}, measured from when the
+ * request was issued, along with the tags given in its {@link RequestOptions} and what is known so far of the node
+ * that answered it.
+ */
+public final class RequestTrace {
+  private static final Logger log = LoggerFactory.getLogger(RequestTrace.class);
+  private static final RequestPhase[] PHASES = RequestPhase.values();
+  private static final String FAUNA_HOST = "X-FaunaDB-Host";
+  private static final String FAUNA_BUILD = "X-FaunaDB-Build";
+
+  private final RequestListener listener;
+  private final String method;
+  private final String path;
+  private final ImmutableMap<String, String> tags;
+  private final long started = System.nanoTime();
+  private final AtomicLongArray reached = new AtomicLongArray(PHASES.length);
+  private final AtomicInteger attempts = new AtomicInteger();
+  private volatile String endpoint;
+  private volatile int status = -1;
+  private volatile String host;
+  private volatile String build;
+  private volatile Throwable failure;
+
+  RequestTrace(RequestListener listener, String method, String path, Map<String, String> tags) {
+    this.listener = listener;
+    this.method = method;
+    this.path = path;
+    this.tags = ImmutableMap.copyOf(tags);
+    for (int i = 0; i < PHASES.length; i++) {
+      reached.set(i, -1);
+    }
+  }
+
+  public String method() {
+    return method;
+  }
+
+  public String path() {
+    return path;
+  }
+
+  /**
+   * Returns the tags given to the request with {@link RequestOptions#withTag(String, String)}.
+   */
+  public Map<String, String> tags() {
+    return tags;
+  }
+
+  /**
+   * Returns the node the latest attempt was sent to, as {@code host:port}, or null if none has been sent.
+   */
+  public String endpoint() {
+    return endpoint;
+  }
+
+  /**
+   * Returns the number of attempts sent so far.
+   */
+  public int attempts() {
+    return attempts.get();
+  }
+
+  /**
+   * Returns the status code of the latest response, or -1 if none has arrived.
+   */
+  public int status() {
+    return status;
+  }
+
+  /**
+   * Returns the {@code X-FaunaDB-Host} header of the response, or null until the request is complete.
+   */
+  public String host() {
+    return host;
+  }
+
+  /**
+   * Returns the {@code X-FaunaDB-Build} header of the response, or null until the request is complete.
+   */
+  public String build() {
+    return build;
+  }
+
+  /**
+   * Returns the reason the request failed, or null unless it reached {@link RequestPhase#FAILED}.
+   */
+  public Throwable failure() {
+    return failure;
+  }
+
+  /**
+   * Returns the time from when the request was issued until it last reached {@code phase}, or -1 if it has not
+   * reached it.
+   */
+  public long elapsed(RequestPhase phase, TimeUnit unit) {
+    long nanos = reached.get(phase.ordinal());
+    return nanos < 0 ? -1 : unit.convert(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  void sent(String endpoint) {
+    this.endpoint = endpoint;
+    attempts.incrementAndGet();
+    reach(RequestPhase.SEND);
+  }
+
+  void firstByte(int status) {
+    this.status = status;
+    reach(RequestPhase.FIRST_BYTE);
+  }
+
+  void completed(Response response) {
+    status = response.getStatusCode();
+    host = response.getHeader(FAUNA_HOST);
+    build = response.getHeader(FAUNA_BUILD);
+    reach(RequestPhase.COMPLETE);
+  }
+
+  void failed(Throwable cause) {
+    failure = cause;
+    reach(RequestPhase.FAILED);
+  }
+
+  void reach(RequestPhase phase) {
+    reached.set(phase.ordinal(), System.nanoTime() - started);
+    try {
+      listener.onPhase(phase, this);
+    } catch (RuntimeException ex) {
+      log.warn("Request listener failed on " + phase + " of " + method + " " + path + ".", ex);
+    }
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("RequestTrace(").append(method).append(' ').append(path);
+    if (!tags.isEmpty()) {
+      sb.append(", tags=").append(tags);
+    }
+    for (RequestPhase phase : PHASES) {
+      long nanos = reached.get(phase.ordinal());
+      if (nanos >= 0) {
+        sb.append(", ").append(phase.name().toLowerCase()).append('=')
+          .append(TimeUnit.NANOSECONDS.toMicros(nanos)).append("us");
+      }
+    }
+    return sb.append(')').toString();
+  }
+}
@@ -0,0 +1,125 @@
+package com.faunadb.common;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Controls how a {@link Connection} retries requests that fail transiently.
+ *
+ * <p>Requests are only retried when doing so is safe: a request that could not connect to FaunaDB at all is always
+ * retried, while a request that timed out or was answered with {@code 502}, {@code 503} or {@code 504} is only
+ * retried if it is idempotent. See {@link RequestOptions#withIdempotent(boolean)}.
+ *
+ * <p>Retries are delayed using "decorrelated jitter": each delay is chosen at random between the base delay and
+ * three times the previous delay, capped at the maximum delay. This spreads out retries from many clients that
+ * failed at the same moment.
+ *
+ * <p>Retries are also limited by a budget, so that they cannot multiply the load on a cluster that is already
+ * struggling. Every request adds {@code budgetRatio} of a token to the budget and every retry spends a whole token,
+ * so over time at most that fraction of requests are retried. A further {@code minRetriesPerSecond} tokens are added
+ * every second, so that a lightly used connection can still retry.
+ *
+ * <p>Instances are immutable. The {@code withX} methods each return a copy.
+ *
+ * @see Connection.Builder#withRetryPolicy(RetryPolicy)
+ */
+public final class RetryPolicy {
+  /**
+   * Makes up to 3 attempts, with delays between 25ms and 1s, and retries at most 10% of requests plus 10 per second.
+   */
+  public static final RetryPolicy DEFAULT = new RetryPolicy(3, 25, 1000, 0.1, 10);
+
+  /**
+   * Never retries.
+   */
+  public static final RetryPolicy NONE = new RetryPolicy(1, 0, 0, 0, 0);
+
+  private final int maxAttempts;
+  private final long baseDelayMs;
+  private final long maxDelayMs;
+  private final double budgetRatio;
+  private final int minRetriesPerSecond;
+
+  RetryPolicy(int maxAttempts, long baseDelayMs, long maxDelayMs, double budgetRatio, int minRetriesPerSecond) {
+    this.maxAttempts = maxAttempts;
+    this.baseDelayMs = baseDelayMs;
+    this.maxDelayMs = maxDelayMs;
+    this.budgetRatio = budgetRatio;
+    this.minRetriesPerSecond = minRetriesPerSecond;
+  }
+
+  /**
+   * Returns a copy of this with the maximum number of attempts set, including the first.
+   * @param attempts the maximum number of attempts. A value of 1 disables retries.
+   */
+  public RetryPolicy withMaxAttempts(int attempts) {
+    if (attempts < 1) {
+      throw new IllegalArgumentException("At least one attempt is required.");
+    }
+    return new RetryPolicy(attempts, baseDelayMs, maxDelayMs, budgetRatio, minRetriesPerSecond);
+  }
+
+  /**
+   * Returns a copy of this with the bounds of the retry delay set.
+   * @param base the smallest delay before a retry.
+   * @param max the largest delay before a retry.
+   * @param unit the unit of {@code base} and {@code max}.
+   */
+  public RetryPolicy withBackoff(long base, long max, TimeUnit unit) {
+    if (base < 0 || max < base) {
+      throw new IllegalArgumentException("Retry delays must satisfy 0 <= base <= max.");
+    }
+    return new RetryPolicy(maxAttempts, unit.toMillis(base), unit.toMillis(max), budgetRatio, minRetriesPerSecond);
+  }
+
+  /**
+   * Returns a copy of this with the retry budget set.
+   * @param ratio the fraction of requests that may be retried.
+   * @param minRetriesPerSecond the number of retries allowed each second, regardless of {@code ratio}.
+   */
+  public RetryPolicy withBudget(double ratio, int minRetriesPerSecond) {
+    if (ratio < 0 || minRetriesPerSecond < 0) {
+      throw new IllegalArgumentException("Retry budgets cannot be negative.");
+    }
+    return new RetryPolicy(maxAttempts, baseDelayMs, maxDelayMs, ratio, minRetriesPerSecond);
+  }
+
+  public int maxAttempts() {
+    return maxAttempts;
+  }
+
+  public long baseDelayMs() {
+    return baseDelayMs;
+  }
+
+  public long maxDelayMs() {
+    return maxDelayMs;
+  }
+
+  public double budgetRatio() {
+    return budgetRatio;
+  }
+
+  public int minRetriesPerSecond() {
+    return minRetriesPerSecond;
+  }
+
+  /**
+   * Returns the delay before the next retry, given the delay before the previous one, or 0 before the first.
+   */
+  long nextDelayMs(long previousDelayMs) {
+    long upper = Math.max(baseDelayMs, previousDelayMs * 3);
+    long delay = upper > baseDelayMs ? ThreadLocalRandom.current().nextLong(baseDelayMs, upper + 1) : baseDelayMs;
+    return Math.min(maxDelayMs, delay);
+  }
+
+  RequestBudget newBudget() {
+    return new RequestBudget(budgetRatio, minRetriesPerSecond);
+  }
+
+  @Override
+  public String toString() {
+    return "RetryPolicy(maxAttempts=" + maxAttempts + ", baseDelayMs=" + baseDelayMs + ", maxDelayMs=" + maxDelayMs +
+      ", budgetRatio=" + budgetRatio + ", minRetriesPerSecond=" + minRetriesPerSecond + ")";
+  }
+}
@@ -0,0 +1,31 @@
+package com.faunadb.common;
+
+import java.io.Closeable;
+import java.util.concurrent.Future;
+
+/**
+ * Sends the HTTP requests of a {@link Connection}.
+ *
+ * <p>By default a connection sends requests through an
+ * <a href="https://github.com/AsyncHttpClient/async-http-client">async-http-client</a>, but any other HTTP
+ * implementation can be plugged in with {@link Connection.Builder#withTransport(Transport)}. Requests and the
+ * callbacks that receive their responses are the connection's own {@link TransportRequest} and
+ * {@link TransportHandler}, so a transport need not share async-http-client's types, while the connection's retry,
+ * hedging and load balancing logic is shared by every transport.
+ *
+ * <p>Implementations must be safe for concurrent use, and must not block the calling thread.
+ */
+public interface Transport extends Closeable {
+  /**
+   * Sends {@code request}, reporting its response or failure to {@code handler}.
+   *
+   * <p>Cancelling the returned future must abandon the request and report a
+   * {@link java.util.concurrent.CancellationException} to the handler, unless it has already been answered. A
+   * transport that cannot send the request at all may throw instead of reporting the failure.
+   *
+   * @param request the request to send.
+   * @param handler the handler that receives the response.
+   * @return a future that completes once the handler has been told the outcome.
+   */
+  Future<?> execute(TransportRequest request, TransportHandler handler);
+}
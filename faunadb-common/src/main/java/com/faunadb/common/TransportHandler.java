@@ -0,0 +1,78 @@
+package com.faunadb.common;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+/**
+ * Receives the response to a {@link TransportRequest} from a {@link Transport}, part by part.
+ *
+ * <p>A transport reports the response status, then its headers, then any body parts in order, and finally
+ * {@link #onCompleted()}. If the request fails, it reports {@link #onThrowable(Throwable)} instead, exactly once.
+ *
+ * <p>The remaining callbacks note when the transport obtains a connection and writes the request, so that a
+ * {@link Connection} can report where a request spent its time. A transport reports whichever of them it can, and may
+ * skip the rest.
+ *
+ * <p>Handlers are only created by a {@link Connection}.
+ */
+public abstract class TransportHandler {
+  TransportHandler() {
+  }
+
+  /**
+   * Invoked once the status line of the response arrives.
+   */
+  public abstract void onStatus(int statusCode, String statusText);
+
+  /**
+   * Invoked once the headers of the response arrive. Header names are case-insensitive.
+   */
+  public abstract void onHeaders(Iterable<Map.Entry<String, String>> headers);
+
+  /**
+   * Invoked for each part of the response body, in the order they arrive. The handler takes ownership of {@code part},
+   * which the transport must not modify afterwards.
+   */
+  public abstract void onBodyPart(ByteBuffer part);
+
+  /**
+   * Invoked once the full response has been received.
+   */
+  public abstract void onCompleted();
+
+  /**
+   * Invoked if the request fails without a complete response, including when it is cancelled.
+   */
+  public abstract void onThrowable(Throwable t);
+
+  /**
+   * Invoked when the transport starts looking for a connection to send the request on.
+   */
+  public void onConnectionRequested() {
+  }
+
+  /**
+   * Invoked when the transport obtains an open connection from its pool.
+   */
+  public void onConnectionObtained() {
+  }
+
+  /**
+   * Invoked when the transport starts opening a new connection, including resolving its host, because none could be
+   * taken from its pool.
+   */
+  public void onConnecting() {
+  }
+
+  /**
+   * Invoked once a new connection is ready to send on, after any TLS handshake.
+   */
+  public void onConnected() {
+  }
+
+  /**
+   * Invoked when the transport starts writing the request.
+   */
+  public void onRequestWritten() {
+  }
+}
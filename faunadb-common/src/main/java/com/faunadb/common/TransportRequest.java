@@ -0,0 +1,90 @@
+package com.faunadb.common;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * An HTTP request for a {@link Transport} to send, as built by a {@link Connection}.
+ *
+ * <p>The body is kept in the pooled chunks it was encoded into. Each call to {@link #body()} returns fresh views of
+ * them, so the same request can be read more than once, as a transport may when it retries a write on its own. The
+ * chunks belong to the connection, and must not be read once the request has completed or failed.
+ *
+ * <p>Instances are immutable.
+ */
+public final class TransportRequest {
+  private final String method;
+  private final String url;
+  private final ImmutableListMultimap<String, String> headers;
+  private final EncodedBody body;
+  private final int timeoutMillis;
+
+  TransportRequest(String method, String url, ImmutableListMultimap<String, String> headers, EncodedBody body,
+                   int timeoutMillis) {
+    this.method = method;
+    this.url = url;
+    this.headers = headers;
+    this.body = body;
+    this.timeoutMillis = timeoutMillis;
+  }
+
+  /**
+   * Returns a {@code GET} request for {@code url}, with no headers.
+   */
+  static TransportRequest get(String url) {
+    return new TransportRequest("GET", url, ImmutableListMultimap.<String, String>of(), null, 0);
+  }
+
+  /**
+   * Returns the HTTP method, such as {@code POST}.
+   */
+  public String method() {
+    return method;
+  }
+
+  /**
+   * Returns the absolute URL to send the request to, including any query string.
+   */
+  public String url() {
+    return url;
+  }
+
+  /**
+   * Returns the headers to send, by name, in the order they were set.
+   */
+  public ImmutableListMultimap<String, String> headers() {
+    return headers;
+  }
+
+  /**
+   * Returns read-only views of the body's chunks, in order, or an empty list if the request has no body.
+   */
+  public List<ByteBuffer> body() {
+    return body == null ? ImmutableList.<ByteBuffer>of() : body.buffers();
+  }
+
+  /**
+   * Returns the length of the body in bytes, or -1 if it should be sent with chunked transfer encoding.
+   */
+  public long contentLength() {
+    if (body == null) {
+      return 0;
+    }
+    return body.isChunked() ? -1 : body.length();
+  }
+
+  /**
+   * Returns how long the transport may take to complete the request, in milliseconds, or 0 to use its own default.
+   */
+  public int timeoutMillis() {
+    return timeoutMillis;
+  }
+
+  @Override
+  public String toString() {
+    return method + " " + url;
+  }
+}
@@ -0,0 +1,82 @@
+package com.faunadb.common;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Controls whether a {@link Connection} opens connections to each FaunaDB node before they are needed, and keeps
+ * them open while idle.
+ *
+ * <p>A warmed connection sends as many concurrent requests to each node's {@code /ping} resource as the policy's
+ * number of connections as soon as it is built, so that DNS resolution, TCP connection and TLS handshakes are done
+ * before the first query. It then repeats them every keep-warm interval, which reuses the pooled connections before
+ * their idle timeout closes them, and replaces any that were closed anyway. Nodes that are busy with at least that
+ * many requests, or that have been ejected, are skipped.
+ *
+ * <p>The keep-warm interval should be shorter than the idle timeout of pooled connections, which is 4750ms for the
+ * default HTTP client. Instances are immutable. The {@code withX} methods each return a copy.
+ *
+ * @see Connection.Builder#withWarmPoolPolicy(WarmPoolPolicy)
+ * @see Connection#warmed()
+ */
+public final class WarmPoolPolicy {
+  /**
+   * Keeps 2 connections to each node open, pinging them every 4 seconds.
+   */
+  public static final WarmPoolPolicy DEFAULT = new WarmPoolPolicy(true, 2, 4000);
+
+  /**
+   * Opens connections only when requests need them. This is the default for a {@link Connection}.
+   */
+  public static final WarmPoolPolicy NONE = new WarmPoolPolicy(false, 0, 0);
+
+  private final boolean enabled;
+  private final int connections;
+  private final long keepWarmIntervalMs;
+
+  WarmPoolPolicy(boolean enabled, int connections, long keepWarmIntervalMs) {
+    this.enabled = enabled;
+    this.connections = connections;
+    this.keepWarmIntervalMs = keepWarmIntervalMs;
+  }
+
+  /**
+   * Returns a copy of this with the number of connections to keep open to each node set.
+   * @param connections the number of connections, at least 1.
+   */
+  public WarmPoolPolicy withConnections(int connections) {
+    if (connections < 1) {
+      throw new IllegalArgumentException("A warm pool must have at least one connection.");
+    }
+    return new WarmPoolPolicy(enabled, connections, keepWarmIntervalMs);
+  }
+
+  /**
+   * Returns a copy of this with the keep-warm interval set.
+   * @param interval the time between pings, or 0 to only open connections when the {@link Connection} is built.
+   * @param unit the unit of {@code interval}.
+   */
+  public WarmPoolPolicy withKeepWarmInterval(long interval, TimeUnit unit) {
+    if (interval < 0) {
+      throw new IllegalArgumentException("The keep-warm interval cannot be negative.");
+    }
+    return new WarmPoolPolicy(enabled, connections, unit.toMillis(interval));
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public int connections() {
+    return connections;
+  }
+
+  public long keepWarmIntervalMs() {
+    return keepWarmIntervalMs;
+  }
+
+  @Override
+  public String toString() {
+    return "WarmPoolPolicy(enabled=" + enabled + ", connections=" + connections +
+      ", keepWarmIntervalMs=" + keepWarmIntervalMs + ")";
+  }
+}
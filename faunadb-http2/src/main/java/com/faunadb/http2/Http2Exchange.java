@@ -0,0 +1,343 @@
+package com.faunadb.http2;
+
+import com.faunadb.common.TransportHandler;
+import com.faunadb.common.TransportRequest;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.AbstractFuture;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.EventLoop;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.compression.ZlibCodecFactory;
+import io.netty.handler.codec.compression.ZlibWrapper;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http2.DefaultHttp2DataFrame;
+import io.netty.handler.codec.http2.DefaultHttp2Headers;
+import io.netty.handler.codec.http2.DefaultHttp2HeadersFrame;
+import io.netty.handler.codec.http2.Http2DataFrame;
+import io.netty.handler.codec.http2.Http2Error;
+import io.netty.handler.codec.http2.Http2Headers;
+import io.netty.handler.codec.http2.Http2HeadersFrame;
+import io.netty.handler.codec.http2.Http2ResetFrame;
+import io.netty.handler.codec.http2.Http2StreamChannel;
+import io.netty.handler.codec.http2.Http2StreamChannelBootstrap;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.FutureListener;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A single request sent as a stream of an HTTP/2 connection, and the future of its outcome.
+ *
+ * <p>The response is passed on to the request's {@link TransportHandler} from the stream's event loop. The request is
+ * finished by whichever comes first of its response ending, the stream failing, the request timing out and the future
+ * being cancelled, and the handler is told of that outcome only. Finishing the request before its response has ended
+ * resets its stream.
+ */
+final class Http2Exchange extends AbstractFuture<Void> {
+  private final TransportRequest request;
+  private final URI uri;
+  private final TransportHandler handler;
+  private final AtomicInteger streams;
+  private final AtomicBoolean finished = new AtomicBoolean(false);
+  private volatile Channel stream;
+  private volatile ScheduledFuture<?> timeout;
+
+  /**
+   * @param streams the count of streams in flight on the connection the request is sent over, which is decremented
+   *                once the request is finished.
+   */
+  Http2Exchange(TransportRequest request, URI uri, TransportHandler handler, AtomicInteger streams) {
+    this.request = request;
+    this.uri = uri;
+    this.handler = handler;
+    this.streams = streams;
+  }
+
+  /**
+   * Fails the request with a {@link TimeoutException} unless it has finished within {@code timeoutMs}, counting the
+   * time taken to open a connection.
+   */
+  void scheduleTimeout(EventLoop loop, final int timeoutMs) {
+    timeout = loop.schedule(new Runnable() {
+      @Override
+      public void run() {
+        fail(new TimeoutException("Request timed out after " + timeoutMs + " ms"));
+      }
+    }, timeoutMs, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Opens a stream over {@code connection} and writes the request to it.
+   */
+  void send(Channel connection) {
+    if (finished.get()) {
+      return;
+    }
+
+    new Http2StreamChannelBootstrap(connection)
+      .handler(new ResponseHandler())
+      .open()
+      .addListener(new FutureListener<Http2StreamChannel>() {
+        @Override
+        public void operationComplete(io.netty.util.concurrent.Future<Http2StreamChannel> future) {
+          if (!future.isSuccess()) {
+            // The request never left, so it may safely be sent again.
+            ConnectException ex = new ConnectException("Unable to open a stream: " + future.cause());
+            ex.initCause(future.cause());
+            fail(ex);
+            return;
+          }
+
+          stream = future.getNow();
+          if (finished.get()) {
+            stream.close();
+            return;
+          }
+          write(stream);
+        }
+      });
+  }
+
+  private void write(Channel stream) {
+    Http2Headers headers = new DefaultHttp2Headers()
+      .method(request.method())
+      .scheme(uri.getScheme())
+      .authority(uri.getRawAuthority())
+      .path(path(uri));
+    for (Map.Entry<String, String> header : request.headers().entries()) {
+      headers.add(header.getKey().toLowerCase(Locale.ROOT), header.getValue());
+    }
+
+    List<ByteBuffer> body = request.body();
+    if (!body.isEmpty() && request.contentLength() >= 0) {
+      headers.setLong("content-length", request.contentLength());
+    }
+
+    handler.onRequestWritten();
+    ChannelFuture written = stream.write(new DefaultHttp2HeadersFrame(headers, body.isEmpty()));
+    for (int i = 0; i < body.size(); i++) {
+      written = stream.write(new DefaultHttp2DataFrame(Unpooled.wrappedBuffer(body.get(i)), i == body.size() - 1));
+    }
+    stream.flush();
+
+    written.addListener(new ChannelFutureListener() {
+      @Override
+      public void operationComplete(ChannelFuture future) {
+        if (!future.isSuccess()) {
+          fail(future.cause());
+        }
+      }
+    });
+  }
+
+  @Override
+  public boolean cancel(boolean mayInterruptIfRunning) {
+    if (!super.cancel(mayInterruptIfRunning)) {
+      return false;
+    }
+    if (finish()) {
+      handler.onThrowable(new CancellationException());
+    }
+    return true;
+  }
+
+  void fail(Throwable t) {
+    if (finish()) {
+      handler.onThrowable(t);
+      setException(t);
+    }
+  }
+
+  private void complete() {
+    if (finish()) {
+      handler.onCompleted();
+      set(null);
+    }
+  }
+
+  /**
+   * Marks the request finished, returning false if it already was. Resets its stream if it is still open.
+   */
+  private boolean finish() {
+    if (!finished.compareAndSet(false, true)) {
+      return false;
+    }
+
+    streams.decrementAndGet();
+    ScheduledFuture<?> t = timeout;
+    if (t != null) {
+      t.cancel(false);
+    }
+    Channel s = stream;
+    if (s != null) {
+      s.close();
+    }
+    return true;
+  }
+
+  private static String path(URI uri) {
+    String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+    return uri.getRawQuery() == null ? path : path + "?" + uri.getRawQuery();
+  }
+
+  /**
+   * Reads the response frames of the stream, inflating the body if it was compressed.
+   */
+  private final class ResponseHandler extends ChannelInboundHandlerAdapter {
+    private boolean answered = false;
+    private EmbeddedChannel decoder;
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+      try {
+        if (finished.get()) {
+          return;
+        }
+
+        if (msg instanceof Http2HeadersFrame) {
+          Http2HeadersFrame frame = (Http2HeadersFrame) msg;
+          if (!answered) {
+            onHeaders(frame.headers());
+          }
+          if (answered && frame.isEndStream()) {
+            end();
+          }
+        } else if (msg instanceof Http2DataFrame) {
+          Http2DataFrame frame = (Http2DataFrame) msg;
+          onData(frame.content());
+          if (frame.isEndStream()) {
+            end();
+          }
+        } else if (msg instanceof Http2ResetFrame) {
+          long code = ((Http2ResetFrame) msg).errorCode();
+          Http2Error error = Http2Error.valueOf(code);
+          fail(new IOException("The stream was reset with error " + (error == null ? code : error.name())));
+        }
+      } finally {
+        ReferenceCountUtil.release(msg);
+      }
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) {
+      fail(new ClosedChannelException());
+      closeDecoder();
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+      fail(cause);
+    }
+
+    private void onHeaders(Http2Headers headers) {
+      int status = HttpResponseStatus.parseLine(headers.status()).code();
+      if (status >= 100 && status < 200) {
+        // An interim response. The final one follows.
+        return;
+      }
+      answered = true;
+
+      CharSequence encoding = headers.get("content-encoding");
+      if (encoding != null) {
+        ZlibWrapper wrapper = wrapper(encoding.toString());
+        if (wrapper != null) {
+          decoder = new EmbeddedChannel(ZlibCodecFactory.newZlibDecoder(wrapper));
+        }
+      }
+
+      List<Map.Entry<String, String>> entries = new ArrayList<>(headers.size());
+      for (Map.Entry<CharSequence, CharSequence> header : headers) {
+        String name = header.getKey().toString();
+        if (name.startsWith(":")) {
+          continue;
+        }
+        if (decoder != null && (name.equals("content-encoding") || name.equals("content-length"))) {
+          // They describe the body as sent, not as it is passed on.
+          continue;
+        }
+        entries.add(Maps.immutableEntry(name, header.getValue().toString()));
+      }
+
+      handler.onStatus(status, HttpResponseStatus.valueOf(status).reasonPhrase());
+      handler.onHeaders(entries);
+    }
+
+    private void onData(ByteBuf content) {
+      if (decoder == null) {
+        pass(content);
+        return;
+      }
+
+      decoder.writeInbound(content.retain());
+      drain();
+    }
+
+    private void end() {
+      if (decoder != null) {
+        decoder.finish();
+        drain();
+        closeDecoder();
+      }
+      complete();
+    }
+
+    private void drain() {
+      for (ByteBuf inflated = decoder.readInbound(); inflated != null; inflated = decoder.readInbound()) {
+        try {
+          pass(inflated);
+        } finally {
+          inflated.release();
+        }
+      }
+    }
+
+    private void pass(ByteBuf content) {
+      if (content.isReadable()) {
+        ByteBuffer part = ByteBuffer.allocate(content.readableBytes());
+        content.getBytes(content.readerIndex(), part);
+        part.flip();
+        handler.onBodyPart(part);
+      }
+    }
+
+    private void closeDecoder() {
+      if (decoder != null) {
+        decoder.finishAndReleaseAll();
+        decoder = null;
+      }
+    }
+  }
+
+  private static ZlibWrapper wrapper(String encoding) {
+    switch (encoding.trim().toLowerCase(Locale.ROOT)) {
+      case "gzip":
+      case "x-gzip":
+        return ZlibWrapper.GZIP;
+      case "deflate":
+      case "x-deflate":
+        return ZlibWrapper.ZLIB_OR_NONE;
+      default:
+        return null;
+    }
+  }
+}
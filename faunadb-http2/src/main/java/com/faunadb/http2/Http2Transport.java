@@ -0,0 +1,466 @@
+package com.faunadb.http2;
+
+import com.faunadb.common.Transport;
+import com.faunadb.common.TransportHandler;
+import com.faunadb.common.TransportRequest;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http2.Http2FrameCodec;
+import io.netty.handler.codec.http2.Http2FrameCodecBuilder;
+import io.netty.handler.codec.http2.Http2GoAwayFrame;
+import io.netty.handler.codec.http2.Http2MultiplexHandler;
+import io.netty.handler.codec.http2.Http2SecurityUtil;
+import io.netty.handler.codec.http2.Http2Settings;
+import io.netty.handler.ssl.ApplicationProtocolConfig;
+import io.netty.handler.ssl.ApplicationProtocolNames;
+import io.netty.handler.ssl.ApplicationProtocolNegotiationHandler;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.SslProvider;
+import io.netty.handler.ssl.SupportedCipherSuiteFilter;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.FutureListener;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import io.netty.util.concurrent.Promise;
+
+import javax.net.ssl.SSLException;
+import javax.net.ssl.TrustManagerFactory;
+import java.net.URI;
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link Transport} that sends requests over HTTP/2, multiplexing them as concurrent streams over a few connections
+ * to each host instead of holding one connection per request in flight.
+ *
+ * <p>{@code https} roots are reached over TLS, negotiating HTTP/2 with ALPN, which needs a JDK that supports it (8u252
+ * or later). {@code http} roots are reached over cleartext HTTP/2 with prior
+ * knowledge (h2c), without an upgrade from HTTP/1.1. A host that does not speak HTTP/2 cannot be reached.
+ *
+ * <p>Each host gets at most {@link Builder#withConnectionsPerHost(int) connectionsPerHost} connections. A request goes
+ * to the connection with the fewest streams in flight, and a new connection is only opened while every open one is
+ * busy. Streams beyond what a server allows at once wait for one of the others to finish. Compressed responses are
+ * decompressed before they are passed on.
+ *
+ * <p>This transport is built on Netty 4.1, which is relocated into this module's jar so that it does not replace the
+ * Netty 4.0 that async-http-client runs on. None of its types are part of this API. It is used by handing it to
+ * {@link com.faunadb.common.Connection.Builder#withTransport(Transport)}:
+ *
+ * <pre>{@code
+ * Connection connection = Connection.builder()
+ *   .withFaunaRoot("https://rest.faunadb.com")
+ *   .withAuthToken(secret)
+ *   .withTransport(Http2Transport.create())
+ *   .build();
+ * }</pre>
+ */
+public final class Http2Transport implements Transport {
+  static final int DEFAULT_CONNECTIONS_PER_HOST = 2;
+  static final int DEFAULT_CONNECT_TIMEOUT_MS = 10000;
+  static final int DEFAULT_REQUEST_TIMEOUT_MS = 60000;
+
+  private static final String CODEC = "http2-codec";
+
+  /**
+   * Returns a transport with the default settings.
+   *
+   * @throws SSLException if the default TLS context cannot be created.
+   */
+  public static Http2Transport create() throws SSLException {
+    return builder().build();
+  }
+
+  /**
+   * Returns a new {@link Http2Transport.Builder}.
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * A builder for creating an instance of {@link Http2Transport}. Use {@link Http2Transport#builder} to obtain an
+   * instance of this builder.
+   */
+  public static final class Builder {
+    private int connectionsPerHost = DEFAULT_CONNECTIONS_PER_HOST;
+    private int connectTimeoutMs = DEFAULT_CONNECT_TIMEOUT_MS;
+    private int requestTimeoutMs = DEFAULT_REQUEST_TIMEOUT_MS;
+    private int ioThreads = 0;
+    private TrustManagerFactory trustManager;
+
+    private Builder() {
+    }
+
+    /**
+     * Sets the most connections the transport opens to each host.
+     * @param connections the number of connections, at least 1.
+     * @return this {@link Builder} object
+     */
+    public Builder withConnectionsPerHost(int connections) {
+      if (connections < 1) {
+        throw new IllegalArgumentException("A transport needs at least one connection per host.");
+      }
+      this.connectionsPerHost = connections;
+      return this;
+    }
+
+    /**
+     * Sets how long opening a connection may take.
+     * @return this {@link Builder} object
+     */
+    public Builder withConnectTimeout(long timeout, TimeUnit unit) {
+      this.connectTimeoutMs = toMillis(timeout, unit);
+      return this;
+    }
+
+    /**
+     * Sets how long a request may take when its {@link TransportRequest} does not say.
+     * @return this {@link Builder} object
+     */
+    public Builder withRequestTimeout(long timeout, TimeUnit unit) {
+      this.requestTimeoutMs = toMillis(timeout, unit);
+      return this;
+    }
+
+    /**
+     * Sets the trust material used to verify {@code https} hosts. Defaults to the JDK's trust store.
+     * @return this {@link Builder} object
+     */
+    public Builder withTrustManager(TrustManagerFactory trustManager) {
+      this.trustManager = trustManager;
+      return this;
+    }
+
+    /**
+     * Sets the number of threads the transport's connections are served from. Defaults to twice the number of
+     * processors.
+     * @param threads the number of threads, at least 1.
+     * @return this {@link Builder} object
+     */
+    public Builder withIoThreads(int threads) {
+      if (threads < 1) {
+        throw new IllegalArgumentException("A transport needs at least one I/O thread.");
+      }
+      this.ioThreads = threads;
+      return this;
+    }
+
+    /**
+     * Returns a {@link Http2Transport} configured by this builder.
+     *
+     * @throws SSLException if the default TLS context cannot be created.
+     */
+    public Http2Transport build() throws SSLException {
+      SslContext ssl = sslContext(trustManager);
+      EventLoopGroup group = new NioEventLoopGroup(ioThreads, new DefaultThreadFactory("fauna-http2", true));
+      return new Http2Transport(group, ssl, connectionsPerHost, connectTimeoutMs, requestTimeoutMs);
+    }
+
+    private static int toMillis(long timeout, TimeUnit unit) {
+      if (timeout <= 0) {
+        throw new IllegalArgumentException("Timeouts must be positive.");
+      }
+      return (int) Math.min(Integer.MAX_VALUE, unit.toMillis(timeout));
+    }
+
+    private static SslContext sslContext(TrustManagerFactory trustManager) throws SSLException {
+      // The JDK's TLS, since Netty's relocated OpenSSL bindings cannot load netty-tcnative.
+      return SslContextBuilder.forClient()
+        .sslProvider(SslProvider.JDK)
+        .trustManager(trustManager)
+        .ciphers(Http2SecurityUtil.CIPHERS, SupportedCipherSuiteFilter.INSTANCE)
+        .applicationProtocolConfig(new ApplicationProtocolConfig(
+          ApplicationProtocolConfig.Protocol.ALPN,
+          ApplicationProtocolConfig.SelectorFailureBehavior.NO_ADVERTISE,
+          ApplicationProtocolConfig.SelectedListenerFailureBehavior.ACCEPT,
+          ApplicationProtocolNames.HTTP_2))
+        .build();
+    }
+  }
+
+  private final EventLoopGroup group;
+  private final SslContext sslContext;
+  private final int connectionsPerHost;
+  private final int connectTimeoutMs;
+  private final int requestTimeoutMs;
+
+  private final Map<String, List<Http2Connection>> hosts = new HashMap<>();
+  private boolean closed = false;
+
+  private Http2Transport(EventLoopGroup group, SslContext sslContext, int connectionsPerHost, int connectTimeoutMs,
+                         int requestTimeoutMs) {
+    this.group = group;
+    this.sslContext = sslContext;
+    this.connectionsPerHost = connectionsPerHost;
+    this.connectTimeoutMs = connectTimeoutMs;
+    this.requestTimeoutMs = requestTimeoutMs;
+  }
+
+  @Override
+  public Future<?> execute(TransportRequest request, final TransportHandler handler) {
+    URI uri = URI.create(request.url());
+    int timeoutMs = request.timeoutMillis() > 0 ? request.timeoutMillis() : requestTimeoutMs;
+
+    handler.onConnectionRequested();
+    final boolean opened;
+    final Http2Connection connection;
+    synchronized (this) {
+      if (closed) {
+        throw new IllegalStateException("The transport is closed.");
+      }
+
+      String key = key(uri);
+      List<Http2Connection> connections = hosts.get(key);
+      if (connections == null) {
+        connections = new ArrayList<>(connectionsPerHost);
+        hosts.put(key, connections);
+      }
+
+      Http2Connection idlest = null;
+      for (Http2Connection c : connections) {
+        if (idlest == null || c.streams.get() < idlest.streams.get()) {
+          idlest = c;
+        }
+      }
+
+      opened = idlest == null || (idlest.streams.get() > 0 && connections.size() < connectionsPerHost);
+      connection = opened ? open(key, uri) : idlest;
+      connection.streams.incrementAndGet();
+    }
+
+    if (opened) {
+      handler.onConnecting();
+    }
+
+    final Http2Exchange exchange = new Http2Exchange(request, uri, handler, connection.streams);
+    exchange.scheduleTimeout(group.next(), timeoutMs);
+    connection.ready.addListener(new FutureListener<Channel>() {
+      @Override
+      public void operationComplete(io.netty.util.concurrent.Future<Channel> future) {
+        if (!future.isSuccess()) {
+          exchange.fail(future.cause());
+          return;
+        }
+
+        if (opened) {
+          handler.onConnected();
+        } else {
+          handler.onConnectionObtained();
+        }
+        exchange.send(future.getNow());
+      }
+    });
+    return exchange;
+  }
+
+  /**
+   * Closes every connection and shuts down the transport's threads. Requests in flight fail.
+   */
+  @Override
+  public void close() {
+    List<Http2Connection> open = new ArrayList<>();
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      for (List<Http2Connection> connections : hosts.values()) {
+        open.addAll(connections);
+      }
+      hosts.clear();
+    }
+
+    for (Http2Connection connection : open) {
+      connection.channel.close();
+    }
+    group.shutdownGracefully(0, 1, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Starts opening a connection to the host of {@code uri}, and adds it to the connections of {@code key} until it
+   * closes or is told to go away.
+   */
+  private Http2Connection open(final String key, final URI uri) {
+    final boolean secure = "https".equals(uri.getScheme());
+    final Http2Connection connection = new Http2Connection();
+
+    Bootstrap bootstrap = new Bootstrap()
+      .group(group)
+      .channel(NioSocketChannel.class)
+      .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+      .option(ChannelOption.TCP_NODELAY, true)
+      .handler(new ChannelInitializer<SocketChannel>() {
+        @Override
+        protected void initChannel(SocketChannel ch) {
+          ChannelPipeline pipeline = ch.pipeline();
+          if (secure) {
+            pipeline.addLast(sslContext.newHandler(ch.alloc(), uri.getHost(), port(uri)));
+            pipeline.addLast(new ApplicationProtocolNegotiationHandler("") {
+              @Override
+              protected void configurePipeline(ChannelHandlerContext ctx, String protocol) {
+                if (!ApplicationProtocolNames.HTTP_2.equals(protocol)) {
+                  throw new IllegalStateException(uri.getHost() + " did not negotiate HTTP/2.");
+                }
+                // The multiplexer looks for the codec as it is added, so the codec goes in first.
+                ctx.pipeline().addAfter(ctx.name(), CODEC, codec());
+                ctx.pipeline().addAfter(CODEC, null, new Http2MultiplexHandler(RejectedStream.INSTANCE));
+                connection.ready.trySuccess(ctx.channel());
+              }
+
+              @Override
+              protected void handshakeFailure(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+                connection.ready.tryFailure(cause);
+                super.handshakeFailure(ctx, cause);
+              }
+            });
+          } else {
+            pipeline.addLast(codec());
+            pipeline.addLast(new Http2MultiplexHandler(RejectedStream.INSTANCE));
+            pipeline.addLast(new PrefaceSent(connection));
+          }
+          pipeline.addLast(new GoAwayHandler(key, connection));
+        }
+      });
+
+    ChannelFuture connect = bootstrap.connect(uri.getHost(), port(uri));
+    connection.channel = connect.channel();
+    hosts.get(key).add(connection);
+
+    connect.addListener(new ChannelFutureListener() {
+      @Override
+      public void operationComplete(ChannelFuture future) {
+        if (!future.isSuccess()) {
+          connection.ready.tryFailure(future.cause());
+        }
+      }
+    });
+    connection.channel.closeFuture().addListener(new ChannelFutureListener() {
+      @Override
+      public void operationComplete(ChannelFuture future) {
+        connection.ready.tryFailure(new ClosedChannelException());
+        retire(key, connection);
+      }
+    });
+    return connection;
+  }
+
+  private static Http2FrameCodec codec() {
+    return Http2FrameCodecBuilder.forClient()
+      .initialSettings(Http2Settings.defaultSettings().pushEnabled(false))
+      .encoderEnforceMaxConcurrentStreams(true)
+      .build();
+  }
+
+  /**
+   * Stops sending new requests over {@code connection}, leaving the streams already on it to finish.
+   */
+  private synchronized void retire(String key, Http2Connection connection) {
+    List<Http2Connection> connections = hosts.get(key);
+    if (connections != null) {
+      connections.remove(connection);
+    }
+  }
+
+  private static String key(URI uri) {
+    return uri.getScheme() + "://" + uri.getHost() + ":" + port(uri);
+  }
+
+  private static int port(URI uri) {
+    if (uri.getPort() != -1) {
+      return uri.getPort();
+    }
+    return "https".equals(uri.getScheme()) ? 443 : 80;
+  }
+
+  /**
+   * A connection to a host, and the number of streams in flight over it.
+   */
+  private static final class Http2Connection {
+    final Promise<Channel> ready = ImmediateEventExecutor.INSTANCE.newPromise();
+    final AtomicInteger streams = new AtomicInteger();
+    volatile Channel channel;
+  }
+
+  /**
+   * Retires a connection once the server asks to stop opening streams on it, and closes it if it fails.
+   */
+  private final class GoAwayHandler extends ChannelInboundHandlerAdapter {
+    private final String key;
+    private final Http2Connection connection;
+
+    GoAwayHandler(String key, Http2Connection connection) {
+      this.key = key;
+      this.connection = connection;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+      if (msg instanceof Http2GoAwayFrame) {
+        retire(key, connection);
+      }
+      ReferenceCountUtil.release(msg);
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+      ctx.close();
+    }
+  }
+
+  /**
+   * Makes a cleartext connection ready once the codec has sent the connection preface, which it does as the channel
+   * becomes active. The connect future completes before that, and a stream opened then would be written ahead of the
+   * preface.
+   */
+  private static final class PrefaceSent extends ChannelInboundHandlerAdapter {
+    private final Http2Connection connection;
+
+    PrefaceSent(Http2Connection connection) {
+      this.connection = connection;
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) {
+      ctx.fireChannelActive();
+      connection.ready.trySuccess(ctx.channel());
+      ctx.pipeline().remove(this);
+    }
+  }
+
+  /**
+   * Refuses streams opened by the server. Server push is disabled, so none are expected.
+   */
+  @ChannelHandler.Sharable
+  private static final class RejectedStream extends ChannelInboundHandlerAdapter {
+    static final RejectedStream INSTANCE = new RejectedStream();
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) {
+      ctx.close();
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+      ReferenceCountUtil.release(msg);
+    }
+  }
+}
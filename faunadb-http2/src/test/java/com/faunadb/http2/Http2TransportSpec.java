@@ -0,0 +1,202 @@
+package com.faunadb.http2;
+
+import com.faunadb.common.Connection;
+import com.faunadb.common.RetryPolicy;
+import com.faunadb.common.Transport;
+import com.faunadb.http2.shaded.io.netty.handler.ssl.SslProvider;
+import com.faunadb.http2.shaded.io.netty.handler.ssl.util.InsecureTrustManagerFactory;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ListenableFuture;
+import org.asynchttpclient.Response;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class Http2TransportSpec {
+  private static final byte[] QUERY = "{\"get\":{\"@ref\":\"classes/spells/1\"}}".getBytes(StandardCharsets.UTF_8);
+
+  private final List<AutoCloseable> resources = new ArrayList<>();
+
+  @After
+  public void closeResources() throws Exception {
+    for (int i = resources.size() - 1; i >= 0; i--) {
+      resources.get(i).close();
+    }
+  }
+
+  @Test
+  public void sendQueriesOverCleartextHttp2() throws Exception {
+    StandInServer server = server(StandInServer.cleartext());
+    Connection connection = connection(server.root(), Http2Transport.create(), RetryPolicy.DEFAULT);
+
+    Response response = connection.post("/", QUERY).get(5, TimeUnit.SECONDS);
+
+    assertThat(response.getStatusCode(), is(200));
+    assertThat(body(response), is("{\"resource\":\"fire\"}"));
+    assertThat(server.protocols, contains(StandInServer.H2));
+    assertThat(server.authorizations, contains(startsWith("Basic ")));
+    assertThat(server.bodies, contains(new String(QUERY, StandardCharsets.UTF_8)));
+  }
+
+  @Test
+  public void sendQueriesOverHttp11WithTheDefaultTransport() throws Exception {
+    StandInServer server = server(StandInServer.cleartext());
+    Connection connection = connection(server.root(), null, RetryPolicy.DEFAULT);
+
+    Response response = connection.post("/", QUERY).get(5, TimeUnit.SECONDS);
+
+    assertThat(response.getStatusCode(), is(200));
+    assertThat(body(response), is("{\"resource\":\"fire\"}"));
+    assertThat(server.protocols, contains(StandInServer.HTTP_1_1));
+    assertThat(server.authorizations, contains(startsWith("Basic ")));
+  }
+
+  @Test
+  public void multiplexConcurrentQueriesOverAFewConnections() throws Exception {
+    StandInServer server = server(StandInServer.cleartext());
+    server.delayMs = 200;
+    Transport transport = Http2Transport.builder().withConnectionsPerHost(2).build();
+    Connection connection = connection(server.root(), transport, RetryPolicy.DEFAULT);
+
+    for (Response response : sendConcurrently(connection, 50)) {
+      assertThat(response.getStatusCode(), is(200));
+    }
+
+    assertThat(server.protocols, hasSize(50));
+    assertThat(server.connections.get(), lessThanOrEqualTo(2));
+  }
+
+  @Test
+  public void holdAConnectionPerConcurrentQueryWithTheDefaultTransport() throws Exception {
+    StandInServer server = server(StandInServer.cleartext());
+    server.delayMs = 200;
+    Connection connection = connection(server.root(), null, RetryPolicy.DEFAULT);
+
+    for (Response response : sendConcurrently(connection, 50)) {
+      assertThat(response.getStatusCode(), is(200));
+    }
+
+    assertThat(server.connections.get(), greaterThan(2));
+  }
+
+  @Test
+  public void inflateCompressedResponses() throws Exception {
+    StandInServer server = server(StandInServer.cleartext());
+    server.gzip = true;
+    Connection connection = connection(server.root(), Http2Transport.create(), RetryPolicy.DEFAULT);
+
+    Response response = connection.post("/", QUERY).get(5, TimeUnit.SECONDS);
+
+    assertThat(body(response), is("{\"resource\":\"fire\"}"));
+    assertThat(response.getHeader("Content-Encoding"), nullValue());
+  }
+
+  @Test
+  public void failAQueryThatTakesTooLong() throws Exception {
+    StandInServer server = server(StandInServer.cleartext());
+    server.delayMs = 1000;
+    Transport transport = Http2Transport.builder().withRequestTimeout(100, TimeUnit.MILLISECONDS).build();
+    Connection connection = connection(server.root(), transport, RetryPolicy.NONE);
+
+    try {
+      connection.post("/", QUERY).get(5, TimeUnit.SECONDS);
+      fail("Expected the query to time out.");
+    } catch (ExecutionException ex) {
+      assertThat(ex.getCause(), instanceOf(TimeoutException.class));
+    }
+  }
+
+  @Test
+  public void failToConnectToAHostThatIsNotListening() throws Exception {
+    int port;
+    try (ServerSocket socket = new ServerSocket(0)) {
+      port = socket.getLocalPort();
+    }
+    Connection connection = connection("http://localhost:" + port, Http2Transport.create(), RetryPolicy.NONE);
+
+    try {
+      connection.post("/", QUERY).get(5, TimeUnit.SECONDS);
+      fail("Expected the query to fail to connect.");
+    } catch (ExecutionException ex) {
+      assertThat(ex.getCause(), instanceOf(ConnectException.class));
+    }
+  }
+
+  @Test
+  public void negotiateHttp2OverTls() throws Exception {
+    Assume.assumeTrue(SslProvider.isAlpnSupported(SslProvider.JDK));
+
+    StandInServer server = server(StandInServer.secure());
+    Transport transport = Http2Transport.builder().withTrustManager(InsecureTrustManagerFactory.INSTANCE).build();
+    Connection connection = connection(server.root(), transport, RetryPolicy.DEFAULT);
+
+    Response response = connection.post("/", QUERY).get(5, TimeUnit.SECONDS);
+
+    assertThat(body(response), is("{\"resource\":\"fire\"}"));
+    assertThat(server.protocols, contains(StandInServer.H2));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectTooFewConnectionsPerHost() {
+    Http2Transport.builder().withConnectionsPerHost(0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectANonPositiveRequestTimeout() {
+    Http2Transport.builder().withRequestTimeout(0, TimeUnit.MILLISECONDS);
+  }
+
+  private StandInServer server(StandInServer server) {
+    resources.add(server);
+    return server;
+  }
+
+  private Connection connection(String root, Transport transport, RetryPolicy retryPolicy) throws Exception {
+    Connection.Builder builder = Connection.builder()
+      .withFaunaRoot(root)
+      .withAuthToken("secret")
+      .withRetryPolicy(retryPolicy);
+    if (transport != null) {
+      builder.withTransport(transport);
+    }
+
+    final Connection connection = builder.build();
+    resources.add(new AutoCloseable() {
+      @Override
+      public void close() {
+        connection.close();
+      }
+    });
+    return connection;
+  }
+
+  private static List<Response> sendConcurrently(Connection connection, int count) throws Exception {
+    List<ListenableFuture<Response>> futures = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      futures.add(connection.post("/", QUERY));
+    }
+
+    List<Response> responses = new ArrayList<>(count);
+    for (ListenableFuture<Response> future : futures) {
+      responses.add(future.get(10, TimeUnit.SECONDS));
+    }
+    return responses;
+  }
+
+  private static String body(Response response) throws Exception {
+    return new String(ByteStreams.toByteArray(response.getResponseBodyAsStream()), StandardCharsets.UTF_8);
+  }
+}
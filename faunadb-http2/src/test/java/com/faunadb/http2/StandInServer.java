@@ -0,0 +1,276 @@
+package com.faunadb.http2;
+
+import com.faunadb.http2.shaded.io.netty.bootstrap.ServerBootstrap;
+import com.faunadb.http2.shaded.io.netty.buffer.ByteBuf;
+import com.faunadb.http2.shaded.io.netty.buffer.ByteBufUtil;
+import com.faunadb.http2.shaded.io.netty.buffer.Unpooled;
+import com.faunadb.http2.shaded.io.netty.channel.Channel;
+import com.faunadb.http2.shaded.io.netty.channel.ChannelHandlerContext;
+import com.faunadb.http2.shaded.io.netty.channel.ChannelInboundHandlerAdapter;
+import com.faunadb.http2.shaded.io.netty.channel.ChannelInitializer;
+import com.faunadb.http2.shaded.io.netty.channel.ChannelPipeline;
+import com.faunadb.http2.shaded.io.netty.channel.EventLoopGroup;
+import com.faunadb.http2.shaded.io.netty.channel.SimpleChannelInboundHandler;
+import com.faunadb.http2.shaded.io.netty.channel.nio.NioEventLoopGroup;
+import com.faunadb.http2.shaded.io.netty.channel.socket.SocketChannel;
+import com.faunadb.http2.shaded.io.netty.channel.socket.nio.NioServerSocketChannel;
+import com.faunadb.http2.shaded.io.netty.handler.codec.ByteToMessageDecoder;
+import com.faunadb.http2.shaded.io.netty.handler.codec.http.DefaultFullHttpResponse;
+import com.faunadb.http2.shaded.io.netty.handler.codec.http.FullHttpRequest;
+import com.faunadb.http2.shaded.io.netty.handler.codec.http.FullHttpResponse;
+import com.faunadb.http2.shaded.io.netty.handler.codec.http.HttpObjectAggregator;
+import com.faunadb.http2.shaded.io.netty.handler.codec.http.HttpResponseStatus;
+import com.faunadb.http2.shaded.io.netty.handler.codec.http.HttpServerCodec;
+import com.faunadb.http2.shaded.io.netty.handler.codec.http.HttpUtil;
+import com.faunadb.http2.shaded.io.netty.handler.codec.http.HttpVersion;
+import com.faunadb.http2.shaded.io.netty.handler.codec.http2.DefaultHttp2DataFrame;
+import com.faunadb.http2.shaded.io.netty.handler.codec.http2.DefaultHttp2Headers;
+import com.faunadb.http2.shaded.io.netty.handler.codec.http2.DefaultHttp2HeadersFrame;
+import com.faunadb.http2.shaded.io.netty.handler.codec.http2.DefaultHttp2WindowUpdateFrame;
+import com.faunadb.http2.shaded.io.netty.handler.codec.http2.Http2CodecUtil;
+import com.faunadb.http2.shaded.io.netty.handler.codec.http2.Http2DataFrame;
+import com.faunadb.http2.shaded.io.netty.handler.codec.http2.Http2FrameCodecBuilder;
+import com.faunadb.http2.shaded.io.netty.handler.codec.http2.Http2FrameStream;
+import com.faunadb.http2.shaded.io.netty.handler.codec.http2.Http2Headers;
+import com.faunadb.http2.shaded.io.netty.handler.codec.http2.Http2HeadersFrame;
+import com.faunadb.http2.shaded.io.netty.handler.ssl.ApplicationProtocolConfig;
+import com.faunadb.http2.shaded.io.netty.handler.ssl.ApplicationProtocolNames;
+import com.faunadb.http2.shaded.io.netty.handler.ssl.ApplicationProtocolNegotiationHandler;
+import com.faunadb.http2.shaded.io.netty.handler.ssl.SslContext;
+import com.faunadb.http2.shaded.io.netty.handler.ssl.SslContextBuilder;
+import com.faunadb.http2.shaded.io.netty.handler.ssl.SslProvider;
+import com.faunadb.http2.shaded.io.netty.handler.ssl.util.SelfSignedCertificate;
+import com.faunadb.http2.shaded.io.netty.util.ReferenceCountUtil;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A local stand-in for FaunaDB that answers every request with the same response. In cleartext it speaks both HTTP/2
+ * with prior knowledge and HTTP/1.1 on one port, and over TLS it offers both with ALPN, so that each transport can be
+ * run against it. It records how each request reached it.
+ */
+final class StandInServer implements Closeable {
+  static final String H2 = ApplicationProtocolNames.HTTP_2;
+  static final String HTTP_1_1 = ApplicationProtocolNames.HTTP_1_1;
+
+  final AtomicInteger connections = new AtomicInteger();
+  final List<String> protocols = Collections.synchronizedList(new ArrayList<String>());
+  final List<String> authorizations = Collections.synchronizedList(new ArrayList<String>());
+  final List<String> bodies = Collections.synchronizedList(new ArrayList<String>());
+
+  volatile String response = "{\"resource\":\"fire\"}";
+  volatile long delayMs = 0;
+  volatile boolean gzip = false;
+
+  private final EventLoopGroup group = new NioEventLoopGroup(2);
+  private final SslContext sslContext;
+  private final Channel channel;
+
+  static StandInServer cleartext() throws Exception {
+    return new StandInServer(null);
+  }
+
+  static StandInServer secure() throws Exception {
+    SelfSignedCertificate certificate = new SelfSignedCertificate();
+    SslContext sslContext = SslContextBuilder.forServer(certificate.certificate(), certificate.privateKey())
+      .sslProvider(SslProvider.JDK)
+      .applicationProtocolConfig(new ApplicationProtocolConfig(
+        ApplicationProtocolConfig.Protocol.ALPN,
+        ApplicationProtocolConfig.SelectorFailureBehavior.NO_ADVERTISE,
+        ApplicationProtocolConfig.SelectedListenerFailureBehavior.ACCEPT,
+        H2, HTTP_1_1))
+      .build();
+    return new StandInServer(sslContext);
+  }
+
+  private StandInServer(SslContext sslContext) throws InterruptedException {
+    this.sslContext = sslContext;
+    this.channel = new ServerBootstrap()
+      .group(group)
+      .channel(NioServerSocketChannel.class)
+      .childHandler(new ChannelInitializer<SocketChannel>() {
+        @Override
+        protected void initChannel(SocketChannel ch) {
+          connections.incrementAndGet();
+          if (StandInServer.this.sslContext == null) {
+            ch.pipeline().addLast(new PrefaceDetector());
+            return;
+          }
+
+          ch.pipeline().addLast(StandInServer.this.sslContext.newHandler(ch.alloc()));
+          ch.pipeline().addLast(new ApplicationProtocolNegotiationHandler(HTTP_1_1) {
+            @Override
+            protected void configurePipeline(ChannelHandlerContext ctx, String protocol) {
+              if (H2.equals(protocol)) {
+                speakH2(ctx.pipeline());
+              } else {
+                speakHttp11(ctx.pipeline());
+              }
+            }
+          });
+        }
+      })
+      .bind("localhost", 0)
+      .sync()
+      .channel();
+  }
+
+  String root() {
+    return (sslContext == null ? "http" : "https") + "://localhost:" + port();
+  }
+
+  int port() {
+    return ((InetSocketAddress) channel.localAddress()).getPort();
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close().awaitUninterruptibly();
+    group.shutdownGracefully(0, 1, TimeUnit.SECONDS).awaitUninterruptibly();
+  }
+
+  private void speakH2(ChannelPipeline pipeline) {
+    pipeline.addLast(Http2FrameCodecBuilder.forServer().build(), new H2Handler());
+  }
+
+  private void speakHttp11(ChannelPipeline pipeline) {
+    pipeline.addLast(new HttpServerCodec(), new HttpObjectAggregator(1 << 20), new Http11Handler());
+  }
+
+  private void record(String protocol, CharSequence authorization, String body) {
+    protocols.add(protocol);
+    authorizations.add(authorization == null ? null : authorization.toString());
+    bodies.add(body);
+  }
+
+  private byte[] responseBytes() {
+    byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+    if (!gzip) {
+      return bytes;
+    }
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (GZIPOutputStream zip = new GZIPOutputStream(out)) {
+      zip.write(bytes);
+    } catch (IOException ex) {
+      throw new AssertionError(ex);
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * Tells cleartext HTTP/2 with prior knowledge apart from HTTP/1.1 by the connection preface.
+   */
+  private final class PrefaceDetector extends ByteToMessageDecoder {
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+      ByteBuf preface = Http2CodecUtil.connectionPrefaceBuf();
+      try {
+        int length = Math.min(in.readableBytes(), preface.readableBytes());
+        boolean h2 = ByteBufUtil.equals(in, in.readerIndex(), preface, 0, length);
+        if (h2 && length < preface.readableBytes()) {
+          return;
+        }
+
+        if (h2) {
+          speakH2(ctx.pipeline());
+        } else {
+          speakHttp11(ctx.pipeline());
+        }
+        ctx.pipeline().remove(this);
+      } finally {
+        preface.release();
+      }
+    }
+  }
+
+  private final class H2Handler extends ChannelInboundHandlerAdapter {
+    private final Map<Http2FrameStream, Http2Headers> requests = new HashMap<>();
+    private final Map<Http2FrameStream, ByteArrayOutputStream> bodies = new HashMap<>();
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+      try {
+        if (msg instanceof Http2HeadersFrame) {
+          Http2HeadersFrame frame = (Http2HeadersFrame) msg;
+          requests.put(frame.stream(), frame.headers());
+          bodies.put(frame.stream(), new ByteArrayOutputStream());
+          if (frame.isEndStream()) {
+            answer(ctx, frame.stream());
+          }
+        } else if (msg instanceof Http2DataFrame) {
+          Http2DataFrame frame = (Http2DataFrame) msg;
+          ByteArrayOutputStream body = bodies.get(frame.stream());
+          byte[] bytes = ByteBufUtil.getBytes(frame.content());
+          body.write(bytes, 0, bytes.length);
+          ctx.write(new DefaultHttp2WindowUpdateFrame(frame.initialFlowControlledBytes()).stream(frame.stream()));
+          if (frame.isEndStream()) {
+            answer(ctx, frame.stream());
+          }
+          ctx.flush();
+        }
+      } finally {
+        ReferenceCountUtil.release(msg);
+      }
+    }
+
+    private void answer(final ChannelHandlerContext ctx, final Http2FrameStream stream) {
+      Http2Headers request = requests.remove(stream);
+      String body = new String(bodies.remove(stream).toByteArray(), StandardCharsets.UTF_8);
+      record(H2, request.get("authorization"), body);
+
+      ctx.executor().schedule(new Runnable() {
+        @Override
+        public void run() {
+          byte[] bytes = responseBytes();
+          Http2Headers headers = new DefaultHttp2Headers()
+            .status("200")
+            .set("content-type", "application/json;charset=utf-8")
+            .setInt("content-length", bytes.length);
+          if (gzip) {
+            headers.set("content-encoding", "gzip");
+          }
+          ctx.write(new DefaultHttp2HeadersFrame(headers).stream(stream));
+          ctx.writeAndFlush(new DefaultHttp2DataFrame(Unpooled.wrappedBuffer(bytes), true).stream(stream));
+        }
+      }, delayMs, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  private final class Http11Handler extends SimpleChannelInboundHandler<FullHttpRequest> {
+    @Override
+    protected void channelRead0(final ChannelHandlerContext ctx, FullHttpRequest request) {
+      record(HTTP_1_1, request.headers().get("Authorization"), request.content().toString(StandardCharsets.UTF_8));
+      final boolean keepAlive = HttpUtil.isKeepAlive(request);
+
+      ctx.executor().schedule(new Runnable() {
+        @Override
+        public void run() {
+          byte[] bytes = responseBytes();
+          FullHttpResponse response =
+            new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK, Unpooled.wrappedBuffer(bytes));
+          response.headers()
+            .set("Content-Type", "application/json;charset=utf-8")
+            .setInt("Content-Length", bytes.length);
+          if (gzip) {
+            response.headers().set("Content-Encoding", "gzip");
+          }
+          HttpUtil.setKeepAlive(response, keepAlive);
+          ctx.writeAndFlush(response);
+        }
+      }, delayMs, TimeUnit.MILLISECONDS);
+    }
+  }
+}
@@ -0,0 +1,83 @@
+package com.faunadb.client.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.guava.GuavaModule;
+import com.faunadb.client.types.Value;
+import com.faunadb.client.types.ValueModule;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.ByteStreams;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import static com.faunadb.client.query.Language.*;
+
+/**
+ * Compares encoding queries through the annotations on the value types with encoding them through the dedicated
+ * serializers of {@link ValueModule}, as clients do.
+ *
+ * <p>The query creates an instance whose data has the given number of fields, of every kind of value, and is written
+ * to a stream that discards it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class EncodingBenchmark {
+  @Param({ "5", "50" })
+  public int fields;
+
+  private ObjectMapper annotations;
+  private ObjectMapper serializers;
+  private Value query;
+  private OutputStream out;
+
+  @Setup
+  public void setup() {
+    annotations = new ObjectMapper().registerModule(new GuavaModule());
+    serializers = new ObjectMapper().registerModule(new GuavaModule()).registerModule(new ValueModule());
+    out = ByteStreams.nullOutputStream();
+
+    ImmutableMap.Builder<String, Value> data = ImmutableMap.builder();
+    for (int i = 0; i < fields; i++) {
+      switch (i % 5) {
+        case 0:
+          data.put("field" + i, StringV("fire"));
+          break;
+        case 1:
+          data.put("field" + i, LongV(i));
+          break;
+        case 2:
+          data.put("field" + i, Ref("classes/spells/" + i));
+          break;
+        case 3:
+          data.put("field" + i, ArrayV(StringV("fire"), DoubleV(2.5), BooleanV(true)));
+          break;
+        default:
+          data.put("field" + i, TsV(Instant.EPOCH));
+      }
+    }
+
+    query = Let(ImmutableMap.<String, Value>of("spells", Ref("classes/spells")),
+      Create(Var("spells"), Quote(ObjectV("data", ObjectV(data.build())))));
+  }
+
+  @Benchmark
+  public void annotations() throws IOException {
+    annotations.writeValue(out, query);
+  }
+
+  @Benchmark
+  public void serializers() throws IOException {
+    serializers.writeValue(out, query);
+  }
+}
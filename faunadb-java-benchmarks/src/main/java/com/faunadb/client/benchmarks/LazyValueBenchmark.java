@@ -0,0 +1,86 @@
+package com.faunadb.client.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.datatype.guava.GuavaModule;
+import com.faunadb.client.types.LazyValue;
+import com.faunadb.client.types.Value;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link LazyValue} with {@link LegacyLazyValue}, the implementation that converted its node on every call.
+ *
+ * <p>Each invocation wraps a fresh node, so the memoized views are built as part of the measurement. The field walk
+ * reads every field of an instance's data once, as a caller decoding it would. The type mismatch coerces a string
+ * into the types it is not.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LazyValueBenchmark {
+  @Param({ "10", "50" })
+  public int fields;
+
+  private ObjectMapper json;
+  private JsonNode data;
+  private JsonNode string;
+  private String[] names;
+
+  @Setup
+  public void setup() {
+    json = new ObjectMapper().registerModule(new GuavaModule());
+    ObjectNode obj = json.createObjectNode();
+    names = new String[fields];
+    for (int i = 0; i < fields; i++) {
+      names[i] = "field" + i;
+      obj.put(names[i], "value" + i);
+    }
+    data = obj;
+    string = json.getNodeFactory().textNode("fire");
+  }
+
+  @Benchmark
+  public void legacyFieldWalk(Blackhole bh) {
+    walk(new LegacyLazyValue(data, json), bh);
+  }
+
+  @Benchmark
+  public void memoizedFieldWalk(Blackhole bh) {
+    walk(LazyValue.create(data, json), bh);
+  }
+
+  @Benchmark
+  public void legacyTypeMismatch(Blackhole bh) {
+    mismatch(new LegacyLazyValue(string, json), bh);
+  }
+
+  @Benchmark
+  public void memoizedTypeMismatch(Blackhole bh) {
+    mismatch(LazyValue.create(string, json), bh);
+  }
+
+  private void walk(Value value, Blackhole bh) {
+    for (String name : names) {
+      bh.consume(value.get(name).asString());
+    }
+  }
+
+  private static void mismatch(Value value, Blackhole bh) {
+    bh.consume(value.asRef());
+    bh.consume(value.asTs());
+    bh.consume(value.asArray());
+    bh.consume(value.asObject());
+    bh.consume(value.asPage());
+  }
+}
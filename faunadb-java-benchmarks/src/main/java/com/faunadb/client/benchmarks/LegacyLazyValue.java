@@ -0,0 +1,214 @@
+package com.faunadb.client.benchmarks;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.faunadb.client.response.*;
+import com.faunadb.client.response.Class;
+import com.faunadb.client.types.LazyValueMap;
+import com.faunadb.client.types.Ref;
+import com.faunadb.client.types.Set;
+import com.faunadb.client.types.Value;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * {@link com.faunadb.client.types.LazyValue} as it was before its coercions were memoized, converting its node
+ * through Jackson on every call. Kept as the baseline of {@link LazyValueBenchmark}.
+ */
+final class LegacyLazyValue implements Value {
+
+  private final JsonNode underlying;
+  private final ObjectMapper json;
+
+  @JsonValue
+  private JsonNode underlying() {
+    return underlying;
+  }
+
+  LegacyLazyValue(JsonNode underlying, ObjectMapper json) {
+    this.underlying = underlying;
+    this.json = json;
+  }
+
+  public String asString() {
+    if (underlying.isTextual()) {
+      return underlying.asText();
+    } else {
+      return null;
+    }
+  }
+
+  public Boolean asBoolean() {
+    if (underlying.isBoolean()) {
+      return underlying.asBoolean();
+    } else {
+      return null;
+    }
+  }
+
+  public Long asLong() {
+    if (underlying.isNumber()) {
+      return underlying.asLong();
+    } else {
+      return null;
+    }
+  }
+
+  public Double asDouble() {
+    if (underlying.isDouble()) {
+      return underlying.asDouble();
+    } else {
+      return null;
+    }
+  }
+
+  public Instant asTs() {
+    try {
+      return json.convertValue(underlying, Value.TsV.class).asTs();
+    } catch (IllegalArgumentException ex) {
+      return null;
+    }
+  }
+
+  public LocalDate asDate() {
+    try {
+      return json.convertValue(underlying, Value.DateV.class).asDate();
+    } catch (IllegalArgumentException ex) {
+      return null;
+    }
+  }
+
+  public ImmutableList<Value> asArray() {
+    try {
+      return json.convertValue(underlying, TypeFactory.defaultInstance().constructCollectionType(ImmutableList.class, com.faunadb.client.types.LazyValue.class));
+    } catch (IllegalArgumentException ex) {
+      return null;
+    }
+  }
+
+  public ImmutableMap<String, Value> asObject() {
+    try {
+      return ImmutableMap.copyOf(json.convertValue(underlying, LazyValueMap.class));
+    } catch (ClassCastException ex) {
+      return null;
+    } catch (IllegalArgumentException ex) {
+      return null;
+    }
+  }
+
+  public Ref asRef() {
+    try {
+      return json.convertValue(underlying, Ref.class);
+    } catch (IllegalArgumentException ex) {
+      return null;
+    }
+  }
+
+  public Page asPage() {
+    try {
+      return json.convertValue(underlying, Page.class);
+    } catch (IllegalArgumentException ex) {
+      return null;
+    }
+  }
+
+  public Instance asInstance() {
+    try {
+      return json.convertValue(underlying, Instance.class);
+    } catch (IllegalArgumentException ex) {
+      return null;
+    }
+  }
+
+  public Key asKey() {
+    try {
+      return json.convertValue(underlying, Key.class);
+    } catch (IllegalArgumentException ex) {
+      return null;
+    }
+  }
+
+  public Token asToken() {
+    try {
+      return json.convertValue(underlying, Token.class);
+    } catch (IllegalArgumentException ex) {
+      return null;
+    }
+  }
+
+  public Database asDatabase() {
+    try {
+      return json.convertValue(underlying, Database.class);
+    } catch (IllegalArgumentException ex) {
+      return null;
+    }
+  }
+
+  public Class asClass() {
+    try {
+      return json.convertValue(underlying, Class.class);
+    } catch (IllegalArgumentException ex) {
+      return null;
+    }
+  }
+
+  public Index asIndex() {
+    try {
+      return json.convertValue(underlying, Index.class);
+    } catch (IllegalArgumentException ex) {
+      return null;
+    }
+  }
+
+  public Event asEvent() {
+    try {
+      return json.convertValue(underlying, Event.class);
+    } catch (IllegalArgumentException ex) {
+      return null;
+    }
+  }
+
+  public Set asSet() {
+    try {
+      return json.convertValue(underlying, Set.class);
+    } catch (IllegalArgumentException ex) {
+      return null;
+    }
+  }
+
+  /**
+   * Accesses the value of the specified field if this is an object node.
+   * @return the value of the field, or null.
+   */
+  public Value get(String key) {
+    return asObject().get(key);
+  }
+
+  /**
+   * Accesses the value of the specified element if this is an array node.
+   * @return the value of the element, or null.
+   */
+  public Value get(int index) {
+    return asArray().get(index);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    return (obj instanceof LegacyLazyValue) && underlying.equals(((LegacyLazyValue) obj).underlying);
+  }
+
+  @Override
+  public int hashCode() {
+    return underlying.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return underlying.toString();
+  }
+}
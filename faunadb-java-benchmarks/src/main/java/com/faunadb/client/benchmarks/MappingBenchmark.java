@@ -0,0 +1,87 @@
+package com.faunadb.client.benchmarks;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.guava.GuavaModule;
+import com.faunadb.client.types.FaunaField;
+import com.faunadb.client.types.Ref;
+import com.faunadb.client.types.Value;
+import com.faunadb.client.types.ValueModule;
+import com.google.common.collect.ImmutableList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares turning an instance into a domain object by hand, through {@link Value}, with decoding it straight into a
+ * class mapped with {@link FaunaField}, and with Jackson's databind decoding the same fields from plain JSON.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MappingBenchmark {
+  public static class MappedSpell {
+    @FaunaField("ref") Ref ref;
+    @FaunaField("ts") long ts;
+    @FaunaField("data.name") String name;
+    @FaunaField("data.element") List<String> elements;
+    @FaunaField("data.cost") long cost;
+  }
+
+  public static class PlainSpell {
+    @JsonProperty("ref") String ref;
+    @JsonProperty("ts") long ts;
+    @JsonProperty("name") String name;
+    @JsonProperty("element") List<String> elements;
+    @JsonProperty("cost") long cost;
+  }
+
+  private ObjectMapper json;
+  private byte[] instance;
+  private byte[] plain;
+
+  @Setup
+  public void setup() {
+    json = new ObjectMapper().registerModule(new GuavaModule()).registerModule(new ValueModule());
+    instance = ("{\"ref\":{\"@ref\":\"classes/spells/1\"},\"class\":{\"@ref\":\"classes/spells\"}," +
+      "\"ts\":1432763268186882,\"data\":{\"name\":\"fire\",\"element\":[\"fire\",\"air\"],\"cost\":10}}")
+      .getBytes(StandardCharsets.UTF_8);
+    plain = ("{\"ref\":\"classes/spells/1\",\"ts\":1432763268186882,\"name\":\"fire\",\"element\":[\"fire\",\"air\"]," +
+      "\"cost\":10}").getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Benchmark
+  public MappedSpell handWritten() throws IOException {
+    Value value = json.readValue(instance, Value.class);
+    MappedSpell spell = new MappedSpell();
+    spell.ref = value.get("ref").asRef();
+    spell.ts = value.get("ts").asLong();
+    spell.name = value.get("data").get("name").asString();
+    ImmutableList.Builder<String> elements = ImmutableList.builder();
+    for (Value element : value.get("data").get("element").asArray()) {
+      elements.add(element.asString());
+    }
+    spell.elements = elements.build();
+    spell.cost = value.get("data").get("cost").asLong();
+    return spell;
+  }
+
+  @Benchmark
+  public MappedSpell mapped() throws IOException {
+    return json.readValue(instance, MappedSpell.class);
+  }
+
+  @Benchmark
+  public PlainSpell databind() throws IOException {
+    return json.readValue(plain, PlainSpell.class);
+  }
+}
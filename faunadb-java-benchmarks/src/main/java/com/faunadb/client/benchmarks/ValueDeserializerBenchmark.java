@@ -0,0 +1,84 @@
+package com.faunadb.client.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.guava.GuavaModule;
+import com.faunadb.client.response.Instance;
+import com.faunadb.client.response.Page;
+import com.faunadb.client.types.LazyValue;
+import com.faunadb.client.types.Value;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares decoding a page of instances through a tree and {@link LazyValue}, as responses were decoded before, with
+ * decoding it in one pass into concrete values, and with decoding it straight into a {@link Page}.
+ *
+ * <p>Each invocation decodes the page and reads every instance out of it. Run with {@code -prof gc} to see the bytes
+ * allocated per operation, which is where the two differ most.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ValueDeserializerBenchmark {
+  @Param({ "1", "100" })
+  public int instances;
+
+  private ObjectMapper json;
+  private byte[] page;
+
+  @Setup
+  public void setup() {
+    json = new ObjectMapper().registerModule(new GuavaModule());
+    StringBuilder body = new StringBuilder("{\"data\":[");
+    for (int i = 0; i < instances; i++) {
+      if (i > 0) {
+        body.append(',');
+      }
+      body.append("{\"ref\":{\"@ref\":\"classes/spells/").append(i).append("\"},")
+        .append("\"class\":{\"@ref\":\"classes/spells\"},\"ts\":1432763268186882,")
+        .append("\"data\":{\"name\":\"fire\",\"element\":[\"fire\",\"air\"],\"cost\":10,")
+        .append("\"cast\":{\"@ts\":\"2016-01-01T00:00:00Z\"},\"learned\":{\"@date\":\"2016-01-01\"},")
+        .append("\"school\":{\"@obj\":{\"@ref\":\"evocation\"}}}}");
+    }
+    body.append("],\"after\":{\"@ref\":\"classes/spells/").append(instances).append("\"}}");
+    page = body.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Benchmark
+  public void treeDecode(Blackhole bh) throws IOException {
+    read(LazyValue.create(json.readTree(page), json), bh);
+  }
+
+  @Benchmark
+  public void streamingDecode(Blackhole bh) throws IOException {
+    read(json.readValue(page, Value.class), bh);
+  }
+
+  @Benchmark
+  public void typedDecode(Blackhole bh) throws IOException {
+    read(json.readValue(page, Page.class), bh);
+  }
+
+  private static void read(Value value, Blackhole bh) {
+    read(value.asPage(), bh);
+  }
+
+  private static void read(Page page, Blackhole bh) {
+    for (Value instance : page.data()) {
+      Instance decoded = instance.asInstance();
+      bh.consume(decoded.ref());
+      bh.consume(decoded.data().get("cast").asTs());
+    }
+  }
+}
@@ -0,0 +1,101 @@
+package com.faunadb.client;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Controls whether a {@link FaunaClient} merges concurrent queries into batches.
+ *
+ * <p>A batching client holds each {@link FaunaClient#query(com.faunadb.client.types.Value)} for up to the batch window, and sends every query
+ * that arrived in that time as a single request, as {@link FaunaClient#query(com.google.common.collect.ImmutableList)}
+ * would. A batch is sent early once it reaches the maximum size. Each caller's future is completed with its own
+ * query's result.
+ *
+ * <p>FaunaDB evaluates a batch as one transaction, so one failing query fails the batch. When a batch fails with a
+ * query error, such as a bad request or a missing instance, nothing in it was applied, so its queries are sent again
+ * one by one, so that each caller sees only its own query's outcome. When a batch fails in a way that leaves unknown
+ * whether it was applied, such as an unexpected status or a result of the wrong size, only its read-only queries are
+ * sent again, and its writes fail with the batch's error. Failures that are not specific to a query, such as an
+ * unavailable node, fail every query in the batch.
+ *
+ * <p>By default only read-only queries are batched, since batching writes makes them commit or abort together.
+ * Queries issued with a deadline or other {@link com.faunadb.common.RequestOptions} are never batched. Instances are
+ * immutable. The {@code withX} methods each return a copy.
+ *
+ * @see FaunaClient#create(com.faunadb.common.Connection, BatchPolicy)
+ */
+public final class BatchPolicy {
+  /**
+   * Batches up to 32 read-only queries that arrive within 1ms of each other.
+   */
+  public static final BatchPolicy DEFAULT = new BatchPolicy(true, 32, TimeUnit.MILLISECONDS.toNanos(1), false);
+
+  /**
+   * Never batches. This is the default for a {@link FaunaClient}.
+   */
+  public static final BatchPolicy NONE = new BatchPolicy(false, 1, 0, false);
+
+  private final boolean enabled;
+  private final int maxSize;
+  private final long windowNanos;
+  private final boolean writes;
+
+  BatchPolicy(boolean enabled, int maxSize, long windowNanos, boolean writes) {
+    this.enabled = enabled;
+    this.maxSize = maxSize;
+    this.windowNanos = windowNanos;
+    this.writes = writes;
+  }
+
+  /**
+   * Returns a copy of this with the largest number of queries in a batch set.
+   * @param maxSize the largest batch, at least 2.
+   */
+  public BatchPolicy withMaxSize(int maxSize) {
+    if (maxSize < 2) {
+      throw new IllegalArgumentException("A batch must be allowed at least two queries.");
+    }
+    return new BatchPolicy(enabled, maxSize, windowNanos, writes);
+  }
+
+  /**
+   * Returns a copy of this with the batch window set.
+   * @param window the longest time a query is held while its batch fills.
+   * @param unit the unit of {@code window}.
+   */
+  public BatchPolicy withWindow(long window, TimeUnit unit) {
+    if (window <= 0) {
+      throw new IllegalArgumentException("The batch window must be positive.");
+    }
+    return new BatchPolicy(enabled, maxSize, unit.toNanos(window), writes);
+  }
+
+  /**
+   * Returns a copy of this that also batches queries with writes, or only read-only ones.
+   * @param writes true to batch queries with writes.
+   */
+  public BatchPolicy withWrites(boolean writes) {
+    return new BatchPolicy(enabled, maxSize, windowNanos, writes);
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public int maxSize() {
+    return maxSize;
+  }
+
+  public long windowNanos() {
+    return windowNanos;
+  }
+
+  public boolean batchesWrites() {
+    return writes;
+  }
+
+  @Override
+  public String toString() {
+    return "BatchPolicy(enabled=" + enabled + ", maxSize=" + maxSize + ", windowNanos=" + windowNanos +
+      ", writes=" + writes + ")";
+  }
+}
@@ -0,0 +1,93 @@
+package com.faunadb.client;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Controls whether a {@link FaunaClient} caches the results of read-only queries.
+ *
+ * <p>A caching client answers a read-only {@link FaunaClient#query(com.faunadb.client.types.Value)} from its cache if
+ * it has the result of an identical query, fetched within the time to live. Queries are identical if they encode to
+ * the same JSON once the fields of every object are sorted. Only queries that {@code get}, check whether a ref
+ * {@code exists}, {@code select} from a {@code get}, or {@code paginate} with an explicit size are cached, and never
+ * when they read the current time. Other reads, such as a {@code count} or a {@code match}, are always sent.
+ *
+ * <p>The cache holds up to the maximum number of results. Once full, it keeps the results that are read most often,
+ * using the W-TinyLFU policy: a new result waits in a small window, and only displaces an older one if it has been
+ * asked for more often in the recent past. A brief scan of results read once does not flush the hot ones.
+ *
+ * <p>A cached result is dropped when the client is asked to {@link FaunaClient#invalidate(com.faunadb.client.types.Ref)
+ * invalidate} a ref that its query mentions, or when the client sends a query with writes that mentions such a ref.
+ * Writes by other clients, and writes that change a page without mentioning any ref of its query, such as a new
+ * instance matching a paginated index, only show once the result's time to live has passed.
+ *
+ * <p>Session clients share the cache of the client they are created from, with each result kept apart by the secret it
+ * was read with, so the cache's size bounds every session together.
+ *
+ * <p>Hits, misses, evictions and invalidations are metered in the connection's registry under
+ * {@code fauna-query-cache}, along with the hit ratio, the number of cached results and their estimated size in bytes.
+ * Instances are immutable. The {@code withX} methods each return a copy.
+ *
+ * @see FaunaClient#create(com.faunadb.common.Connection, BatchPolicy, Deduplication, CachePolicy)
+ */
+public final class CachePolicy {
+  /**
+   * Caches up to 10,000 results for 10 seconds each.
+   */
+  public static final CachePolicy DEFAULT = new CachePolicy(true, 10000, TimeUnit.SECONDS.toNanos(10));
+
+  /**
+   * Never caches. This is the default for a {@link FaunaClient}.
+   */
+  public static final CachePolicy NONE = new CachePolicy(false, 0, 0);
+
+  private final boolean enabled;
+  private final int maxEntries;
+  private final long timeToLiveNanos;
+
+  CachePolicy(boolean enabled, int maxEntries, long timeToLiveNanos) {
+    this.enabled = enabled;
+    this.maxEntries = maxEntries;
+    this.timeToLiveNanos = timeToLiveNanos;
+  }
+
+  /**
+   * Returns a copy of this with the largest number of cached results set.
+   * @param maxEntries the largest number of results, at least 1.
+   */
+  public CachePolicy withMaxEntries(int maxEntries) {
+    if (maxEntries < 1) {
+      throw new IllegalArgumentException("The cache must be allowed at least one result.");
+    }
+    return new CachePolicy(enabled, maxEntries, timeToLiveNanos);
+  }
+
+  /**
+   * Returns a copy of this with the time to live of cached results set.
+   * @param timeToLive the longest time a result is served from the cache after it was fetched.
+   * @param unit the unit of {@code timeToLive}.
+   */
+  public CachePolicy withTimeToLive(long timeToLive, TimeUnit unit) {
+    if (timeToLive <= 0) {
+      throw new IllegalArgumentException("The time to live must be positive.");
+    }
+    return new CachePolicy(enabled, maxEntries, unit.toNanos(timeToLive));
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public int maxEntries() {
+    return maxEntries;
+  }
+
+  public long timeToLiveNanos() {
+    return timeToLiveNanos;
+  }
+
+  @Override
+  public String toString() {
+    return "CachePolicy(enabled=" + enabled + ", maxEntries=" + maxEntries + ", timeToLiveNanos=" +
+      timeToLiveNanos + ")";
+  }
+}
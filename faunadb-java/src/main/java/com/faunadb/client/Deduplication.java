@@ -0,0 +1,30 @@
+package com.faunadb.client;
+
+/**
+ * Controls whether a {@link FaunaClient} merges identical queries that are in flight at the same time.
+ *
+ * <p>A deduplicating client that is asked for a read-only query identical to one it is still waiting on does not
+ * send it again, but gives the caller the result of the query already in flight. Queries are identical if they
+ * encode to the same JSON once the fields of every object are sorted. This collapses a burst of identical reads,
+ * such as the one that follows a cache miss, into a single request.
+ *
+ * <p>The shared result may come from a query that started before the caller's, so a caller that has just written
+ * may not see its own write. Only enable deduplication for reads that tolerate that. Queries issued with a deadline
+ * or other {@link com.faunadb.common.RequestOptions} are never deduplicated.
+ *
+ * <p>Hits and misses are counted in the connection's metrics, as {@code fauna-query-dedup.hits} and
+ * {@code fauna-query-dedup.misses}.
+ *
+ * @see FaunaClient#create(com.faunadb.common.Connection, BatchPolicy, Deduplication)
+ */
+public enum Deduplication {
+  /**
+   * Sends every query. This is the default for a {@link FaunaClient}.
+   */
+  NONE,
+
+  /**
+   * Merges identical read-only queries that are in flight at the same time.
+   */
+  READS
+}
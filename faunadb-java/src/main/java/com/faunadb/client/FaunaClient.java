@@ -1,23 +1,40 @@
 package com.faunadb.client;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.datatype.guava.GuavaModule;
 import com.faunadb.client.errors.*;
-import com.faunadb.client.types.LazyValue;
+import com.faunadb.client.types.Ref;
+import com.faunadb.client.query.Language;
 import com.faunadb.client.types.Value;
+import com.faunadb.client.types.ValueModule;
+import com.faunadb.common.BodyTemplate;
 import com.faunadb.common.Connection;
+import com.faunadb.common.RequestOptions;
+import com.faunadb.common.RequestRejectedException;
 import com.google.common.base.Function;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.AsyncFunction;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import org.asynchttpclient.Response;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
 import java.net.ConnectException;
-import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * The Java native client for FaunaDB.
@@ -26,6 +43,17 @@ import java.util.concurrent.TimeoutException;
  *
  * <p>Queries are constructed by using the static helpers in the {@link com.faunadb.client.query.Language} package.</p>
  *
+ * <p>Queries that contain no writes are sent as idempotent requests, so the {@link Connection} may retry them after a
+ * timeout or an unavailable response. See {@link com.faunadb.common.RetryPolicy}. If the connection has a
+ * {@link com.faunadb.common.HedgePolicy}, slow read-only queries are also hedged.</p>
+ *
+ * <p>A client acting for many tenants can create a session client for each of their secrets with
+ * {@link #newSessionClient(String)}. Session clients share the connection pool of the client they are created from.</p>
+ *
+ * <p>A client created with a {@link BatchPolicy} merges concurrent queries into batches, each sent as one request.
+ * One created with {@link Deduplication#READS} sends identical read-only queries in flight at the same time only
+ * once. One created with a {@link CachePolicy} answers repeated read-only queries from an in-process cache.</p>
+ *
  * <p><b>Example</b>:</p>
  * <pre>{@code
  * import static com.faunadb.client.query.Language.*;
@@ -38,8 +66,6 @@ import java.util.concurrent.TimeoutException;
  */
 public class FaunaClient {
 
-  private static final Charset UTF8 = Charset.forName("UTF-8");
-
   /**
    * Returns a new {@link FaunaClient} instance.
    *
@@ -48,6 +74,7 @@ public class FaunaClient {
   public static FaunaClient create(Connection connection) {
     ObjectMapper json = new ObjectMapper();
     json.registerModule(new GuavaModule());
+    json.registerModule(new ValueModule());
     return new FaunaClient(connection, json);
   }
 
@@ -58,21 +85,125 @@ public class FaunaClient {
    * @param json a custom {@link ObjectMapper} to customize JSON serialization and deserialization behavior.
    */
   public static FaunaClient create(Connection connection, ObjectMapper json) {
-    return new FaunaClient(connection, json.copy().registerModule(new GuavaModule()));
+    ObjectMapper copy = json.copy().registerModule(new GuavaModule()).registerModule(new ValueModule());
+    return new FaunaClient(connection, copy, BatchPolicy.NONE, Deduplication.NONE, CachePolicy.NONE);
+  }
+
+  /**
+   * Returns a new {@link FaunaClient} instance that merges concurrent queries into batches.
+   *
+   * @param connection the underlying {@link Connection} adapter for the client to use.
+   * @param batchPolicy the policy deciding which queries are batched, and how.
+   * @see BatchPolicy
+   */
+  public static FaunaClient create(Connection connection, BatchPolicy batchPolicy) {
+    return create(connection, batchPolicy, Deduplication.NONE);
+  }
+
+  /**
+   * Returns a new {@link FaunaClient} instance that may merge concurrent queries into batches, and identical
+   * concurrent queries into one.
+   *
+   * @param connection the underlying {@link Connection} adapter for the client to use.
+   * @param batchPolicy the policy deciding which queries are batched, and how.
+   * @param deduplication which identical queries in flight at the same time are only sent once.
+   * @see BatchPolicy
+   * @see Deduplication
+   */
+  public static FaunaClient create(Connection connection, BatchPolicy batchPolicy, Deduplication deduplication) {
+    return create(connection, batchPolicy, deduplication, CachePolicy.NONE);
+  }
+
+  /**
+   * Returns a new {@link FaunaClient} instance that may batch and deduplicate queries, and cache the results of
+   * read-only ones.
+   *
+   * @param connection the underlying {@link Connection} adapter for the client to use.
+   * @param batchPolicy the policy deciding which queries are batched, and how.
+   * @param deduplication which identical queries in flight at the same time are only sent once.
+   * @param cachePolicy the policy deciding how many results are cached, and for how long.
+   * @see CachePolicy
+   */
+  public static FaunaClient create(Connection connection, BatchPolicy batchPolicy, Deduplication deduplication,
+                                   CachePolicy cachePolicy) {
+    ObjectMapper json = new ObjectMapper();
+    json.registerModule(new GuavaModule());
+    json.registerModule(new ValueModule());
+    return new FaunaClient(connection, json, batchPolicy, deduplication, cachePolicy);
   }
 
   private final Connection connection;
   private final ObjectMapper json;
+  private final BatchPolicy batchPolicy;
+  private final QueryBatcher batcher;
+  private final Deduplication deduplication;
+  private final QueryDeduplicator deduplicator;
+  private final CachePolicy cachePolicy;
+  private final QueryCache cache;
+  private final byte[] cacheScope;
+  private final ObjectMapper canonicalJson;
+  private final AtomicBoolean closed = new AtomicBoolean(false);
 
   FaunaClient(Connection connection, ObjectMapper json) {
+    this(connection, json, BatchPolicy.NONE, Deduplication.NONE, CachePolicy.NONE);
+  }
+
+  FaunaClient(Connection connection, ObjectMapper json, BatchPolicy batchPolicy, Deduplication deduplication,
+              CachePolicy cachePolicy) {
+    this(connection, json, batchPolicy, deduplication, cachePolicy,
+      cachePolicy.isEnabled() ? new QueryCache(cachePolicy, connection, json) : null, new byte[0]);
+  }
+
+  private FaunaClient(Connection connection, ObjectMapper json, BatchPolicy batchPolicy, Deduplication deduplication,
+                      CachePolicy cachePolicy, QueryCache cache, byte[] cacheScope) {
     this.connection = connection;
     this.json = json;
+    this.batchPolicy = batchPolicy;
+    this.batcher = batchPolicy.isEnabled() ? new QueryBatcher(this, batchPolicy) : null;
+    this.deduplication = deduplication;
+    this.deduplicator = deduplication == Deduplication.READS ? new QueryDeduplicator(this, connection) : null;
+    this.cachePolicy = cachePolicy;
+    this.cache = cache;
+    this.cacheScope = cacheScope;
+    this.canonicalJson = deduplicator != null || cache != null ?
+      json.copy().configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true) : null;
+  }
+
+  /**
+   * Returns a client that sends its queries with {@code secret}, sharing this client's {@link Connection} pool and
+   * configuration. Creating one is cheap, so one may be created for each tenant or even each request.
+   *
+   * <p>If this client has a {@link CachePolicy}, the session client shares its cache, in which results are kept apart
+   * by the secret they were read with. Invalidations, whether explicit or caused by writes, apply to the results of
+   * every session.
+   *
+   * <p>Session clients should be closed once no longer needed. The shared resources are released once every client
+   * sharing them has been closed.
+   *
+   * @param secret the secret of the key or token to send queries with.
+   * @return a new session client.
+   * @see Connection#newSessionConnection(String)
+   */
+  public FaunaClient newSessionClient(String secret) throws UnsupportedEncodingException {
+    Connection session = connection.newSessionConnection(secret);
+    return new FaunaClient(session, json, batchPolicy, deduplication, cachePolicy,
+      cache == null ? null : cache.retain(), QueryCache.scope(secret));
   }
 
   /**
-   * Frees any resources held by the client. Also closes the underlying {@link Connection}.
+   * Frees any resources held by the client. Also closes the underlying {@link Connection}. Queries waiting to be
+   * batched are sent first.
    */
   public void close() {
+    if (!closed.compareAndSet(false, true)) {
+      return;
+    }
+    if (batcher != null) {
+      batcher.flush();
+    }
+    if (cache != null) {
+      cache.close();
+    }
     connection.close();
   }
 
@@ -86,6 +217,11 @@ public class FaunaClient {
    * <p>Responses are modeled as a general response tree. Each node is a {@link Value}, and
    * can be coerced to structured types through various methods on that class.
    *
+   * <p>If the client has a {@link BatchPolicy}, the query may be held briefly and sent in a batch with others. If it
+   * deduplicates reads, the result of an identical query already in flight may be returned instead. If it has a
+   * {@link CachePolicy}, the result of a read-only query may come from its cache, and a query with writes drops the
+   * cached results of queries mentioning the same refs.
+   *
    * @param expr The query expression to be sent to FaunaDB.
    * @return A {@link ListenableFuture} containing the root node of the Response tree.
    * @see Value
@@ -93,19 +229,227 @@ public class FaunaClient {
    *
    */
   public ListenableFuture<Value> query(Value expr) {
-    JsonNode body = json.valueToTree(expr);
+    if (canonicalJson != null && QueryClassifier.isReadOnly(expr)) {
+      byte[] encoded;
+      try {
+        encoded = canonicalJson.writeValueAsBytes(expr);
+      } catch (JsonProcessingException ex) {
+        return Futures.immediateFailedFuture(ex);
+      }
+
+      if (cache != null && cache.accepts(expr)) {
+        return cache.get(this, cacheScope, expr, encoded);
+      }
+      return read(expr, encoded);
+    }
+
+    if (batcher != null && batcher.accepts(expr)) {
+      return batcher.submit(expr);
+    }
+    return query(expr, RequestOptions.DEFAULT);
+  }
+
+  /**
+   * Drops every cached result whose query mentions {@code ref}, so that the next read of it reaches FaunaDB. Queries
+   * this client sends with writes do so for the refs they mention, but writes by anyone else are only seen once the
+   * cached results expire, or are invalidated with this method.
+   *
+   * <p>Does nothing if the client has no {@link CachePolicy}.
+   *
+   * @param ref the ref whose results to drop.
+   */
+  public void invalidate(Ref ref) {
+    if (cache != null) {
+      cache.invalidate(ImmutableList.of(ref.value()));
+    }
+  }
+
+  /**
+   * Drops every cached result. Does nothing if the client has no {@link CachePolicy}.
+   */
+  public void invalidateAll() {
+    if (cache != null) {
+      cache.invalidateAll();
+    }
+  }
+
+  /**
+   * Sends a read-only query that has already been encoded, deduplicating it if the client deduplicates reads.
+   */
+  ListenableFuture<Value> read(Value expr, byte[] encoded) {
+    if (deduplicator != null && deduplicator.accepts(expr)) {
+      return deduplicator.submit(expr, encoded);
+    }
+    return submit(expr, encoded);
+  }
+
+  /**
+   * Sends a read-only query that has already been encoded, batching it if the client batches queries.
+   */
+  ListenableFuture<Value> submit(Value expr, byte[] encoded) {
+    if (batcher != null && batcher.accepts(expr)) {
+      return batcher.submit(expr);
+    }
+    return query(encodedBody(encoded), options(RequestOptions.DEFAULT, true), Value.class);
+  }
+
+  /**
+   * Issues a Query to FaunaDB, which must be answered within {@code timeout}.
+   *
+   * <p>If the deadline passes before the query is answered, the returned future fails with a
+   * {@link DeadlineExceededException}. A query that is still waiting to be sent by then is dropped without ever
+   * reaching FaunaDB.
+   *
+   * @param expr The query expression to be sent to FaunaDB.
+   * @param timeout the time from now until the deadline.
+   * @param unit the unit of {@code timeout}.
+   * @return A {@link ListenableFuture} containing the root node of the Response tree.
+   * @see #query(Value)
+   */
+  public ListenableFuture<Value> query(Value expr, long timeout, TimeUnit unit) {
+    return query(expr, RequestOptions.DEFAULT.withDeadline(timeout, unit));
+  }
+
+  /**
+   * Issues a Query to FaunaDB with the given {@link RequestOptions}, such as a deadline or tags for the
+   * connection's {@link com.faunadb.common.RequestListener}.
+   *
+   * <p>Whether the query may be retried or hedged is decided by the client, as for {@link #query(Value)}, so the
+   * idempotent and hedging flags of {@code options} are ignored.
+   *
+   * @param expr The query expression to be sent to FaunaDB.
+   * @param options the options for this query.
+   * @return A {@link ListenableFuture} containing the root node of the Response tree.
+   * @see #query(Value)
+   */
+  public ListenableFuture<Value> query(Value expr, RequestOptions options) {
+    boolean readOnly = QueryClassifier.isReadOnly(expr);
+    ListenableFuture<Value> result = query(jsonBody(expr), options(options, readOnly), Value.class);
+    return cache != null && !readOnly ? cache.invalidateAfter(ImmutableList.of(expr), result) : result;
+  }
+
+  /**
+   * Issues a Query to FaunaDB, decoding its result straight into {@code type}, such as
+   * {@link com.faunadb.client.response.Page}, {@link com.faunadb.client.response.Instance} or a class mapped with
+   * {@link com.faunadb.client.types.FaunaField}, instead of into a response tree to be coerced afterwards.
+   *
+   * <p>The result is read in a single pass. It holds null if it does not have the shape of a response type such as
+   * {@link com.faunadb.client.response.Page}, as the coercion methods of {@link Value} would return. If it does not
+   * fit a mapped class, the future fails with a {@link com.fasterxml.jackson.databind.JsonMappingException} naming the
+   * field it does not fit. Typed queries are never batched, deduplicated or answered from the
+   * cache, but one with writes still drops the cached results of queries mentioning the same refs.
+   *
+   * @param expr The query expression to be sent to FaunaDB.
+   * @param type the type to decode the result into.
+   * @return A {@link ListenableFuture} containing the decoded result.
+   * @see #query(Value)
+   */
+  public <T> ListenableFuture<T> query(Value expr, java.lang.Class<T> type) {
+    return query(expr, type, RequestOptions.DEFAULT);
+  }
+
+  /**
+   * Issues a Query to FaunaDB with the given {@link RequestOptions}, decoding its result straight into {@code type}.
+   *
+   * @param expr The query expression to be sent to FaunaDB.
+   * @param type the type to decode the result into.
+   * @param options the options for this query.
+   * @return A {@link ListenableFuture} containing the decoded result.
+   * @see #query(Value, java.lang.Class)
+   * @see #query(Value, RequestOptions)
+   */
+  public <T> ListenableFuture<T> query(Value expr, java.lang.Class<T> type, RequestOptions options) {
+    boolean readOnly = QueryClassifier.isReadOnly(expr);
+    ListenableFuture<T> result = query(jsonBody(expr), options(options, readOnly), type);
+    return cache != null && !readOnly ? cache.invalidateAfter(ImmutableList.of(expr), result) : result;
+  }
+
+  /**
+   * Encodes {@code expr} once, so that it can be sent many times with {@link #query(PreparedQuery, ImmutableMap)}
+   * without being built or encoded again. Each {@link com.faunadb.client.query.Language#Param(String)} placeholder
+   * in {@code expr} is a parameter, whose value is given each time the query is sent.
+   *
+   * @param expr the query expression, with placeholders for its parameters.
+   * @return the prepared query.
+   * @throws IOException if {@code expr} cannot be encoded.
+   * @see PreparedQuery
+   */
+  public PreparedQuery prepare(Value expr) throws IOException {
+    ImmutableMap.Builder<String, byte[]> markers = ImmutableMap.builder();
+    for (String name : PreparedQuery.parameters(expr)) {
+      markers.put(name, json.writeValueAsBytes(Language.Param(name)));
+    }
+    return new PreparedQuery(expr, BodyTemplate.split(json.writeValueAsBytes(expr), markers.build()));
+  }
+
+  /**
+   * Issues a prepared query to FaunaDB, with {@code params} in place of its parameters. Only the parameter values
+   * are encoded.
+   *
+   * <p>Prepared queries are never batched, deduplicated or answered from the cache, but one with writes still drops
+   * the cached results of queries mentioning the same refs.
+   *
+   * @param query the prepared query.
+   * @param params the value of every parameter of {@code query}, keyed by name.
+   * @return A {@link ListenableFuture} containing the root node of the Response tree.
+   * @throws IllegalArgumentException unless {@code params} has exactly the parameters of {@code query}.
+   * @see #prepare(Value)
+   */
+  public ListenableFuture<Value> query(PreparedQuery query, ImmutableMap<String, ? extends Value> params) {
+    return query(query, params, RequestOptions.DEFAULT);
+  }
+
+  /**
+   * Issues a prepared query to FaunaDB with the given {@link RequestOptions}.
+   *
+   * @param query the prepared query.
+   * @param params the value of every parameter of {@code query}, keyed by name.
+   * @param options the options for this query.
+   * @return A {@link ListenableFuture} containing the root node of the Response tree.
+   * @see #query(PreparedQuery, ImmutableMap)
+   * @see #query(Value, RequestOptions)
+   */
+  public ListenableFuture<Value> query(PreparedQuery query, ImmutableMap<String, ? extends Value> params,
+                                       RequestOptions options) {
+    ImmutableMap.Builder<String, byte[]> values = ImmutableMap.builder();
+    try {
+      for (Map.Entry<String, ? extends Value> param : params.entrySet()) {
+        values.put(param.getKey(), json.writeValueAsBytes(param.getValue()));
+      }
+    } catch (JsonProcessingException ex) {
+      return Futures.immediateFailedFuture(ex);
+    }
+
+    boolean readOnly = query.isReadOnly() && QueryClassifier.allReadOnly(params.values());
+    ListenableFuture<Value> result = query(query.template().bind(values.build()), options(options, readOnly),
+      Value.class);
+    if (cache != null && !readOnly) {
+      return cache.invalidateAfter(ImmutableList.<Value>builder().add(query.expr()).addAll(params.values()).build(),
+        result);
+    }
+    return result;
+  }
+
+  private <T> ListenableFuture<T> query(Connection.BodyWriter body, RequestOptions options,
+                                        final java.lang.Class<T> type) {
+    return query(body, options, json.getTypeFactory().constructType(type));
+  }
+
+  private <T> ListenableFuture<T> query(Connection.BodyWriter body, RequestOptions options, final JavaType type) {
     try {
-      return handleNetworkExceptions(Futures.transform(connection.post("/", body), new Function<Response, Value>() {
+      return handleNetworkExceptions(Futures.transformAsync(connection.post("/", body, options), new AsyncFunction<Response, T>() {
         @Override
-        public Value apply(Response response) {
+        public ListenableFuture<T> apply(Response response) throws JsonMappingException {
           try {
             handleQueryErrors(response);
 
-            JsonNode responseBody = parseResponseBody(response);
-            JsonNode resource = responseBody.get("resource");
-            return json.treeToValue(resource, LazyValue.class);
+            return Futures.immediateFuture(FaunaClient.this.<T>parseResource(response, type));
+          } catch (JsonMappingException ex) {
+            throw ex;
           } catch (IOException ex) {
             throw new AssertionError(ex);
+          } finally {
+            connection.decoded(response);
           }
         }
       }));
@@ -126,24 +470,87 @@ public class FaunaClient {
    * @return a {@link ListenableFuture} containing an ordered list of root response nodes.
    */
   public <T extends Value> ListenableFuture<ImmutableList<Value>> query(ImmutableList<T> exprs) {
-    JsonNode body = json.valueToTree(exprs);
+    return query(exprs, RequestOptions.DEFAULT);
+  }
+
+  /**
+   * Issues multiple queries to FaunaDB, which must be answered within {@code timeout}.
+   *
+   * @param exprs the list of query expressions to be sent to FaunaDB.
+   * @param timeout the time from now until the deadline.
+   * @param unit the unit of {@code timeout}.
+   * @return a {@link ListenableFuture} containing an ordered list of root response nodes.
+   * @see #query(ImmutableList)
+   * @see #query(Value, long, TimeUnit)
+   */
+  public <T extends Value> ListenableFuture<ImmutableList<Value>> query(ImmutableList<T> exprs, long timeout, TimeUnit unit) {
+    return query(exprs, RequestOptions.DEFAULT.withDeadline(timeout, unit));
+  }
+
+  /**
+   * Issues multiple queries to FaunaDB with the given {@link RequestOptions}.
+   *
+   * @param exprs the list of query expressions to be sent to FaunaDB.
+   * @param options the options for this request.
+   * @return a {@link ListenableFuture} containing an ordered list of root response nodes.
+   * @see #query(ImmutableList)
+   * @see #query(Value, RequestOptions)
+   */
+  public <T extends Value> ListenableFuture<ImmutableList<Value>> query(ImmutableList<T> exprs, RequestOptions options) {
+    boolean readOnly = QueryClassifier.allReadOnly(exprs);
+    ListenableFuture<ImmutableList<Value>> result = queryAll(exprs, options(options, readOnly));
+    return cache != null && !readOnly ? cache.invalidateAfter(exprs, result) : result;
+  }
+
+  /**
+   * Issues multiple queries to FaunaDB, decoding each result straight into {@code type}.
+   *
+   * <p>The list holds the results in the same order as the issued queries. It is null if any of them does not have the
+   * shape of a response type such as {@link com.faunadb.client.response.Page}. If any of them does not fit a mapped
+   * class, the future fails with a {@link com.fasterxml.jackson.databind.JsonMappingException} naming the field it
+   * does not fit.
+   *
+   * @param exprs the list of query expressions to be sent to FaunaDB.
+   * @param type the type to decode each result into.
+   * @return a {@link ListenableFuture} containing an ordered list of the decoded results.
+   * @see #query(ImmutableList)
+   * @see #query(Value, java.lang.Class)
+   */
+  public <T> ListenableFuture<ImmutableList<T>> query(ImmutableList<? extends Value> exprs, java.lang.Class<T> type) {
+    return query(exprs, type, RequestOptions.DEFAULT);
+  }
+
+  /**
+   * Issues multiple queries to FaunaDB with the given {@link RequestOptions}, decoding each result straight into
+   * {@code type}.
+   *
+   * @param exprs the list of query expressions to be sent to FaunaDB.
+   * @param type the type to decode each result into.
+   * @param options the options for this request.
+   * @return a {@link ListenableFuture} containing an ordered list of the decoded results.
+   * @see #query(ImmutableList, java.lang.Class)
+   * @see #query(ImmutableList, RequestOptions)
+   */
+  public <T> ListenableFuture<ImmutableList<T>> query(ImmutableList<? extends Value> exprs, java.lang.Class<T> type,
+                                                      RequestOptions options) {
+    boolean readOnly = QueryClassifier.allReadOnly(exprs);
+    JavaType results = json.getTypeFactory().constructCollectionType(ImmutableList.class, type);
+    ListenableFuture<ImmutableList<T>> result = query(jsonBody(exprs), options(options, readOnly), results);
+    return cache != null && !readOnly ? cache.invalidateAfter(exprs, result) : result;
+  }
+
+  private <T extends Value> ListenableFuture<ImmutableList<Value>> queryAll(ImmutableList<T> exprs, RequestOptions options) {
     try {
-      return handleNetworkExceptions(Futures.transform(connection.post("/", body), new Function<Response, ImmutableList<Value>>() {
+      return handleNetworkExceptions(Futures.transform(connection.post("/", jsonBody(exprs), options), new Function<Response, ImmutableList<Value>>() {
         @Override
         public ImmutableList<Value> apply(Response resp) {
           try {
             handleQueryErrors(resp);
-            JsonNode responseBody = parseResponseBody(resp);
-            ArrayNode resources = ((ArrayNode) responseBody.get("resource"));
-            ImmutableList.Builder<Value> responseNodeBuilder = ImmutableList.builder();
-
-            for (JsonNode resource : resources) {
-              responseNodeBuilder.add(json.treeToValue(resource, LazyValue.class));
-            }
-
-            return responseNodeBuilder.build();
+            return FaunaClient.this.<Value>parseResource(resp, json.constructType(Value.class)).asArray();
           } catch (IOException ex) {
             throw new AssertionError(ex);
+          } finally {
+            connection.decoded(resp);
           }
         }
       }));
@@ -198,15 +605,87 @@ public class FaunaClient {
       }
     });
 
-    return Futures.catching(f1, TimeoutException.class, new Function<TimeoutException, V>() {
+    ListenableFuture<V> f2 = Futures.catching(f1, TimeoutException.class, new Function<TimeoutException, V>() {
       @Override
       public V apply(TimeoutException input) {
         throw new UnavailableException(input.getMessage());
       }
     });
+
+    ListenableFuture<V> f3 = Futures.catching(f2, RequestRejectedException.class, new Function<RequestRejectedException, V>() {
+      @Override
+      public V apply(RequestRejectedException input) {
+        throw new UnavailableException(input.getMessage());
+      }
+    });
+
+    return Futures.catching(f3, com.faunadb.common.DeadlineExceededException.class, new Function<com.faunadb.common.DeadlineExceededException, V>() {
+      @Override
+      public V apply(com.faunadb.common.DeadlineExceededException input) {
+        throw new DeadlineExceededException(input.getMessage());
+      }
+    });
+  }
+
+  private static RequestOptions options(RequestOptions options, boolean readOnly) {
+    return options.withIdempotent(readOnly).withHedging(readOnly);
+  }
+
+  private Connection.BodyWriter jsonBody(final Object body) {
+    return new Connection.BodyWriter() {
+      @Override
+      public void writeTo(OutputStream out) throws IOException {
+        json.writeValue(out, body);
+      }
+    };
+  }
+
+  private static Connection.BodyWriter encodedBody(final byte[] encoded) {
+    return new Connection.BodyWriter() {
+      @Override
+      public void writeTo(OutputStream out) throws IOException {
+        out.write(encoded);
+      }
+    };
   }
 
   private JsonNode parseResponseBody(Response response) throws IOException {
-    return json.readTree(response.getResponseBody(UTF8));
+    return json.readTree(response.getResponseBodyAsStream());
+  }
+
+  /**
+   * Returns true if {@code type} is, or is a collection of, one of the response types, which decode as null when the
+   * result does not fit them.
+   */
+  private static boolean isResponseType(JavaType type) {
+    JavaType element = type.isCollectionLikeType() ? type.getContentType() : type;
+    return element.getRawClass().getPackage() == com.faunadb.client.response.Page.class.getPackage();
+  }
+
+  /**
+   * Decodes only the {@code resource} field of a response body into {@code type}, skipping over any others. A resource
+   * that does not have the shape of a response type decodes to null.
+   */
+  private <T> T parseResource(Response response, JavaType type) throws IOException {
+    try (JsonParser parser = json.getFactory().createParser(response.getResponseBodyAsStream())) {
+      if (parser.nextToken() == JsonToken.START_OBJECT) {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+          String field = parser.getCurrentName();
+          parser.nextToken();
+          if (field.equals("resource")) {
+            try {
+              return json.readValue(parser, type);
+            } catch (JsonMappingException ex) {
+              if (!isResponseType(type)) {
+                throw ex;
+              }
+              return null;
+            }
+          }
+          parser.skipChildren();
+        }
+      }
+      return null;
+    }
   }
 }
@@ -0,0 +1,104 @@
+package com.faunadb.client;
+
+import com.faunadb.client.types.Value;
+import com.faunadb.common.BodyTemplate;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * A query expression encoded once, with placeholders for the parameters that change from one call to the next.
+ * Create one with {@link FaunaClient#prepare(Value)}, from an expression containing
+ * {@link com.faunadb.client.query.Language#Param(String)} placeholders, and send it with
+ * {@link FaunaClient#query(PreparedQuery, ImmutableMap)}.
+ *
+ * <p>Only the parameter values are encoded each time a prepared query is sent, so building and encoding a large
+ * query costs nothing after the first time. Instances are immutable, and may be shared by any number of threads and
+ * by the session clients of the client that prepared them.
+ *
+ * <p><b>Example</b>:</p>
+ * <pre>{@code
+ * PreparedQuery byElement = client.prepare(Map(
+ *   Lambda("x", Get(Var("x"))),
+ *   Paginate(Match(Param("element"), Ref("indexes/spells_by_element"))).build()));
+ * client.query(byElement, ImmutableMap.of("element", StringV("fire")));
+ * }
+ * </pre>
+ */
+public final class PreparedQuery {
+  private final Value expr;
+  private final BodyTemplate template;
+  private final boolean readOnly;
+
+  PreparedQuery(Value expr, BodyTemplate template) {
+    this.expr = expr;
+    this.template = template;
+    this.readOnly = QueryClassifier.isReadOnly(expr);
+  }
+
+  /**
+   * Returns the expression the query was prepared from, placeholders included.
+   */
+  public Value expr() {
+    return expr;
+  }
+
+  /**
+   * Returns the names of the query's parameters.
+   */
+  public ImmutableSet<String> parameters() {
+    return template.parameters();
+  }
+
+  BodyTemplate template() {
+    return template;
+  }
+
+  /**
+   * Returns true if the query has no writes, whatever its parameters.
+   */
+  boolean isReadOnly() {
+    return readOnly;
+  }
+
+  @Override
+  public String toString() {
+    return "PreparedQuery(parameters=" + parameters() + ")";
+  }
+
+  /**
+   * Returns the names of every placeholder in {@code expr}, at any depth.
+   */
+  static ImmutableSet<String> parameters(Value expr) {
+    ImmutableSet.Builder<String> names = ImmutableSet.builder();
+    collectParameters(expr, names);
+    return names.build();
+  }
+
+  private static void collectParameters(Value expr, ImmutableSet.Builder<String> names) {
+    if (expr == null) {
+      return;
+    }
+
+    ImmutableMap<String, Value> obj = expr.asObject();
+    if (obj != null) {
+      Value name = obj.get("@param");
+      if (obj.size() == 1 && name != null && name.asString() != null) {
+        names.add(name.asString());
+        return;
+      }
+
+      for (Value value : obj.values()) {
+        collectParameters(value, names);
+      }
+      return;
+    }
+
+    ImmutableList<Value> arr = expr.asArray();
+    if (arr != null) {
+      for (Value value : arr) {
+        collectParameters(value, names);
+      }
+    }
+  }
+}
@@ -0,0 +1,161 @@
+package com.faunadb.client;
+
+import com.faunadb.client.errors.BadRequestException;
+import com.faunadb.client.errors.NotFoundException;
+import com.faunadb.client.errors.UnknownException;
+import com.faunadb.client.types.Value;
+import com.faunadb.common.RequestOptions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Merges the queries of a {@link FaunaClient} into batches, as its {@link BatchPolicy} allows.
+ *
+ * <p>The first query of a batch schedules it to be sent once the window has passed. Queries that arrive before then
+ * join it, and the one that fills it sends it straight away from the caller's thread. Batches sent at the end of
+ * their window are sent from a single background thread shared by all clients, which only encodes the request
+ * before handing it to the connection.
+ */
+final class QueryBatcher {
+  private static final ScheduledThreadPoolExecutor SCHEDULER;
+
+  static {
+    SCHEDULER = new ScheduledThreadPoolExecutor(1,
+      new ThreadFactoryBuilder().setDaemon(true).setNameFormat("fauna-query-batcher-%d").build());
+    SCHEDULER.setRemoveOnCancelPolicy(true);
+  }
+
+  private final FaunaClient client;
+  private final BatchPolicy policy;
+  private Batch pending;
+
+  QueryBatcher(FaunaClient client, BatchPolicy policy) {
+    this.client = client;
+    this.policy = policy;
+  }
+
+  /**
+   * Returns true if {@code expr} may be batched.
+   */
+  boolean accepts(Value expr) {
+    return policy.batchesWrites() || QueryClassifier.isReadOnly(expr);
+  }
+
+  ListenableFuture<Value> submit(Value expr) {
+    SettableFuture<Value> result = SettableFuture.create();
+    Batch full = null;
+
+    synchronized (this) {
+      if (pending == null) {
+        pending = new Batch();
+        final Batch batch = pending;
+        batch.timeout = SCHEDULER.schedule(new Runnable() {
+          @Override
+          public void run() {
+            flush(batch);
+          }
+        }, policy.windowNanos(), TimeUnit.NANOSECONDS);
+      }
+
+      pending.exprs.add(expr);
+      pending.results.add(result);
+      if (pending.exprs.size() >= policy.maxSize()) {
+        full = pending;
+        pending = null;
+        full.timeout.cancel(false);
+      }
+    }
+
+    if (full != null) {
+      send(full);
+    }
+    return result;
+  }
+
+  /**
+   * Sends the batch being filled, if any, without waiting for its window to pass.
+   */
+  void flush() {
+    Batch batch;
+    synchronized (this) {
+      batch = pending;
+      pending = null;
+    }
+
+    if (batch != null) {
+      batch.timeout.cancel(false);
+      send(batch);
+    }
+  }
+
+  private void flush(Batch batch) {
+    synchronized (this) {
+      if (pending != batch) {
+        return;
+      }
+      pending = null;
+    }
+    send(batch);
+  }
+
+  private void send(final Batch batch) {
+    if (batch.exprs.size() == 1) {
+      batch.results.get(0).setFuture(client.query(batch.exprs.get(0), RequestOptions.DEFAULT));
+      return;
+    }
+
+    Futures.addCallback(client.query(ImmutableList.copyOf(batch.exprs), RequestOptions.DEFAULT), new FutureCallback<ImmutableList<Value>>() {
+      @Override
+      public void onSuccess(ImmutableList<Value> values) {
+        if (values.size() != batch.exprs.size()) {
+          onFailure(new UnknownException("Expected " + batch.exprs.size() + " results for a batch of queries, but " +
+            "got " + values.size() + "."));
+          return;
+        }
+
+        for (int i = 0; i < values.size(); i++) {
+          batch.results.get(i).set(values.get(i));
+        }
+      }
+
+      @Override
+      public void onFailure(Throwable t) {
+        boolean aborted = isAborted(t);
+        boolean ambiguous = t instanceof UnknownException;
+
+        for (int i = 0; i < batch.exprs.size(); i++) {
+          Value expr = batch.exprs.get(i);
+          if (aborted || ambiguous && QueryClassifier.isReadOnly(expr)) {
+            batch.results.get(i).setFuture(client.query(expr, RequestOptions.DEFAULT));
+          } else {
+            batch.results.get(i).setException(t);
+          }
+        }
+      }
+    });
+  }
+
+  /**
+   * Returns true if {@code t} means the batch was rejected as a whole, with none of its writes applied, and so may
+   * have been caused by a single query of it.
+   */
+  private static boolean isAborted(Throwable t) {
+    return t instanceof BadRequestException || t instanceof NotFoundException;
+  }
+
+  private static final class Batch {
+    final List<Value> exprs = new ArrayList<>();
+    final List<SettableFuture<Value>> results = new ArrayList<>();
+    ScheduledFuture<?> timeout;
+  }
+}
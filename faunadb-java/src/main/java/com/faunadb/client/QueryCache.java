@@ -0,0 +1,449 @@
+package com.faunadb.client;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.RatioGauge;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.faunadb.client.types.Value;
+import com.faunadb.common.Connection;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.TreeMultiset;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingOutputStream;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The result cache of a {@link FaunaClient}. See {@link CachePolicy}.
+ *
+ * <p>Results are kept in three LRU queues: a window holding 1% of the entries, and a main space split into probation
+ * and protected segments. New results enter the window. A result evicted from the window is admitted to probation if
+ * there is room, or if its key has been asked for more often than the oldest result on probation, which it then
+ * replaces. A result read while on probation is promoted to the protected segment, whose oldest results are demoted
+ * back to probation when it is full. Frequencies are estimated by a {@link FrequencySketch}.
+ *
+ * <p>A result fetched while one of the refs its query mentions was invalidated is not cached, since it may have been
+ * read before the write that caused the invalidation. Each invalidation is numbered, and the number of the last one of
+ * each ref is kept for as long as a fetch that started before it is in flight.
+ *
+ * <p>A client and the session clients created from it share one cache. Each result is keyed by the secret it was read
+ * with as well as by its query, so a tenant is never answered with another's results. All state is guarded by the
+ * cache's lock, which is never held while a query is sent.
+ */
+final class QueryCache {
+  private static final int WINDOW = 0;
+  private static final int PROBATION = 1;
+  private static final int PROTECTED = 2;
+
+  private final ObjectMapper json;
+  private final long timeToLiveNanos;
+  private final int windowMax;
+  private final int mainMax;
+  private final int protectedMax;
+  private final FrequencySketch sketch;
+
+  private final Map<ByteBuffer, Node> entries = new HashMap<>();
+  private final Map<String, Set<Node>> byRef = new HashMap<>();
+  private final Node[] queues = { new Node(), new Node(), new Node() };
+  private final int[] sizes = new int[3];
+  private final Map<String, Long> invalidatedAt = new LinkedHashMap<>();
+  private final TreeMultiset<Long> fetching = TreeMultiset.create();
+  private long invalidations;
+  private long allInvalidatedAt;
+  private int open = 1;
+
+  private final MetricRegistry registry;
+  private final String hitRatioName;
+  private final RatioGauge hitRatio;
+  private final Meter hits;
+  private final Meter misses;
+  private final Meter evictions;
+  private final Meter invalidated;
+  private final Counter cached;
+  private final Counter cachedBytes;
+  private boolean reportsHitRatio;
+
+  QueryCache(CachePolicy policy, Connection connection, ObjectMapper json) {
+    this.json = json;
+    this.timeToLiveNanos = policy.timeToLiveNanos();
+    this.windowMax = Math.max(1, policy.maxEntries() / 100);
+    this.mainMax = policy.maxEntries() - windowMax;
+    this.protectedMax = (int) (mainMax * 0.8);
+    this.sketch = new FrequencySketch(policy.maxEntries());
+
+    this.registry = connection.metricRegistry();
+    this.hits = registry.meter(connection.metricName("fauna-query-cache", "hits"));
+    this.misses = registry.meter(connection.metricName("fauna-query-cache", "misses"));
+    this.evictions = registry.meter(connection.metricName("fauna-query-cache", "evictions"));
+    this.invalidated = registry.meter(connection.metricName("fauna-query-cache", "invalidations"));
+    this.cached = registry.counter(connection.metricName("fauna-query-cache", "entries"));
+    this.cachedBytes = registry.counter(connection.metricName("fauna-query-cache", "bytes"));
+    this.hitRatioName = connection.metricName("fauna-query-cache", "hit-ratio");
+    this.hitRatio = new RatioGauge() {
+      @Override
+      protected Ratio getRatio() {
+        long hitCount = hits.getCount();
+        return Ratio.of(hitCount, hitCount + misses.getCount());
+      }
+    };
+
+    for (Node queue : queues) {
+      queue.prev = queue;
+      queue.next = queue;
+    }
+
+    try {
+      registry.register(hitRatioName, hitRatio);
+      reportsHitRatio = true;
+    } catch (IllegalArgumentException ex) {
+      // Another client sharing the registry already reports it, from the same meters.
+    }
+  }
+
+  /**
+   * Returns the scope that keeps the results read with {@code secret} apart from any others. The results of the client
+   * the cache was created for have an empty scope.
+   */
+  static byte[] scope(String secret) {
+    byte[] bytes = secret.getBytes(StandardCharsets.UTF_8);
+    // Encoded queries never contain a NUL byte, so no scoped key can equal an unscoped one.
+    return Arrays.copyOf(bytes, bytes.length + 1);
+  }
+
+  /**
+   * Returns true if the result of {@code expr} may be cached.
+   */
+  boolean accepts(Value expr) {
+    return QueryClassifier.isCacheable(expr);
+  }
+
+  /**
+   * Returns the cached result of {@code expr} if there is one, or else fetches it through {@code client} and caches it.
+   *
+   * @param scope the {@link #scope(String) scope} of {@code client}.
+   * @param encoded the canonical encoding of {@code expr}.
+   */
+  ListenableFuture<Value> get(FaunaClient client, byte[] scope, final Value expr, byte[] encoded) {
+    final ByteBuffer key = key(scope, encoded);
+    final int hash = key.hashCode();
+    final long generation;
+
+    synchronized (this) {
+      sketch.increment(hash);
+      Node node = entries.get(key);
+      if (node != null) {
+        if (node.expiresAt - System.nanoTime() > 0) {
+          touch(node);
+          hits.mark();
+          return Futures.immediateFuture(node.value);
+        }
+        remove(node);
+      }
+      generation = invalidations;
+      fetching.add(generation);
+    }
+
+    misses.mark();
+    ListenableFuture<Value> result;
+    try {
+      result = client.read(expr, encoded);
+    } catch (RuntimeException ex) {
+      // No fetch is in flight, so invalidations need no longer be kept for it.
+      synchronized (this) {
+        fetched(generation);
+      }
+      throw ex;
+    }
+    Futures.addCallback(result, new FutureCallback<Value>() {
+      @Override
+      public void onSuccess(Value value) {
+        put(key, hash, expr, value, generation);
+      }
+
+      @Override
+      public void onFailure(Throwable t) {
+        synchronized (QueryCache.this) {
+          fetched(generation);
+        }
+      }
+    });
+    return result;
+  }
+
+  /**
+   * Drops every result whose query mentions one of the refs of {@code writes}, both now and once {@code result}
+   * completes, so that no result read while the writes were in flight is kept either.
+   */
+  <T> ListenableFuture<T> invalidateAfter(Iterable<? extends Value> writes, ListenableFuture<T> result) {
+    ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+    for (Value write : writes) {
+      builder.addAll(QueryClassifier.refs(write));
+    }
+    final ImmutableSet<String> refs = builder.build();
+    invalidate(refs);
+    result.addListener(new Runnable() {
+      @Override
+      public void run() {
+        invalidate(refs);
+      }
+    }, MoreExecutors.directExecutor());
+    return result;
+  }
+
+  synchronized void invalidate(Iterable<String> refs) {
+    invalidations++;
+    for (String ref : refs) {
+      invalidatedAt.remove(ref);
+      if (!fetching.isEmpty()) {
+        invalidatedAt.put(ref, invalidations);
+      }
+
+      Set<Node> nodes = byRef.get(ref);
+      if (nodes != null) {
+        for (Node node : nodes.toArray(new Node[nodes.size()])) {
+          remove(node);
+          invalidated.mark();
+        }
+      }
+    }
+  }
+
+  synchronized void invalidateAll() {
+    invalidations++;
+    allInvalidatedAt = invalidations;
+    for (Node node : entries.values().toArray(new Node[entries.size()])) {
+      remove(node);
+      invalidated.mark();
+    }
+  }
+
+  /**
+   * Shares this cache with one more client, which must {@link #close()} it in turn.
+   */
+  synchronized QueryCache retain() {
+    open++;
+    return this;
+  }
+
+  /**
+   * Once every client sharing the cache has closed it, empties it and stops reporting its hit ratio.
+   */
+  synchronized void close() {
+    if (--open > 0) {
+      return;
+    }
+
+    for (Node node : entries.values().toArray(new Node[entries.size()])) {
+      remove(node);
+    }
+    if (reportsHitRatio && registry.getMetrics().get(hitRatioName) == hitRatio) {
+      registry.remove(hitRatioName);
+    }
+    reportsHitRatio = false;
+  }
+
+  private void put(ByteBuffer key, int hash, Value expr, Value value, long generation) {
+    ImmutableSet<String> refs = QueryClassifier.refs(expr);
+    long weight = key.capacity() + weigh(value);
+
+    synchronized (this) {
+      boolean stale = isStale(refs, generation);
+      fetched(generation);
+      if (stale) {
+        return;
+      }
+
+      Node existing = entries.get(key);
+      if (existing != null) {
+        remove(existing);
+      }
+
+      Node node = new Node(key, hash, value, refs, weight, System.nanoTime() + timeToLiveNanos);
+      entries.put(key, node);
+      for (String ref : refs) {
+        Set<Node> nodes = byRef.get(ref);
+        if (nodes == null) {
+          nodes = new HashSet<>();
+          byRef.put(ref, nodes);
+        }
+        nodes.add(node);
+      }
+      append(WINDOW, node);
+      cached.inc();
+      cachedBytes.inc(weight);
+
+      evict();
+    }
+  }
+
+  /**
+   * Returns true if a result of a query mentioning {@code refs} may predate an invalidation, having been fetched from
+   * {@code generation}.
+   */
+  private boolean isStale(Set<String> refs, long generation) {
+    if (allInvalidatedAt > generation) {
+      return true;
+    }
+    for (String ref : refs) {
+      Long at = invalidatedAt.get(ref);
+      if (at != null && at > generation) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Records that a fetch from {@code generation} has completed, forgetting the invalidations that no fetch still in
+   * flight predates. Those are kept in the order they happened, so only the oldest need be looked at.
+   */
+  private void fetched(long generation) {
+    fetching.remove(generation);
+    long oldest = fetching.isEmpty() ? Long.MAX_VALUE : fetching.firstEntry().getElement();
+    Iterator<Long> it = invalidatedAt.values().iterator();
+    while (it.hasNext() && it.next() <= oldest) {
+      it.remove();
+    }
+  }
+
+  private static ByteBuffer key(byte[] scope, byte[] encoded) {
+    if (scope.length == 0) {
+      return ByteBuffer.wrap(encoded);
+    }
+    byte[] key = Arrays.copyOf(scope, scope.length + encoded.length);
+    System.arraycopy(encoded, 0, key, scope.length, encoded.length);
+    return ByteBuffer.wrap(key);
+  }
+
+  /**
+   * Moves results from the window to the main space until the window fits, evicting whichever of each candidate and
+   * the oldest result on probation is asked for less often once the main space is full.
+   */
+  private void evict() {
+    while (sizes[WINDOW] > windowMax) {
+      Node candidate = queues[WINDOW].next;
+      unlink(candidate);
+
+      if (sizes[PROBATION] + sizes[PROTECTED] < mainMax) {
+        append(PROBATION, candidate);
+        continue;
+      }
+
+      Node victim = sizes[PROBATION] > 0 ? queues[PROBATION].next : queues[PROTECTED].next;
+      if (victim != queues[PROTECTED] && sketch.frequency(candidate.hash) > sketch.frequency(victim.hash)) {
+        remove(victim);
+        append(PROBATION, candidate);
+      } else {
+        remove(candidate);
+      }
+      evictions.mark();
+    }
+  }
+
+  private void touch(Node node) {
+    switch (node.queue) {
+      case PROBATION:
+        unlink(node);
+        append(PROTECTED, node);
+        if (sizes[PROTECTED] > protectedMax) {
+          Node demoted = queues[PROTECTED].next;
+          unlink(demoted);
+          append(PROBATION, demoted);
+        }
+        break;
+      default:
+        int queue = node.queue;
+        unlink(node);
+        append(queue, node);
+    }
+  }
+
+  private void remove(Node node) {
+    if (node.prev != null) {
+      unlink(node);
+    }
+    entries.remove(node.key);
+    for (String ref : node.refs) {
+      Set<Node> nodes = byRef.get(ref);
+      nodes.remove(node);
+      if (nodes.isEmpty()) {
+        byRef.remove(ref);
+      }
+    }
+    cached.dec();
+    cachedBytes.dec(node.weight);
+  }
+
+  private void append(int queue, Node node) {
+    Node head = queues[queue];
+    node.queue = queue;
+    node.prev = head.prev;
+    node.next = head;
+    head.prev.next = node;
+    head.prev = node;
+    sizes[queue]++;
+  }
+
+  private void unlink(Node node) {
+    node.prev.next = node.next;
+    node.next.prev = node.prev;
+    node.prev = null;
+    node.next = null;
+    sizes[node.queue]--;
+  }
+
+  /**
+   * Estimates the memory a result takes as the length of its JSON encoding.
+   */
+  private long weigh(Value value) {
+    CountingOutputStream out = new CountingOutputStream(ByteStreams.nullOutputStream());
+    try {
+      json.writeValue(out, value);
+    } catch (IOException ex) {
+      return 0;
+    }
+    return out.getCount();
+  }
+
+  /**
+   * A cached result, linked into one of the queues. A node that holds no result is the head of a queue.
+   */
+  private static final class Node {
+    final ByteBuffer key;
+    final int hash;
+    final Value value;
+    final ImmutableSet<String> refs;
+    final long weight;
+    final long expiresAt;
+    int queue;
+    Node prev;
+    Node next;
+
+    Node() {
+      this(null, 0, null, ImmutableSet.<String>of(), 0, 0);
+    }
+
+    Node(ByteBuffer key, int hash, Value value, ImmutableSet<String> refs, long weight, long expiresAt) {
+      this.key = key;
+      this.hash = hash;
+      this.value = value;
+      this.refs = refs;
+      this.weight = weight;
+      this.expiresAt = expiresAt;
+    }
+  }
+}
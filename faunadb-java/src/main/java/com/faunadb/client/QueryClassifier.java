@@ -0,0 +1,186 @@
+package com.faunadb.client;
+
+import com.faunadb.client.types.Ref;
+import com.faunadb.client.types.Value;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import java.util.Map;
+
+/**
+ * Decides whether a query expression can change anything in FaunaDB, and whether its result can be cached.
+ *
+ * <p>An expression is read-only if none of its function calls, at any depth, is a write. Field names inside
+ * {@code object} literals and anything under {@code quote} are data rather than calls, so are not considered. An
+ * object is only a {@code quote} when that is its sole key; any other object with a {@code quote} key, such as the
+ * bindings of a {@code let}, is inspected like the rest.
+ * Everything else is inspected conservatively: an unfamiliar shape that happens to use a write's name as a key is
+ * treated as a write.
+ *
+ * <p>Only reads whose results a write can be traced to are cached: a {@code get} or {@code exists} of a ref, a
+ * {@code select} from such a {@code get}, and a {@code paginate} with an explicit size. Each mentions the refs that
+ * invalidate it, except that a page can also change through instances its query never names, which only shows once it
+ * expires. Any of them that reads the current time, which changes with every evaluation, is not cached.
+ */
+final class QueryClassifier {
+  private static final ImmutableSet<String> WRITE_FUNCTIONS = ImmutableSet.of(
+    "create", "update", "replace", "delete", "insert", "remove", "login", "logout");
+
+  private QueryClassifier() {
+  }
+
+  static boolean isReadOnly(Value expr) {
+    if (expr == null) {
+      return true;
+    }
+
+    ImmutableMap<String, Value> obj = expr.asObject();
+    if (obj != null) {
+      if (isQuote(obj)) {
+        return true;
+      }
+
+      if (obj.size() == 1 && obj.containsKey("object")) {
+        ImmutableMap<String, Value> fields = obj.get("object").asObject();
+        return fields == null ? isReadOnly(obj.get("object")) : allReadOnly(fields.values());
+      }
+
+      for (Map.Entry<String, Value> entry : obj.entrySet()) {
+        if (WRITE_FUNCTIONS.contains(entry.getKey()) || !isReadOnly(entry.getValue())) {
+          return false;
+        }
+      }
+
+      return true;
+    }
+
+    ImmutableList<Value> arr = expr.asArray();
+    if (arr != null) {
+      return allReadOnly(arr);
+    }
+
+    return true;
+  }
+
+  private static final ImmutableSet<String> GET_FIELDS = ImmutableSet.of("get", "ts");
+  private static final ImmutableSet<String> EXISTS_FIELDS = ImmutableSet.of("exists", "ts");
+  private static final ImmutableSet<String> SELECT_FIELDS = ImmutableSet.of("select", "from", "default");
+  private static final ImmutableSet<String> PAGINATE_FIELDS =
+    ImmutableSet.of("paginate", "ts", "before", "after", "size", "events", "sources");
+
+  static boolean isCacheable(Value expr) {
+    if (expr == null || !isReadOnly(expr) || readsNow(expr)) {
+      return false;
+    }
+
+    ImmutableMap<String, Value> obj = expr.asObject();
+    if (obj == null) {
+      return false;
+    }
+    if (obj.containsKey("select")) {
+      return SELECT_FIELDS.containsAll(obj.keySet()) && isGet(obj.get("from"));
+    }
+    if (obj.containsKey("paginate")) {
+      return PAGINATE_FIELDS.containsAll(obj.keySet()) && obj.containsKey("size");
+    }
+    return isGet(expr) || isCall(obj, "exists", EXISTS_FIELDS);
+  }
+
+  private static boolean isGet(Value expr) {
+    ImmutableMap<String, Value> obj = expr == null ? null : expr.asObject();
+    return obj != null && isCall(obj, "get", GET_FIELDS);
+  }
+
+  /**
+   * Returns true if {@code obj} calls {@code function} on a ref, with no other arguments than {@code fields}.
+   */
+  private static boolean isCall(ImmutableMap<String, Value> obj, String function, ImmutableSet<String> fields) {
+    Value target = obj.get(function);
+    return target != null && target.asRef() != null && fields.containsAll(obj.keySet());
+  }
+
+  private static boolean readsNow(Value expr) {
+    if (expr == null) {
+      return false;
+    }
+
+    ImmutableMap<String, Value> obj = expr.asObject();
+    if (obj != null) {
+      if (isQuote(obj)) {
+        return false;
+      }
+
+      Value time = obj.get("time");
+      if (time != null && "now".equals(time.asString())) {
+        return true;
+      }
+
+      for (Value value : obj.values()) {
+        if (readsNow(value)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    ImmutableList<Value> arr = expr.asArray();
+    if (arr != null) {
+      for (Value value : arr) {
+        if (readsNow(value)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the value of every ref in {@code expr}, at any depth.
+   */
+  static ImmutableSet<String> refs(Value expr) {
+    ImmutableSet.Builder<String> refs = ImmutableSet.builder();
+    collectRefs(expr, refs);
+    return refs.build();
+  }
+
+  private static void collectRefs(Value expr, ImmutableSet.Builder<String> refs) {
+    if (expr == null) {
+      return;
+    }
+
+    Ref ref = expr.asRef();
+    if (ref != null) {
+      refs.add(ref.value());
+      return;
+    }
+
+    ImmutableMap<String, Value> obj = expr.asObject();
+    if (obj != null) {
+      for (Value value : obj.values()) {
+        collectRefs(value, refs);
+      }
+      return;
+    }
+
+    ImmutableList<Value> arr = expr.asArray();
+    if (arr != null) {
+      for (Value value : arr) {
+        collectRefs(value, refs);
+      }
+    }
+  }
+
+  private static boolean isQuote(ImmutableMap<String, Value> obj) {
+    return obj.size() == 1 && obj.containsKey("quote");
+  }
+
+  static boolean allReadOnly(Iterable<? extends Value> exprs) {
+    for (Value expr : exprs) {
+      if (!isReadOnly(expr)) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,71 @@
+package com.faunadb.client;
+
+import com.codahale.metrics.Meter;
+import com.faunadb.client.types.Value;
+import com.faunadb.common.Connection;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Merges the identical read-only queries of a {@link FaunaClient} that are in flight at the same time.
+ *
+ * <p>Each query is encoded once by the client, with the fields of every object sorted, and the encoding is both its
+ * key among the queries in flight and, if it is sent, its request body. Every caller gets its own view of the shared result, so a
+ * caller that cancels does not cancel it for the others.
+ */
+final class QueryDeduplicator {
+  private final FaunaClient client;
+  private final ConcurrentMap<ByteBuffer, ListenableFuture<Value>> inFlight = new ConcurrentHashMap<>();
+  private final Meter hits;
+  private final Meter misses;
+
+  QueryDeduplicator(FaunaClient client, Connection connection) {
+    this.client = client;
+    this.hits = connection.metricRegistry().meter(connection.metricName("fauna-query-dedup", "hits"));
+    this.misses = connection.metricRegistry().meter(connection.metricName("fauna-query-dedup", "misses"));
+  }
+
+  /**
+   * Returns true if {@code expr} may be deduplicated.
+   */
+  boolean accepts(Value expr) {
+    return QueryClassifier.isReadOnly(expr);
+  }
+
+  /**
+   * Returns the result of the identical query in flight, if any, or else sends {@code expr}.
+   *
+   * @param encoded the canonical encoding of {@code expr}.
+   */
+  ListenableFuture<Value> submit(Value expr, byte[] encoded) {
+    final ByteBuffer key = ByteBuffer.wrap(encoded);
+    final SettableFuture<Value> result = SettableFuture.create();
+    ListenableFuture<Value> existing = inFlight.putIfAbsent(key, result);
+    if (existing != null) {
+      hits.mark();
+      return Futures.nonCancellationPropagating(existing);
+    }
+
+    misses.mark();
+    result.addListener(new Runnable() {
+      @Override
+      public void run() {
+        inFlight.remove(key, result);
+      }
+    }, MoreExecutors.directExecutor());
+    try {
+      result.setFuture(client.submit(expr, encoded));
+    } catch (RuntimeException ex) {
+      // Completing the result fails any caller that joined it already, and frees its key for the next one.
+      result.setException(ex);
+      throw ex;
+    }
+    return Futures.nonCancellationPropagating(result);
+  }
+}
@@ -0,0 +1,13 @@
+package com.faunadb.client.errors;
+
+/**
+ * An exception thrown if a query's deadline passes before FaunaDB answers it. The query may or may not have been
+ * applied.
+ *
+ * @see com.faunadb.client.FaunaClient#query(com.faunadb.client.types.Value, long, java.util.concurrent.TimeUnit)
+ */
+public class DeadlineExceededException extends FaunaException {
+  public DeadlineExceededException(String message) {
+    super("Deadline exceeded: " + message);
+  }
+}
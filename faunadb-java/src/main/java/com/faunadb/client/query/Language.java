@@ -542,6 +542,17 @@ public final class Language {
     return ObjectV("var", StringV(variable));
   }
 
+  /**
+   * Creates a placeholder for a parameter of a prepared query, whose value is given each time the query is sent.
+   *
+   * <p>Placeholders are encoded as {@code { "@param": "name" }}, and may only be sent as part of a prepared query.
+   *
+   * @see com.faunadb.client.FaunaClient#prepare(Value)
+   */
+  public static Value Param(String name) {
+    return ObjectV("@param", StringV(name));
+  }
+
   /**
    * Creates a new Before cursor.
    *
@@ -1,9 +1,9 @@
 package com.faunadb.client.response;
 
-import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
-import com.faunadb.client.types.LazyValue;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.faunadb.client.types.Ref;
+import com.faunadb.client.types.Value;
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableMap;
 
@@ -13,21 +13,21 @@ import com.google.common.collect.ImmutableMap;
  *
  * <p><i>Reference</i>: <a href="https://faunadb.com/documentation#objects-classes">FaunaDB Class Object</a></p>
  *
- * @see LazyValue#asClass()
+ * @see Value#asClass()
  */
+@JsonDeserialize(using = Codec.ClassDeserializer.class)
 public final class Class extends Instance {
   @JsonProperty("history_days")
   private final Long historyDays;
   @JsonProperty("name")
   private final String name;
 
-  @JsonCreator
-  Class(@JsonProperty("ref") Ref ref,
-        @JsonProperty("class") Ref classRef,
-        @JsonProperty("ts") Long ts,
-        @JsonProperty("history_days") Long historyDays,
-        @JsonProperty("name") String name,
-        @JsonProperty("data") ImmutableMap<String, LazyValue> data) {
+  Class(Ref ref,
+        Ref classRef,
+        Long ts,
+        Long historyDays,
+        String name,
+        ImmutableMap<String, Value> data) {
     super(ref, classRef, ts, data);
     this.historyDays = historyDays;
     this.name = name;
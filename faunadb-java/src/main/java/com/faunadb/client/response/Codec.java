@@ -0,0 +1,492 @@
+package com.faunadb.client.response;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.deser.ResolvableDeserializer;
+import com.faunadb.client.types.Ref;
+import com.faunadb.client.types.Value;
+import com.google.common.base.Joiner;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Streaming decoders for the response types, which read each one straight from a parser in a single pass.
+ *
+ * <p>Every field is read with the {@link Value} deserializer and then coerced into the type of the field, so a
+ * decoder reads the JSON of a response and a buffer of already decoded values alike. A field holding a value of the
+ * wrong type fails the decoding, as does an unknown field unless
+ * {@link com.fasterxml.jackson.databind.DeserializationFeature#FAIL_ON_UNKNOWN_PROPERTIES} is disabled.
+ */
+class Codec {
+  /**
+   * A decoder of one response type. It looks up the {@link Value} deserializer once, and keeps the fields of the
+   * response it is reading in local variables, so it may decode any number of responses at once.
+   */
+  abstract static class ResponseDeserializer<T> extends JsonDeserializer<T> implements ResolvableDeserializer {
+    private final java.lang.Class<T> type;
+    private JsonDeserializer<Object> values;
+
+    ResponseDeserializer(java.lang.Class<T> type) {
+      this.type = type;
+    }
+
+    @Override
+    public java.lang.Class<?> handledType() {
+      return type;
+    }
+
+    @Override
+    public void resolve(DeserializationContext ctxt) throws JsonMappingException {
+      values = ctxt.findRootValueDeserializer(ctxt.constructType(Value.class));
+    }
+
+    /**
+     * Moves to the value of the first field of the object at the current token, and returns its name, or null if the
+     * object is empty.
+     */
+    final String first(JsonParser in, DeserializationContext ctxt) throws IOException {
+      if (in.getCurrentToken() != JsonToken.START_OBJECT) {
+        throw ctxt.mappingException(type, in.getCurrentToken());
+      }
+      return field(in);
+    }
+
+    /**
+     * Moves past the value just read to the value of the next field, and returns its name, or null once the object
+     * ends.
+     */
+    final String next(JsonParser in) throws IOException {
+      return field(in);
+    }
+
+    private static String field(JsonParser in) throws IOException {
+      if (in.nextToken() != JsonToken.FIELD_NAME) {
+        return null;
+      }
+      String name = in.getCurrentName();
+      in.nextToken();
+      return name;
+    }
+
+    /**
+     * Skips the value of an unknown field, unless unknown fields are refused.
+     */
+    final void unknown(String name, JsonParser in, DeserializationContext ctxt) throws IOException {
+      if (!ctxt.handleUnknownProperty(in, this, type, name)) {
+        ctxt.reportUnknownProperty(type, name, this);
+        in.skipChildren();
+      }
+    }
+
+    final Value value(JsonParser in, DeserializationContext ctxt) throws IOException {
+      return (Value) values.deserialize(in, ctxt);
+    }
+
+    final Ref ref(String name, JsonParser in, DeserializationContext ctxt) throws IOException {
+      Value value = value(in, ctxt);
+      return value == Value.NullV.Null ? null : checked(name, value.asRef(), ctxt);
+    }
+
+    final Long longValue(String name, JsonParser in, DeserializationContext ctxt) throws IOException {
+      Value value = value(in, ctxt);
+      return value == Value.NullV.Null ? null : checked(name, value.asLong(), ctxt);
+    }
+
+    final String string(String name, JsonParser in, DeserializationContext ctxt) throws IOException {
+      Value value = value(in, ctxt);
+      return value == Value.NullV.Null ? null : checked(name, value.asString(), ctxt);
+    }
+
+    final Boolean bool(String name, JsonParser in, DeserializationContext ctxt) throws IOException {
+      Value value = value(in, ctxt);
+      return value == Value.NullV.Null ? null : checked(name, value.asBoolean(), ctxt);
+    }
+
+    final ImmutableMap<String, Value> object(String name, JsonParser in, DeserializationContext ctxt)
+      throws IOException {
+      Value value = value(in, ctxt);
+      return value == Value.NullV.Null ? null : checked(name, value.asObject(), ctxt);
+    }
+
+    final ImmutableList<Value> array(String name, JsonParser in, DeserializationContext ctxt) throws IOException {
+      Value value = value(in, ctxt);
+      return value == Value.NullV.Null ? null : checked(name, value.asArray(), ctxt);
+    }
+
+    final <V> V checked(String name, V value, DeserializationContext ctxt) throws JsonMappingException {
+      if (value == null) {
+        throw ctxt.mappingException("Unexpected value for field " + name + " of " + type.getSimpleName());
+      }
+      return value;
+    }
+  }
+
+  public static class InstanceDeserializer extends ResponseDeserializer<Instance> {
+    public InstanceDeserializer() {
+      super(Instance.class);
+    }
+
+    @Override
+    public Instance deserialize(JsonParser in, DeserializationContext ctxt) throws IOException {
+      Ref ref = null;
+      Ref classRef = null;
+      Long ts = null;
+      ImmutableMap<String, Value> data = null;
+
+      for (String name = first(in, ctxt); name != null; name = next(in)) {
+        switch (name) {
+          case "ref":
+            ref = ref(name, in, ctxt);
+            break;
+          case "class":
+            classRef = ref(name, in, ctxt);
+            break;
+          case "ts":
+            ts = longValue(name, in, ctxt);
+            break;
+          case "data":
+            data = object(name, in, ctxt);
+            break;
+          default:
+            unknown(name, in, ctxt);
+        }
+      }
+
+      return new Instance(ref, classRef, ts, data);
+    }
+  }
+
+  public static class ClassDeserializer extends ResponseDeserializer<Class> {
+    public ClassDeserializer() {
+      super(Class.class);
+    }
+
+    @Override
+    public Class deserialize(JsonParser in, DeserializationContext ctxt) throws IOException {
+      Ref ref = null;
+      Ref classRef = null;
+      Long ts = null;
+      Long historyDays = null;
+      String className = null;
+      ImmutableMap<String, Value> data = null;
+
+      for (String name = first(in, ctxt); name != null; name = next(in)) {
+        switch (name) {
+          case "ref":
+            ref = ref(name, in, ctxt);
+            break;
+          case "class":
+            classRef = ref(name, in, ctxt);
+            break;
+          case "ts":
+            ts = longValue(name, in, ctxt);
+            break;
+          case "history_days":
+            historyDays = longValue(name, in, ctxt);
+            break;
+          case "name":
+            className = string(name, in, ctxt);
+            break;
+          case "data":
+            data = object(name, in, ctxt);
+            break;
+          default:
+            unknown(name, in, ctxt);
+        }
+      }
+
+      return new Class(ref, classRef, ts, historyDays, className, data);
+    }
+  }
+
+  public static class DatabaseDeserializer extends ResponseDeserializer<Database> {
+    public DatabaseDeserializer() {
+      super(Database.class);
+    }
+
+    @Override
+    public Database deserialize(JsonParser in, DeserializationContext ctxt) throws IOException {
+      Ref ref = null;
+      Ref classRef = null;
+      Long ts = null;
+      String databaseName = null;
+      ImmutableMap<String, Value> data = null;
+
+      for (String name = first(in, ctxt); name != null; name = next(in)) {
+        switch (name) {
+          case "ref":
+            ref = ref(name, in, ctxt);
+            break;
+          case "class":
+            classRef = ref(name, in, ctxt);
+            break;
+          case "ts":
+            ts = longValue(name, in, ctxt);
+            break;
+          case "name":
+            databaseName = string(name, in, ctxt);
+            break;
+          case "data":
+            data = object(name, in, ctxt);
+            break;
+          default:
+            unknown(name, in, ctxt);
+        }
+      }
+
+      return new Database(ref, classRef, ts, databaseName, data);
+    }
+  }
+
+  public static class IndexDeserializer extends ResponseDeserializer<Index> {
+    public IndexDeserializer() {
+      super(Index.class);
+    }
+
+    @Override
+    public Index deserialize(JsonParser in, DeserializationContext ctxt) throws IOException {
+      Ref ref = null;
+      Ref classRef = null;
+      Long ts = null;
+      Boolean unique = null;
+      Boolean active = null;
+      String indexName = null;
+      Ref source = null;
+      String path = null;
+      ImmutableList<ImmutableMap<String, String>> terms = null;
+      ImmutableMap<String, Value> data = null;
+
+      for (String name = first(in, ctxt); name != null; name = next(in)) {
+        switch (name) {
+          case "ref":
+            ref = ref(name, in, ctxt);
+            break;
+          case "class":
+            classRef = ref(name, in, ctxt);
+            break;
+          case "ts":
+            ts = longValue(name, in, ctxt);
+            break;
+          case "unique":
+            unique = bool(name, in, ctxt);
+            break;
+          case "active":
+            active = bool(name, in, ctxt);
+            break;
+          case "name":
+            indexName = string(name, in, ctxt);
+            break;
+          case "source":
+            source = ref(name, in, ctxt);
+            break;
+          case "path":
+            path = string(name, in, ctxt);
+            break;
+          case "terms":
+            ImmutableList<Value> elements = array(name, in, ctxt);
+            terms = elements == null ? null : terms(elements, ctxt);
+            break;
+          case "data":
+            data = object(name, in, ctxt);
+            break;
+          default:
+            unknown(name, in, ctxt);
+        }
+      }
+
+      return new Index(ref, classRef, ts, unique, active, indexName, source, path, terms, data);
+    }
+
+    /**
+     * Reads each term as a path, whether it was given as a path or as a list of fields.
+     */
+    private ImmutableList<ImmutableMap<String, String>> terms(ImmutableList<Value> elements,
+                                                            DeserializationContext ctxt) throws IOException {
+      ImmutableList.Builder<ImmutableMap<String, String>> terms = ImmutableList.builder();
+      for (Value element : elements) {
+        for (Map.Entry<String, Value> term : checked("terms", element.asObject(), ctxt).entrySet()) {
+          if (term.getKey().equals("path")) {
+            terms.add(ImmutableMap.of("path", checked("terms", term.getValue().asString(), ctxt)));
+          } else if (term.getKey().equals("field")) {
+            ImmutableList.Builder<String> fields = ImmutableList.builder();
+            for (Value field : checked("terms", term.getValue().asArray(), ctxt)) {
+              fields.add(checked("terms", field.asString(), ctxt));
+            }
+            terms.add(ImmutableMap.of("path", Joiner.on(".").join(fields.build())));
+          } else {
+            throw ctxt.mappingException("Can not deserialize index term \"%s\" with value \"%s\"", term.getKey(),
+              term.getValue());
+          }
+        }
+      }
+      return terms.build();
+    }
+  }
+
+  public static class KeyDeserializer extends ResponseDeserializer<Key> {
+    public KeyDeserializer() {
+      super(Key.class);
+    }
+
+    @Override
+    public Key deserialize(JsonParser in, DeserializationContext ctxt) throws IOException {
+      Ref ref = null;
+      Ref classRef = null;
+      Ref database = null;
+      String role = null;
+      String secret = null;
+      String hashedSecret = null;
+      Long ts = null;
+      ImmutableMap<String, Value> data = null;
+
+      for (String name = first(in, ctxt); name != null; name = next(in)) {
+        switch (name) {
+          case "ref":
+            ref = ref(name, in, ctxt);
+            break;
+          case "class":
+            classRef = ref(name, in, ctxt);
+            break;
+          case "database":
+            database = ref(name, in, ctxt);
+            break;
+          case "role":
+            role = string(name, in, ctxt);
+            break;
+          case "secret":
+            secret = string(name, in, ctxt);
+            break;
+          case "hashed_secret":
+            hashedSecret = string(name, in, ctxt);
+            break;
+          case "ts":
+            ts = longValue(name, in, ctxt);
+            break;
+          case "data":
+            data = object(name, in, ctxt);
+            break;
+          default:
+            unknown(name, in, ctxt);
+        }
+      }
+
+      return new Key(ref, classRef, database, role, secret, hashedSecret, ts, data);
+    }
+  }
+
+  public static class TokenDeserializer extends ResponseDeserializer<Token> {
+    public TokenDeserializer() {
+      super(Token.class);
+    }
+
+    @Override
+    public Token deserialize(JsonParser in, DeserializationContext ctxt) throws IOException {
+      Ref ref = null;
+      Ref classRef = null;
+      Long ts = null;
+      Ref instance = null;
+      String secret = null;
+      ImmutableMap<String, Value> data = null;
+
+      for (String name = first(in, ctxt); name != null; name = next(in)) {
+        switch (name) {
+          case "ref":
+            ref = ref(name, in, ctxt);
+            break;
+          case "class":
+            classRef = ref(name, in, ctxt);
+            break;
+          case "ts":
+            ts = longValue(name, in, ctxt);
+            break;
+          case "instance":
+            instance = ref(name, in, ctxt);
+            break;
+          case "secret":
+            secret = string(name, in, ctxt);
+            break;
+          case "data":
+            data = object(name, in, ctxt);
+            break;
+          default:
+            unknown(name, in, ctxt);
+        }
+      }
+
+      return new Token(ref, classRef, ts, instance, secret, data);
+    }
+  }
+
+  public static class EventDeserializer extends ResponseDeserializer<Event> {
+    public EventDeserializer() {
+      super(Event.class);
+    }
+
+    @Override
+    public Event deserialize(JsonParser in, DeserializationContext ctxt) throws IOException {
+      Ref resource = null;
+      String action = null;
+      Long ts = null;
+
+      for (String name = first(in, ctxt); name != null; name = next(in)) {
+        switch (name) {
+          case "resource":
+            resource = ref(name, in, ctxt);
+            break;
+          case "action":
+            action = string(name, in, ctxt);
+            break;
+          case "ts":
+            ts = longValue(name, in, ctxt);
+            break;
+          default:
+            unknown(name, in, ctxt);
+        }
+      }
+
+      return new Event(resource, action, ts);
+    }
+  }
+
+  public static class PageDeserializer extends ResponseDeserializer<Page> {
+    public PageDeserializer() {
+      super(Page.class);
+    }
+
+    @Override
+    public Page deserialize(JsonParser in, DeserializationContext ctxt) throws IOException {
+      ImmutableList<Value> data = null;
+      Value before = null;
+      Value after = null;
+
+      for (String name = first(in, ctxt); name != null; name = next(in)) {
+        switch (name) {
+          case "data":
+            data = array(name, in, ctxt);
+            break;
+          case "before":
+            before = value(in, ctxt);
+            break;
+          case "after":
+            after = value(in, ctxt);
+            break;
+          default:
+            unknown(name, in, ctxt);
+        }
+      }
+
+      return new Page(checked("data", data, ctxt), cursor(before), cursor(after));
+    }
+
+    private static Optional<Value> cursor(Value cursor) {
+      return cursor == Value.NullV.Null ? Optional.<Value>absent() : Optional.fromNullable(cursor);
+    }
+  }
+}
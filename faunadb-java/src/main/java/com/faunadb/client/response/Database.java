@@ -1,9 +1,9 @@
 package com.faunadb.client.response;
 
-import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
-import com.faunadb.client.types.LazyValue;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.faunadb.client.types.Ref;
+import com.faunadb.client.types.Value;
 import com.google.common.collect.ImmutableMap;
 
 /**
@@ -12,18 +12,18 @@ import com.google.common.collect.ImmutableMap;
  *
  * <p><i>Reference</i>: <a href="https://faunadb.com/documentation#objects-databases">FaunaDB Database Object</a></p>
  *
- * @see LazyValue#asDatabase()
+ * @see Value#asDatabase()
  */
+@JsonDeserialize(using = Codec.DatabaseDeserializer.class)
 public final class Database extends Instance {
   @JsonProperty("name")
   private final String name;
 
-  @JsonCreator
-  Database(@JsonProperty("ref") Ref ref,
-           @JsonProperty("class") Ref classRef,
-           @JsonProperty("ts") Long ts,
-           @JsonProperty("name") String name,
-           @JsonProperty("data") ImmutableMap<String, LazyValue> data) {
+  Database(Ref ref,
+           Ref classRef,
+           Long ts,
+           String name,
+           ImmutableMap<String, Value> data) {
     super(ref, classRef, ts, data);
     this.name = name;
   }
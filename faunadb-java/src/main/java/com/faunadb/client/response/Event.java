@@ -1,9 +1,9 @@
 package com.faunadb.client.response;
 
-import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
-import com.faunadb.client.types.LazyValue;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.faunadb.client.types.Ref;
+import com.faunadb.client.types.Value;
 import com.google.common.base.Joiner;
 
 /**
@@ -12,8 +12,9 @@ import com.google.common.base.Joiner;
  *
  * <p><i>Reference</i>: <a href="https://faunadb.com/documentation/queries#values-events">FaunaDB Event Value</a></p>
  *
- * @see LazyValue#asEvent()
+ * @see Value#asEvent()
  */
+@JsonDeserialize(using = Codec.EventDeserializer.class)
 public final class Event {
   @JsonProperty("ts")
   private final Long ts;
@@ -22,8 +23,7 @@ public final class Event {
   @JsonProperty("resource")
   private final Ref resource;
 
-  @JsonCreator
-  Event(@JsonProperty("resource") Ref resource, @JsonProperty("action") String action, @JsonProperty("ts") Long ts) {
+  Event(Ref resource, String action, Long ts) {
     this.resource = resource;
     this.action = action;
     this.ts = ts;
@@ -1,9 +1,8 @@
 package com.faunadb.client.response;
 
-import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.faunadb.client.types.Ref;
-import com.faunadb.client.types.LazyValue;
 import com.faunadb.client.types.Value;
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableMap;
@@ -14,8 +13,9 @@ import com.google.common.collect.ImmutableMap;
  *
  * <p><i>Reference</i>: <a href="https://faunadb.com/documentation#objects">FaunaDB Objects</a></p>
  *
- * @see LazyValue#asInstance()
+ * @see Value#asInstance()
  */
+@JsonDeserialize(using = Codec.InstanceDeserializer.class)
 public class Instance {
   @JsonProperty("ref")
   private final Ref ref;
@@ -26,11 +26,10 @@ public class Instance {
   @JsonProperty("data")
   private final ImmutableMap<String, Value> data;
 
-  @JsonCreator
-  Instance(@JsonProperty("ref") Ref ref,
-           @JsonProperty("class") Ref classRef,
-           @JsonProperty("ts") Long ts,
-           @JsonProperty("data") ImmutableMap<String, LazyValue> data) {
+  Instance(Ref ref,
+           Ref classRef,
+           Long ts,
+           ImmutableMap<String, Value> data) {
     this.ref = ref;
     this.classRef = classRef;
     this.ts = ts;
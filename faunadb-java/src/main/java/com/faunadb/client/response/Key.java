@@ -1,8 +1,7 @@
 package com.faunadb.client.response;
 
-import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
-import com.faunadb.client.types.LazyValue;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.faunadb.client.types.Ref;
 import com.faunadb.client.types.Value;
 import com.google.common.base.Joiner;
@@ -14,8 +13,9 @@ import com.google.common.collect.ImmutableMap;
  *
  * <p><i>Reference</i>: <a href="https://faunadb.com/documentation#objects-keys">FaunaDB Key Object</a></p>
  *
- * @see LazyValue#asKey()
+ * @see Value#asKey()
  */
+@JsonDeserialize(using = Codec.KeyDeserializer.class)
 public final class Key extends Instance {
   @JsonProperty("database")
   private final Ref database;
@@ -26,15 +26,14 @@ public final class Key extends Instance {
   @JsonProperty("hashed_secret")
   private final String hashedSecret;
 
-  @JsonCreator
-  Key(@JsonProperty("ref") Ref ref,
-      @JsonProperty("class") Ref classRef,
-      @JsonProperty("database") Ref database,
-      @JsonProperty("role") String role,
-      @JsonProperty("secret") String secret,
-      @JsonProperty("hashed_secret") String hashedSecret,
-      @JsonProperty("ts") Long ts,
-      @JsonProperty("data") ImmutableMap<String, LazyValue> data) {
+  Key(Ref ref,
+      Ref classRef,
+      Ref database,
+      String role,
+      String secret,
+      String hashedSecret,
+      Long ts,
+      ImmutableMap<String, Value> data) {
     super(ref, classRef, ts, data);
     this.database = database;
     this.role = role;
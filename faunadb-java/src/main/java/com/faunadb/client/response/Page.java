@@ -1,8 +1,6 @@
 package com.faunadb.client.response;
 
-import com.fasterxml.jackson.annotation.JsonCreator;
-import com.fasterxml.jackson.annotation.JsonProperty;
-import com.faunadb.client.types.LazyValue;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.faunadb.client.types.Value;
 import com.google.common.base.Joiner;
 import com.google.common.base.Optional;
@@ -16,18 +14,16 @@ import com.google.common.collect.ImmutableList;
  *
  * @see Value#asPage()
  */
+@JsonDeserialize(using = Codec.PageDeserializer.class)
 public final class Page {
   private final ImmutableList<Value> data;
   private final Optional<Value> before;
   private final Optional<Value> after;
 
-  @JsonCreator
-  Page(@JsonProperty("data") ImmutableList<LazyValue> data,
-       @JsonProperty("before") Optional<LazyValue> before,
-       @JsonProperty("after") Optional<LazyValue> after) {
-    this.data = ImmutableList.<Value>copyOf(data);
-    this.before = Optional.<Value>fromNullable(before.orNull());
-    this.after = Optional.<Value>fromNullable(after.orNull());
+  Page(ImmutableList<Value> data, Optional<Value> before, Optional<Value> after) {
+    this.data = data;
+    this.before = before;
+    this.after = after;
   }
 
   /**
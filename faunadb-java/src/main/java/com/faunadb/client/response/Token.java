@@ -1,25 +1,25 @@
 package com.faunadb.client.response;
 
-import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
-import com.faunadb.client.types.LazyValue;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.faunadb.client.types.Ref;
+import com.faunadb.client.types.Value;
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableMap;
 
+@JsonDeserialize(using = Codec.TokenDeserializer.class)
 public final class Token extends Instance {
   @JsonProperty("instance")
   private final Ref instance;
   @JsonProperty("secret")
   private final String secret;
 
-  @JsonCreator
-  Token(@JsonProperty("ref") Ref ref,
-        @JsonProperty("class") Ref classRef,
-        @JsonProperty("ts") Long ts,
-        @JsonProperty("instance") Ref instance,
-        @JsonProperty("secret") String secret,
-        @JsonProperty("data") ImmutableMap<String, LazyValue> data) {
+  Token(Ref ref,
+        Ref classRef,
+        Long ts,
+        Ref instance,
+        String secret,
+        ImmutableMap<String, Value> data) {
     super(ref, classRef, ts, data);
     this.instance = instance;
     this.secret = secret;
@@ -1,22 +1,175 @@
 package com.faunadb.client.types;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.ObjectCodec;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.JsonSerializer;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.databind.type.MapLikeType;
 import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.fasterxml.jackson.datatype.guava.GuavaModule;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Ordering;
 
 import java.io.IOException;
 import java.io.StringWriter;
+import java.util.Map;
 
 class Codec {
+  /**
+   * Used to convert concrete values into the response types, such as {@link com.faunadb.client.response.Instance}.
+   */
+  static final ObjectMapper JSON = new ObjectMapper().registerModule(new GuavaModule()).registerModule(new ValueModule());
+
+  /**
+   * Converts {@code value} into {@code type}, returning null if it does not have the shape of one.
+   *
+   * <p>The fields of {@code value} are handed over to the decoder of {@code type} as they are, instead of being encoded
+   * and decoded again.
+   */
+  static <T> T convert(Value.ObjectV value, java.lang.Class<T> type) {
+    TokenBuffer buffer = new TokenBuffer((ObjectCodec) null, false);
+    try {
+      buffer.writeStartObject();
+      for (Map.Entry<String, Value> field : value.values().entrySet()) {
+        buffer.writeFieldName(field.getKey());
+        buffer.writeObject(field.getValue());
+      }
+      buffer.writeEndObject();
+      return JSON.readValue(buffer.asParser(JSON), type);
+    } catch (IOException ex) {
+      return null;
+    }
+  }
+
+  /**
+   * Decodes a {@link Value} from a stream of tokens, in a single pass and without building an intermediate tree.
+   *
+   * <p>Objects whose only field is {@code @ref}, {@code @ts} or {@code @date} become a {@link Ref},
+   * {@link Value.TsV} or {@link Value.DateV}, and the contents of an {@code @obj} become a plain object. A set keeps
+   * its {@code @set} field, which {@link Value.ObjectV#asSet()} recognizes. Every other node becomes the matching
+   * concrete value.
+   */
+  public static class ValueDeserializer extends JsonDeserializer<Value> {
+    @Override
+    public Value deserialize(JsonParser jsonParser, DeserializationContext deserializationContext) throws IOException {
+      return read(jsonParser);
+    }
+
+    @Override
+    public Value getNullValue(DeserializationContext deserializationContext) {
+      return Value.NullV.Null;
+    }
+
+    /**
+     * Reads the value starting at the current token, leaving the parser on its last token.
+     */
+    static Value read(JsonParser in) throws IOException {
+      JsonToken t = in.getCurrentToken();
+      if (t == null) {
+        throw new JsonMappingException("Unexpected end of input", in.getCurrentLocation());
+      }
+
+      switch (t) {
+        case START_OBJECT:
+          return readObject(in);
+        case START_ARRAY:
+          ImmutableList.Builder<Value> elements = ImmutableList.builder();
+          while (in.nextToken() != JsonToken.END_ARRAY) {
+            elements.add(read(in));
+          }
+          return new Value.ArrayV(elements.build());
+        case VALUE_STRING:
+          return new Value.StringV(in.getText());
+        case VALUE_NUMBER_INT:
+          return new Value.LongV(in.getLongValue());
+        case VALUE_NUMBER_FLOAT:
+          return new Value.DoubleV(in.getDoubleValue());
+        case VALUE_TRUE:
+          return Value.BooleanV.True;
+        case VALUE_FALSE:
+          return Value.BooleanV.False;
+        case VALUE_NULL:
+          return Value.NullV.Null;
+        case VALUE_EMBEDDED_OBJECT:
+          if (in.getEmbeddedObject() instanceof Value) {
+            return (Value) in.getEmbeddedObject();
+          }
+          throw new JsonMappingException("Unexpected embedded object " + in.getEmbeddedObject(), in.getCurrentLocation());
+        default:
+          throw new JsonMappingException("Unexpected token " + t, in.getCurrentLocation());
+      }
+    }
+
+    private static Value readObject(JsonParser in) throws IOException {
+      if (in.nextToken() == JsonToken.END_OBJECT) {
+        return Value.ObjectV.empty();
+      }
+
+      String first = in.getCurrentName();
+      JsonToken t = in.nextToken();
+      Value firstValue = first.equals("@obj") && t == JsonToken.START_OBJECT ? readFields(in) : read(in);
+
+      if (in.nextToken() == JsonToken.END_OBJECT) {
+        Value special = special(first, firstValue);
+        if (special != null) {
+          return special;
+        }
+      }
+
+      ImmutableMap.Builder<String, Value> fields = ImmutableMap.builder();
+      fields.put(first, firstValue);
+      while (in.getCurrentToken() == JsonToken.FIELD_NAME) {
+        String name = in.getCurrentName();
+        in.nextToken();
+        fields.put(name, read(in));
+        in.nextToken();
+      }
+      return new Value.ObjectV(fields.build());
+    }
+
+    /**
+     * Reads the fields of an object without looking for special fields, as the contents of an {@code @obj} are.
+     */
+    private static Value readFields(JsonParser in) throws IOException {
+      ImmutableMap.Builder<String, Value> fields = ImmutableMap.builder();
+      while (in.nextToken() == JsonToken.FIELD_NAME) {
+        String name = in.getCurrentName();
+        in.nextToken();
+        fields.put(name, read(in));
+      }
+      return new Value.ObjectV(fields.build());
+    }
+
+    private static Value special(String name, Value value) {
+      switch (name) {
+        case "@ref":
+          return value.asString() != null ? Ref.create(value.asString()) : null;
+        case "@ts":
+          return value.asString() != null ? new Value.TsV(value.asString()) : null;
+        case "@date":
+          return value.asString() != null ? new Value.DateV(value.asString()) : null;
+        case "@obj":
+          return value instanceof Value.ObjectV ? value : null;
+        default:
+          return null;
+      }
+    }
+  }
+
   public static class LazyValueDeserializer extends JsonDeserializer<LazyValue> {
     @Override
     public LazyValue deserialize(JsonParser jsonParser, DeserializationContext deserializationContext) throws IOException {
@@ -53,7 +206,7 @@ class Codec {
       JsonNode tree = json.readTree(jsonParser);
 
       if (tree.has("@set")) {
-        ImmutableMap<String, Value> values = json.convertValue(tree.get("@set"), tf.constructMapLikeType(ImmutableMap.class, String.class, LazyValue.class));
+        ImmutableMap<String, Value> values = json.convertValue(tree.get("@set"), tf.constructMapLikeType(ImmutableMap.class, String.class, Value.class));
         return new Set(values);
       } else {
         throw new JsonParseException("Cannot deserialize as a @set", jsonParser.getTokenLocation());
@@ -72,18 +225,174 @@ class Codec {
 
       while (jsonParser.getCurrentToken() == JsonToken.FIELD_NAME) {
         String key = jsonParser.getCurrentName();
-        Value value;
-        t = jsonParser.nextToken();
-        if (t == JsonToken.VALUE_NULL) {
-          value = Value.NullV.Null;
-        } else {
-          value = deserializationContext.readValue(jsonParser, LazyValue.class);
-        }
-        mapBuilder.put(key, value);
+        jsonParser.nextToken();
+        mapBuilder.put(key, ValueDeserializer.read(jsonParser));
         t = jsonParser.nextToken();
       }
 
       return Value.ObjectV.create(mapBuilder.build());
     }
   }
+
+  private static final ObjectSerializer OBJECT = new ObjectSerializer();
+  private static final ArraySerializer ARRAY = new ArraySerializer();
+  private static final StringSerializer STRING = new StringSerializer();
+  private static final LongSerializer LONG = new LongSerializer();
+  private static final DoubleSerializer DOUBLE = new DoubleSerializer();
+  private static final BooleanSerializer BOOLEAN = new BooleanSerializer();
+  private static final NullSerializer NULL = new NullSerializer();
+  private static final RefSerializer REF = new RefSerializer();
+  private static final VarSerializer VAR = new VarSerializer();
+  private static final TsSerializer TS = new TsSerializer();
+  private static final DateSerializer DATE = new DateSerializer();
+  private static final LazyValueSerializer LAZY = new LazyValueSerializer();
+
+  /**
+   * Writes {@code value} with the serializer of its type, without asking the provider for one.
+   */
+  static void write(Value value, JsonGenerator out, SerializerProvider provider) throws IOException {
+    if (value instanceof Value.ObjectV) {
+      OBJECT.serialize((Value.ObjectV) value, out, provider);
+    } else if (value instanceof Value.StringV) {
+      STRING.serialize((Value.StringV) value, out, provider);
+    } else if (value instanceof Ref) {
+      REF.serialize((Ref) value, out, provider);
+    } else if (value instanceof Value.LongV) {
+      LONG.serialize((Value.LongV) value, out, provider);
+    } else if (value instanceof Value.ArrayV) {
+      ARRAY.serialize((Value.ArrayV) value, out, provider);
+    } else if (value instanceof Var) {
+      VAR.serialize((Var) value, out, provider);
+    } else if (value instanceof Value.BooleanV) {
+      BOOLEAN.serialize((Value.BooleanV) value, out, provider);
+    } else if (value instanceof Value.DoubleV) {
+      DOUBLE.serialize((Value.DoubleV) value, out, provider);
+    } else if (value instanceof Value.NullV || value == null) {
+      out.writeNull();
+    } else if (value instanceof Value.TsV) {
+      TS.serialize((Value.TsV) value, out, provider);
+    } else if (value instanceof Value.DateV) {
+      DATE.serialize((Value.DateV) value, out, provider);
+    } else if (value instanceof LazyValue) {
+      LAZY.serialize((LazyValue) value, out, provider);
+    } else {
+      provider.defaultSerializeValue(value, out);
+    }
+  }
+
+  /**
+   * Writes the fields of an object, sorted by name if the provider orders map entries by their keys.
+   */
+  public static class ObjectSerializer extends JsonSerializer<Value.ObjectV> {
+    @Override
+    public void serialize(Value.ObjectV value, JsonGenerator out, SerializerProvider provider) throws IOException {
+      ImmutableMap<String, Value> fields = value.values();
+      out.writeStartObject();
+      if (provider.isEnabled(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS) && fields.size() > 1) {
+        for (String name : Ordering.natural().sortedCopy(fields.keySet())) {
+          out.writeFieldName(name);
+          write(fields.get(name), out, provider);
+        }
+      } else {
+        for (Map.Entry<String, Value> field : fields.entrySet()) {
+          out.writeFieldName(field.getKey());
+          write(field.getValue(), out, provider);
+        }
+      }
+      out.writeEndObject();
+    }
+  }
+
+  public static class ArraySerializer extends JsonSerializer<Value.ArrayV> {
+    @Override
+    public void serialize(Value.ArrayV value, JsonGenerator out, SerializerProvider provider) throws IOException {
+      ImmutableList<Value> elements = value.values();
+      out.writeStartArray(elements.size());
+      for (int i = 0; i < elements.size(); i++) {
+        write(elements.get(i), out, provider);
+      }
+      out.writeEndArray();
+    }
+  }
+
+  public static class StringSerializer extends JsonSerializer<Value.StringV> {
+    @Override
+    public void serialize(Value.StringV value, JsonGenerator out, SerializerProvider provider) throws IOException {
+      out.writeString(value.value());
+    }
+  }
+
+  public static class LongSerializer extends JsonSerializer<Value.LongV> {
+    @Override
+    public void serialize(Value.LongV value, JsonGenerator out, SerializerProvider provider) throws IOException {
+      out.writeNumber(value.value());
+    }
+  }
+
+  public static class DoubleSerializer extends JsonSerializer<Value.DoubleV> {
+    @Override
+    public void serialize(Value.DoubleV value, JsonGenerator out, SerializerProvider provider) throws IOException {
+      out.writeNumber(value.value());
+    }
+  }
+
+  public static class BooleanSerializer extends JsonSerializer<Value.BooleanV> {
+    @Override
+    public void serialize(Value.BooleanV value, JsonGenerator out, SerializerProvider provider) throws IOException {
+      out.writeBoolean(value.value());
+    }
+  }
+
+  public static class NullSerializer extends JsonSerializer<Value.NullV> {
+    @Override
+    public void serialize(Value.NullV value, JsonGenerator out, SerializerProvider provider) throws IOException {
+      out.writeNull();
+    }
+  }
+
+  public static class RefSerializer extends JsonSerializer<Ref> {
+    @Override
+    public void serialize(Ref value, JsonGenerator out, SerializerProvider provider) throws IOException {
+      out.writeStartObject();
+      out.writeStringField("@ref", value.value());
+      out.writeEndObject();
+    }
+  }
+
+  public static class VarSerializer extends JsonSerializer<Var> {
+    @Override
+    public void serialize(Var value, JsonGenerator out, SerializerProvider provider) throws IOException {
+      out.writeStartObject();
+      out.writeStringField("var", value.variable());
+      out.writeEndObject();
+    }
+  }
+
+  public static class TsSerializer extends JsonSerializer<Value.TsV> {
+    @Override
+    public void serialize(Value.TsV value, JsonGenerator out, SerializerProvider provider) throws IOException {
+      out.writeStartObject();
+      out.writeStringField("@ts", value.strValue());
+      out.writeEndObject();
+    }
+  }
+
+  public static class DateSerializer extends JsonSerializer<Value.DateV> {
+    @Override
+    public void serialize(Value.DateV value, JsonGenerator out, SerializerProvider provider) throws IOException {
+      out.writeStartObject();
+      out.writeStringField("@date", value.strValue());
+      out.writeEndObject();
+    }
+  }
+
+  /**
+   * Writes the node a {@link LazyValue} wraps, as it was read.
+   */
+  public static class LazyValueSerializer extends JsonSerializer<LazyValue> {
+    @Override
+    public void serialize(LazyValue value, JsonGenerator out, SerializerProvider provider) throws IOException {
+      ((JsonSerializable) value.underlying()).serialize(out, provider);
+    }
+  }
 }
@@ -0,0 +1,39 @@
+package com.faunadb.client.types;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Maps a field to the value at a path in a query result, so that results can be decoded straight into instances of
+ * the class declaring it, with {@link com.faunadb.client.FaunaClient#query(Value, java.lang.Class)}.
+ *
+ * <p>The path names the fields to follow from the root of the result, separated by dots, such as {@code "ref"} or
+ * {@code "data.name"}. Fields of type {@link Value}, or of one of its types such as {@link Ref}, receive the value as
+ * it is. Fields of type {@link java.time.Instant} or {@link java.time.LocalDate} receive the value of a timestamp or a
+ * date. Any other field is decoded by Jackson, and so may be a number, a string, a list or another mapped class.
+ * Paths that are missing from a result leave their fields as the class's constructor set them.
+ *
+ * <p>A mapped class needs a constructor without parameters, which may be private.
+ *
+ * <pre>{@code
+ * class Spell {
+ *   @FaunaField("ref") Ref ref;
+ *   @FaunaField("data.name") String name;
+ *   @FaunaField("data.element") List<String> elements;
+ * }
+ *
+ * Spell spell = client.query(Get(Ref("classes/spells/123")), Spell.class).get();
+ * }</pre>
+ *
+ * @see ValueModule
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface FaunaField {
+  /**
+   * The path of the value in a query result.
+   */
+  String value();
+}
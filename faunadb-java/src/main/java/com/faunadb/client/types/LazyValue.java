@@ -2,21 +2,31 @@ package com.faunadb.client.types;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonValue;
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
-import com.fasterxml.jackson.databind.type.TypeFactory;
 import com.faunadb.client.response.*;
 import com.faunadb.client.response.Class;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 
+import java.io.IOException;
+import java.time.DateTimeException;
 import java.time.Instant;
 import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.Map;
 
 /**
  * A {@link Value} that wraps a JSON response tree. This Value does not convert to a concrete type until one of its
  * type coercion methods is called.
+ *
+ * <p>The shape of the node is inspected once, and the views of its fields or elements are built on first use and
+ * kept, so that repeated calls to {@link #get(String)}, {@link #get(int)}, {@link #asObject()} and
+ * {@link #asArray()} cost a lookup. Coercing into a type the node does not have returns null without throwing: the
+ * fields of a node are checked against a response type before it is converted into one.
  */
 @JsonDeserialize(using=Codec.LazyValueDeserializer.class)
 public final class LazyValue implements Value {
@@ -24,11 +34,70 @@ public final class LazyValue implements Value {
     return new LazyValue(underlying, json);
   }
 
+  /**
+   * The shapes a node can have. Objects with a single special field, such as {@code @ref}, are told apart from
+   * plain objects.
+   */
+  private enum Kind { SCALAR, ARRAY, OBJECT, ESCAPED_OBJECT, REF, TS, DATE, SET }
+
+  /**
+   * What the decoder of a response type accepts in one of its fields. Any field may also be null, unless the type
+   * requires it.
+   */
+  private enum Field { REF, LONG, STRING, BOOLEAN, OBJECT, ARRAY, TERMS, ANY }
+
+  /**
+   * The fields of each response type, as read by its decoder in {@link com.faunadb.client.response}.
+   */
+  private static final ImmutableMap<java.lang.Class<?>, ImmutableMap<String, Field>> SHAPES =
+    ImmutableMap.<java.lang.Class<?>, ImmutableMap<String, Field>>builder()
+      .put(Instance.class, ImmutableMap.of("ref", Field.REF, "class", Field.REF, "ts", Field.LONG,
+        "data", Field.OBJECT))
+      .put(Class.class, ImmutableMap.<String, Field>builder()
+        .put("ref", Field.REF).put("class", Field.REF).put("ts", Field.LONG).put("history_days", Field.LONG)
+        .put("name", Field.STRING).put("data", Field.OBJECT).build())
+      .put(Database.class, ImmutableMap.of("ref", Field.REF, "class", Field.REF, "ts", Field.LONG,
+        "name", Field.STRING, "data", Field.OBJECT))
+      .put(Index.class, ImmutableMap.<String, Field>builder()
+        .put("ref", Field.REF).put("class", Field.REF).put("ts", Field.LONG).put("unique", Field.BOOLEAN)
+        .put("active", Field.BOOLEAN).put("name", Field.STRING).put("source", Field.REF).put("path", Field.STRING)
+        .put("terms", Field.TERMS).put("data", Field.OBJECT).build())
+      .put(Key.class, ImmutableMap.<String, Field>builder()
+        .put("ref", Field.REF).put("class", Field.REF).put("database", Field.REF).put("role", Field.STRING)
+        .put("secret", Field.STRING).put("hashed_secret", Field.STRING).put("ts", Field.LONG)
+        .put("data", Field.OBJECT).build())
+      .put(Token.class, ImmutableMap.<String, Field>builder()
+        .put("ref", Field.REF).put("class", Field.REF).put("ts", Field.LONG).put("instance", Field.REF)
+        .put("secret", Field.STRING).put("data", Field.OBJECT).build())
+      .put(Event.class, ImmutableMap.of("resource", Field.REF, "action", Field.STRING, "ts", Field.LONG))
+      .put(Page.class, ImmutableMap.of("data", Field.ARRAY, "before", Field.ANY, "after", Field.ANY))
+      .build();
+
+  /**
+   * The fields each response type cannot do without. They tell apart types whose fields overlap: every field of an
+   * instance is also a field of a key, but only a key has a database and a role.
+   */
+  private static final ImmutableMap<java.lang.Class<?>, ImmutableSet<String>> REQUIRED =
+    ImmutableMap.<java.lang.Class<?>, ImmutableSet<String>>builder()
+      .put(Instance.class, ImmutableSet.of("ref"))
+      .put(Class.class, ImmutableSet.of("ref", "name"))
+      .put(Database.class, ImmutableSet.of("ref", "name"))
+      .put(Index.class, ImmutableSet.of("ref", "name", "source"))
+      .put(Key.class, ImmutableSet.of("ref", "database", "role"))
+      .put(Token.class, ImmutableSet.of("ref", "instance"))
+      .put(Event.class, ImmutableSet.of("resource", "action", "ts"))
+      .put(Page.class, ImmutableSet.of("data"))
+      .build();
+
   private final JsonNode underlying;
   private final ObjectMapper json;
+  private Kind kind;
+  private volatile ImmutableMap<String, Value> fields;
+  private volatile ImmutableList<Value> elements;
+  private volatile Conversion conversion;
 
   @JsonValue
-  private JsonNode underlying() {
+  JsonNode underlying() {
     return underlying;
   }
 
@@ -71,117 +140,102 @@ public final class LazyValue implements Value {
   }
 
   public Instant asTs() {
+    if (kind() != Kind.TS) {
+      return null;
+    }
     try {
-      return json.convertValue(underlying, TsV.class).asTs();
-    } catch (IllegalArgumentException ex) {
+      return new TsV(underlying.get("@ts").asText()).asTs();
+    } catch (DateTimeException ex) {
       return null;
     }
   }
 
   public LocalDate asDate() {
+    if (kind() != Kind.DATE) {
+      return null;
+    }
     try {
-      return json.convertValue(underlying, DateV.class).asDate();
-    } catch (IllegalArgumentException ex) {
+      return new DateV(underlying.get("@date").asText()).asDate();
+    } catch (DateTimeException ex) {
       return null;
     }
   }
 
   public ImmutableList<Value> asArray() {
-    try {
-      return json.convertValue(underlying, TypeFactory.defaultInstance().constructCollectionType(ImmutableList.class, LazyValue.class));
-    } catch (IllegalArgumentException ex) {
+    if (!underlying.isArray()) {
       return null;
     }
+
+    ImmutableList<Value> elems = elements;
+    if (elems == null) {
+      ImmutableList.Builder<Value> builder = ImmutableList.builder();
+      for (JsonNode element : underlying) {
+        builder.add(child(element));
+      }
+      elems = builder.build();
+      elements = elems;
+    }
+    return elems;
   }
 
   public ImmutableMap<String, Value> asObject() {
-    try {
-      return ImmutableMap.copyOf(json.convertValue(underlying, LazyValueMap.class));
-    } catch (ClassCastException ex) {
-      return null;
-    } catch (IllegalArgumentException ex) {
+    if (!underlying.isObject()) {
       return null;
     }
+
+    ImmutableMap<String, Value> map = fields;
+    if (map == null) {
+      JsonNode obj = kind() == Kind.ESCAPED_OBJECT ? underlying.get("@obj") : underlying;
+      ImmutableMap.Builder<String, Value> builder = ImmutableMap.builder();
+      Iterator<Map.Entry<String, JsonNode>> it = obj.fields();
+      while (it.hasNext()) {
+        Map.Entry<String, JsonNode> field = it.next();
+        builder.put(field.getKey(), child(field.getValue()));
+      }
+      map = builder.build();
+      fields = map;
+    }
+    return map;
   }
 
   public Ref asRef() {
-    try {
-      return json.convertValue(underlying, Ref.class);
-    } catch (IllegalArgumentException ex) {
-      return null;
-    }
+    return kind() == Kind.REF ? Ref.create(underlying.get("@ref").asText()) : null;
   }
 
   public Page asPage() {
-    try {
-      return json.convertValue(underlying, Page.class);
-    } catch (IllegalArgumentException ex) {
-      return null;
-    }
+    return convert(Page.class);
   }
 
   public Instance asInstance() {
-    try {
-      return json.convertValue(underlying, Instance.class);
-    } catch (IllegalArgumentException ex) {
-      return null;
-    }
+    return convert(Instance.class);
   }
 
   public Key asKey() {
-    try {
-      return json.convertValue(underlying, Key.class);
-    } catch (IllegalArgumentException ex) {
-      return null;
-    }
+    return convert(Key.class);
   }
 
   public Token asToken() {
-    try {
-      return json.convertValue(underlying, Token.class);
-    } catch (IllegalArgumentException ex) {
-      return null;
-    }
+    return convert(Token.class);
   }
 
   public Database asDatabase() {
-    try {
-      return json.convertValue(underlying, Database.class);
-    } catch (IllegalArgumentException ex) {
-      return null;
-    }
+    return convert(Database.class);
   }
 
   public Class asClass() {
-    try {
-      return json.convertValue(underlying, Class.class);
-    } catch (IllegalArgumentException ex) {
-      return null;
-    }
+    return convert(Class.class);
   }
 
   public Index asIndex() {
-    try {
-      return json.convertValue(underlying, Index.class);
-    } catch (IllegalArgumentException ex) {
-      return null;
-    }
+    return convert(Index.class);
   }
 
   public Event asEvent() {
-    try {
-      return json.convertValue(underlying, Event.class);
-    } catch (IllegalArgumentException ex) {
-      return null;
-    }
+    return convert(Event.class);
   }
 
   public Set asSet() {
-    try {
-      return json.convertValue(underlying, Set.class);
-    } catch (IllegalArgumentException ex) {
-      return null;
-    }
+    return kind() == Kind.SET ? convert(Set.class) : null;
   }
 
   /**
@@ -189,7 +243,8 @@ public final class LazyValue implements Value {
    * @return the value of the field, or null.
    */
   public Value get(String key) {
-    return asObject().get(key);
+    ImmutableMap<String, Value> map = asObject();
+    return map == null ? null : map.get(key);
   }
 
   /**
@@ -197,7 +252,189 @@ public final class LazyValue implements Value {
    * @return the value of the element, or null.
    */
   public Value get(int index) {
-    return asArray().get(index);
+    ImmutableList<Value> elems = asArray();
+    return elems == null || index < 0 || index >= elems.size() ? null : elems.get(index);
+  }
+
+  private Kind kind() {
+    Kind k = kind;
+    if (k == null) {
+      k = kindOf(underlying);
+      kind = k;
+    }
+    return k;
+  }
+
+  private static Kind kindOf(JsonNode node) {
+    if (node.isArray()) {
+      return Kind.ARRAY;
+    }
+    if (!node.isObject()) {
+      return Kind.SCALAR;
+    }
+    if (node.size() != 1) {
+      return Kind.OBJECT;
+    }
+
+    String name = node.fieldNames().next();
+    JsonNode value = node.get(name);
+    switch (name) {
+      case "@obj":
+        return value.isObject() ? Kind.ESCAPED_OBJECT : Kind.OBJECT;
+      case "@ref":
+        return value.isTextual() ? Kind.REF : Kind.OBJECT;
+      case "@ts":
+        return value.isTextual() ? Kind.TS : Kind.OBJECT;
+      case "@date":
+        return value.isTextual() ? Kind.DATE : Kind.OBJECT;
+      case "@set":
+        return value.isObject() ? Kind.SET : Kind.OBJECT;
+      default:
+        return Kind.OBJECT;
+    }
+  }
+
+  private Value child(JsonNode node) {
+    return node.isNull() ? NullV.Null : new LazyValue(node, json);
+  }
+
+  /**
+   * Converts an object node into one of the response types, keeping the last conversion. Nodes that do not have the
+   * shape of the type are turned away without asking Jackson, so a mismatch costs no exception.
+   */
+  private <T> T convert(java.lang.Class<T> type) {
+    if (!underlying.isObject()) {
+      return null;
+    }
+
+    Conversion last = conversion;
+    if (last != null && last.type == type) {
+      return type.cast(last.value);
+    }
+
+    T value = null;
+    if (fits(type)) {
+      try {
+        value = json.readValue(json.treeAsTokens(underlying), type);
+      } catch (IOException ex) {
+        // The shape check mirrors the decoders, so this is only reached if the mapper decodes them differently.
+      }
+    }
+    conversion = new Conversion(type, value);
+    return value;
+  }
+
+  /**
+   * Returns true if this object node has the fields {@code type} requires, and the decoder of {@code type} would
+   * accept each of its fields.
+   */
+  private boolean fits(java.lang.Class<?> type) {
+    ImmutableMap<String, Field> shape = SHAPES.get(type);
+    if (shape == null) {
+      return true;
+    }
+
+    for (String name : REQUIRED.get(type)) {
+      JsonNode value = underlying.get(name);
+      if (value == null || value.isNull()) {
+        return false;
+      }
+    }
+
+    boolean failOnUnknown = json.isEnabled(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    Iterator<Map.Entry<String, JsonNode>> it = underlying.fields();
+    while (it.hasNext()) {
+      Map.Entry<String, JsonNode> field = it.next();
+      Field expected = shape.get(field.getKey());
+      if (expected == null ? failOnUnknown : !fits(expected, field.getValue())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean fits(Field field, JsonNode node) {
+    if (node.isNull()) {
+      return true;
+    }
+
+    switch (field) {
+      case REF:
+        return kindOf(node) == Kind.REF;
+      case LONG:
+        return node.isIntegralNumber() && node.canConvertToLong();
+      case STRING:
+        return node.isTextual();
+      case BOOLEAN:
+        return node.isBoolean();
+      case OBJECT:
+        return isPlainObject(node);
+      case ARRAY:
+        return node.isArray();
+      case TERMS:
+        return isTerms(node);
+      default:
+        return true;
+    }
+  }
+
+  /**
+   * Returns true if {@code node} decodes to an object, rather than to one of the special values.
+   */
+  private static boolean isPlainObject(JsonNode node) {
+    if (!node.isObject()) {
+      return false;
+    }
+    Kind k = kindOf(node);
+    return k != Kind.REF && k != Kind.TS && k != Kind.DATE;
+  }
+
+  /**
+   * Returns true if {@code node} is a list of index terms, each given either as a path or as a list of fields.
+   */
+  private static boolean isTerms(JsonNode node) {
+    if (!node.isArray()) {
+      return false;
+    }
+
+    for (JsonNode term : node) {
+      if (!isPlainObject(term)) {
+        return false;
+      }
+      JsonNode fields = kindOf(term) == Kind.ESCAPED_OBJECT ? term.get("@obj") : term;
+      Iterator<Map.Entry<String, JsonNode>> it = fields.fields();
+      while (it.hasNext()) {
+        Map.Entry<String, JsonNode> entry = it.next();
+        JsonNode value = entry.getValue();
+        if (entry.getKey().equals("path")) {
+          if (!value.isTextual()) {
+            return false;
+          }
+        } else if (entry.getKey().equals("field")) {
+          if (!value.isArray()) {
+            return false;
+          }
+          for (JsonNode name : value) {
+            if (!name.isTextual()) {
+              return false;
+            }
+          }
+        } else {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private static final class Conversion {
+    final java.lang.Class<?> type;
+    final Object value;
+
+    Conversion(java.lang.Class<?> type, Object value) {
+      this.type = type;
+      this.value = value;
+    }
   }
 
   @Override
@@ -0,0 +1,274 @@
+package com.faunadb.client.types;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.deser.Deserializers;
+import com.fasterxml.jackson.databind.deser.ResolvableDeserializer;
+import com.google.common.base.Splitter;
+
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decodes classes whose fields are mapped to paths with {@link FaunaField}, straight from the parser.
+ *
+ * <p>The paths of a class are gathered once into a tree, whose branches are the objects to descend into and whose
+ * leaves are the fields to set. Decoding walks the tokens of a result along that tree, skipping over everything no
+ * path leads to. Jackson keeps the decoder of each class, so the class is only inspected the first time it is decoded.
+ */
+class Mapping {
+  private static final Splitter PATH = Splitter.on('.');
+
+  /**
+   * Finds the decoder of every class with a field mapped by {@link FaunaField}.
+   */
+  static final class MappedDeserializers extends Deserializers.Base {
+    @Override
+    public JsonDeserializer<?> findBeanDeserializer(JavaType type, DeserializationConfig config,
+                                                    BeanDescription beanDesc) throws JsonMappingException {
+      java.lang.Class<?> raw = type.getRawClass();
+      Node root = new Node();
+      for (java.lang.Class<?> c = raw; c != null && c != Object.class; c = c.getSuperclass()) {
+        for (Field field : c.getDeclaredFields()) {
+          FaunaField path = field.getAnnotation(FaunaField.class);
+          if (path != null && !Modifier.isStatic(field.getModifiers())) {
+            root.add(raw, path.value(), field);
+          }
+        }
+      }
+
+      if (root.children.isEmpty()) {
+        return null;
+      }
+
+      try {
+        Constructor<?> constructor = raw.getDeclaredConstructor();
+        constructor.setAccessible(true);
+        return new MappedDeserializer(raw, constructor, root);
+      } catch (NoSuchMethodException ex) {
+        throw new JsonMappingException("Mapped class " + raw.getName() + " has no constructor without parameters");
+      }
+    }
+  }
+
+  /**
+   * An object along the paths of a mapped class: either a field to set, or the objects further down the paths.
+   */
+  private static final class Node {
+    final Map<String, Node> children = new HashMap<>();
+    final Field field;
+    final Kind kind;
+    JsonDeserializer<Object> deserializer;
+
+    Node() {
+      this(null);
+    }
+
+    Node(Field field) {
+      this.field = field;
+      if (field == null) {
+        this.kind = null;
+      } else if (Value.class.isAssignableFrom(field.getType())) {
+        this.kind = Kind.VALUE;
+      } else if (field.getType() == Instant.class) {
+        this.kind = Kind.TS;
+      } else if (field.getType() == LocalDate.class) {
+        this.kind = Kind.DATE;
+      } else {
+        this.kind = Kind.OTHER;
+      }
+    }
+
+    void add(java.lang.Class<?> type, String path, Field field) throws JsonMappingException {
+      List<String> names = PATH.splitToList(path);
+      Node node = this;
+      for (String name : names.subList(0, names.size() - 1)) {
+        Node child = node.children.get(name);
+        if (child == null) {
+          child = new Node();
+          node.children.put(name, child);
+        } else if (child.field != null) {
+          throw new JsonMappingException("Path " + path + " of " + type.getName() + " runs through another field");
+        }
+        node = child;
+      }
+
+      String name = names.get(names.size() - 1);
+      if (node.children.containsKey(name)) {
+        throw new JsonMappingException("Path " + path + " of " + type.getName() + " is mapped more than once");
+      }
+      field.setAccessible(true);
+      node.children.put(name, new Node(field));
+    }
+  }
+
+  /**
+   * How a field receives its value.
+   */
+  private enum Kind { VALUE, TS, DATE, OTHER }
+
+  private static final class MappedDeserializer extends JsonDeserializer<Object> implements ResolvableDeserializer {
+    private final java.lang.Class<?> type;
+    private final Constructor<?> constructor;
+    private final Node root;
+    private JsonDeserializer<Object> values;
+
+    MappedDeserializer(java.lang.Class<?> type, Constructor<?> constructor, Node root) {
+      this.type = type;
+      this.constructor = constructor;
+      this.root = root;
+    }
+
+    @Override
+    public java.lang.Class<?> handledType() {
+      return type;
+    }
+
+    @Override
+    public boolean isCachable() {
+      return true;
+    }
+
+    @Override
+    public void resolve(DeserializationContext ctxt) throws JsonMappingException {
+      values = ctxt.findRootValueDeserializer(ctxt.constructType(Value.class));
+      resolve(root, ctxt);
+    }
+
+    private void resolve(Node node, DeserializationContext ctxt) throws JsonMappingException {
+      if (node.kind == Kind.OTHER) {
+        JavaType fieldType = ctxt.getTypeFactory().constructType(node.field.getGenericType());
+        node.deserializer = ctxt.findRootValueDeserializer(fieldType);
+      }
+      for (Node child : node.children.values()) {
+        resolve(child, ctxt);
+      }
+    }
+
+    @Override
+    public Object deserialize(JsonParser in, DeserializationContext ctxt) throws IOException {
+      Object target;
+      try {
+        target = constructor.newInstance();
+      } catch (InstantiationException | IllegalAccessException | InvocationTargetException ex) {
+        throw ctxt.instantiationException(type, ex);
+      }
+      read(root, target, in, ctxt);
+      return target;
+    }
+
+    /**
+     * Reads the object at the current token along {@code node}, leaving the parser on its last token. An
+     * {@code @obj} field is read as the object it wraps.
+     */
+    private void read(Node node, Object target, JsonParser in, DeserializationContext ctxt) throws IOException {
+      if (in.getCurrentToken() != JsonToken.START_OBJECT) {
+        throw ctxt.mappingException(type, in.getCurrentToken());
+      }
+
+      while (in.nextToken() == JsonToken.FIELD_NAME) {
+        String name = in.getCurrentName();
+        JsonToken t = in.nextToken();
+        Node child = node.children.get(name);
+        if (child == null) {
+          if (t == JsonToken.START_OBJECT && name.equals("@obj")) {
+            read(node, target, in, ctxt);
+          } else {
+            in.skipChildren();
+          }
+        } else if (child.field != null) {
+          set(child, target, in, ctxt);
+        } else if (t == JsonToken.START_OBJECT) {
+          read(child, target, in, ctxt);
+        } else {
+          in.skipChildren();
+        }
+      }
+    }
+
+    /**
+     * Reads the value at the current token into the field of {@code node}. A value that does not fit the field fails
+     * with an error naming it.
+     */
+    private void set(Node node, Object target, JsonParser in, DeserializationContext ctxt) throws IOException {
+      Object value;
+      try {
+        value = decode(node, in, ctxt);
+      } catch (JsonMappingException ex) {
+        throw JsonMappingException.wrapWithPath(ex, target, node.field.getName());
+      }
+
+      if (value == null) {
+        if (node.field.getType().isPrimitive()) {
+          return;
+        }
+      } else if (!box(node.field.getType()).isInstance(value)) {
+        throw ctxt.mappingException("Unexpected value for " + node.field.getName() + " of " + type.getName());
+      }
+
+      try {
+        node.field.set(target, value);
+      } catch (IllegalAccessException ex) {
+        throw ctxt.instantiationException(type, ex);
+      }
+    }
+
+    private Object decode(Node node, JsonParser in, DeserializationContext ctxt) throws IOException {
+      Object value;
+      switch (node.kind) {
+        case VALUE:
+          value = values.deserialize(in, ctxt);
+          if (value == Value.NullV.Null && node.field.getType() != Value.class) {
+            value = null;
+          }
+          break;
+        case TS:
+          value = ((Value) values.deserialize(in, ctxt)).asTs();
+          break;
+        case DATE:
+          value = ((Value) values.deserialize(in, ctxt)).asDate();
+          break;
+        default:
+          value = in.getCurrentToken() == JsonToken.VALUE_NULL ?
+            node.deserializer.getNullValue(ctxt) : node.deserializer.deserialize(in, ctxt);
+      }
+      return value;
+    }
+  }
+
+  private static java.lang.Class<?> box(java.lang.Class<?> type) {
+    if (!type.isPrimitive()) {
+      return type;
+    } else if (type == long.class) {
+      return Long.class;
+    } else if (type == int.class) {
+      return Integer.class;
+    } else if (type == double.class) {
+      return Double.class;
+    } else if (type == boolean.class) {
+      return Boolean.class;
+    } else if (type == float.class) {
+      return Float.class;
+    } else if (type == short.class) {
+      return Short.class;
+    } else if (type == byte.class) {
+      return Byte.class;
+    } else {
+      return Character.class;
+    }
+  }
+}
@@ -11,6 +11,7 @@ import com.faunadb.client.response.Class;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 
+import java.time.DateTimeException;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZonedDateTime;
@@ -46,6 +47,7 @@ import java.time.format.DateTimeFormatter;
  *
  * <p><i>Reference</i>: <a href="https://faunadb.com/documentation/queries#values">FaunaDB Value Types</a></p>
  */
+@JsonDeserialize(using=Codec.ValueDeserializer.class)
 public interface Value {
   /**
    * Coerces this node into a {@link String}.
@@ -343,6 +345,57 @@ public interface Value {
       return values.get(key);
     }
 
+    @Override
+    public Set asSet() {
+      Value set = values.size() == 1 ? values.get("@set") : null;
+      return set instanceof ObjectV ? new Set(((ObjectV) set).values) : null;
+    }
+
+    @Override
+    public Page asPage() {
+      return Codec.convert(this, Page.class);
+    }
+
+    @Override
+    public Instance asInstance() {
+      return Codec.convert(this, Instance.class);
+    }
+
+    @Override
+    public Key asKey() {
+      return Codec.convert(this, Key.class);
+    }
+
+    @Override
+    public Token asToken() {
+      return Codec.convert(this, Token.class);
+    }
+
+    @Override
+    public Database asDatabase() {
+      return Codec.convert(this, Database.class);
+    }
+
+    @Override
+    public Class asClass() {
+      return Codec.convert(this, Class.class);
+    }
+
+    @Override
+    public Index asIndex() {
+      return Codec.convert(this, Index.class);
+    }
+
+    @Override
+    public Event asEvent() {
+      return Codec.convert(this, Event.class);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof ObjectV && values.equals(((ObjectV) obj).values);
+    }
+
     @Override
     public int hashCode() {
       return values.hashCode();
@@ -406,6 +459,11 @@ public interface Value {
       return values;
     }
 
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof ArrayV && values.equals(((ArrayV) obj).values);
+    }
+
     @Override
     public int hashCode() {
       return values.hashCode();
@@ -429,7 +487,7 @@ public interface Value {
 
     @Override
     public boolean equals(Object obj) {
-      return super.equals(obj);
+      return obj instanceof BooleanV && value.equals(((BooleanV) obj).value);
     }
 
     @Override
@@ -478,6 +536,11 @@ public interface Value {
       return value;
     }
 
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof DoubleV && value.equals(((DoubleV) obj).value);
+    }
+
     @Override
     public int hashCode() {
       return value.hashCode();
@@ -505,6 +568,11 @@ public interface Value {
       return value;
     }
 
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof LongV && value.equals(((LongV) obj).value);
+    }
+
     @Override
     public int hashCode() {
       return value.hashCode();
@@ -532,6 +600,11 @@ public interface Value {
       return value;
     }
 
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof StringV && value.equals(((StringV) obj).value);
+    }
+
     @Override
     public int hashCode() {
       return value.hashCode();
@@ -554,64 +627,122 @@ public interface Value {
     }
   }
 
+  /**
+   * Represents a timestamp value. A timestamp decoded from a response is parsed the first time it is read, and reads
+   * as null if it is not a valid timestamp.
+   */
   final class TsV extends ConcreteValue {
-    private final Instant value;
+    private final String text;
+    private volatile Instant value;
 
     public static TsV create(Instant value) {
       return new TsV(value);
     }
 
     @JsonProperty("@ts")
-    private String strValue() {
-      return value.toString();
+    String strValue() {
+      return text != null ? text : value.toString();
     }
 
     @JsonCreator
     TsV(@JsonProperty("@ts") String value) {
-      this.value = ZonedDateTime.parse(value, DateTimeFormatter.ISO_OFFSET_DATE_TIME).toInstant();
+      this.text = value;
     }
 
     TsV(Instant ts) {
+      this.text = null;
       this.value = ts;
     }
 
+    /**
+     * Two timestamps are equal if they are the same instant, or, if either is not valid, the same text.
+     */
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof TsV && identity().equals(((TsV) obj).identity());
+    }
+
     @Override
-    public int hashCode() { return value.hashCode(); }
+    public int hashCode() {
+      return identity().hashCode();
+    }
+
+    private Object identity() {
+      Instant ts = asTs();
+      return ts != null ? ts : text;
+    }
 
     @Override
     public Instant asTs() {
-      return value;
+      Instant ts = value;
+      if (ts == null) {
+        try {
+          ts = ZonedDateTime.parse(text, DateTimeFormatter.ISO_OFFSET_DATE_TIME).toInstant();
+        } catch (DateTimeException ex) {
+          return null;
+        }
+        value = ts;
+      }
+      return ts;
     }
   }
 
+  /**
+   * Represents a date value. A date decoded from a response is parsed the first time it is read, and reads as null if
+   * it is not a valid date.
+   */
   final class DateV extends ConcreteValue {
-    private final LocalDate value;
+    private final String text;
+    private volatile LocalDate value;
 
     public static DateV create(LocalDate value) {
       return new DateV(value);
     }
 
     DateV(LocalDate value) {
+      this.text = null;
       this.value = value;
     }
 
     DateV(@JsonProperty("@date") String value) {
-      this.value = LocalDate.parse(value);
+      this.text = value;
     }
 
     @JsonProperty("@date")
-    private String strValue() {
-      return value.toString();
+    String strValue() {
+      return text != null ? text : value.toString();
+    }
+
+    /**
+     * Two dates are equal if they are the same day, or, if either is not valid, the same text.
+     */
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof DateV && identity().equals(((DateV) obj).identity());
     }
 
     @Override
     public int hashCode() {
-      return value.hashCode();
+      return identity().hashCode();
+    }
+
+    private Object identity() {
+      LocalDate date = asDate();
+      return date != null ? date : text;
     }
 
     @Override
     public LocalDate asDate() {
-      return value;
+      LocalDate date = value;
+      if (date == null) {
+        try {
+          date = LocalDate.parse(text);
+        } catch (DateTimeException ex) {
+          return null;
+        }
+        value = date;
+      }
+      return date;
     }
   }
 }
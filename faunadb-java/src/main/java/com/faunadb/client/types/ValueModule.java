@@ -0,0 +1,36 @@
+package com.faunadb.client.types;
+
+import com.fasterxml.jackson.databind.module.SimpleModule;
+
+/**
+ * A Jackson module with a dedicated serializer for each {@link Value} type. Values are written straight to the
+ * generator, children included, without introspecting their classes. The module also decodes the classes whose fields
+ * are mapped with {@link FaunaField}.
+ *
+ * <p>Every {@link com.faunadb.client.FaunaClient} registers it with its {@link com.fasterxml.jackson.databind.ObjectMapper}.
+ * Without it, values are still written correctly through their annotations, only more slowly, but mapped classes
+ * cannot be decoded.
+ */
+public final class ValueModule extends SimpleModule {
+  public ValueModule() {
+    super("FaunaValueModule");
+    addSerializer(Value.ObjectV.class, new Codec.ObjectSerializer());
+    addSerializer(Value.ArrayV.class, new Codec.ArraySerializer());
+    addSerializer(Value.StringV.class, new Codec.StringSerializer());
+    addSerializer(Value.LongV.class, new Codec.LongSerializer());
+    addSerializer(Value.DoubleV.class, new Codec.DoubleSerializer());
+    addSerializer(Value.BooleanV.class, new Codec.BooleanSerializer());
+    addSerializer(Value.NullV.class, new Codec.NullSerializer());
+    addSerializer(Ref.class, new Codec.RefSerializer());
+    addSerializer(Var.class, new Codec.VarSerializer());
+    addSerializer(Value.TsV.class, new Codec.TsSerializer());
+    addSerializer(Value.DateV.class, new Codec.DateSerializer());
+    addSerializer(LazyValue.class, new Codec.LazyValueSerializer());
+  }
+
+  @Override
+  public void setupModule(SetupContext context) {
+    super.setupModule(context);
+    context.addDeserializers(new Mapping.MappedDeserializers());
+  }
+}
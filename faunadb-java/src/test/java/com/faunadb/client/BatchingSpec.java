@@ -0,0 +1,169 @@
+package com.faunadb.client;
+
+import com.faunadb.client.errors.NotFoundException;
+import com.faunadb.client.errors.UnavailableException;
+import com.faunadb.client.errors.UnknownException;
+import com.faunadb.client.types.Value;
+import com.faunadb.common.Connection;
+import com.faunadb.common.RetryPolicy;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static com.faunadb.client.query.Language.*;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class BatchingSpec {
+  private static final String NOT_FOUND = "{\"errors\":[{\"code\":\"instance not found\",\"description\":\"Not found\"}]}";
+
+  @Test
+  public void mergeQueriesWithinTheWindow() throws Exception {
+    StubTransport transport = new StubTransport();
+    transport.respond(200, "{\"resource\":[\"fire\",\"ice\",\"wind\"]}");
+    FaunaClient client = client(transport, BatchPolicy.DEFAULT.withWindow(50, TimeUnit.MILLISECONDS));
+
+    ListenableFuture<Value> fire = client.query(Get(Ref("classes/spells/1")));
+    ListenableFuture<Value> ice = client.query(Get(Ref("classes/spells/2")));
+    ListenableFuture<Value> wind = client.query(Get(Ref("classes/spells/3")));
+
+    assertThat(fire.get(5, TimeUnit.SECONDS).asString(), is("fire"));
+    assertThat(ice.get(5, TimeUnit.SECONDS).asString(), is("ice"));
+    assertThat(wind.get(5, TimeUnit.SECONDS).asString(), is("wind"));
+    assertThat(transport.requestCount(), is(1));
+    assertThat(body(transport, 0), startsWith("["));
+  }
+
+  @Test
+  public void sendFullBatchesWithoutWaiting() throws Exception {
+    StubTransport transport = new StubTransport();
+    transport.respond(200, "{\"resource\":[\"fire\",\"ice\"]}");
+    FaunaClient client = client(transport, BatchPolicy.DEFAULT.withMaxSize(2).withWindow(1, TimeUnit.HOURS));
+
+    ListenableFuture<Value> fire = client.query(Get(Ref("classes/spells/1")));
+    ListenableFuture<Value> ice = client.query(Get(Ref("classes/spells/2")));
+
+    assertThat(fire.get(5, TimeUnit.SECONDS).asString(), is("fire"));
+    assertThat(ice.get(5, TimeUnit.SECONDS).asString(), is("ice"));
+    assertThat(transport.requestCount(), is(1));
+  }
+
+  @Test
+  public void isolateQueryErrors() throws Exception {
+    StubTransport transport = new StubTransport();
+    transport.respond(404, NOT_FOUND);
+    transport.respond(200, "{\"resource\":\"fire\"}");
+    transport.respond(404, NOT_FOUND);
+    FaunaClient client = client(transport, BatchPolicy.DEFAULT.withMaxSize(2).withWindow(1, TimeUnit.HOURS));
+
+    ListenableFuture<Value> fire = client.query(Get(Ref("classes/spells/1")));
+    ListenableFuture<Value> missing = client.query(Get(Ref("classes/spells/404")));
+
+    assertThat(fire.get(5, TimeUnit.SECONDS).asString(), is("fire"));
+    try {
+      missing.get(5, TimeUnit.SECONDS);
+      fail("Expected the missing instance not to be found.");
+    } catch (ExecutionException ex) {
+      assertThat(ex.getCause(), instanceOf(NotFoundException.class));
+    }
+    assertThat(transport.requestCount(), is(3));
+  }
+
+  @Test
+  public void sendWritesAgainWhenTheBatchIsAborted() throws Exception {
+    StubTransport transport = new StubTransport();
+    transport.respond(404, NOT_FOUND);
+    transport.respond(200, "{\"resource\":\"fire\"}");
+    transport.respond(200, "{\"resource\":\"created\"}");
+    FaunaClient client = client(transport, BatchPolicy.DEFAULT.withWrites(true).withMaxSize(2).withWindow(1, TimeUnit.HOURS));
+
+    ListenableFuture<Value> fire = client.query(Get(Ref("classes/spells/1")));
+    ListenableFuture<Value> created = client.query(Create(Ref("classes/spells"), Quote(ObjectV("data", ObjectV()))));
+
+    assertThat(fire.get(5, TimeUnit.SECONDS).asString(), is("fire"));
+    assertThat(created.get(5, TimeUnit.SECONDS).asString(), is("created"));
+    assertThat(transport.requestCount(), is(3));
+  }
+
+  @Test
+  public void sendOnlyReadsAgainWhenTheOutcomeOfTheBatchIsUnknown() throws Exception {
+    StubTransport transport = new StubTransport();
+    transport.respond(200, "{\"resource\":[\"fire\"]}");
+    transport.respond(200, "{\"resource\":\"fire\"}");
+    FaunaClient client = client(transport, BatchPolicy.DEFAULT.withWrites(true).withMaxSize(2).withWindow(1, TimeUnit.HOURS));
+
+    ListenableFuture<Value> fire = client.query(Get(Ref("classes/spells/1")));
+    ListenableFuture<Value> created = client.query(Create(Ref("classes/spells"), Quote(ObjectV("data", ObjectV()))));
+
+    assertThat(fire.get(5, TimeUnit.SECONDS).asString(), is("fire"));
+    try {
+      created.get(5, TimeUnit.SECONDS);
+      fail("Expected the write not to be sent again.");
+    } catch (ExecutionException ex) {
+      assertThat(ex.getCause(), instanceOf(UnknownException.class));
+    }
+    assertThat(transport.requestCount(), is(2));
+  }
+
+  @Test
+  public void failEveryQueryWhenTheBatchCannotBeSent() throws Exception {
+    StubTransport transport = new StubTransport();
+    transport.fail(new java.net.ConnectException("Connection refused"));
+    FaunaClient client = client(transport, BatchPolicy.DEFAULT.withMaxSize(2).withWindow(1, TimeUnit.HOURS));
+
+    ListenableFuture<Value> fire = client.query(Get(Ref("classes/spells/1")));
+    ListenableFuture<Value> ice = client.query(Get(Ref("classes/spells/2")));
+
+    for (ListenableFuture<Value> result : ImmutableList.of(fire, ice)) {
+      try {
+        result.get(5, TimeUnit.SECONDS);
+        fail("Expected the query to fail.");
+      } catch (ExecutionException ex) {
+        assertThat(ex.getCause(), instanceOf(UnavailableException.class));
+      }
+    }
+    assertThat(transport.requestCount(), is(1));
+  }
+
+  @Test
+  public void doNotBatchWritesByDefault() throws Exception {
+    StubTransport transport = new StubTransport();
+    transport.respond(200, "{\"resource\":\"created\"}");
+    FaunaClient client = client(transport, BatchPolicy.DEFAULT.withWindow(1, TimeUnit.HOURS));
+
+    Value result = client.query(Create(Ref("classes/spells"), Quote(ObjectV("data", ObjectV("name", StringV("fire"))))))
+      .get(5, TimeUnit.SECONDS);
+
+    assertThat(result.asString(), is("created"));
+    assertThat(transport.requestCount(), is(1));
+  }
+
+  @Test
+  public void sendPendingQueriesOnClose() throws Exception {
+    StubTransport transport = new StubTransport();
+    transport.respond(200, "{\"resource\":\"fire\"}");
+    FaunaClient client = client(transport, BatchPolicy.DEFAULT.withWindow(1, TimeUnit.HOURS));
+
+    ListenableFuture<Value> fire = client.query(Get(Ref("classes/spells/1")));
+    client.close();
+
+    assertThat(fire.get(5, TimeUnit.SECONDS).asString(), is("fire"));
+  }
+
+  private static FaunaClient client(StubTransport transport, BatchPolicy policy) throws Exception {
+    return FaunaClient.create(Connection.builder()
+      .withFaunaRoot("http://localhost:8443")
+      .withAuthToken("secret")
+      .withRetryPolicy(RetryPolicy.NONE)
+      .withTransport(transport)
+      .build(), policy);
+  }
+
+  private static String body(StubTransport transport, int index) {
+    return transport.bodies.get(index);
+  }
+}
@@ -0,0 +1,272 @@
+package com.faunadb.client;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.faunadb.client.types.Ref;
+import com.faunadb.client.types.Value;
+import com.faunadb.common.Connection;
+import com.faunadb.common.RetryPolicy;
+import com.google.common.util.concurrent.ListenableFuture;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.faunadb.client.query.Language.*;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class CacheSpec {
+  private final MetricRegistry registry = new MetricRegistry();
+
+  @Test
+  public void answerRepeatedReadsFromTheCache() throws Exception {
+    StubTransport transport = transport(2);
+    FaunaClient client = client(transport, CachePolicy.DEFAULT);
+
+    assertThat(read(client, "classes/spells/1").asString(), is("fire"));
+    assertThat(read(client, "classes/spells/1").asString(), is("fire"));
+
+    assertThat(transport.requestCount(), is(1));
+    assertThat(registry.meter("fauna-query-cache.hits").getCount(), is(1L));
+    assertThat(registry.meter("fauna-query-cache.misses").getCount(), is(1L));
+    assertThat((Double) gauge("fauna-query-cache.hit-ratio").getValue(), is(0.5));
+    assertThat(registry.counter("fauna-query-cache.entries").getCount(), is(1L));
+    assertThat(registry.counter("fauna-query-cache.bytes").getCount(), greaterThan(0L));
+  }
+
+  @Test
+  public void expireResultsAfterTheirTimeToLive() throws Exception {
+    StubTransport transport = transport(2);
+    FaunaClient client = client(transport, CachePolicy.DEFAULT.withTimeToLive(50, TimeUnit.MILLISECONDS));
+
+    read(client, "classes/spells/1");
+    Thread.sleep(100);
+    read(client, "classes/spells/1");
+
+    assertThat(transport.requestCount(), is(2));
+  }
+
+  @Test
+  public void invalidateResultsByRef() throws Exception {
+    StubTransport transport = transport(3);
+    FaunaClient client = client(transport, CachePolicy.DEFAULT);
+
+    read(client, "classes/spells/1");
+    read(client, "classes/spells/2");
+    client.invalidate(Ref("classes/spells/1"));
+    read(client, "classes/spells/1");
+    read(client, "classes/spells/2");
+
+    assertThat(transport.requestCount(), is(3));
+    assertThat(registry.meter("fauna-query-cache.invalidations").getCount(), is(1L));
+  }
+
+  @Test
+  public void invalidateResultsOnWritesToTheirRefs() throws Exception {
+    StubTransport transport = transport(4);
+    FaunaClient client = client(transport, CachePolicy.DEFAULT);
+
+    read(client, "classes/spells/1");
+    read(client, "classes/spells/2");
+    client.query(Update(Ref("classes/spells/1"), Quote(ObjectV("data", ObjectV("name", StringV("ice"))))))
+      .get(5, TimeUnit.SECONDS);
+    read(client, "classes/spells/1");
+    read(client, "classes/spells/2");
+
+    assertThat(transport.requestCount(), is(4));
+  }
+
+  @Test
+  public void cacheResultsFetchedWhileOtherRefsWereInvalidated() throws Exception {
+    StubTransport transport = transport(1);
+    FaunaClient client = client(transport, CachePolicy.DEFAULT);
+
+    transport.hold();
+    ListenableFuture<Value> fire = client.query(Get(Ref("classes/spells/1")));
+    client.invalidate(Ref("classes/spells/2"));
+    transport.release();
+    fire.get(5, TimeUnit.SECONDS);
+    awaitEntries(1);
+    read(client, "classes/spells/1");
+
+    assertThat(transport.requestCount(), is(1));
+  }
+
+  @Test
+  public void doNotCacheResultsFetchedWhileTheirRefsWereInvalidated() throws Exception {
+    StubTransport transport = transport(2);
+    FaunaClient client = client(transport, CachePolicy.DEFAULT);
+
+    transport.hold();
+    ListenableFuture<Value> fire = client.query(Get(Ref("classes/spells/1")));
+    client.invalidate(Ref("classes/spells/1"));
+    transport.release();
+    fire.get(5, TimeUnit.SECONDS);
+    read(client, "classes/spells/1");
+
+    assertThat(transport.requestCount(), is(2));
+  }
+
+  @Test
+  public void shareTheCacheWithSessionClientsByTheirSecret() throws Exception {
+    StubTransport transport = transport(3);
+    FaunaClient client = client(transport, CachePolicy.DEFAULT);
+    FaunaClient tenant = client.newSessionClient("tenant");
+    FaunaClient sameTenant = client.newSessionClient("tenant");
+    FaunaClient otherTenant = client.newSessionClient("other");
+
+    read(tenant, "classes/spells/1");
+    read(sameTenant, "classes/spells/1");
+    read(otherTenant, "classes/spells/1");
+    read(client, "classes/spells/1");
+    read(client, "classes/spells/1");
+
+    assertThat(transport.requestCount(), is(3));
+    assertThat(registry.counter("fauna-query-cache.entries").getCount(), is(3L));
+
+    tenant.invalidate(Ref("classes/spells/1"));
+    assertThat(registry.counter("fauna-query-cache.entries").getCount(), is(0L));
+  }
+
+  @Test
+  public void cacheReadsAgainOnceOneFailsToBeSent() throws Exception {
+    StubTransport transport = transport(1);
+    FaunaClient client = client(transport, CachePolicy.DEFAULT);
+
+    transport.thrown = new IllegalStateException("Closed");
+    try {
+      read(client, "classes/spells/1");
+      fail("Expected the query to fail.");
+    } catch (IllegalStateException ex) {
+      assertThat(ex.getMessage(), is("Closed"));
+    }
+
+    transport.thrown = null;
+    read(client, "classes/spells/1");
+    awaitEntries(1);
+    read(client, "classes/spells/1");
+
+    assertThat(transport.requestCount(), is(1));
+    assertThat(registry.meter("fauna-query-cache.hits").getCount(), is(1L));
+  }
+
+  @Test
+  public void doNotCacheTheCurrentTime() throws Exception {
+    StubTransport transport = transport(2);
+    FaunaClient client = client(transport, CachePolicy.DEFAULT);
+
+    client.query(Time(StringV("now"))).get(5, TimeUnit.SECONDS);
+    client.query(Time(StringV("now"))).get(5, TimeUnit.SECONDS);
+
+    assertThat(transport.requestCount(), is(2));
+  }
+
+  @Test
+  public void doNotCacheReadsThatWritesCannotInvalidate() throws Exception {
+    StubTransport transport = transport(2);
+    FaunaClient client = client(transport, CachePolicy.DEFAULT);
+    Value count = Count(Match(StringV("fire"), Ref("indexes/spells_by_element")));
+
+    client.query(count).get(5, TimeUnit.SECONDS);
+    client.query(count).get(5, TimeUnit.SECONDS);
+
+    assertThat(transport.requestCount(), is(2));
+    assertThat(registry.counter("fauna-query-cache.entries").getCount(), is(0L));
+  }
+
+  @Test
+  public void cachePagesOfABoundedSize() throws Exception {
+    StubTransport transport = transport(2);
+    FaunaClient client = client(transport, CachePolicy.DEFAULT);
+    Value page = Paginate(Match(StringV("fire"), Ref("indexes/spells_by_element"))).withSize(10).build();
+
+    client.query(page).get(5, TimeUnit.SECONDS);
+    awaitEntries(1);
+    client.query(page).get(5, TimeUnit.SECONDS);
+
+    assertThat(transport.requestCount(), is(1));
+  }
+
+  @Test
+  public void keepFrequentlyReadResultsThroughAScan() throws Exception {
+    StubTransport transport = transport(1000);
+    FaunaClient client = client(transport, CachePolicy.DEFAULT.withMaxEntries(100));
+
+    for (int round = 0; round < 3; round++) {
+      for (int i = 0; i < 50; i++) {
+        read(client, "classes/spells/" + i);
+      }
+    }
+    for (int i = 1000; i < 1300; i++) {
+      read(client, "classes/spells/" + i);
+    }
+
+    int before = transport.requestCount();
+    for (int i = 0; i < 50; i++) {
+      read(client, "classes/spells/" + i);
+    }
+
+    assertThat(transport.requestCount() - before, lessThan(5));
+    assertThat(registry.counter("fauna-query-cache.entries").getCount(), lessThanOrEqualTo(100L));
+    assertThat(registry.meter("fauna-query-cache.evictions").getCount(), greaterThan(0L));
+  }
+
+  @Test
+  public void stopReportingOnClose() throws Exception {
+    FaunaClient client = client(transport(0), CachePolicy.DEFAULT);
+
+    client.close();
+
+    assertThat(registry.getGauges().containsKey("fauna-query-cache.hit-ratio"), is(false));
+  }
+
+  @Test
+  public void keepReportingUntilEverySessionClientIsClosed() throws Exception {
+    FaunaClient client = client(transport(0), CachePolicy.DEFAULT);
+    FaunaClient session = client.newSessionClient("tenant");
+
+    client.close();
+    client.close();
+    assertThat(registry.getGauges().containsKey("fauna-query-cache.hit-ratio"), is(true));
+
+    session.close();
+    assertThat(registry.getGauges().containsKey("fauna-query-cache.hit-ratio"), is(false));
+  }
+
+  private static Value read(FaunaClient client, String ref) throws Exception {
+    return client.query(Get(Ref(ref))).get(5, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Waits for results answered from another thread to be cached, since that happens just after they are returned.
+   */
+  private void awaitEntries(long entries) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (registry.counter("fauna-query-cache.entries").getCount() < entries && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+  }
+
+  private static StubTransport transport(int responses) {
+    StubTransport transport = new StubTransport();
+    for (int i = 0; i < responses; i++) {
+      transport.respond(200, "{\"resource\":\"fire\"}");
+    }
+    return transport;
+  }
+
+  private Gauge<?> gauge(String name) {
+    return registry.getGauges().get(name);
+  }
+
+  private FaunaClient client(StubTransport transport, CachePolicy policy) throws Exception {
+    return FaunaClient.create(Connection.builder()
+      .withFaunaRoot("http://localhost:8443")
+      .withAuthToken("secret")
+      .withRetryPolicy(RetryPolicy.NONE)
+      .withMetrics(registry)
+      .withTransport(transport)
+      .build(), BatchPolicy.NONE, Deduplication.NONE, policy);
+  }
+}
@@ -0,0 +1,194 @@
+package com.faunadb.client;
+
+import com.codahale.metrics.MetricRegistry;
+import com.faunadb.common.CircuitBreakerListener;
+import com.faunadb.common.CircuitBreakerPolicy;
+import com.faunadb.common.CircuitOpenException;
+import com.faunadb.common.CircuitState;
+import com.faunadb.common.Connection;
+import com.faunadb.common.RetryPolicy;
+import com.google.common.util.concurrent.ListenableFuture;
+import org.asynchttpclient.Response;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class CircuitBreakerSpec {
+  private static final String NODE = "localhost:8443";
+  private static final String UNAVAILABLE = "{\"errors\":[{\"code\":\"unavailable\",\"description\":\"Unavailable\"}]}";
+
+  private static final CircuitBreakerPolicy POLICY = CircuitBreakerPolicy.DEFAULT
+    .withWindow(4, 4)
+    .withFailureRateThreshold(0.5)
+    .withOpenDuration(100, TimeUnit.MILLISECONDS)
+    .withHalfOpenCalls(2);
+
+  private final StubTransport transport = new StubTransport();
+  private final MetricRegistry registry = new MetricRegistry();
+  private final List<String> transitions = new CopyOnWriteArrayList<>();
+
+  @Test
+  public void openOnceEnoughRequestsFail() throws Exception {
+    Connection connection = connection(POLICY);
+
+    transport.respond(503, UNAVAILABLE);
+    transport.respond(200, "{}");
+    transport.respond(503, UNAVAILABLE);
+    send(connection, 3);
+    assertThat(transitions, empty());
+    assertThat(state(), is((Object) "CLOSED"));
+
+    transport.respond(200, "{}");
+    send(connection, 1);
+    assertThat(transitions, contains("CLOSED -> OPEN"));
+    assertThat(state(), is((Object) "OPEN"));
+    assertThat(registry.meter(metric("circuit-opened")).getCount(), is(1L));
+
+    assertCircuitOpen(connection.get("/"));
+    assertThat(transport.requestCount(), is(4));
+  }
+
+  @Test
+  public void stayClosedWhileFewerRequestsFailThanTheThreshold() throws Exception {
+    Connection connection = connection(POLICY);
+
+    transport.respond(503, UNAVAILABLE);
+    send(connection, 12);
+
+    assertThat(transitions, empty());
+    assertThat(state(), is((Object) "CLOSED"));
+  }
+
+  @Test
+  public void closeOnceTheTrialRequestsSucceed() throws Exception {
+    Connection connection = connection(POLICY);
+    open(connection);
+
+    Thread.sleep(150);
+    send(connection, 1);
+    assertThat(state(), is((Object) "HALF_OPEN"));
+    send(connection, 1);
+
+    assertThat(transitions, contains("CLOSED -> OPEN", "OPEN -> HALF_OPEN", "HALF_OPEN -> CLOSED"));
+    assertThat(state(), is((Object) "CLOSED"));
+    assertThat(registry.meter(metric("circuit-half-opened")).getCount(), is(1L));
+    assertThat(registry.meter(metric("circuit-closed")).getCount(), is(1L));
+  }
+
+  @Test
+  public void reopenIfATrialRequestFails() throws Exception {
+    Connection connection = connection(POLICY);
+    open(connection);
+
+    Thread.sleep(150);
+    transport.respond(503, UNAVAILABLE);
+    send(connection, 1);
+
+    assertThat(transitions, contains("CLOSED -> OPEN", "OPEN -> HALF_OPEN", "HALF_OPEN -> OPEN"));
+    assertCircuitOpen(connection.get("/"));
+  }
+
+  @Test
+  public void sendNoMoreTrialRequestsThanThePolicyAllows() throws Exception {
+    Connection connection = connection(POLICY);
+    open(connection);
+    int sent = transport.requestCount();
+
+    Thread.sleep(150);
+    transport.hold();
+    ListenableFuture<Response> first = connection.get("/");
+    ListenableFuture<Response> second = connection.get("/");
+    assertCircuitOpen(connection.get("/"));
+    assertThat(transport.requestCount(), is(sent + 2));
+
+    transport.release();
+    first.get(5, TimeUnit.SECONDS);
+    second.get(5, TimeUnit.SECONDS);
+    assertThat(transitions, contains("CLOSED -> OPEN", "OPEN -> HALF_OPEN", "HALF_OPEN -> CLOSED"));
+  }
+
+  @Test
+  public void openOnceEnoughRequestsAreSlow() throws Exception {
+    Connection connection = connection(CircuitBreakerPolicy.DEFAULT
+      .withWindow(2, 2)
+      .withSlowCallThreshold(1.0, 50, TimeUnit.MILLISECONDS));
+
+    for (int i = 0; i < 2; i++) {
+      transport.hold();
+      ListenableFuture<Response> slow = connection.get("/");
+      Thread.sleep(60);
+      transport.release();
+      assertThat(slow.get(5, TimeUnit.SECONDS).getStatusCode(), is(200));
+    }
+
+    assertThat(transitions, contains("CLOSED -> OPEN"));
+  }
+
+  @Test
+  public void neverOpenWhenDisabled() throws Exception {
+    Connection connection = connection(CircuitBreakerPolicy.NONE);
+
+    for (int i = 0; i < 200; i++) {
+      transport.respond(503, UNAVAILABLE);
+    }
+    send(connection, 200);
+
+    assertThat(transitions, empty());
+    assertThat(registry.getGauges().get(metric("circuit-state")), nullValue());
+  }
+
+  private Connection connection(CircuitBreakerPolicy policy) throws Exception {
+    return Connection.builder()
+      .withFaunaRoot("http://" + NODE)
+      .withRetryPolicy(RetryPolicy.NONE)
+      .withCircuitBreakerPolicy(policy)
+      .withCircuitBreakerListener(new CircuitBreakerListener() {
+        @Override
+        public void onStateChange(String endpoint, CircuitState from, CircuitState to) {
+          assertThat(endpoint, is(NODE));
+          transitions.add(from + " -> " + to);
+        }
+      })
+      .withMetrics(registry)
+      .withTransport(transport)
+      .build();
+  }
+
+  private void open(Connection connection) throws Exception {
+    for (int i = 0; i < 4; i++) {
+      transport.respond(503, UNAVAILABLE);
+    }
+    send(connection, 4);
+    assertThat(state(), is((Object) "OPEN"));
+  }
+
+  private static void send(Connection connection, int requests) throws Exception {
+    for (int i = 0; i < requests; i++) {
+      connection.get("/").get(5, TimeUnit.SECONDS);
+    }
+  }
+
+  private static void assertCircuitOpen(ListenableFuture<Response> result) throws Exception {
+    try {
+      result.get(5, TimeUnit.SECONDS);
+      fail("Expected the circuit breaker to be open.");
+    } catch (ExecutionException ex) {
+      assertThat(ex.getCause(), instanceOf(CircuitOpenException.class));
+    }
+  }
+
+  private Object state() {
+    return registry.getGauges().get(metric("circuit-state")).getValue();
+  }
+
+  private static String metric(String name) {
+    return MetricRegistry.name("fauna-endpoint", NODE, name);
+  }
+}
@@ -0,0 +1,152 @@
+package com.faunadb.client;
+
+import com.codahale.metrics.MetricRegistry;
+import com.faunadb.client.errors.DeadlineExceededException;
+import com.faunadb.client.errors.UnavailableException;
+import com.faunadb.client.types.Value;
+import com.faunadb.common.ConcurrencyPolicy;
+import com.faunadb.common.Connection;
+import com.faunadb.common.RequestListener;
+import com.faunadb.common.RequestPhase;
+import com.faunadb.common.RequestTrace;
+import com.faunadb.common.RetryPolicy;
+import com.google.common.util.concurrent.ListenableFuture;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static com.faunadb.client.query.Language.*;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class DeadlineSpec {
+  private static final String UNAVAILABLE = "{\"errors\":[{\"code\":\"unavailable\",\"description\":\"Unavailable\"}]}";
+
+  private final StubTransport transport = new StubTransport();
+  private final MetricRegistry registry = new MetricRegistry();
+
+  @Test
+  public void failQueriesThatAreNotAnsweredByTheirDeadline() throws Exception {
+    FaunaClient client = client(RetryPolicy.NONE, ConcurrencyPolicy.NONE);
+
+    transport.hold();
+    ListenableFuture<Value> result = client.query(Get(Ref("classes/spells/1")), 50, TimeUnit.MILLISECONDS);
+    assertDeadlineExceeded(result);
+    transport.release();
+
+    assertThat(transport.requestCount(), is(1));
+    assertThat(awaitCount("fauna-request-deadline-exceeded", 1), is(1L));
+  }
+
+  @Test
+  public void dropQueriesWhoseDeadlineHasAlreadyPassed() throws Exception {
+    FaunaClient client = client(RetryPolicy.NONE, ConcurrencyPolicy.NONE);
+
+    assertDeadlineExceeded(client.query(Get(Ref("classes/spells/1")), 0, TimeUnit.MILLISECONDS));
+    assertThat(transport.requestCount(), is(0));
+    assertThat(registry.meter("fauna-request-dropped").getCount(), is(1L));
+  }
+
+  @Test
+  public void dropQueuedQueriesOnceTheirDeadlinePasses() throws Exception {
+    FaunaClient client = client(RetryPolicy.NONE, ConcurrencyPolicy.DEFAULT.withLimits(1, 1, 1));
+
+    transport.hold();
+    ListenableFuture<Value> first = client.query(Get(Ref("classes/spells/1")));
+    ListenableFuture<Value> queued = client.query(Get(Ref("classes/spells/2")), 50, TimeUnit.MILLISECONDS);
+    assertDeadlineExceeded(queued);
+
+    transport.respond(200, "{\"resource\":\"fire\"}");
+    transport.release();
+    first.get(5, TimeUnit.SECONDS);
+
+    assertThat(awaitCount("fauna-request-dropped", 1), is(1L));
+    assertThat(transport.requestCount(), is(1));
+  }
+
+  @Test
+  public void stopRetryingAtTheDeadline() throws Exception {
+    for (int i = 0; i < 100; i++) {
+      transport.respond(503, UNAVAILABLE);
+    }
+    FaunaClient client = client(
+      RetryPolicy.DEFAULT.withMaxAttempts(100).withBackoff(100, 100, TimeUnit.MILLISECONDS), ConcurrencyPolicy.NONE);
+
+    try {
+      client.query(Get(Ref("classes/spells/1")), 500, TimeUnit.MILLISECONDS).get(5, TimeUnit.SECONDS);
+      fail("Expected the query to fail.");
+    } catch (ExecutionException ex) {
+      assertThat(ex.getCause(), anyOf(instanceOf(UnavailableException.class), instanceOf(DeadlineExceededException.class)));
+    }
+
+    int sent = transport.requestCount();
+    Thread.sleep(300);
+    assertThat(transport.requestCount(), is(sent));
+    assertThat(sent, both(greaterThan(1)).and(lessThanOrEqualTo(5)));
+  }
+
+  @Test
+  public void failAQueryThatCouldNotBeSentOnlyOnce() throws Exception {
+    final List<Throwable> failures = new CopyOnWriteArrayList<>();
+    FaunaClient client = FaunaClient.create(Connection.builder()
+      .withFaunaRoot("http://localhost:8443")
+      .withAuthToken("secret")
+      .withRetryPolicy(RetryPolicy.NONE)
+      .withRequestListener(new RequestListener() {
+        @Override
+        public void onPhase(RequestPhase phase, RequestTrace trace) {
+          if (phase == RequestPhase.FAILED) {
+            failures.add(trace.failure());
+          }
+        }
+      })
+      .withTransport(transport)
+      .build());
+    transport.thrown = new IllegalStateException("Closed.");
+
+    try {
+      client.query(Get(Ref("classes/spells/1")), 50, TimeUnit.MILLISECONDS);
+      fail("Expected the query to fail.");
+    } catch (IllegalStateException ex) {
+      assertThat(ex.getMessage(), is("Closed."));
+    }
+
+    Thread.sleep(150);
+    assertThat(failures, contains((Throwable) transport.thrown));
+  }
+
+  private FaunaClient client(RetryPolicy retryPolicy, ConcurrencyPolicy concurrencyPolicy) throws Exception {
+    return FaunaClient.create(Connection.builder()
+      .withFaunaRoot("http://localhost:8443")
+      .withAuthToken("secret")
+      .withRetryPolicy(retryPolicy)
+      .withConcurrencyPolicy(concurrencyPolicy)
+      .withMetrics(registry)
+      .withTransport(transport)
+      .build());
+  }
+
+  /**
+   * Waits for a meter to reach {@code count}, since meters are marked just after the request they count completes.
+   */
+  private long awaitCount(String meter, long count) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (registry.meter(meter).getCount() < count && System.nanoTime() < deadline) {
+      Thread.sleep(5);
+    }
+    return registry.meter(meter).getCount();
+  }
+
+  private static void assertDeadlineExceeded(ListenableFuture<?> result) throws Exception {
+    try {
+      result.get(5, TimeUnit.SECONDS);
+      fail("Expected the query to pass its deadline.");
+    } catch (ExecutionException ex) {
+      assertThat(ex.getCause(), instanceOf(DeadlineExceededException.class));
+    }
+  }
+}
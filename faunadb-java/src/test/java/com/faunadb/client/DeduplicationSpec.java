@@ -0,0 +1,148 @@
+package com.faunadb.client;
+
+import com.codahale.metrics.MetricRegistry;
+import com.faunadb.client.types.Value;
+import com.faunadb.common.Connection;
+import com.faunadb.common.RetryPolicy;
+import com.google.common.util.concurrent.ListenableFuture;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.faunadb.client.query.Language.*;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class DeduplicationSpec {
+  private final MetricRegistry registry = new MetricRegistry();
+
+  @Test
+  public void shareIdenticalReadsInFlight() throws Exception {
+    StubTransport transport = new StubTransport();
+    transport.respond(200, "{\"resource\":\"fire\"}");
+    FaunaClient client = client(transport, Deduplication.READS);
+
+    transport.hold();
+    ListenableFuture<Value> first = client.query(Get(Ref("classes/spells/1")));
+    ListenableFuture<Value> second = client.query(Get(Ref("classes/spells/1")));
+    transport.release();
+
+    assertThat(first.get(5, TimeUnit.SECONDS).asString(), is("fire"));
+    assertThat(second.get(5, TimeUnit.SECONDS).asString(), is("fire"));
+    assertThat(transport.requestCount(), is(1));
+    assertThat(registry.meter("fauna-query-dedup.hits").getCount(), is(1L));
+    assertThat(registry.meter("fauna-query-dedup.misses").getCount(), is(1L));
+  }
+
+  @Test
+  public void matchObjectsWhateverTheOrderOfTheirFields() throws Exception {
+    StubTransport transport = new StubTransport();
+    transport.respond(200, "{\"resource\":\"fire\"}");
+    transport.respond(200, "{\"resource\":\"fire\"}");
+    FaunaClient client = client(transport, Deduplication.READS);
+
+    transport.hold();
+    ListenableFuture<Value> first = client.query(Quote(ObjectV("name", StringV("fire"), "element", StringV("fire"))));
+    ListenableFuture<Value> second = client.query(Quote(ObjectV("element", StringV("fire"), "name", StringV("fire"))));
+    transport.release();
+
+    first.get(5, TimeUnit.SECONDS);
+    second.get(5, TimeUnit.SECONDS);
+    assertThat(transport.requestCount(), is(1));
+  }
+
+  @Test
+  public void sendReadsAgainOnceTheyComplete() throws Exception {
+    StubTransport transport = new StubTransport();
+    transport.respond(200, "{\"resource\":\"fire\"}");
+    transport.respond(200, "{\"resource\":\"fire\"}");
+    FaunaClient client = client(transport, Deduplication.READS);
+
+    client.query(Get(Ref("classes/spells/1"))).get(5, TimeUnit.SECONDS);
+    client.query(Get(Ref("classes/spells/1"))).get(5, TimeUnit.SECONDS);
+
+    assertThat(transport.requestCount(), is(2));
+  }
+
+  @Test
+  public void doNotShareWrites() throws Exception {
+    StubTransport transport = new StubTransport();
+    transport.respond(200, "{\"resource\":\"fire\"}");
+    transport.respond(200, "{\"resource\":\"fire\"}");
+    FaunaClient client = client(transport, Deduplication.READS);
+    Value create = Create(Ref("classes/spells"), Quote(ObjectV("data", ObjectV("name", StringV("fire")))));
+
+    transport.hold();
+    ListenableFuture<Value> first = client.query(create);
+    ListenableFuture<Value> second = client.query(create);
+    transport.release();
+
+    first.get(5, TimeUnit.SECONDS);
+    second.get(5, TimeUnit.SECONDS);
+    assertThat(transport.requestCount(), is(2));
+  }
+
+  @Test
+  public void doNotShareReadsByDefault() throws Exception {
+    StubTransport transport = new StubTransport();
+    transport.respond(200, "{\"resource\":\"fire\"}");
+    transport.respond(200, "{\"resource\":\"fire\"}");
+    FaunaClient client = client(transport, Deduplication.NONE);
+
+    transport.hold();
+    ListenableFuture<Value> first = client.query(Get(Ref("classes/spells/1")));
+    ListenableFuture<Value> second = client.query(Get(Ref("classes/spells/1")));
+    transport.release();
+
+    first.get(5, TimeUnit.SECONDS);
+    second.get(5, TimeUnit.SECONDS);
+    assertThat(transport.requestCount(), is(2));
+  }
+
+  @Test
+  public void keepSharedReadsWhenOneCallerCancels() throws Exception {
+    StubTransport transport = new StubTransport();
+    transport.respond(200, "{\"resource\":\"fire\"}");
+    FaunaClient client = client(transport, Deduplication.READS);
+
+    transport.hold();
+    ListenableFuture<Value> first = client.query(Get(Ref("classes/spells/1")));
+    ListenableFuture<Value> second = client.query(Get(Ref("classes/spells/1")));
+    first.cancel(true);
+    transport.release();
+
+    assertThat(second.get(5, TimeUnit.SECONDS).asString(), is("fire"));
+    assertThat(first.isCancelled(), is(true));
+  }
+
+  @Test
+  public void sendReadsAgainOnceOneFailsToBeSent() throws Exception {
+    StubTransport transport = new StubTransport();
+    transport.respond(200, "{\"resource\":\"fire\"}");
+    FaunaClient client = client(transport, Deduplication.READS);
+
+    transport.thrown = new IllegalStateException("Closed");
+    try {
+      client.query(Get(Ref("classes/spells/1")));
+      fail("Expected the query to fail.");
+    } catch (IllegalStateException ex) {
+      assertThat(ex.getMessage(), is("Closed"));
+    }
+
+    transport.thrown = null;
+    assertThat(client.query(Get(Ref("classes/spells/1"))).get(5, TimeUnit.SECONDS).asString(), is("fire"));
+    assertThat(transport.requestCount(), is(1));
+    assertThat(registry.meter("fauna-query-dedup.hits").getCount(), is(0L));
+  }
+
+  private FaunaClient client(StubTransport transport, Deduplication deduplication) throws Exception {
+    return FaunaClient.create(Connection.builder()
+      .withFaunaRoot("http://localhost:8443")
+      .withAuthToken("secret")
+      .withRetryPolicy(RetryPolicy.NONE)
+      .withMetrics(registry)
+      .withTransport(transport)
+      .build(), BatchPolicy.NONE, deduplication);
+  }
+}
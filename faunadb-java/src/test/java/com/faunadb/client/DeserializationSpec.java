@@ -1,5 +1,7 @@
 package com.faunadb.client;
 
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.guava.GuavaModule;
 import com.faunadb.client.response.Class;
@@ -7,6 +9,15 @@ import com.faunadb.client.response.*;
 import com.faunadb.client.types.LazyValue;
 import com.faunadb.client.types.Ref;
 import com.faunadb.client.types.Value;
+import com.faunadb.client.types.Value.BooleanV;
+import com.faunadb.client.types.Value.DateV;
+import com.faunadb.client.types.Value.DoubleV;
+import com.faunadb.client.types.Value.LongV;
+import com.faunadb.client.types.Value.StringV;
+import com.faunadb.client.types.Value.TsV;
+import com.faunadb.client.types.ValueModule;
+import com.faunadb.common.Connection;
+import com.faunadb.common.RetryPolicy;
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
@@ -16,14 +27,49 @@ import java.io.IOException;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
+import java.util.concurrent.TimeUnit;
 
+import static com.faunadb.client.query.Language.ArrayV;
+import static com.faunadb.client.query.Language.LongV;
+import static com.faunadb.client.query.Language.NullV;
+import static com.faunadb.client.query.Language.Paginate;
+import static com.faunadb.client.query.Language.Ref;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 
 public class DeserializationSpec {
   ObjectMapper json = new ObjectMapper().registerModule(new GuavaModule());
 
+  @Test
+  public void decodeEqualValuesFromTheSameResponse() throws IOException {
+    ObjectMapper values = new ObjectMapper().registerModule(new GuavaModule()).registerModule(new ValueModule());
+    String toDeserialize = "{\"ref\":{\"@ref\":\"classes/spells/1\"},\"ts\":1432763268186882," +
+      "\"data\":{\"name\":\"fire\",\"power\":2.5,\"hot\":true,\"at\":{\"@ts\":\"1970-01-01T00:00:00.000+00:00\"}," +
+      "\"on\":{\"@date\":\"1970-01-01\"},\"tags\":[\"a\",null],\"bad\":{\"@ts\":\"never\"}}}";
+
+    Value first = values.readValue(toDeserialize, Value.class);
+    Value second = values.readValue(toDeserialize, Value.class);
+
+    assertThat(first, is(second));
+    assertThat(first.hashCode(), is(second.hashCode()));
+    assertThat(first.get("data").get("name"), is((Value) StringV.create("fire")));
+    assertThat(first.get("data").get("power"), is((Value) DoubleV.create(2.5)));
+    assertThat(first.get("data").get("hot"), is((Value) BooleanV.create(true)));
+    assertThat(first.get("ts"), is((Value) LongV.create(1432763268186882L)));
+    assertThat(first.get("data").get("at"), is((Value) TsV.create(Instant.EPOCH)));
+    assertThat(first.get("data").get("at").hashCode(), is(TsV.create(Instant.EPOCH).hashCode()));
+    assertThat(first.get("data").get("on"), is((Value) DateV.create(LocalDate.ofEpochDay(0))));
+    assertThat(first.get("data").get("bad"), is(second.get("data").get("bad")));
+    assertThat(first.get("data").get("name"), not((Value) StringV.create("ice")));
+    assertThat(first.get("data").get("at"), not(first.get("data").get("bad")));
+  }
+
   @Test
   public void deserializeInstanceResponseWithRefs() throws IOException {
     String toDeserialize = "{\n\t\t\"ref\": {\n\t\t\t\"@ref\": \"classes/spells/93044099947429888\"\n\t\t},\n\t\t\"class\": {\n\t\t\t\"@ref\": \"classes/spells\"\n\t\t},\n\t\t\"ts\": 1424992618413105,\n\t\t\"data\": {\n\t\t\t\"refField\": {\n\t\t\t\t\"@ref\": \"classes/spells/93044099909681152\"\n\t\t\t}\n\t\t}\n\t}";
@@ -311,4 +357,110 @@ public class DeserializationSpec {
     assertThat(token.instance(), is(Ref.create("classes/spells/119498417185488896")));
     assertThat(token.secret(), is("k6oBn4SsobAAAAADoQS0L5P7oOt-_GnVDxRNPGFjVEWTMK4"));
   }
+
+  @Test
+  public void decodeConcreteValuesInOnePass() throws IOException {
+    String toDeserialize = "{\"ref\":{\"@ref\":\"classes/spells/1\"},\"class\":{\"@ref\":\"classes/spells\"},\"ts\":1," +
+      "\"data\":{\"at\":{\"@ts\":\"1970-01-01T00:05:00Z\"},\"on\":{\"@date\":\"1970-01-03\"}," +
+      "\"escaped\":{\"@obj\":{\"@ref\":\"data\"}},\"list\":[1,2.5,true,null],\"missing\":null}}";
+    Value parsed = json.readValue(toDeserialize, Value.class);
+
+    assertThat(parsed, instanceOf(Value.ObjectV.class));
+    assertThat(parsed.get("ref"), is((Value) Ref.create("classes/spells/1")));
+    assertThat(parsed.get("data").get("at").asTs(), is(Instant.EPOCH.plus(5, ChronoUnit.MINUTES)));
+    assertThat(parsed.get("data").get("on").asDate(), is(LocalDate.ofEpochDay(2)));
+    assertThat(parsed.get("data").get("escaped").get("@ref").asString(), is("data"));
+    assertThat(parsed.get("data").get("escaped").asRef(), nullValue());
+    assertThat(parsed.get("data").get("list").get(0).asLong(), is(1L));
+    assertThat(parsed.get("data").get("list").get(1).asDouble(), is(2.5));
+    assertThat(parsed.get("data").get("list").get(2).asBoolean(), is(true));
+    assertThat(parsed.get("data").get("list").get(3), is((Value) NullV()));
+    assertThat(parsed.get("data").get("missing"), is((Value) NullV()));
+
+    Instance instance = parsed.asInstance();
+    assertThat(instance.ref(), is(Ref.create("classes/spells/1")));
+    assertThat(instance.data().get("on").asDate(), is(LocalDate.ofEpochDay(2)));
+    assertThat(parsed.asPage(), nullValue());
+  }
+
+  @Test
+  public void decodePagesOfSetsInOnePass() throws IOException {
+    String toDeserialize = "{\"data\":[{\"@set\":{\"match\":\"fire\",\"index\":{\"@ref\":\"indexes/spells_by_element\"}}}]," +
+      "\"after\":{\"@ref\":\"classes/spells/2\"}}";
+    Value parsed = json.readValue(toDeserialize, Value.class);
+
+    Page page = parsed.asPage();
+    assertThat(page.after(), is(Optional.<Value>of(Ref.create("classes/spells/2"))));
+    assertThat(page.before(), is(Optional.<Value>absent()));
+    assertThat(page.data().get(0).asSet().parameters().get("index"), is((Value) Ref.create("indexes/spells_by_element")));
+    assertThat(parsed.asSet(), nullValue());
+  }
+
+  @Test
+  public void decodeSpecialValuesByTheirOwnType() throws IOException {
+    assertThat(json.readValue("{\"@ref\":\"classes/spells\"}", Ref.class), is(Ref.create("classes/spells")));
+    assertThat(json.readValue("null", Value.class), is((Value) NullV()));
+    assertThat(json.readValue("{\"@ref\":\"classes/spells\",\"other\":1}", Value.class).get("other").asLong(), is(1L));
+  }
+
+  @Test
+  public void decodeResponseTypesStraightFromTheParser() throws IOException {
+    Page page = json.readValue("{\"data\":[{\"@ref\":\"classes/spells/1\"}],\"before\":null," +
+      "\"after\":{\"@ref\":\"classes/spells/2\"}}", Page.class);
+    assertThat(page.data().get(0).asRef(), is(Ref.create("classes/spells/1")));
+    assertThat(page.before(), is(Optional.<Value>absent()));
+    assertThat(page.after(), is(Optional.<Value>of(Ref.create("classes/spells/2"))));
+
+    Index index = json.readValue("{\"ref\":{\"@ref\":\"indexes/spells_by_name\"},\"class\":{\"@ref\":\"indexes\"}," +
+      "\"ts\":1,\"unique\":true,\"name\":\"spells_by_name\",\"source\":{\"@ref\":\"classes/spells\"}," +
+      "\"terms\":[{\"field\":[\"data\",\"name\"]},{\"path\":\"data.element\"}]}", Index.class);
+    assertThat(index.ref(), is(Ref.create("indexes/spells_by_name")));
+    assertThat(index.unique(), is(true));
+    assertThat(index.active(), nullValue());
+    assertThat(index.source(), is(Ref.create("classes/spells")));
+    assertThat(index.terms(), is(ImmutableList.of(ImmutableMap.of("path", "data.name"),
+      ImmutableMap.of("path", "data.element"))));
+    assertThat(index.data(), is(ImmutableMap.<String, Value>of()));
+  }
+
+  @Test
+  public void skipUnknownFieldsOnlyWhenAllowed() throws IOException {
+    String toDeserialize = "{\"resource\":{\"@ref\":\"classes/spells/1\"},\"action\":\"create\",\"ts\":1," +
+      "\"extra\":{\"nested\":[1,2]}}";
+
+    Event event = json.copy().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+      .readValue(toDeserialize, Event.class);
+    assertThat(event.resource(), is(Ref.create("classes/spells/1")));
+    assertThat(event.action(), is("create"));
+
+    try {
+      json.readValue(toDeserialize, Event.class);
+      fail("decoded an unknown field");
+    } catch (JsonMappingException ex) {
+      assertThat(ex.getMessage(), containsString("extra"));
+    }
+  }
+
+  @Test
+  public void refuseFieldsOfTheWrongType() throws IOException {
+    assertThat(json.readValue("{\"ref\":\"classes/spells/1\"}", Value.class).asInstance(), nullValue());
+    assertThat(json.readValue("{\"data\":{\"@ref\":\"classes/spells/1\"}}", Value.class).asPage(), nullValue());
+  }
+
+  @Test
+  public void decodeTypedQueryResults() throws Exception {
+    StubTransport transport = new StubTransport();
+    transport.respond(200, "{\"resource\":{\"data\":[{\"@ref\":\"classes/spells/1\"}]}}");
+    transport.respond(200, "{\"resource\":[1,2]}");
+    FaunaClient client = FaunaClient.create(Connection.builder()
+      .withFaunaRoot("http://localhost:8443")
+      .withAuthToken("secret")
+      .withRetryPolicy(RetryPolicy.NONE)
+      .withTransport(transport)
+      .build());
+
+    Page page = client.query(Paginate(Ref("classes/spells")).build(), Page.class).get(5, TimeUnit.SECONDS);
+    assertThat(page.data().get(0).asRef(), is(Ref.create("classes/spells/1")));
+    assertThat(client.query(ArrayV(LongV(1), LongV(2)), Page.class).get(5, TimeUnit.SECONDS), nullValue());
+  }
 }
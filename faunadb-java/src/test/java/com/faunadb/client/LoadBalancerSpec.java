@@ -0,0 +1,179 @@
+package com.faunadb.client;
+
+import com.codahale.metrics.MetricRegistry;
+import com.faunadb.common.CircuitBreakerPolicy;
+import com.faunadb.common.Connection;
+import com.faunadb.common.DeadlineExceededException;
+import com.faunadb.common.RequestOptions;
+import com.faunadb.common.RetryPolicy;
+import com.faunadb.common.TransportRequest;
+import com.google.common.util.concurrent.ListenableFuture;
+import org.asynchttpclient.Response;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class LoadBalancerSpec {
+  private static final String NODE1 = "node1:8443";
+  private static final String NODE2 = "node2:8443";
+
+  @Test
+  public void sendRequestsAwayFromBusyNodes() throws Exception {
+    StubTransport transport = new StubTransport();
+    Connection connection = connection(transport, new MetricRegistry());
+
+    transport.hold();
+    ListenableFuture<Response> first = connection.get("/");
+    ListenableFuture<Response> second = connection.get("/");
+    transport.release();
+    first.get(5, TimeUnit.SECONDS);
+    second.get(5, TimeUnit.SECONDS);
+
+    assertThat(authority(transport.requests.get(1)), not(authority(transport.requests.get(0))));
+  }
+
+  @Test
+  public void sendRequestsAwayFromSlowNodes() throws Exception {
+    StubTransport transport = new StubTransport();
+    Connection connection = connection(transport, new MetricRegistry());
+
+    transport.hold();
+    ListenableFuture<Response> slow = connection.get("/");
+    Thread.sleep(100);
+    transport.release();
+    slow.get(5, TimeUnit.SECONDS);
+
+    String slowNode = authority(transport.requests.get(0));
+    connection.get("/").get(5, TimeUnit.SECONDS);
+    assertThat(authority(transport.requests.get(1)), not(slowNode));
+
+    for (int i = 0; i < 20; i++) {
+      connection.get("/").get(5, TimeUnit.SECONDS);
+      assertThat(authority(transport.requests.get(i + 2)), not(slowNode));
+    }
+  }
+
+  @Test
+  public void ejectFailingNodesAndReadmitThemOncePingSucceeds() throws Exception {
+    StubTransport transport = new StubTransport();
+    MetricRegistry registry = new MetricRegistry();
+    Connection connection = connection(transport, registry);
+    transport.refuse(NODE1);
+
+    for (int i = 0; i < 100 && registry.meter(metric(NODE1, "ejections")).getCount() == 0; i++) {
+      try {
+        connection.get("/").get(5, TimeUnit.SECONDS);
+      } catch (ExecutionException ex) {
+        assertThat(ex.getCause(), instanceOf(java.net.ConnectException.class));
+      }
+    }
+
+    assertThat(registry.meter(metric(NODE1, "ejections")).getCount(), is(1L));
+    assertThat(gauge(registry, NODE1, "healthy"), is((Object) false));
+
+    int sent = transport.requestCount();
+    for (int i = 0; i < 10; i++) {
+      connection.get("/").get(5, TimeUnit.SECONDS);
+    }
+    for (TransportRequest request : transport.requests.subList(sent, sent + 10)) {
+      assertThat(request.url(), is("http://" + NODE2 + "/"));
+    }
+
+    awaitPing(transport, NODE1);
+    assertThat(gauge(registry, NODE1, "healthy"), is((Object) false));
+
+    transport.accept(NODE1);
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (gauge(registry, NODE1, "healthy") != Boolean.TRUE && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+
+    assertThat(gauge(registry, NODE1, "healthy"), is((Object) true));
+    assertThat(registry.meter(metric(NODE1, "readmissions")).getCount(), is(1L));
+    connection.close();
+  }
+
+  @Test
+  public void leaveTheLatencyOfANodeAloneWhenARequestIsCancelled() throws Exception {
+    StubTransport transport = new StubTransport();
+    MetricRegistry registry = new MetricRegistry();
+    Connection connection = Connection.builder()
+      .withFaunaRoot("http://" + NODE1)
+      .withRetryPolicy(RetryPolicy.NONE)
+      .withMetrics(registry)
+      .withTransport(transport)
+      .build();
+
+    transport.hold();
+    try {
+      connection.post("/", new Connection.BodyWriter() {
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
+          out.write("{}".getBytes(StandardCharsets.UTF_8));
+        }
+      }, RequestOptions.DEFAULT.withDeadline(50, TimeUnit.MILLISECONDS)).get(5, TimeUnit.SECONDS);
+      fail("Expected the request to pass its deadline.");
+    } catch (ExecutionException ex) {
+      assertThat(ex.getCause(), instanceOf(DeadlineExceededException.class));
+    }
+
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (!gauge(registry, NODE1, "in-flight").equals(0) && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+    transport.release();
+
+    assertThat(gauge(registry, NODE1, "in-flight"), is((Object) 0));
+    assertThat(gauge(registry, NODE1, "latency-ewma-ms"), is((Object) 0.0));
+  }
+
+  private static Connection connection(StubTransport transport, MetricRegistry registry) throws Exception {
+    return Connection.builder()
+      .withFaunaRoots("http://" + NODE1, "http://" + NODE2)
+      .withRetryPolicy(RetryPolicy.NONE)
+      .withCircuitBreakerPolicy(CircuitBreakerPolicy.NONE)
+      .withEjectionThreshold(2)
+      .withProbeInterval(20, TimeUnit.MILLISECONDS)
+      .withMetrics(registry)
+      .withTransport(transport)
+      .build();
+  }
+
+  private static void awaitPing(StubTransport transport, String node) throws InterruptedException {
+    String ping = "http://" + node + "/ping";
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (System.nanoTime() < deadline) {
+      synchronized (transport) {
+        for (TransportRequest request : transport.requests) {
+          if (request.url().equals(ping)) {
+            return;
+          }
+        }
+      }
+      Thread.sleep(10);
+    }
+    fail("Expected " + node + " to be probed.");
+  }
+
+  private static String authority(TransportRequest request) {
+    URI uri = URI.create(request.url());
+    return uri.getHost() + ":" + uri.getPort();
+  }
+
+  private static String metric(String node, String name) {
+    return MetricRegistry.name("fauna-endpoint", node, name);
+  }
+
+  private static Object gauge(MetricRegistry registry, String node, String name) {
+    return registry.getGauges().get(metric(node, name)).getValue();
+  }
+}
@@ -0,0 +1,149 @@
+package com.faunadb.client;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.guava.GuavaModule;
+import com.faunadb.client.response.Page;
+import com.faunadb.client.types.FaunaField;
+import com.faunadb.client.types.Ref;
+import com.faunadb.client.types.Value;
+import com.faunadb.client.types.ValueModule;
+import com.faunadb.common.Connection;
+import com.faunadb.common.RetryPolicy;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static com.faunadb.client.query.Language.*;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class MappingSpec {
+  static class Spell {
+    @FaunaField("ref") Ref ref;
+    @FaunaField("ts") long ts;
+    @FaunaField("data.name") String name;
+    @FaunaField("data.element") List<String> elements;
+    @FaunaField("data.cost") int cost = -1;
+    @FaunaField("data.cast") Instant cast;
+    @FaunaField("data.learned") LocalDate learned;
+    @FaunaField("data.school") Value school;
+    @FaunaField("data.book") Book book;
+    @FaunaField("data.scroll.page") Integer page;
+
+    private Spell() {
+    }
+  }
+
+  static class Book {
+    @FaunaField("title") String title;
+    @FaunaField("author") Ref author;
+  }
+
+  static class Twice {
+    @FaunaField("data.name") String name;
+    @FaunaField("data.name.first") String first;
+  }
+
+  private final ObjectMapper json = new ObjectMapper().registerModule(new GuavaModule()).registerModule(new ValueModule());
+
+  private static final String SPELL = "{\"ref\":{\"@ref\":\"classes/spells/1\"},\"class\":{\"@ref\":\"classes/spells\"}," +
+    "\"ts\":1432763268186882,\"data\":{\"name\":\"fire\",\"element\":[\"fire\",\"air\"],\"cost\":10," +
+    "\"cast\":{\"@ts\":\"2016-01-01T00:00:00Z\"},\"learned\":{\"@date\":\"2016-01-01\"}," +
+    "\"school\":{\"@obj\":{\"@ref\":\"evocation\"}},\"unused\":{\"deep\":[{\"deeper\":1}]}," +
+    "\"book\":{\"title\":\"flames\",\"author\":{\"@ref\":\"classes/wizards/1\"}},\"scroll\":null}}";
+
+  @Test
+  public void decodeMappedFieldsFromTheirPaths() throws IOException {
+    Spell spell = json.readValue(SPELL, Spell.class);
+
+    assertThat(spell.ref, is(Ref.create("classes/spells/1")));
+    assertThat(spell.ts, is(1432763268186882L));
+    assertThat(spell.name, is("fire"));
+    assertThat(spell.elements, contains("fire", "air"));
+    assertThat(spell.cost, is(10));
+    assertThat(spell.cast, is(Instant.parse("2016-01-01T00:00:00Z")));
+    assertThat(spell.learned, is(LocalDate.of(2016, 1, 1)));
+    assertThat(spell.school.get("@ref").asString(), is("evocation"));
+    assertThat(spell.book.title, is("flames"));
+    assertThat(spell.book.author, is(Ref.create("classes/wizards/1")));
+    assertThat(spell.page, nullValue());
+  }
+
+  @Test
+  public void leaveMissingPathsAsConstructed() throws IOException {
+    Spell spell = json.readValue("{\"data\":{\"@obj\":{\"name\":\"ice\"}}}", Spell.class);
+
+    assertThat(spell.name, is("ice"));
+    assertThat(spell.cost, is(-1));
+    assertThat(spell.ref, nullValue());
+    assertThat(spell.elements, nullValue());
+  }
+
+  @Test(expected = JsonMappingException.class)
+  public void refuseValuesOfTheWrongType() throws IOException {
+    json.readValue("{\"ref\":\"classes/spells/1\"}", Spell.class);
+  }
+
+  @Test(expected = JsonMappingException.class)
+  public void refusePathsThroughAnotherField() throws IOException {
+    json.readValue("{}", Twice.class);
+  }
+
+  @Test
+  public void decodeTypedQueryResults() throws Exception {
+    StubTransport transport = new StubTransport();
+    transport.respond(200, "{\"resource\":" + SPELL + "}");
+    transport.respond(200, "{\"resource\":[" + SPELL + "," + SPELL.replace("fire", "ice") + "]}");
+    FaunaClient client = client(transport);
+
+    Spell spell = client.query(Get(Ref("classes/spells/1")), Spell.class).get(5, TimeUnit.SECONDS);
+    assertThat(spell.name, is("fire"));
+
+    ImmutableList<Spell> spells = client.query(ImmutableList.of(Get(Ref("classes/spells/1")), Get(Ref("classes/spells/2"))),
+      Spell.class).get(5, TimeUnit.SECONDS);
+    assertThat(spells.get(0).name, is("fire"));
+    assertThat(spells.get(1).name, is("ice"));
+  }
+
+  @Test
+  public void failTypedQueriesWhoseResultsDoNotFitTheirClass() throws Exception {
+    StubTransport transport = new StubTransport();
+    transport.respond(200, "{\"resource\":{\"data\":{\"name\":{\"@ref\":\"classes/spells/1\"}}}}");
+    transport.respond(200, "{\"resource\":[" + SPELL + ",{\"data\":{\"name\":{\"@ref\":\"classes/spells/1\"}}}]}");
+    transport.respond(200, "{\"resource\":[1]}");
+    FaunaClient client = client(transport);
+
+    assertMappingFails(client.query(Get(Ref("classes/spells/1")), Spell.class), "name");
+    assertMappingFails(client.query(ImmutableList.of(Get(Ref("classes/spells/1")), Get(Ref("classes/spells/2"))),
+      Spell.class), "name");
+    assertThat(client.query(ArrayV(LongV(1)), Page.class).get(5, TimeUnit.SECONDS), nullValue());
+  }
+
+  private static FaunaClient client(StubTransport transport) throws Exception {
+    return FaunaClient.create(Connection.builder()
+      .withFaunaRoot("http://localhost:8443")
+      .withAuthToken("secret")
+      .withRetryPolicy(RetryPolicy.NONE)
+      .withTransport(transport)
+      .build());
+  }
+
+  private static void assertMappingFails(ListenableFuture<?> result, String field) throws Exception {
+    try {
+      result.get(5, TimeUnit.SECONDS);
+      fail("Expected the result not to fit its class.");
+    } catch (ExecutionException ex) {
+      assertThat(ex.getCause(), instanceOf(JsonMappingException.class));
+      assertThat(ex.getCause().getMessage(), containsString(field));
+    }
+  }
+}
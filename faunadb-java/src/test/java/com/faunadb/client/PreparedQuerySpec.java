@@ -0,0 +1,78 @@
+package com.faunadb.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.guava.GuavaModule;
+import com.faunadb.client.types.Value;
+import com.faunadb.common.Connection;
+import com.faunadb.common.RetryPolicy;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.faunadb.client.query.Language.*;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class PreparedQuerySpec {
+  private final ObjectMapper json = new ObjectMapper().registerModule(new GuavaModule());
+
+  @Test
+  public void sendTheQueryWithItsParametersInPlace() throws Exception {
+    StubTransport transport = new StubTransport();
+    transport.respond(200, "{\"resource\":[\"fire\"]}");
+    FaunaClient client = client(transport);
+
+    PreparedQuery prepared = client.prepare(spellsBy(Param("element"), Param("element")));
+    client.query(prepared, ImmutableMap.of("element", StringV("fire"))).get(5, TimeUnit.SECONDS);
+
+    assertThat(prepared.parameters(), is(ImmutableSet.of("element")));
+    assertThat(body(transport, 0), is(json.writeValueAsString(spellsBy(StringV("fire"), StringV("fire")))));
+  }
+
+  @Test
+  public void reuseThePreparedQuery() throws Exception {
+    StubTransport transport = new StubTransport();
+    transport.respond(200, "{\"resource\":[\"fire\"]}");
+    transport.respond(200, "{\"resource\":[\"ice\"]}");
+    FaunaClient client = client(transport);
+
+    PreparedQuery prepared = client.prepare(spellsBy(Param("element"), StringV("any")));
+    Value fire = client.query(prepared, ImmutableMap.of("element", StringV("fire"))).get(5, TimeUnit.SECONDS);
+    Value ice = client.query(prepared, ImmutableMap.of("element", StringV("ice"))).get(5, TimeUnit.SECONDS);
+
+    assertThat(fire.get(0).asString(), is("fire"));
+    assertThat(ice.get(0).asString(), is("ice"));
+    assertThat(body(transport, 1), is(json.writeValueAsString(spellsBy(StringV("ice"), StringV("any")))));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void requireEveryParameter() throws Exception {
+    FaunaClient client = client(new StubTransport());
+
+    PreparedQuery prepared = client.prepare(spellsBy(Param("element"), Param("school")));
+    client.query(prepared, ImmutableMap.of("element", StringV("fire")));
+  }
+
+  private static Value spellsBy(Value element, Value school) {
+    return Map(
+      Lambda("x", Get(Var("x"))),
+      Paginate(Intersection(Match(element, Ref("indexes/spells_by_element")), Match(school, Ref("indexes/spells_by_school"))))
+        .withSize(10)
+        .build());
+  }
+
+  private static FaunaClient client(StubTransport transport) throws Exception {
+    return FaunaClient.create(Connection.builder()
+      .withFaunaRoot("http://localhost:8443")
+      .withAuthToken("secret")
+      .withRetryPolicy(RetryPolicy.NONE)
+      .withTransport(transport)
+      .build());
+  }
+
+  private static String body(StubTransport transport, int index) {
+    return transport.bodies.get(index);
+  }
+}
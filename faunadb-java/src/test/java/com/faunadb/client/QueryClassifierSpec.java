@@ -0,0 +1,62 @@
+package com.faunadb.client;
+
+import com.faunadb.client.query.Path;
+import com.faunadb.client.types.Value;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+
+import static com.faunadb.client.query.Language.*;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class QueryClassifierSpec {
+  @Test
+  public void classifyReads() {
+    assertThat(QueryClassifier.isReadOnly(Get(Ref("classes/spells/1"))), is(true));
+    assertThat(QueryClassifier.isReadOnly(Paginate(Match(StringV("fire"), Ref("indexes/spells_by_element"))).build()), is(true));
+    assertThat(QueryClassifier.isReadOnly(Map(Lambda("x", Get(Var("x"))), ArrayV(Ref("classes/spells/1")))), is(true));
+  }
+
+  @Test
+  public void classifyWrites() {
+    assertThat(QueryClassifier.isReadOnly(Create(Ref("classes/spells"))), is(false));
+    assertThat(QueryClassifier.isReadOnly(Do(Get(Ref("classes/spells/1")), Delete(Ref("classes/spells/1")))), is(false));
+    assertThat(QueryClassifier.isReadOnly(If(BooleanV(true), Get(Ref("a/1")), Update(Ref("a/1"), Object()))), is(false));
+    assertThat(QueryClassifier.isReadOnly(Foreach(Lambda("x", Delete(Var("x"))), ArrayV(Ref("a/1")))), is(false));
+  }
+
+  @Test
+  public void ignoreObjectFieldsAndQuotedData() {
+    assertThat(QueryClassifier.isReadOnly(Object(ObjectV("create", StringV("not a call")))), is(true));
+    assertThat(QueryClassifier.isReadOnly(Quote(ObjectV("delete", Ref("a/1")))), is(true));
+    assertThat(QueryClassifier.isReadOnly(Object(ObjectV("data", Create(Ref("a"))))), is(false));
+    assertThat(QueryClassifier.isReadOnly(
+      Let(ImmutableMap.of("quote", Get(Ref("a/1")), "r", Create(Ref("a"))), Var("r"))), is(false));
+  }
+
+  @Test
+  public void cacheOnlyReadsThatWritesCanInvalidate() {
+    Value spell = Get(Ref("classes/spells/1"));
+    Value fire = Match(StringV("fire"), Ref("indexes/spells_by_element"));
+
+    assertThat(QueryClassifier.isCacheable(spell), is(true));
+    assertThat(QueryClassifier.isCacheable(Exists(Ref("classes/spells/1"))), is(true));
+    assertThat(QueryClassifier.isCacheable(Select(Path(Path.Object("data")), spell)), is(true));
+    assertThat(QueryClassifier.isCacheable(Paginate(fire).withSize(10).build()), is(true));
+
+    assertThat(QueryClassifier.isCacheable(Paginate(fire).build()), is(false));
+    assertThat(QueryClassifier.isCacheable(Count(fire)), is(false));
+    assertThat(QueryClassifier.isCacheable(Get(fire)), is(false));
+    assertThat(QueryClassifier.isCacheable(Select(Path(Path.Object("data")), Var("x"))), is(false));
+    assertThat(QueryClassifier.isCacheable(Let(ImmutableMap.of("x", spell), Var("x"))), is(false));
+    assertThat(QueryClassifier.isCacheable(Time(StringV("now"))), is(false));
+  }
+
+  @Test
+  public void classifyBatches() {
+    assertThat(QueryClassifier.allReadOnly(ImmutableList.of(Get(Ref("a/1")), Get(Ref("a/2")))), is(true));
+    assertThat(QueryClassifier.allReadOnly(ImmutableList.of(Get(Ref("a/1")), Delete(Ref("a/2")))), is(false));
+    assertThat(QueryClassifier.isReadOnly(Let(ImmutableMap.<String, Value>of("x", Get(Ref("a/1"))), Var("x"))), is(true));
+  }
+}
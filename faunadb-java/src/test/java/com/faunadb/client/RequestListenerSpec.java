@@ -0,0 +1,121 @@
+package com.faunadb.client;
+
+import com.faunadb.client.errors.UnavailableException;
+import com.faunadb.common.Connection;
+import com.faunadb.common.RequestListener;
+import com.faunadb.common.RequestOptions;
+import com.faunadb.common.RequestPhase;
+import com.faunadb.common.RequestTrace;
+import com.faunadb.common.RetryPolicy;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static com.faunadb.client.query.Language.*;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class RequestListenerSpec {
+  @Test
+  public void reportEachPhaseOfAQuery() throws Exception {
+    StubTransport transport = new StubTransport();
+    transport.respond(200, "{\"resource\":\"fire\"}", "X-FaunaDB-Host", "db1", "X-FaunaDB-Build", "2.0.1");
+
+    RecordingListener listener = new RecordingListener();
+    client(transport, listener, RetryPolicy.DEFAULT)
+      .query(Get(Ref("classes/spells/1")), RequestOptions.DEFAULT.withTag("trace-id", "abc"))
+      .get(5, TimeUnit.SECONDS);
+
+    assertThat(listener.phases, contains(
+      RequestPhase.ENCODE_START, RequestPhase.ENCODE_END, RequestPhase.SEND, RequestPhase.FIRST_BYTE,
+      RequestPhase.COMPLETE, RequestPhase.DECODE_END));
+
+    RequestTrace trace = listener.trace;
+    assertThat(trace.method(), is("POST"));
+    assertThat(trace.tags().get("trace-id"), is("abc"));
+    assertThat(trace.endpoint(), is("localhost:8443"));
+    assertThat(trace.attempts(), is(1));
+    assertThat(trace.status(), is(200));
+    assertThat(trace.host(), is("db1"));
+    assertThat(trace.build(), is("2.0.1"));
+    assertThat(trace.elapsed(RequestPhase.DECODE_END, TimeUnit.NANOSECONDS),
+      greaterThanOrEqualTo(trace.elapsed(RequestPhase.ENCODE_END, TimeUnit.NANOSECONDS)));
+    assertThat(trace.elapsed(RequestPhase.FAILED, TimeUnit.NANOSECONDS), is(-1L));
+  }
+
+  @Test
+  public void reportEachAttemptOfARetriedQuery() throws Exception {
+    StubTransport transport = new StubTransport();
+    transport.respond(503, "{\"errors\":[{\"code\":\"unavailable\",\"description\":\"Unavailable\"}]}");
+    transport.respond(200, "{\"resource\":\"fire\"}");
+
+    RecordingListener listener = new RecordingListener();
+    client(transport, listener, RetryPolicy.DEFAULT).query(Get(Ref("classes/spells/1"))).get(5, TimeUnit.SECONDS);
+
+    assertThat(listener.phases, contains(
+      RequestPhase.ENCODE_START, RequestPhase.ENCODE_END, RequestPhase.SEND, RequestPhase.FIRST_BYTE,
+      RequestPhase.SEND, RequestPhase.FIRST_BYTE, RequestPhase.COMPLETE, RequestPhase.DECODE_END));
+    assertThat(listener.trace.attempts(), is(2));
+  }
+
+  @Test
+  public void reportFailedQueries() throws Exception {
+    StubTransport transport = new StubTransport();
+    transport.fail(new java.net.ConnectException("Connection refused"));
+
+    RecordingListener listener = new RecordingListener();
+    try {
+      client(transport, listener, RetryPolicy.NONE).query(Get(Ref("classes/spells/1"))).get(5, TimeUnit.SECONDS);
+      fail("Expected the query to fail.");
+    } catch (ExecutionException ex) {
+      assertThat(ex.getCause(), instanceOf(UnavailableException.class));
+    }
+
+    assertThat(listener.phases, contains(
+      RequestPhase.ENCODE_START, RequestPhase.ENCODE_END, RequestPhase.SEND, RequestPhase.FAILED));
+    assertThat(listener.trace.failure(), instanceOf(java.net.ConnectException.class));
+  }
+
+  @Test
+  public void ignoreListenerFailures() throws Exception {
+    StubTransport transport = new StubTransport();
+    transport.respond(200, "{\"resource\":\"fire\"}");
+
+    RequestListener listener = new RequestListener() {
+      @Override
+      public void onPhase(RequestPhase phase, RequestTrace trace) {
+        throw new IllegalStateException("Listener failure");
+      }
+    };
+
+    String result = client(transport, listener, RetryPolicy.DEFAULT)
+      .query(Get(Ref("classes/spells/1"))).get(5, TimeUnit.SECONDS).asString();
+    assertThat(result, is("fire"));
+  }
+
+  private static FaunaClient client(StubTransport transport, RequestListener listener, RetryPolicy retryPolicy)
+    throws Exception {
+    return FaunaClient.create(Connection.builder()
+      .withFaunaRoot("http://localhost:8443")
+      .withAuthToken("secret")
+      .withRetryPolicy(retryPolicy)
+      .withRequestListener(listener)
+      .withTransport(transport)
+      .build());
+  }
+
+  private static final class RecordingListener implements RequestListener {
+    final List<RequestPhase> phases = new ArrayList<>();
+    RequestTrace trace;
+
+    @Override
+    public synchronized void onPhase(RequestPhase phase, RequestTrace trace) {
+      phases.add(phase);
+      this.trace = trace;
+    }
+  }
+}
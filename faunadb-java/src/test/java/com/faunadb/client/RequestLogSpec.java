@@ -0,0 +1,81 @@
+package com.faunadb.client;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.faunadb.common.Connection;
+import com.faunadb.common.RequestLogPolicy;
+import com.faunadb.common.RetryPolicy;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class RequestLogSpec {
+  private static final String REQUEST = "{\"create_key\":{\"secret\":\"hunter2\"}}";
+  private static final String RESPONSE = "{\"resource\":{\"secret\":\"fnAAAA\"}}";
+
+  private final Logger logger = (Logger) LoggerFactory.getLogger("com.faunadb.common.RequestLogger");
+  private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+  private final StubTransport transport = new StubTransport();
+
+  @Before
+  public void attach() {
+    appender.start();
+    logger.addAppender(appender);
+  }
+
+  @After
+  public void detach() {
+    logger.detachAppender(appender);
+  }
+
+  @Test
+  public void leaveBodiesOutByDefault() throws Exception {
+    String entry = log(RequestLogPolicy.DEFAULT.withSlowThreshold(0, TimeUnit.MILLISECONDS));
+
+    assertThat(entry, containsString("status=200"));
+    assertThat(entry, not(containsString("request=")));
+    assertThat(entry, not(containsString("response=")));
+    assertThat(entry, not(containsString("secret")));
+  }
+
+  @Test
+  public void captureBodiesUpToTheConfiguredSize() throws Exception {
+    String entry = log(RequestLogPolicy.DEFAULT.withSlowThreshold(0, TimeUnit.MILLISECONDS).withMaxBodyBytes(15));
+
+    assertThat(entry, containsString("request=" + REQUEST.substring(0, 15) + "..."));
+    assertThat(entry, containsString("response=" + RESPONSE.substring(0, 15) + "..."));
+  }
+
+  private String log(RequestLogPolicy policy) throws Exception {
+    Connection connection = Connection.builder()
+      .withFaunaRoot("http://localhost:8443")
+      .withRetryPolicy(RetryPolicy.NONE)
+      .withRequestLogPolicy(policy)
+      .withTransport(transport)
+      .build();
+
+    transport.respond(200, RESPONSE);
+    connection.post("/", REQUEST.getBytes(StandardCharsets.UTF_8)).get(5, TimeUnit.SECONDS);
+
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (System.nanoTime() < deadline) {
+      synchronized (appender) {
+        if (!appender.list.isEmpty()) {
+          return appender.list.get(0).getFormattedMessage();
+        }
+      }
+      Thread.sleep(10);
+    }
+    fail("Expected the request to be logged.");
+    return null;
+  }
+}
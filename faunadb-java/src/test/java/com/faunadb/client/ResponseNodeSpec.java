@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.guava.GuavaModule;
 import com.faunadb.client.types.LazyValue;
+import com.faunadb.client.types.Value;
 import org.junit.Test;
 
 import static org.hamcrest.Matchers.*;
@@ -44,4 +45,68 @@ public class ResponseNodeSpec {
     assertNull(node3.get("some").asArray());
     assertNull(node3.get("some").asString());
   }
+
+  @Test
+  public void coerceSpecialObjects() throws Exception {
+    LazyValue node = json.readValue("{\"ref\":{\"@ref\":\"classes/spells/1\"},\"ts\":{\"@ts\":\"1970-01-01T00:00:00Z\"}," +
+      "\"date\":{\"@date\":\"1970-01-01\"},\"escaped\":{\"@obj\":{\"@ref\":\"data\"}}}", LazyValue.class);
+
+    assertThat(node.get("ref").asRef().value(), is("classes/spells/1"));
+    assertThat(node.get("ts").asTs().toEpochMilli(), is(0L));
+    assertThat(node.get("date").asDate().toEpochDay(), is(0L));
+    assertThat(node.get("escaped").asObject().get("@ref").asString(), is("data"));
+    assertNull(node.get("escaped").asRef());
+    assertNull(node.get("ref").asTs());
+    assertNull(node.asRef());
+  }
+
+  @Test
+  public void coerceObjectsIntoResponseTypesByTheirShape() throws Exception {
+    LazyValue node = json.readValue("{\"instance\":{\"ref\":{\"@ref\":\"classes/spells/1\"},\"ts\":1," +
+      "\"data\":{\"name\":\"fire\"}},\"wrongRef\":{\"ref\":\"classes/spells/1\"},\"fractionalTs\":{\"ts\":1.5}," +
+      "\"unknown\":{\"other\":1},\"page\":{\"data\":[1],\"after\":2},\"noData\":{\"after\":2}," +
+      "\"terms\":{\"ref\":{\"@ref\":\"indexes/spells_by_name\"},\"name\":\"spells_by_name\"," +
+      "\"source\":{\"@ref\":\"classes/spells\"},\"terms\":[{\"field\":[\"data\",\"name\"]}]}," +
+      "\"badTerms\":{\"ref\":{\"@ref\":\"indexes/spells_by_name\"},\"name\":\"spells_by_name\"," +
+      "\"source\":{\"@ref\":\"classes/spells\"},\"terms\":[{\"field\":[1]}]}," +
+      "\"key\":{\"ref\":{\"@ref\":\"keys/1\"},\"database\":{\"@ref\":\"databases/prydain\"},\"role\":\"server\"," +
+      "\"ts\":1}}",
+      LazyValue.class);
+
+    assertThat(node.get("instance").asInstance().data().get("name").asString(), is("fire"));
+    assertThat(node.get("instance").asInstance(), is(sameInstance(node.get("instance").asInstance())));
+    assertNull(node.get("instance").asKey());
+    assertNull(node.get("instance").asSet());
+    assertThat(node.get("key").asKey().role(), is("server"));
+    assertNull(node.get("key").asInstance());
+    assertNull(node.get("wrongRef").asInstance());
+    assertNull(node.get("fractionalTs").asInstance());
+    assertNull(node.get("unknown").asInstance());
+    assertThat(node.get("page").asPage().data().get(0).asLong(), is(1L));
+    assertNull(node.get("noData").asPage());
+    assertThat(node.get("terms").asIndex().terms().get(0).get("path"), is("data.name"));
+    assertNull(node.get("badTerms").asIndex());
+  }
+
+  @Test
+  public void reuseFieldAndElementViews() throws Exception {
+    LazyValue node = json.readValue("{\"data\":{\"elements\":[\"fire\",null]}}", LazyValue.class);
+
+    assertThat(node.get("data"), is(sameInstance(node.get("data"))));
+    assertThat(node.asObject(), is(sameInstance(node.asObject())));
+    assertThat(node.get("data").get("elements").asArray(), is(sameInstance(node.get("data").get("elements").asArray())));
+    assertThat(node.get("data").get("elements").get(0).asString(), is("fire"));
+    assertThat(node.get("data").get("elements").get(1), is((Value) Value.NullV.Null));
+  }
+
+  @Test
+  public void accessMissingFieldsAndElementsAsNull() throws Exception {
+    LazyValue node = json.readValue("{\"data\":[\"fire\"]}", LazyValue.class);
+
+    assertNull(node.get("missing"));
+    assertNull(node.get(0));
+    assertNull(node.get("data").get("missing"));
+    assertNull(node.get("data").get(1));
+    assertNull(node.get("data").get(-1));
+  }
 }
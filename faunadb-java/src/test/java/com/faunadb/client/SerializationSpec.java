@@ -3,6 +3,7 @@ package com.faunadb.client;
 import com.fasterxml.jackson.core.JsonProcessingException;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.faunadb.client.query.*;
 import com.faunadb.client.types.Value.*;
 import com.faunadb.client.types.*;
@@ -15,6 +16,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import org.junit.Test;
 
+import java.io.IOException;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
@@ -261,4 +263,24 @@ public class SerializationSpec {
     assertThat(json.writeValueAsString(not), is("{\"not\":false}"));
   }
 
+  @Test
+  public void serializeWithDedicatedSerializers() throws IOException {
+    ObjectMapper module = new ObjectMapper().registerModule(new ValueModule());
+    Value query = Let(ImmutableMap.<String, Value>of("x", LongV(1), "y", DoubleV(2.5)),
+      Create(Ref("classes/spells"), Quote(ObjectV(
+        "name", StringV("fire"),
+        "flags", ArrayV(BooleanV(true), BooleanV(false), NullV()),
+        "at", TsV(Instant.EPOCH),
+        "on", DateV(LocalDate.ofEpochDay(2)),
+        "x", Var("x")))));
+
+    assertThat(module.writeValueAsString(query), is(json.writeValueAsString(query)));
+
+    Value lazy = LazyValue.create(json.readTree("{\"b\":{\"@ref\":\"classes/spells\"},\"a\":[1]}"), json);
+    assertThat(module.writeValueAsString(lazy), is("{\"b\":{\"@ref\":\"classes/spells\"},\"a\":[1]}"));
+
+    module.configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+    assertThat(module.writeValueAsString(ObjectV("b", LongV(1), "a", ObjectV("d", LongV(2), "c", LongV(3)))),
+      is("{\"a\":{\"c\":3,\"d\":2},\"b\":1}"));
+  }
 }
@@ -0,0 +1,75 @@
+package com.faunadb.client;
+
+import com.faunadb.common.Connection;
+import org.asynchttpclient.util.Base64;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static com.faunadb.client.query.Language.*;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class SessionClientSpec {
+  @Test
+  public void sendSessionQueriesWithTheirOwnSecret() throws Exception {
+    StubTransport transport = new StubTransport();
+    transport.respond(200, "{\"resource\":\"fire\"}");
+    transport.respond(200, "{\"resource\":\"fire\"}");
+    FaunaClient client = client(transport);
+    FaunaClient session = client.newSessionClient("tenant-secret");
+
+    client.query(Get(Ref("classes/spells/1"))).get(5, TimeUnit.SECONDS);
+    session.query(Get(Ref("classes/spells/1"))).get(5, TimeUnit.SECONDS);
+
+    assertThat(transport.requests, hasSize(2));
+    assertThat(transport.requests.get(0).headers().get("Authorization"), contains(authHeader("secret")));
+    assertThat(transport.requests.get(1).headers().get("Authorization"), contains(authHeader("tenant-secret")));
+  }
+
+  @Test
+  public void closeTheTransportWithTheLastClient() throws Exception {
+    StubTransport transport = new StubTransport();
+    transport.respond(200, "{\"resource\":\"fire\"}");
+    FaunaClient client = client(transport);
+    FaunaClient first = client.newSessionClient("first");
+    FaunaClient second = first.newSessionClient("second");
+
+    client.close();
+    first.close();
+    first.close();
+    assertThat(transport.closed, is(false));
+
+    second.query(Get(Ref("classes/spells/1"))).get(5, TimeUnit.SECONDS);
+
+    second.close();
+    assertThat(transport.closed, is(true));
+  }
+
+  @Test
+  public void rejectSessionsOfClosedClients() throws Exception {
+    FaunaClient client = client(new StubTransport());
+    client.close();
+
+    try {
+      client.newSessionClient("tenant-secret");
+      fail("Expected the session client to be rejected.");
+    } catch (IllegalStateException ex) {
+      assertThat(ex.getMessage(), containsString("closed"));
+    }
+  }
+
+  private static FaunaClient client(StubTransport transport) throws Exception {
+    return FaunaClient.create(Connection.builder()
+      .withFaunaRoot("http://localhost:8443")
+      .withAuthToken("secret")
+      .withTransport(transport)
+      .build());
+  }
+
+  private static String authHeader(String secret) {
+    return "Basic " + Base64.encode((secret + ":").getBytes(StandardCharsets.US_ASCII));
+  }
+}
@@ -0,0 +1,204 @@
+package com.faunadb.client;
+
+import com.faunadb.common.Transport;
+import com.faunadb.common.TransportHandler;
+import com.faunadb.common.TransportRequest;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.AbstractFuture;
+
+import java.net.ConnectException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A transport that answers each request from a queue of canned responses, without any network. Requests beyond the
+ * queue are answered with an empty object. Responses can be held back, to keep requests in flight.
+ */
+final class StubTransport implements Transport {
+  final List<TransportRequest> requests = new ArrayList<>();
+  /**
+   * The body of each request, decoded as UTF-8 when it was sent, since its chunks are released once it completes.
+   */
+  final List<String> bodies = new ArrayList<>();
+  final Queue<Object> outcomes = new LinkedList<>();
+  boolean closed = false;
+  /**
+   * Whether to cancel the future of each request right after answering it, as a caller racing its response would.
+   */
+  volatile boolean cancelAfterAnswer = false;
+  /**
+   * An exception to throw from {@link #execute}, as a transport that cannot send anything would.
+   */
+  volatile RuntimeException thrown;
+  private final Set<String> refused = new HashSet<>();
+  private CountDownLatch gate;
+
+  /**
+   * Queues a response with {@code status} and {@code body}, and with {@code headers} given as name, value pairs.
+   */
+  void respond(int status, String body, String... headers) {
+    outcomes.add(new Object[] { status, body, headers });
+  }
+
+  void fail(Throwable t) {
+    outcomes.add(t);
+  }
+
+  /**
+   * Fails every request sent to {@code authority}, given as {@code host:port}, with a {@link ConnectException}, until
+   * {@link #accept(String)} is called. Such requests do not take a response from the queue.
+   */
+  synchronized void refuse(String authority) {
+    refused.add(authority);
+  }
+
+  synchronized void accept(String authority) {
+    refused.remove(authority);
+  }
+
+  /**
+   * Holds back the responses to every request sent from now on, until {@link #release()} is called.
+   */
+  synchronized void hold() {
+    gate = new CountDownLatch(1);
+  }
+
+  /**
+   * Sends the responses held back since {@link #hold()}.
+   */
+  synchronized void release() {
+    gate.countDown();
+    gate = null;
+  }
+
+  @Override
+  public Future<?> execute(final TransportRequest request, final TransportHandler handler) {
+    if (thrown != null) {
+      throw thrown;
+    }
+
+    final Object outcome;
+    final CountDownLatch held;
+    synchronized (this) {
+      requests.add(request);
+      bodies.add(body(request));
+      URI uri = URI.create(request.url());
+      if (refused.contains(uri.getHost() + ":" + uri.getPort())) {
+        outcome = new ConnectException("Connection refused");
+      } else {
+        Object next = outcomes.poll();
+        outcome = next != null ? next : new Object[] { 200, "{}", new String[0] };
+      }
+      held = gate;
+    }
+
+    final Exchange exchange = new Exchange(handler);
+    if (held == null) {
+      answer(exchange, outcome);
+      return exchange;
+    }
+
+    Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          held.await();
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+        }
+        if (!exchange.isCancelled()) {
+          answer(exchange, outcome);
+        }
+      }
+    });
+    thread.setDaemon(true);
+    thread.start();
+    return exchange;
+  }
+
+  private void answer(Exchange exchange, Object outcome) {
+    exchange.answer(outcome);
+    if (cancelAfterAnswer) {
+      exchange.cancel(true);
+    }
+  }
+
+  /**
+   * The future of a single request. As with async-http-client's, cancelling it passes a
+   * {@link CancellationException} to the request's handler, even once the request has been answered.
+   */
+  private static final class Exchange extends AbstractFuture<Void> {
+    private final TransportHandler handler;
+    private final AtomicBoolean cancelled = new AtomicBoolean(false);
+
+    Exchange(TransportHandler handler) {
+      this.handler = handler;
+    }
+
+    void answer(Object outcome) {
+      if (outcome instanceof Throwable) {
+        handler.onThrowable((Throwable) outcome);
+        setException((Throwable) outcome);
+        return;
+      }
+
+      Object[] response = (Object[]) outcome;
+      int status = (Integer) response[0];
+      handler.onStatus(status, status == 200 ? "OK" : "Service Unavailable");
+      List<Map.Entry<String, String>> headers = new ArrayList<>();
+      String[] pairs = (String[]) response[2];
+      for (int i = 0; i < pairs.length; i += 2) {
+        headers.add(Maps.immutableEntry(pairs[i], pairs[i + 1]));
+      }
+      handler.onHeaders(headers);
+      handler.onBodyPart(ByteBuffer.wrap(((String) response[1]).getBytes(StandardCharsets.UTF_8)));
+      handler.onCompleted();
+      set(null);
+    }
+
+    @Override
+    public boolean isCancelled() {
+      return cancelled.get();
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+      if (!cancelled.compareAndSet(false, true)) {
+        return false;
+      }
+
+      handler.onThrowable(new CancellationException());
+      super.cancel(mayInterruptIfRunning);
+      return true;
+    }
+  }
+
+  synchronized int requestCount() {
+    return requests.size();
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+  }
+
+  private static String body(TransportRequest request) {
+    StringBuilder body = new StringBuilder();
+    for (ByteBuffer part : request.body()) {
+      body.append(StandardCharsets.UTF_8.decode(part));
+    }
+    return body.toString();
+  }
+}
@@ -0,0 +1,185 @@
+package com.faunadb.client;
+
+import com.faunadb.client.errors.UnavailableException;
+import com.codahale.metrics.MetricRegistry;
+import com.faunadb.client.types.Value;
+import com.faunadb.common.CircuitBreakerPolicy;
+import com.faunadb.common.ConcurrencyPolicy;
+import com.faunadb.common.Connection;
+import com.faunadb.common.RetryPolicy;
+import com.faunadb.common.Transport;
+import com.faunadb.common.TransportRequest;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static com.faunadb.client.query.Language.*;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class TransportSpec {
+  private static final String UNAVAILABLE = "{\"errors\":[{\"code\":\"unavailable\",\"description\":\"Unavailable\"}]}";
+
+  @Test
+  public void sendQueriesThroughTheTransport() throws Exception {
+    StubTransport transport = new StubTransport();
+    transport.respond(200, "{\"resource\":\"fire\"}");
+
+    FaunaClient client = client(transport, RetryPolicy.DEFAULT);
+    Value result = client.query(Get(Ref("classes/spells/1"))).get(5, TimeUnit.SECONDS);
+
+    assertThat(result.asString(), is("fire"));
+    assertThat(transport.requests, hasSize(1));
+
+    TransportRequest request = transport.requests.get(0);
+    assertThat(request.method(), is("POST"));
+    assertThat(request.url(), is("http://localhost:8443/"));
+    assertThat(request.headers().get("Authorization"), contains(startsWith("Basic ")));
+    assertThat(transport.bodies.get(0), containsString("\"get\""));
+  }
+
+  @Test
+  public void retryThroughTheTransport() throws Exception {
+    StubTransport transport = new StubTransport();
+    transport.respond(503, "{\"errors\":[{\"code\":\"unavailable\",\"description\":\"Unavailable\"}]}");
+    transport.respond(200, "{\"resource\":\"fire\"}");
+
+    FaunaClient client = client(transport, RetryPolicy.DEFAULT);
+    Value result = client.query(Get(Ref("classes/spells/1"))).get(5, TimeUnit.SECONDS);
+
+    assertThat(result.asString(), is("fire"));
+    assertThat(transport.requests, hasSize(2));
+  }
+
+  @Test
+  public void stopRetryingAfterTheLastAttempt() throws Exception {
+    StubTransport transport = new StubTransport();
+    for (int i = 0; i < 5; i++) {
+      transport.respond(503, UNAVAILABLE);
+    }
+
+    RetryPolicy policy = RetryPolicy.DEFAULT.withMaxAttempts(3).withBackoff(1, 5, TimeUnit.MILLISECONDS);
+    try {
+      client(transport, policy).query(Get(Ref("classes/spells/1"))).get(5, TimeUnit.SECONDS);
+      fail("Expected the query to fail.");
+    } catch (ExecutionException ex) {
+      assertThat(ex.getCause(), instanceOf(UnavailableException.class));
+    }
+
+    assertThat(transport.requests, hasSize(3));
+  }
+
+  @Test
+  public void stopRetryingOnceTheBudgetIsSpent() throws Exception {
+    StubTransport transport = new StubTransport();
+    transport.respond(503, UNAVAILABLE);
+    transport.respond(503, UNAVAILABLE);
+    transport.respond(503, UNAVAILABLE);
+
+    RetryPolicy policy = RetryPolicy.DEFAULT.withBackoff(1, 5, TimeUnit.MILLISECONDS).withBudget(0, 1);
+    FaunaClient client = client(transport, policy);
+    try {
+      client.query(Get(Ref("classes/spells/1"))).get(5, TimeUnit.SECONDS);
+      fail("Expected the query to fail.");
+    } catch (ExecutionException ex) {
+      assertThat(ex.getCause(), instanceOf(UnavailableException.class));
+    }
+
+    assertThat(transport.requests, hasSize(2));
+  }
+
+  @Test
+  public void accountForEachRequestOnceWhenCancelledAfterItsAnswer() throws Exception {
+    StubTransport transport = new StubTransport();
+    transport.cancelAfterAnswer = true;
+    for (int i = 0; i < 5; i++) {
+      transport.respond(200, "{\"resource\":\"fire\"}");
+    }
+
+    MetricRegistry registry = new MetricRegistry();
+    FaunaClient client = FaunaClient.create(Connection.builder()
+      .withFaunaRoot("http://localhost:8443")
+      .withAuthToken("secret")
+      .withConcurrencyPolicy(ConcurrencyPolicy.DEFAULT.withLimits(2, 1, 2))
+      .withMetrics(registry)
+      .withTransport(transport)
+      .build());
+
+    for (int i = 0; i < 5; i++) {
+      assertThat(client.query(Get(Ref("classes/spells/1"))).get(5, TimeUnit.SECONDS).asString(), is("fire"));
+    }
+
+    assertThat(registry.getGauges().get("fauna-endpoint.localhost:8443.in-flight").getValue(), is((Object) 0));
+    assertThat(registry.getGauges().get("fauna-concurrency.in-flight").getValue(), is((Object) 0));
+  }
+
+  @Test
+  public void reportTransportFailures() throws Exception {
+    StubTransport transport = new StubTransport();
+    transport.fail(new java.net.ConnectException("Connection refused"));
+
+    FaunaClient client = client(transport, RetryPolicy.NONE);
+    try {
+      client.query(Get(Ref("classes/spells/1"))).get(5, TimeUnit.SECONDS);
+      fail("Expected the query to fail.");
+    } catch (ExecutionException ex) {
+      assertThat(ex.getCause(), instanceOf(UnavailableException.class));
+    }
+  }
+
+  @Test
+  public void undoTheStartOfARequestWhoseTransportThrows() throws Exception {
+    StubTransport transport = new StubTransport();
+    MetricRegistry registry = new MetricRegistry();
+    Connection connection = Connection.builder()
+      .withFaunaRoot("http://localhost:8443")
+      .withRetryPolicy(RetryPolicy.NONE)
+      .withCircuitBreakerPolicy(CircuitBreakerPolicy.DEFAULT
+        .withWindow(2, 2)
+        .withFailureRateThreshold(0.5)
+        .withOpenDuration(100, TimeUnit.MILLISECONDS)
+        .withHalfOpenCalls(1))
+      .withMetrics(registry)
+      .withTransport(transport)
+      .build();
+
+    for (int i = 0; i < 2; i++) {
+      transport.respond(503, UNAVAILABLE);
+      connection.get("/").get(5, TimeUnit.SECONDS);
+    }
+    Thread.sleep(150);
+
+    transport.thrown = new IllegalStateException("Closed");
+    try {
+      connection.get("/");
+      fail("Expected the request to fail.");
+    } catch (IllegalStateException ex) {
+      assertThat(ex.getMessage(), is("Closed"));
+    }
+    assertThat(registry.getGauges().get("fauna-endpoint.localhost:8443.in-flight").getValue(), is((Object) 0));
+    // Only the two requests that were answered are timed, not the one the transport refused.
+    assertThat(registry.timer("fauna-request").getCount(), is(2L));
+
+    transport.thrown = null;
+    assertThat(connection.get("/").get(5, TimeUnit.SECONDS).getStatusCode(), is(200));
+    assertThat(registry.getGauges().get("fauna-endpoint.localhost:8443.circuit-state").getValue(), is((Object) "CLOSED"));
+  }
+
+  @Test
+  public void closeTheTransport() throws Exception {
+    StubTransport transport = new StubTransport();
+    client(transport, RetryPolicy.DEFAULT).close();
+    assertThat(transport.closed, is(true));
+  }
+
+  private static FaunaClient client(Transport transport, RetryPolicy retryPolicy) throws Exception {
+    return FaunaClient.create(Connection.builder()
+      .withFaunaRoot("http://localhost:8443")
+      .withAuthToken("secret")
+      .withRetryPolicy(retryPolicy)
+      .withTransport(transport)
+      .build());
+  }
+}
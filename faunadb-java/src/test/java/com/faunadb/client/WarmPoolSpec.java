@@ -0,0 +1,63 @@
+package com.faunadb.client;
+
+import com.faunadb.common.Connection;
+import com.faunadb.common.TransportRequest;
+import com.faunadb.common.WarmPoolPolicy;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class WarmPoolSpec {
+  @Test
+  public void openConnectionsWhenBuilt() throws Exception {
+    StubTransport transport = new StubTransport();
+    Connection connection = connection(transport,
+      WarmPoolPolicy.DEFAULT.withConnections(3).withKeepWarmInterval(0, TimeUnit.MILLISECONDS));
+
+    connection.warmed().get(5, TimeUnit.SECONDS);
+
+    assertThat(transport.requestCount(), is(3));
+    for (TransportRequest request : transport.requests) {
+      assertThat(request.method(), is("GET"));
+      assertThat(request.url(), is("http://localhost:8443/ping"));
+    }
+    connection.close();
+  }
+
+  @Test
+  public void keepConnectionsWarm() throws Exception {
+    StubTransport transport = new StubTransport();
+    Connection connection = connection(transport,
+      WarmPoolPolicy.DEFAULT.withKeepWarmInterval(20, TimeUnit.MILLISECONDS));
+
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (transport.requestCount() < 6 && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+
+    connection.close();
+    assertThat(transport.requestCount(), greaterThanOrEqualTo(6));
+  }
+
+  @Test
+  public void doNotWarmByDefault() throws Exception {
+    StubTransport transport = new StubTransport();
+    Connection connection = connection(transport, WarmPoolPolicy.NONE);
+
+    assertThat(connection.warmed().isDone(), is(true));
+    assertThat(transport.requestCount(), is(0));
+    connection.close();
+  }
+
+  private static Connection connection(StubTransport transport, WarmPoolPolicy policy) throws Exception {
+    return Connection.builder()
+      .withFaunaRoot("http://localhost:8443")
+      .withAuthToken("secret")
+      .withWarmPoolPolicy(policy)
+      .withTransport(transport)
+      .build();
+  }
+}
@@ -0,0 +1,76 @@
+package com.faunadb.common;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class ConcurrencyLimiterSpec {
+  private final MetricRegistry registry = new MetricRegistry();
+  private final ConnectionMetrics metrics = new ConnectionMetrics(registry, null);
+
+  @Test
+  public void queueRequestsOverTheLimit() {
+    ConcurrencyLimiter limiter = limiter(ConcurrencyPolicy.DEFAULT.withLimits(1, 1, 1).withMaxQueue(1));
+    final List<String> ran = new ArrayList<>();
+
+    assertThat(limiter.acquire(record(ran, "first")), is(ConcurrencyLimiter.Admission.ACQUIRED));
+    assertThat(limiter.acquire(record(ran, "second")), is(ConcurrencyLimiter.Admission.QUEUED));
+    assertThat(limiter.acquire(record(ran, "third")), is(ConcurrencyLimiter.Admission.REJECTED));
+    assertThat(limiter.queueDepth(), is(1));
+
+    limiter.release();
+    assertThat(ran, contains("second"));
+    assertThat(limiter.inFlight(), is(1));
+    assertThat(limiter.queueDepth(), is(0));
+  }
+
+  @Test
+  public void runQueuedRequestsThatFailAtOnceWithoutNestingThem() {
+    final ConcurrencyLimiter limiter = limiter(ConcurrencyPolicy.DEFAULT.withLimits(1, 1, 1).withMaxQueue(1000));
+    final List<Integer> depths = new ArrayList<>();
+
+    assertThat(limiter.tryAcquire(), is(true));
+    for (int i = 0; i < 1000; i++) {
+      limiter.acquire(new Runnable() {
+        @Override
+        public void run() {
+          depths.add(Thread.currentThread().getStackTrace().length);
+          limiter.release();
+        }
+      });
+    }
+
+    limiter.release();
+
+    assertThat(depths, hasSize(1000));
+    assertThat(depths.get(depths.size() - 1), is(depths.get(0)));
+    assertThat(limiter.inFlight(), is(0));
+    assertThat(limiter.queueDepth(), is(0));
+  }
+
+  @Test
+  public void admitEveryRequestWhenDisabled() {
+    ConcurrencyLimiter limiter = limiter(ConcurrencyPolicy.NONE);
+    for (int i = 0; i < 10000; i++) {
+      assertThat(limiter.acquire(record(new ArrayList<String>(), "request")), is(ConcurrencyLimiter.Admission.ACQUIRED));
+    }
+  }
+
+  private ConcurrencyLimiter limiter(ConcurrencyPolicy policy) {
+    return new ConcurrencyLimiter(policy, metrics, new RegisteredMetrics(registry));
+  }
+
+  private static Runnable record(final List<String> ran, final String name) {
+    return new Runnable() {
+      @Override
+      public void run() {
+        ran.add(name);
+      }
+    };
+  }
+}
@@ -0,0 +1,96 @@
+package com.faunadb.common;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.util.IllegalReferenceCountException;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class EncodedBodySpec {
+  private static final ByteBufAllocator ALLOC = UnpooledByteBufAllocator.DEFAULT;
+
+  @Test
+  public void roundTripThroughGzip() throws IOException {
+    byte[] content = content();
+    EncodedBody body = EncodedBody.wrap(content).compress(ALLOC, CompressionPolicy.GZIP, Integer.MAX_VALUE);
+
+    assertThat(body.encoding(), is("gzip"));
+    assertThat(body.length(), lessThan(content.length));
+    assertThat(decompress(new GZIPInputStream(new ByteArrayInputStream(bytes(body)))), is(content));
+    body.release();
+  }
+
+  @Test
+  public void roundTripThroughDeflate() throws IOException {
+    byte[] content = content();
+    EncodedBody body = EncodedBody.wrap(content).compress(ALLOC, CompressionPolicy.DEFLATE, Integer.MAX_VALUE);
+
+    assertThat(body.encoding(), is("deflate"));
+    assertThat(body.length(), lessThan(content.length));
+    assertThat(decompress(new InflaterInputStream(new ByteArrayInputStream(bytes(body)))), is(content));
+    body.release();
+  }
+
+  @Test
+  public void chunkLargeCompressedBodies() throws IOException {
+    EncodedBody body = EncodedBody.wrap(content()).compress(ALLOC, CompressionPolicy.GZIP, 16);
+    assertThat(body.isChunked(), is(true));
+    body.release();
+  }
+
+  @Test
+  public void failToCompressReleasedContent() throws IOException {
+    for (CompressionPolicy policy : new CompressionPolicy[] { CompressionPolicy.GZIP, CompressionPolicy.DEFLATE }) {
+      EncodedBody body = EncodedBody.wrap(content());
+      body.release();
+
+      try {
+        body.compress(ALLOC, policy, Integer.MAX_VALUE);
+        fail("Expected " + policy + " to fail on released content.");
+      } catch (IllegalReferenceCountException ex) {
+        // The compressor is ended and its chunks released.
+      }
+    }
+  }
+
+  private static byte[] content() {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 1000; i++) {
+      sb.append("{\"get\":{\"@ref\":\"classes/spells/").append(i).append("\"}}");
+    }
+    return sb.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static byte[] bytes(EncodedBody body) {
+    ByteBuf target = Unpooled.buffer(body.length());
+    for (ByteBuffer buffer : body.buffers()) {
+      target.writeBytes(buffer);
+    }
+    byte[] bytes = new byte[target.readableBytes()];
+    target.readBytes(bytes);
+    return bytes;
+  }
+
+  private static byte[] decompress(InputStream in) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buf = new byte[4096];
+    for (int n = in.read(buf); n != -1; n = in.read(buf)) {
+      out.write(buf, 0, n);
+    }
+    return out.toByteArray();
+  }
+}
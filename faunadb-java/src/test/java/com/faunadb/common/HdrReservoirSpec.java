@@ -0,0 +1,148 @@
+package com.faunadb.common;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Snapshot;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class HdrReservoirSpec {
+  private static final int BUCKETS = HdrReservoir.bucket(HdrReservoir.MAX_VALUE) + 1;
+
+  @Test
+  public void countSmallValuesExactly() {
+    for (long v = 0; v < 128; v++) {
+      assertThat(HdrReservoir.bucket(v), is((int) v));
+      assertThat(HdrReservoir.lowestValue((int) v), is(v));
+      assertThat(HdrReservoir.highestValue((int) v), is(v));
+    }
+  }
+
+  @Test
+  public void coverEveryValueWithAdjacentBuckets() {
+    assertThat(HdrReservoir.lowestValue(0), is(0L));
+    assertThat(HdrReservoir.highestValue(BUCKETS - 1), is(HdrReservoir.MAX_VALUE));
+
+    for (int b = 0; b < BUCKETS; b++) {
+      assertThat(HdrReservoir.bucket(HdrReservoir.lowestValue(b)), is(b));
+      assertThat(HdrReservoir.bucket(HdrReservoir.highestValue(b)), is(b));
+      if (b > 0) {
+        assertThat(HdrReservoir.lowestValue(b), is(HdrReservoir.highestValue(b - 1) + 1));
+      }
+    }
+  }
+
+  @Test
+  public void boundTheWidthOfEachBucket() {
+    for (int b = 128; b < BUCKETS; b++) {
+      long low = HdrReservoir.lowestValue(b);
+      long width = HdrReservoir.highestValue(b) - low + 1;
+      assertThat(width * 64, lessThanOrEqualTo(low));
+    }
+  }
+
+  @Test
+  public void reportExactQuantilesOfSmallValues() {
+    HdrReservoir reservoir = new HdrReservoir();
+    for (long v = 1; v <= 100; v++) {
+      reservoir.update(v);
+    }
+
+    Snapshot snapshot = reservoir.getSnapshot();
+    assertThat(snapshot.getMin(), is(1L));
+    assertThat(snapshot.getMedian(), is(50.0));
+    assertThat(snapshot.get75thPercentile(), is(75.0));
+    assertThat(snapshot.get99thPercentile(), is(99.0));
+    assertThat(snapshot.getMax(), is(100L));
+    assertThat(snapshot.getMean(), is(50.5));
+    assertThat(snapshot.size(), is(100));
+  }
+
+  @Test
+  public void reportQuantilesOfLargeValuesWithinTheirPrecision() {
+    HdrReservoir reservoir = new HdrReservoir();
+    for (long v = 1; v <= 100000; v++) {
+      reservoir.update(v * 1000);
+    }
+
+    Snapshot snapshot = reservoir.getSnapshot();
+    assertWithin(snapshot.getMedian(), 50000000);
+    assertWithin(snapshot.get95thPercentile(), 95000000);
+    assertWithin(snapshot.get99thPercentile(), 99000000);
+    assertWithin(snapshot.get999thPercentile(), 99900000);
+    assertWithin(snapshot.getMax(), 100000000);
+    assertThat(snapshot.getMean(), is(50000500.0));
+  }
+
+  @Test
+  public void keepTheTailOfASkewedDistribution() {
+    HdrReservoir reservoir = new HdrReservoir();
+    for (int i = 0; i < 990; i++) {
+      reservoir.update(TimeUnit.MILLISECONDS.toNanos(1));
+    }
+    for (int i = 0; i < 10; i++) {
+      reservoir.update(TimeUnit.SECONDS.toNanos(1));
+    }
+
+    Snapshot snapshot = reservoir.getSnapshot();
+    assertWithin(snapshot.get99thPercentile(), TimeUnit.MILLISECONDS.toNanos(1));
+    assertWithin(snapshot.get999thPercentile(), TimeUnit.SECONDS.toNanos(1));
+  }
+
+  @Test
+  public void clampValuesOutOfRange() {
+    HdrReservoir reservoir = new HdrReservoir();
+    reservoir.update(-5);
+    reservoir.update(Long.MAX_VALUE);
+
+    Snapshot snapshot = reservoir.getSnapshot();
+    assertThat(snapshot.getMin(), is(0L));
+    assertThat(snapshot.getMax(), is(HdrReservoir.MAX_VALUE));
+  }
+
+  @Test
+  public void reportNothingWhenEmpty() {
+    Snapshot snapshot = new HdrReservoir().getSnapshot();
+    assertThat(snapshot.getMedian(), is(0.0));
+    assertThat(snapshot.getMax(), is(0L));
+    assertThat(snapshot.getMean(), is(0.0));
+    assertThat(snapshot.size(), is(0));
+  }
+
+  @Test
+  public void forgetValuesAfterTwoIntervals() throws InterruptedException {
+    HdrReservoir reservoir = new HdrReservoir(100, TimeUnit.MILLISECONDS);
+    reservoir.update(42);
+    assertThat(reservoir.getSnapshot().getMax(), is(42L));
+
+    Thread.sleep(250);
+    assertThat(reservoir.size(), is(0));
+    assertThat(reservoir.getSnapshot().getMax(), is(0L));
+  }
+
+  @Test
+  public void recordEndpointLatencyIntoTheReservoir() {
+    MetricRegistry registry = new MetricRegistry();
+    EndpointMetrics metrics = new EndpointMetrics(new ConnectionMetrics(registry, null), "localhost:8443");
+    for (long ms = 1; ms <= 100; ms++) {
+      metrics.responseReceived(200, TimeUnit.MILLISECONDS.toNanos(ms), 10);
+    }
+
+    Snapshot latency = registry.timer("fauna-endpoint.localhost:8443.latency").getSnapshot();
+    assertWithin(latency.getMedian(), TimeUnit.MILLISECONDS.toNanos(50));
+    assertWithin(latency.get99thPercentile(), TimeUnit.MILLISECONDS.toNanos(99));
+    assertThat(registry.timer("fauna-endpoint.localhost:8443.status.200").getCount(), is(100L));
+    assertThat(registry.histogram("fauna-endpoint.localhost:8443.response-bytes").getSnapshot().getMax(), is(10L));
+  }
+
+  /**
+   * Percentiles are reported as the top of their bucket: never below the true value, and at most 1/64 above it.
+   */
+  private static void assertWithin(double reported, long expected) {
+    assertThat(reported, greaterThanOrEqualTo((double) expected));
+    assertThat(reported, lessThanOrEqualTo(expected * (1 + 1.0 / 64)));
+  }
+}
@@ -0,0 +1,31 @@
+package com.faunadb.common;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class HedgePolicySpec {
+  @Test
+  public void keepTheMinimumDelayInMilliseconds() {
+    assertThat(HedgePolicy.DEFAULT.withMinDelay(2, TimeUnit.SECONDS).minDelayMs(), is(2000L));
+    assertThat(HedgePolicy.DEFAULT.withMinDelay(0, TimeUnit.MILLISECONDS).minDelayMs(), is(0L));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectANegativeMinimumDelay() {
+    HedgePolicy.DEFAULT.withMinDelay(-1, TimeUnit.MILLISECONDS);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void requireThePercentileToBeBetweenZeroAndOne() {
+    HedgePolicy.DEFAULT.withPercentile(1.5);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectANegativeBudget() {
+    HedgePolicy.DEFAULT.withBudget(-0.1, 1);
+  }
+}
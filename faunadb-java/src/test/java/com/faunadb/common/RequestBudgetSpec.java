@@ -0,0 +1,65 @@
+package com.faunadb.common;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class RequestBudgetSpec {
+  @Test
+  public void startFull() {
+    RequestBudget budget = new RequestBudget(0.1, 0);
+    assertThat(drain(budget), is(10));
+  }
+
+  @Test
+  public void earnAFractionOfATokenForEachRequest() {
+    RequestBudget budget = new RequestBudget(0.25, 0);
+    drain(budget);
+
+    for (int i = 0; i < 3; i++) {
+      budget.deposit();
+    }
+    assertThat(budget.tryWithdraw(), is(false));
+
+    budget.deposit();
+    assertThat(budget.tryWithdraw(), is(true));
+    assertThat(budget.tryWithdraw(), is(false));
+  }
+
+  @Test
+  public void refillOverTime() throws InterruptedException {
+    RequestBudget budget = new RequestBudget(0, 1000);
+    drain(budget);
+    assertThat(budget.tryWithdraw(), is(false));
+
+    Thread.sleep(50);
+    assertThat(drain(budget), greaterThanOrEqualTo(10));
+  }
+
+  @Test
+  public void holdNoMoreThanItsCapacity() {
+    RequestBudget budget = new RequestBudget(0.5, 0);
+    drain(budget);
+
+    for (int i = 0; i < 1000; i++) {
+      budget.deposit();
+    }
+    assertThat(drain(budget), is(50));
+  }
+
+  @Test
+  public void neverAllowExtraRequestsWithAnEmptyBudget() {
+    RequestBudget budget = new RequestBudget(0, 0);
+    budget.deposit();
+    assertThat(budget.tryWithdraw(), is(false));
+  }
+
+  private static int drain(RequestBudget budget) {
+    int withdrawn = 0;
+    while (budget.tryWithdraw()) {
+      withdrawn++;
+    }
+    return withdrawn;
+  }
+}
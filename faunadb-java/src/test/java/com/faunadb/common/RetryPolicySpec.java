@@ -0,0 +1,67 @@
+package com.faunadb.common;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class RetryPolicySpec {
+  private final RetryPolicy policy = RetryPolicy.DEFAULT.withBackoff(10, 500, TimeUnit.MILLISECONDS);
+
+  @Test
+  public void waitTheBaseDelayBeforeTheFirstRetry() {
+    for (int i = 0; i < 100; i++) {
+      assertThat(policy.nextDelayMs(0), is(10L));
+    }
+  }
+
+  @Test
+  public void waitBetweenTheBaseDelayAndThriceThePreviousOne() {
+    boolean grew = false;
+    for (int i = 0; i < 1000; i++) {
+      long delay = policy.nextDelayMs(40);
+      assertThat(delay, both(greaterThanOrEqualTo(10L)).and(lessThanOrEqualTo(120L)));
+      grew |= delay > 40;
+    }
+    assertThat(grew, is(true));
+  }
+
+  @Test
+  public void neverWaitLongerThanTheMaximumDelay() {
+    long delay = 0;
+    for (int i = 0; i < 1000; i++) {
+      delay = policy.nextDelayMs(delay);
+      assertThat(delay, both(greaterThanOrEqualTo(10L)).and(lessThanOrEqualTo(500L)));
+    }
+    assertThat(policy.nextDelayMs(500), lessThanOrEqualTo(500L));
+  }
+
+  @Test
+  public void waitTheBaseDelayWhenItIsTheMaximum() {
+    RetryPolicy fixed = RetryPolicy.DEFAULT.withBackoff(50, 50, TimeUnit.MILLISECONDS);
+    assertThat(fixed.nextDelayMs(0), is(50L));
+    assertThat(fixed.nextDelayMs(50), is(50L));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void requireAtLeastOneAttempt() {
+    RetryPolicy.DEFAULT.withMaxAttempts(0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void requireTheBaseDelayToBeAtMostTheMaximum() {
+    RetryPolicy.DEFAULT.withBackoff(100, 10, TimeUnit.MILLISECONDS);
+  }
+
+  @Test
+  public void giveEachConnectionItsOwnBudget() {
+    RetryPolicy single = RetryPolicy.DEFAULT.withBudget(0, 1);
+    RequestBudget first = single.newBudget();
+    RequestBudget second = single.newBudget();
+
+    assertThat(first.tryWithdraw(), is(true));
+    assertThat(second.tryWithdraw(), is(true));
+  }
+}
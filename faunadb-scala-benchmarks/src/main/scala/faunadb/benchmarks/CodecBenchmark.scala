@@ -0,0 +1,50 @@
+package faunadb.benchmarks
+
+import faunadb.values._
+import java.util.concurrent.TimeUnit
+import org.openjdk.jmh.annotations._
+
+object CodecBenchmark {
+  case class Spell(ref: Ref, name: String, element: String, cost: Long, level: Int)
+  object Spell { implicit val codec: Codec[Spell] = Codec.derive[Spell] }
+
+  val SpellField = Field.zip(
+    Field("ref").as[Ref],
+    Field("data", "name").as[String],
+    Field("data", "element").as[String],
+    Field("data", "cost").as[Long],
+    Field("data", "level").as[Int]) map { (Spell.apply _).tupled }
+}
+
+/**
+  * Compares reading an instance into a case class through `Field.zip`
+  * with reading it through a derived Codec, and encoding it back.
+  */
+@State(Scope.Benchmark)
+@BenchmarkMode(Array(Mode.AverageTime))
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+class CodecBenchmark {
+  import CodecBenchmark._
+
+  private[this] val instance = ObjectV(
+    "ref" -> Ref("classes/spells/1"),
+    "class" -> Ref("classes/spells"),
+    "ts" -> LongV(1432763268186882L),
+    "data" -> ObjectV(
+      "ref" -> Ref("classes/spells/1"),
+      "name" -> StringV("fire"),
+      "element" -> StringV("air"),
+      "cost" -> LongV(10),
+      "level" -> LongV(2)))
+
+  private[this] val spell = Spell(Ref("classes/spells/1"), "fire", "air", 10, 2)
+
+  @Benchmark
+  def fields(): Spell = instance(SpellField).get
+
+  @Benchmark
+  def derived(): Spell = instance("data").as[Spell].get
+
+  @Benchmark
+  def encode(): Value = Spell.codec.encode(spell)
+}
@@ -0,0 +1,55 @@
+package faunadb.benchmarks
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.fasterxml.jackson.module.scala.DefaultScalaModule
+import com.google.common.io.ByteStreams
+import faunadb.jackson.ValueModule
+import faunadb.query._
+import faunadb.values._
+import java.time.Instant
+import java.util.concurrent.TimeUnit
+import org.openjdk.jmh.annotations._
+
+/**
+  * Compares encoding queries through the annotations on the value
+  * types and jackson-module-scala with encoding them through the
+  * dedicated serializers of the client.
+  *
+  * The query creates an instance whose data has the given number of
+  * fields, of every kind of value, and is written to a stream that
+  * discards it.
+  */
+@State(Scope.Benchmark)
+@BenchmarkMode(Array(Mode.Throughput))
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+class EncodingBenchmark {
+  @Param(Array("5", "50"))
+  var fields: Int = _
+
+  private[this] val annotationsJson = new ObjectMapper().registerModule(DefaultScalaModule)
+  private[this] val serializersJson = new ObjectMapper().registerModule(DefaultScalaModule).registerModule(ValueModule)
+  private[this] val out = ByteStreams.nullOutputStream()
+  private[this] var query: Expr = _
+
+  @Setup
+  def setup(): Unit = {
+    val data = (0 until fields) map { i =>
+      val value: Value = i % 5 match {
+        case 0 => StringV("fire")
+        case 1 => LongV(i)
+        case 2 => Ref(s"classes/spells/$i")
+        case 3 => ArrayV(StringV("fire"), DoubleV(2.5), TrueV)
+        case _ => Timestamp(Instant.EPOCH)
+      }
+      s"field$i" -> value
+    }
+
+    query = Create(Ref("classes/spells"), ObjectV("data" -> ObjectV(data: _*)))
+  }
+
+  @Benchmark
+  def annotations(): Unit = annotationsJson.writeValue(out, query)
+
+  @Benchmark
+  def serializers(): Unit = serializersJson.writeValue(out, query)
+}
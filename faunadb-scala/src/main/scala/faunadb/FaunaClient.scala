@@ -1,25 +1,30 @@
 package faunadb
 
 import com.codahale.metrics.MetricRegistry
+import com.fasterxml.jackson.core.JsonToken
 import com.fasterxml.jackson.databind.ObjectMapper
 import com.fasterxml.jackson.databind.node.ArrayNode
 import com.fasterxml.jackson.module.scala.DefaultScalaModule
-import com.faunadb.common.Connection
+import com.faunadb.common.{ BodyTemplate, CircuitBreakerListener, CircuitBreakerPolicy, CompressionPolicy, ConcurrencyPolicy, Connection, HedgePolicy, RequestListener, RequestLogPolicy, RequestOptions, RequestRejectedException, RetryPolicy, Transport, WarmPoolPolicy }
+import com.faunadb.common.{ DeadlineExceededException => RequestDeadlineExceededException }
 import faunadb.errors._
-import faunadb.query.Expr
+import faunadb.jackson.ValueModule
+import faunadb.query.{ Expr, Param }
 import faunadb.util.FutureImplicits._
 import faunadb.values.{ ArrayV, NullV, Value }
-import java.io.IOException
+import java.io.{ IOException, OutputStream }
 import java.net.ConnectException
-import java.nio.charset.Charset
-import java.util.concurrent.TimeoutException
+import java.util.concurrent.{ TimeUnit, TimeoutException }
 import org.asynchttpclient.{ AsyncHttpClient, Response => HttpResponse }
 import scala.collection.JavaConverters._
 import scala.concurrent.{ ExecutionContext, Future }
+import scala.concurrent.duration.{ Deadline, FiniteDuration }
 
 /** Companion object to the FaunaClient class. */
 object FaunaClient {
 
+  private val json = new ObjectMapper().registerModule(DefaultScalaModule).registerModule(ValueModule)
+
   /**
     * Creates a new FaunaDB client.
     *
@@ -27,21 +32,63 @@ object FaunaClient {
     *
     * @param secret The secret material of the auth key used. See [[https://faunadb.com/documentation#authentication-key_access]]
     * @param endpoint URL of the FaunaDB service to connect to. Defaults to https://rest.faunadb.com
+    * @param endpoints An optional list of URLs of FaunaDB nodes to balance queries across, in place of `endpoint`.
+    * @param ejectionThreshold An optional number of consecutive failures after which a node is ejected from `endpoints`.
+    * @param probeInterval An optional time between probes of an ejected node.
     * @param metrics An optional [[com.codehale.metrics.MetricsRegistry]] to record stats.
+    * @param metricsNamespace An optional prefix for the names of all metrics, so several clients can share one registry.
     * @param httpClient An optional custom [[org.asynchttpclient.AsyncHttpClient]].
+    * @param transport An optional custom [[com.faunadb.common.Transport]], used in place of `httpClient`.
+    * @param retryPolicy An optional [[com.faunadb.common.RetryPolicy]]. Defaults to [[com.faunadb.common.RetryPolicy.DEFAULT]].
+    * @param hedgePolicy An optional [[com.faunadb.common.HedgePolicy]] to hedge slow read-only queries. Defaults to [[com.faunadb.common.HedgePolicy.NONE]].
+    * @param concurrencyPolicy An optional [[com.faunadb.common.ConcurrencyPolicy]] to limit the queries in flight. Defaults to [[com.faunadb.common.ConcurrencyPolicy.NONE]].
+    * @param circuitBreakerPolicy An optional [[com.faunadb.common.CircuitBreakerPolicy]]. Defaults to [[com.faunadb.common.CircuitBreakerPolicy.DEFAULT]].
+    * @param circuitBreakerListener An optional [[com.faunadb.common.CircuitBreakerListener]] to be told of circuit breaker state changes.
+    * @param compressionPolicy An optional [[com.faunadb.common.CompressionPolicy]]. Defaults to [[com.faunadb.common.CompressionPolicy.NONE]].
+    * @param requestLogPolicy An optional [[com.faunadb.common.RequestLogPolicy]] choosing which requests are logged. Defaults to [[com.faunadb.common.RequestLogPolicy.DEFAULT]], which captures no bodies.
+    * @param requestListener An optional [[com.faunadb.common.RequestListener]] to be told of the phases of each request.
+    * @param warmPoolPolicy An optional [[com.faunadb.common.WarmPoolPolicy]] to open connections before they are needed. Defaults to [[com.faunadb.common.WarmPoolPolicy.NONE]].
     * @return A configured FaunaClient instance.
     */
   def apply(
     secret: String = null,
     endpoint: String = null,
     metrics: MetricRegistry = null,
-    httpClient: AsyncHttpClient = null): FaunaClient = {
+    metricsNamespace: String = null,
+    httpClient: AsyncHttpClient = null,
+    retryPolicy: RetryPolicy = null,
+    hedgePolicy: HedgePolicy = null,
+    circuitBreakerPolicy: CircuitBreakerPolicy = null,
+    circuitBreakerListener: CircuitBreakerListener = null,
+    compressionPolicy: CompressionPolicy = null,
+    requestLogPolicy: RequestLogPolicy = null,
+    requestListener: RequestListener = null,
+    warmPoolPolicy: WarmPoolPolicy = null,
+    endpoints: Seq[String] = null,
+    ejectionThreshold: Option[Int] = None,
+    probeInterval: FiniteDuration = null,
+    transport: Transport = null,
+    concurrencyPolicy: ConcurrencyPolicy = null): FaunaClient = {
 
     val b = Connection.builder
     if (endpoint ne null) b.withFaunaRoot(endpoint)
     if (secret ne null) b.withAuthToken(secret)
     if (metrics ne null) b.withMetrics(metrics)
+    if (metricsNamespace ne null) b.withMetricsNamespace(metricsNamespace)
     if (httpClient ne null) b.withHttpClient(httpClient)
+    if (retryPolicy ne null) b.withRetryPolicy(retryPolicy)
+    if (hedgePolicy ne null) b.withHedgePolicy(hedgePolicy)
+    if (circuitBreakerPolicy ne null) b.withCircuitBreakerPolicy(circuitBreakerPolicy)
+    if (circuitBreakerListener ne null) b.withCircuitBreakerListener(circuitBreakerListener)
+    if (compressionPolicy ne null) b.withCompressionPolicy(compressionPolicy)
+    if (requestLogPolicy ne null) b.withRequestLogPolicy(requestLogPolicy)
+    if (requestListener ne null) b.withRequestListener(requestListener)
+    if (warmPoolPolicy ne null) b.withWarmPoolPolicy(warmPoolPolicy)
+    if (endpoints ne null) b.withFaunaRoots(endpoints: _*)
+    ejectionThreshold foreach { b.withEjectionThreshold(_) }
+    if (probeInterval ne null) b.withProbeInterval(probeInterval.toMillis, TimeUnit.MILLISECONDS)
+    if (transport ne null) b.withTransport(transport)
+    if (concurrencyPolicy ne null) b.withConcurrencyPolicy(concurrencyPolicy)
 
     new FaunaClient(b.build)
   }
@@ -55,6 +102,11 @@ object FaunaClient {
   * Query requests are made asynchronously: All methods will return a
   * [[scala.concurrent.Future]].
   *
+  * Queries that contain no writes are sent as idempotent requests, so the
+  * connection may retry them after a timeout or an unavailable response.
+  * If the connection has a [[com.faunadb.common.HedgePolicy]], slow
+  * read-only queries are also hedged.
+  *
   * Example:
   * {{{
   * case class User(ref: Ref, name: String, age: Int)
@@ -80,10 +132,7 @@ object FaunaClient {
   */
 class FaunaClient(connection: Connection) {
 
-  private[this] val UTF8 = Charset.forName("UTF-8")
-
-  private[this] val json = new ObjectMapper
-  json.registerModule(new DefaultScalaModule)
+  private[this] val json = FaunaClient.json
 
   /**
     * Issues a query.
@@ -96,12 +145,87 @@ class FaunaClient(connection: Connection) {
     *         future is returned.
     */
   def query(expr: Expr)(implicit ec: ExecutionContext): Future[Value] =
-    connection.post("/", json.valueToTree(expr)).asScalaFuture.map { resp =>
-      handleQueryErrors(resp)
-      val rv = json.treeToValue[Value](parseResponseBody(resp).get("resource"), classOf[Value])
-      if (rv eq null) NullV else rv
+    query(expr, RequestOptions.DEFAULT)
+
+  /**
+    * Issues a query, which must be answered before `deadline`.
+    *
+    * If the deadline passes first, the returned future fails with a
+    * [[faunadb.errors.DeadlineExceededException]]. A query that is
+    * still waiting to be sent by then is dropped without ever reaching
+    * FaunaDB.
+    *
+    * @param expr the query to run, created using the query dsl helpers in [[faunadb.query]].
+    * @param deadline the deadline, for example `5.seconds.fromNow`.
+    */
+  def query(expr: Expr, deadline: Deadline)(implicit ec: ExecutionContext): Future[Value] =
+    query(expr, withDeadline(RequestOptions.DEFAULT, deadline))
+
+  /**
+    * Issues a query with the given [[com.faunadb.common.RequestOptions]],
+    * such as a deadline or tags for the connection's
+    * [[com.faunadb.common.RequestListener]].
+    *
+    * Whether the query may be retried or hedged is decided by the
+    * client, so the idempotent and hedging flags of `opts` are ignored.
+    *
+    * @param expr the query to run, created using the query dsl helpers in [[faunadb.query]].
+    * @param opts the options for this query.
+    */
+  def query(expr: Expr, opts: RequestOptions)(implicit ec: ExecutionContext): Future[Value] =
+    send(jsonBody(expr.value), options(opts, QueryClassifier.isReadOnly(expr)))
+
+  private def send(body: Connection.BodyWriter, opts: RequestOptions)(implicit ec: ExecutionContext): Future[Value] =
+    connection.post("/", body, opts).asScalaFuture.map { resp =>
+      try {
+        handleQueryErrors(resp)
+        parseResource(resp)
+      } finally {
+        connection.decoded(resp)
+      }
     }.recover(handleNetworkExceptions)
 
+  /**
+    * Encodes `expr` once, so that it can be sent many times with
+    * [[FaunaClient!.query(query:faunadb\.PreparedQuery,params:Map[String,faunadb\.query\.Expr])*]]
+    * without being built or encoded again. Each [[faunadb.query.Param]]
+    * placeholder in `expr` is a parameter, whose value is given each
+    * time the query is sent.
+    *
+    * @param expr the query, with placeholders for its parameters.
+    */
+  def prepare(expr: Expr): PreparedQuery = {
+    val markers = PreparedQuery.parameters(expr.value).map { name =>
+      name -> json.writeValueAsBytes(Param(name))
+    }.toMap
+    new PreparedQuery(expr, BodyTemplate.split(json.writeValueAsBytes(expr), markers.asJava))
+  }
+
+  /**
+    * Issues a prepared query, with `params` in place of its parameters.
+    * Only the parameter values are encoded.
+    *
+    * @param query the prepared query.
+    * @param params the value of every parameter of `query`, keyed by name.
+    * @throws IllegalArgumentException unless `params` has exactly the parameters of `query`.
+    */
+  def query(query: PreparedQuery, params: Map[String, Expr])(implicit ec: ExecutionContext): Future[Value] =
+    this.query(query, params, RequestOptions.DEFAULT)
+
+  /**
+    * Issues a prepared query with the given
+    * [[com.faunadb.common.RequestOptions]].
+    *
+    * @param query the prepared query.
+    * @param params the value of every parameter of `query`, keyed by name.
+    * @param opts the options for this query.
+    */
+  def query(query: PreparedQuery, params: Map[String, Expr], opts: RequestOptions)(implicit ec: ExecutionContext): Future[Value] = {
+    val body = query.template.bind(params.map { case (name, expr) => name -> json.writeValueAsBytes(expr) }.asJava)
+    val readOnly = query.readOnly && QueryClassifier.allReadOnly(params.values)
+    send(body, options(opts, readOnly))
+  }
+
   /**
     * Issues multiple queries as a single transaction.
     *
@@ -113,20 +237,82 @@ class FaunaClient(connection: Connection) {
     *         query fails, a failed future is returned.
     */
   def query(exprs: Iterable[Expr])(implicit ec: ExecutionContext): Future[IndexedSeq[Value]] =
-    connection.post("/", json.valueToTree(exprs)).asScalaFuture.map { resp =>
-      handleQueryErrors(resp)
-      val arr = json.treeToValue[Value](parseResponseBody(resp).get("resource"), classOf[Value])
-      arr.asInstanceOf[ArrayV].elems
+    query(exprs, RequestOptions.DEFAULT)
+
+  /**
+    * Issues multiple queries as a single transaction, which must be
+    * answered before `deadline`.
+    *
+    * @param exprs the queries to run.
+    * @param deadline the deadline, for example `5.seconds.fromNow`.
+    */
+  def query(exprs: Iterable[Expr], deadline: Deadline)(implicit ec: ExecutionContext): Future[IndexedSeq[Value]] =
+    query(exprs, withDeadline(RequestOptions.DEFAULT, deadline))
+
+  /**
+    * Issues multiple queries as a single transaction, with the given
+    * [[com.faunadb.common.RequestOptions]].
+    *
+    * @param exprs the queries to run.
+    * @param opts the options for this request.
+    */
+  def query(exprs: Iterable[Expr], opts: RequestOptions)(implicit ec: ExecutionContext): Future[IndexedSeq[Value]] = {
+    val body = jsonBody(ArrayV(exprs.map { _.value }(collection.breakOut): Vector[Value]))
+    connection.post("/", body, options(opts, QueryClassifier.allReadOnly(exprs))).asScalaFuture.map { resp =>
+      try {
+        handleQueryErrors(resp)
+        parseResource(resp).asInstanceOf[ArrayV].elems
+      } finally {
+        connection.decoded(resp)
+      }
     }.recover(handleNetworkExceptions)
+  }
+
+  /**
+    * Returns a future that completes once the connections asked for by
+    * the client's [[com.faunadb.common.WarmPoolPolicy]] have first been
+    * opened, or have failed to open.
+    */
+  def warmed()(implicit ec: ExecutionContext): Future[Unit] =
+    connection.warmed().asScalaFuture.map { _ => () }
+
+  /**
+    * Returns a client that sends its queries with `secret`, sharing this
+    * client's connection pool and configuration. Creating one is cheap,
+    * so one may be created for each tenant or even each request.
+    *
+    * Session clients should be closed once no longer needed. The shared
+    * resources are released once every client sharing them has been
+    * closed.
+    *
+    * @param secret the secret of the key or token to send queries with.
+    */
+  def sessionClient(secret: String): FaunaClient =
+    new FaunaClient(connection.newSessionConnection(secret))
 
   /** Frees any resources held by the client and close the underlying connection. */
   def close(): Unit = connection.close()
 
+  private def options(opts: RequestOptions, readOnly: Boolean) =
+    opts.withIdempotent(readOnly).withHedging(readOnly)
+
+  private def withDeadline(opts: RequestOptions, deadline: Deadline) =
+    opts.withDeadline(deadline.timeLeft.toNanos, TimeUnit.NANOSECONDS)
+
+  private def jsonBody(body: Value): Connection.BodyWriter =
+    new Connection.BodyWriter {
+      def writeTo(out: OutputStream): Unit = json.writeValue(out, body)
+    }
+
   private def handleNetworkExceptions[A]: PartialFunction[Throwable, A] = {
     case ex: ConnectException =>
       throw new UnavailableException(ex.getMessage)
     case ex: TimeoutException =>
       throw new TimeoutException(ex.getMessage)
+    case ex: RequestRejectedException =>
+      throw new UnavailableException(ex.getMessage)
+    case ex: RequestDeadlineExceededException =>
+      throw new DeadlineExceededException(ex.getMessage)
   }
 
   private def handleQueryErrors(response: HttpResponse) =
@@ -156,8 +342,34 @@ class FaunaClient(connection: Connection) {
       case _ =>
     }
 
-  private def parseResponseBody(response: HttpResponse) = {
-    val body = response.getResponseBody(UTF8)
-    json.readTree(body)
+  private def parseResponseBody(response: HttpResponse) =
+    json.readTree(response.getResponseBodyAsStream)
+
+  /**
+    * Decodes the `resource` field of a response body directly from the
+    * token stream, skipping over any other fields.
+    */
+  private def parseResource(response: HttpResponse): Value = {
+    val parser = json.getFactory.createParser(response.getResponseBodyAsStream)
+    try {
+      var rv: Value = null
+
+      if (parser.nextToken() == JsonToken.START_OBJECT) {
+        while ((rv eq null) && parser.nextToken() == JsonToken.FIELD_NAME) {
+          val field = parser.getCurrentName
+          parser.nextToken()
+          if (field == "resource") {
+            rv = json.readValue(parser, classOf[Value])
+            if (rv eq null) rv = NullV
+          } else {
+            parser.skipChildren()
+          }
+        }
+      }
+
+      if (rv eq null) NullV else rv
+    } finally {
+      parser.close()
+    }
   }
 }
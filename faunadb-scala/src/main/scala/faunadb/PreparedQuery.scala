@@ -0,0 +1,53 @@
+package faunadb
+
+import com.faunadb.common.BodyTemplate
+import faunadb.query.Expr
+import faunadb.values.{ ArrayV, ObjectV, StringV, Value }
+import scala.collection.JavaConverters._
+
+/**
+  * A query expression encoded once, with placeholders for the
+  * parameters that change from one call to the next. Create one with
+  * [[FaunaClient.prepare]], from an expression containing
+  * [[faunadb.query.Param]] placeholders, and send it with
+  * [[FaunaClient!.query(query:faunadb\.PreparedQuery,params:Map[String,faunadb\.query\.Expr])*]].
+  *
+  * Only the parameter values are encoded each time a prepared query is
+  * sent. Instances are immutable, and may be shared by any number of
+  * threads and by the session clients of the client that prepared them.
+  *
+  * ===Example===
+  *
+  * {{{
+  * val byElement = client.prepare(
+  *   Map(Lambda(r => Get(r)), Paginate(Match(Ref("indexes/spells_by_element"), Param("element")))))
+  * client.query(byElement, Map("element" -> ("fire": Expr)))
+  * }}}
+  */
+final class PreparedQuery private[faunadb] (val expr: Expr, private[faunadb] val template: BodyTemplate) {
+  private[faunadb] val readOnly = QueryClassifier.isReadOnly(expr)
+
+  /** The names of the query's parameters. */
+  def parameters: Set[String] = template.parameters.asScala.toSet
+
+  override def toString = s"PreparedQuery(parameters=${parameters.mkString(", ")})"
+}
+
+private[faunadb] object PreparedQuery {
+
+  /** Returns the names of every placeholder in `value`, at any depth. */
+  def parameters(value: Value): Set[String] =
+    value match {
+      case ObjectV(fields) if fields.size == 1 && fields.contains("@param") =>
+        fields("@param") match {
+          case StringV(name) => Set(name)
+          case other         => parameters(other)
+        }
+      case ObjectV(fields) =>
+        fields.values.flatMap(parameters).toSet
+      case ArrayV(elems) =>
+        elems.flatMap(parameters).toSet
+      case _ =>
+        Set.empty
+    }
+}
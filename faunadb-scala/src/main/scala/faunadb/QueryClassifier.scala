@@ -0,0 +1,40 @@
+package faunadb
+
+import faunadb.query.Expr
+import faunadb.values.{ ArrayV, ObjectV, Value }
+
+/**
+  * Decides whether a query expression can change anything in FaunaDB.
+  *
+  * An expression is read-only if none of its function calls, at any
+  * depth, is a write. Field names inside `object` literals and anything
+  * under `quote` are data rather than calls, so are not considered. An
+  * object is only a `quote` when that is its sole key; any other object
+  * with a `quote` key, such as the bindings of a `let`, is inspected like
+  * the rest.
+  */
+private[faunadb] object QueryClassifier {
+  private val WriteFunctions =
+    Set("create", "update", "replace", "delete", "insert", "remove", "login", "logout")
+
+  def isReadOnly(expr: Expr): Boolean = isReadOnly(expr.value)
+
+  def allReadOnly(exprs: Iterable[Expr]): Boolean = exprs forall { isReadOnly(_) }
+
+  private def isReadOnly(value: Value): Boolean =
+    value match {
+      case ObjectV(fields) if fields.size == 1 && fields.contains("quote") =>
+        true
+      case ObjectV(fields) if fields.size == 1 && fields.contains("object") =>
+        fields("object") match {
+          case ObjectV(literal) => literal.values forall { isReadOnly(_) }
+          case other            => isReadOnly(other)
+        }
+      case ObjectV(fields) =>
+        fields forall { case (k, v) => !WriteFunctions.contains(k) && isReadOnly(v) }
+      case ArrayV(elems) =>
+        elems forall { isReadOnly(_) }
+      case _ =>
+        true
+    }
+}
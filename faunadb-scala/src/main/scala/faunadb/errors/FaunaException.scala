@@ -25,6 +25,12 @@ case class UnavailableException(response: Option[QueryErrorResponse], message: S
   def this(response: QueryErrorResponse) = this(Some(response), FaunaException.respToError(response))
 }
 
+/**
+  * An exception thrown if a query's deadline passes before FaunaDB
+  * answers it. The query may or may not have been applied.
+  */
+class DeadlineExceededException(message: String) extends FaunaException(message)
+
 /**
  * An exception thrown if FaunaDB cannot evaluate a query.
  */
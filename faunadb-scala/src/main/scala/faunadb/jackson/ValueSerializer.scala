@@ -0,0 +1,65 @@
+package faunadb.jackson
+
+import com.fasterxml.jackson.core.JsonGenerator
+import com.fasterxml.jackson.databind.{ JsonSerializer, SerializationFeature, SerializerProvider }
+import com.fasterxml.jackson.databind.module.SimpleModule
+import faunadb.query.Expr
+import faunadb.values._
+
+/**
+  * Writes values straight to the generator, children included,
+  * without looking up a serializer for each of them.
+  */
+private[faunadb] class ValueSerializer extends JsonSerializer[Value] {
+  override def serialize(value: Value, out: JsonGenerator, provider: SerializerProvider): Unit =
+    value match {
+      case ObjectV(fields) =>
+        out.writeStartObject()
+        val ordered =
+          if (fields.size > 1 && provider.isEnabled(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)) fields.toSeq.sortBy(_._1)
+          else fields
+        ordered foreach { case (name, field) =>
+          out.writeFieldName(name)
+          serialize(field, out, provider)
+        }
+        out.writeEndObject()
+      case ArrayV(elems) =>
+        out.writeStartArray(elems.size)
+        elems foreach { serialize(_, out, provider) }
+        out.writeEndArray()
+      case StringV(str)      => out.writeString(str)
+      case LongV(long)       => out.writeNumber(long)
+      case DoubleV(double)   => out.writeNumber(double)
+      case bool: BooleanV    => out.writeBoolean(bool.value)
+      case NullV             => out.writeNull()
+      case Ref(ref)          => writeSpecial(out, "@ref", ref)
+      case ts: Timestamp     => writeSpecial(out, "@ts", ts.strValue)
+      case date: Date        => writeSpecial(out, "@date", date.strValue)
+      case SetRef(params) =>
+        out.writeStartObject()
+        out.writeFieldName("@set")
+        serialize(params, out, provider)
+        out.writeEndObject()
+    }
+
+  private[this] def writeSpecial(out: JsonGenerator, name: String, value: String): Unit = {
+    out.writeStartObject()
+    out.writeStringField(name, value)
+    out.writeEndObject()
+  }
+}
+
+private[faunadb] class ExprSerializer(values: ValueSerializer) extends JsonSerializer[Expr] {
+  override def serialize(expr: Expr, out: JsonGenerator, provider: SerializerProvider): Unit =
+    values.serialize(expr.value, out, provider)
+}
+
+/**
+  * Registers the dedicated serializers of values and expressions.
+  */
+private[faunadb] object ValueModule extends SimpleModule("FaunaValueModule") {
+  private[this] val values = new ValueSerializer
+
+  addSerializer(classOf[Value], values)
+  addSerializer(classOf[Expr], new ExprSerializer(values))
+}
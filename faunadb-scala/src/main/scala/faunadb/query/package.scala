@@ -43,6 +43,7 @@ package query {
     // rather transform the value to a series of object constructions.
     implicit def quotedValue(unwrapped: Value) = Expr(ObjectV("quote" -> unwrapped))
     implicit def quotedResult(unwrapped: Result[Value]) = Expr(ObjectV("quote" -> unwrapped.get))
+    implicit def encodedValue[T](unwrapped: T)(implicit enc: Encoder[T]) = Expr(ObjectV("quote" -> enc.encode(unwrapped)))
   }
 
   /**
@@ -141,6 +142,17 @@ package object query {
   def Var(name: String): Expr =
     Expr(ObjectV("var" -> StringV(name)))
 
+  /**
+    * A placeholder for a parameter of a prepared query, whose value is
+    * given each time the query is sent. Placeholders are encoded as
+    * `{ "@param": name }`, and may only be sent as part of a prepared
+    * query.
+    *
+    * @see [[faunadb.FaunaClient.prepare]]
+    */
+  def Param(name: String): Expr =
+    Expr(ObjectV("@param" -> StringV(name)))
+
   /**
    * An If expression.
    *
@@ -1,6 +1,7 @@
 package faunadb.values
 
 import java.time.{ LocalDate, Instant }
+import scala.language.experimental.macros
 
 trait Decoder[T] {
   def decode(v: Value, path: FieldPath): Result[T]
@@ -133,13 +134,101 @@ object Decoder {
 
   class SeqDecoder[T: Decoder] extends Decoder[Seq[T]] {
     def decode(v: Value, path: FieldPath) =
-      Field.collect(Field.as[T]).get(v)
+      Field.collect(Field.as[T]).get(v) match {
+        case VFail(errs) => VFail(errs map { _ prefixed path })
+        case r => r
+      }
   }
   implicit def SeqDecoder[T: Decoder]: Decoder[Seq[T]] = new SeqDecoder[T]
+
+  class OptionDecoder[T](dec: Decoder[T]) extends Decoder[Option[T]] {
+    def decode(v: Value, path: FieldPath) =
+      v match {
+        case NullV => Result.successful(None, path)
+        case v => dec.decode(v, path) map { Some(_) }
+      }
+  }
+  implicit def OptionDecoder[T: Decoder]: Decoder[Option[T]] = new OptionDecoder(implicitly[Decoder[T]])
 }
 
 trait Encoder[T] {
   def encode(t: T): Value
 }
 
+object Encoder {
+  implicit def ValueEncoder[V <: Value]: Encoder[V] = IdentityEncoder.asInstanceOf[Encoder[V]]
+
+  private object IdentityEncoder extends Encoder[Value] {
+    def encode(v: Value) = v
+  }
+
+  implicit object StringEncoder extends Encoder[String] {
+    def encode(s: String) = StringV(s)
+  }
+
+  implicit object BooleanEncoder extends Encoder[Boolean] {
+    def encode(b: Boolean) = BooleanV(b)
+  }
+
+  implicit object IntEncoder extends Encoder[Int] {
+    def encode(i: Int) = LongV(i)
+  }
+
+  implicit object LongEncoder extends Encoder[Long] {
+    def encode(l: Long) = LongV(l)
+  }
+
+  implicit object DoubleEncoder extends Encoder[Double] {
+    def encode(d: Double) = DoubleV(d)
+  }
+
+  implicit object InstantEncoder extends Encoder[Instant] {
+    def encode(i: Instant) = Timestamp(i)
+  }
+
+  implicit object LocalDateEncoder extends Encoder[LocalDate] {
+    def encode(d: LocalDate) = Date(d)
+  }
+
+  class SeqEncoder[T](enc: Encoder[T]) extends Encoder[Seq[T]] {
+    def encode(ts: Seq[T]) = ArrayV(ts.map(enc.encode)(collection.breakOut): Vector[Value])
+  }
+  implicit def SeqEncoder[T: Encoder]: Encoder[Seq[T]] = new SeqEncoder(implicitly[Encoder[T]])
+
+  class OptionEncoder[T](enc: Encoder[T]) extends Encoder[Option[T]] {
+    def encode(t: Option[T]) = t match {
+      case Some(t) => enc.encode(t)
+      case None => NullV
+    }
+  }
+  implicit def OptionEncoder[T: Encoder]: Encoder[Option[T]] = new OptionEncoder(implicitly[Encoder[T]])
+}
+
 trait Codec[T] extends Decoder[T] with Encoder[T]
+
+object Codec {
+
+  /**
+    * Derives a Codec for a case class, or for a sealed hierarchy of case
+    * classes and case objects, at compile time.
+    *
+    * A case class is encoded as an object with a field for each of its
+    * parameters, and decoded from one in a single pass over its fields.
+    * Each field uses the implicit Decoder and Encoder of its type, except
+    * for strings, numbers, booleans and refs, which are read and written
+    * inline. Optional fields may be missing or null. Errors, with the path
+    * of each failing field, are only gathered once decoding has failed.
+    *
+    * Members of a sealed hierarchy are told apart by a `type` field
+    * holding the name of their class.
+    *
+    * {{{
+    * case class Spell(name: String, element: Seq[String], cost: Option[Long])
+    * object Spell { implicit val codec = Codec.derive[Spell] }
+    *
+    * value("data").as[Spell].get
+    * client.query(Create(Ref("classes/spells"), Obj("data" -> spell)))
+    * }}}
+    */
+  def derive[T]: Codec[T] = macro CodecMacros.derive[T]
+}
@@ -0,0 +1,248 @@
+package faunadb.values
+
+import scala.reflect.macros._
+
+class CodecMacros(val c: blackbox.Context) {
+  import c.universe._
+
+  val V = q"_root_.faunadb.values"
+
+  val TypeField = "type"
+
+  def derive[T: c.WeakTypeTag]: c.Tree = {
+    val tpe = weakTypeOf[T].dealias
+    val sym = tpe.typeSymbol
+
+    if (sym.isClass && sym.asClass.isCaseClass) {
+      product(tpe, None)
+    } else if (sym.isClass && sym.asClass.isSealed) {
+      union(tpe)
+    } else {
+      c.abort(c.enclosingPosition, s"Cannot derive a Codec for $tpe: it is neither a case class nor a sealed hierarchy of them.")
+    }
+  }
+
+  private case class Param(name: String, accessor: TermName, tpe: Type, index: Int) {
+    val value = TermName(s"v$index")
+    val decoded = TermName(s"x$index")
+    val dec = TermName(s"dec$index")
+    val enc = TermName(s"enc$index")
+    val optional = tpe <:< typeOf[Option[Any]]
+  }
+
+  private def params(tpe: Type): List[Param] = {
+    val ctor = tpe.decls collectFirst {
+      case m: MethodSymbol if m.isPrimaryConstructor => m
+    } getOrElse {
+      c.abort(c.enclosingPosition, s"Cannot derive a Codec for $tpe: it has no primary constructor.")
+    }
+
+    ctor.paramLists.headOption.getOrElse(Nil).zipWithIndex map {
+      case (p, i) =>
+        Param(p.name.decodedName.toString, p.name.toTermName, p.typeSignature.asSeenFrom(tpe, tpe.typeSymbol), i)
+    }
+  }
+
+  /**
+    * A Codec for a case class. Members of a sealed hierarchy are also
+    * given the tag they are encoded with.
+    */
+  private def product(tpe: Type, tag: Option[String]): c.Tree = {
+    val ps = params(tpe)
+
+    if (tag.isDefined && ps.exists(_.name == TypeField)) {
+      c.abort(c.enclosingPosition, s"Cannot derive a Codec for $tpe: its field $TypeField would clash with the tag of its hierarchy.")
+    }
+
+    val instances = ps flatMap { p =>
+      List(
+        q"private[this] lazy val ${p.dec} = _root_.scala.Predef.implicitly[$V.Decoder[${p.tpe}]]",
+        q"private[this] lazy val ${p.enc} = _root_.scala.Predef.implicitly[$V.Encoder[${p.tpe}]]")
+    }
+
+    val vars = ps map { p => q"var ${p.value}: $V.Value = null" }
+
+    val cases = ps map { p =>
+      cq"${p.name} => ${p.value} = field._2"
+    }
+
+    val decoded = ps map { p =>
+      val present = if (p.optional) {
+        q"""if (${p.value} == $V.NullV) _root_.scala.None else ${decodeFast(p)}"""
+      } else {
+        decodeFast(p)
+      }
+
+      val missing = if (p.optional) q"_root_.scala.None" else q"{ ok = false; null.asInstanceOf[${p.tpe}] }"
+
+      q"val ${p.decoded}: ${p.tpe} = if (${p.value} eq null) $missing else $present"
+    }
+
+    val failures = ps map { p =>
+      val path = q"path ++ $V.FieldPathField(${p.name})"
+      val missing = if (p.optional) q"$V.Result.successful(_root_.scala.None, $path)" else q"$V.Result.NotFound($path)"
+      q"""fields.get(${p.name}) match {
+        case _root_.scala.Some(v) => ${p.dec}.decode(v, $path)
+        case _root_.scala.None => $missing
+      }"""
+    }
+
+    // Small maps stay as such, but larger ones are built as a HashMap from
+    // the start, instead of being copied into one on their fifth entry.
+    val tagged = tag map { t => q"$V.StringV($t)" }
+    val empty =
+      if (ps.size + tagged.size <= 4) q"_root_.scala.collection.immutable.Map.empty[String, $V.Value]"
+      else q"_root_.scala.collection.immutable.HashMap.empty[String, $V.Value]"
+    val init = tagged.foldLeft(empty) {
+      (m, t) => q"$m.updated($TypeField, $t)"
+    }
+    val encoded = ps.foldLeft(init) {
+      (m, p) => q"$m.updated(${p.name}, ${encodeFast(p, q"t.${p.accessor}")})"
+    }
+
+    val instance =
+      if (tpe.typeSymbol.isModuleClass) internal.gen.mkAttributedRef(tpe.typeSymbol.asClass.module) else q"new $tpe(..${ps map { _.decoded }})"
+
+    q"""
+      new $V.Codec[$tpe] {
+        ..$instances
+
+        def decode(value: $V.Value, path: $V.FieldPath): $V.Result[$tpe] =
+          value match {
+            case $V.ObjectV(fields) =>
+              ..$vars
+              val it = fields.iterator
+              while (it.hasNext) {
+                val field = it.next()
+                field._1 match {
+                  case ..$cases
+                  case _ => ()
+                }
+              }
+
+              var ok = true
+              ..$decoded
+
+              if (ok) $V.Result.successful($instance, path) else failures(fields, path)
+
+            case v => $V.Result.Unexpected(v, "Object", path)
+          }
+
+        private[this] def failures(fields: _root_.scala.collection.immutable.Map[String, $V.Value], path: $V.FieldPath): $V.Result[$tpe] =
+          $V.Result.collectErrors(..$failures)
+
+        def encode(t: $tpe): $V.Value = $V.ObjectV($encoded)
+      }
+    """
+  }
+
+  /**
+    * Reads a present field, without building a path. Strings, numbers,
+    * booleans and refs are matched inline; other types go through their
+    * Decoder. A mismatch only clears `ok`, leaving the errors to be
+    * gathered again on the failure path.
+    */
+  private def decodeFast(p: Param): c.Tree = {
+    val v = q"${p.value}"
+    val failed = q"{ ok = false; null.asInstanceOf[${p.tpe}] }"
+
+    if (p.tpe =:= typeOf[String]) {
+      q"$v match { case $V.StringV(s) => s; case _ => $failed }"
+    } else if (p.tpe =:= typeOf[Long]) {
+      q"$v match { case $V.LongV(l) => l; case _ => $failed }"
+    } else if (p.tpe =:= typeOf[Int]) {
+      q"$v match { case $V.LongV(l) => l.toInt; case _ => $failed }"
+    } else if (p.tpe =:= typeOf[Double]) {
+      q"$v match { case $V.DoubleV(d) => d; case _ => $failed }"
+    } else if (p.tpe =:= typeOf[Boolean]) {
+      q"$v match { case b: $V.BooleanV => b.value; case _ => $failed }"
+    } else if (p.tpe =:= typeOf[Ref]) {
+      q"$v match { case r: $V.Ref => r; case _ => $failed }"
+    } else {
+      q"${p.dec}.decode($v, $V.FieldPathEmpty) match { case $V.VSuccess(x, _) => x; case _ => $failed }"
+    }
+  }
+
+  private def encodeFast(p: Param, t: c.Tree): c.Tree =
+    if (p.tpe =:= typeOf[String]) {
+      q"$V.StringV($t)"
+    } else if (p.tpe =:= typeOf[Long] || p.tpe =:= typeOf[Int]) {
+      q"$V.LongV($t)"
+    } else if (p.tpe =:= typeOf[Double]) {
+      q"$V.DoubleV($t)"
+    } else if (p.tpe =:= typeOf[Boolean]) {
+      q"$V.BooleanV($t)"
+    } else if (p.tpe <:< typeOf[Value]) {
+      t
+    } else {
+      q"${p.enc}.encode($t)"
+    }
+
+  /**
+    * A Codec for a sealed hierarchy, dispatching on the `type` field to a
+    * Codec derived for each member.
+    */
+  private def union(tpe: Type): c.Tree = {
+    val sym = tpe.typeSymbol.asClass
+    sym.typeSignature // forces the members of the hierarchy to be known
+    val members = sym.knownDirectSubclasses.toList sortBy { _.name.decodedName.toString }
+
+    if (members.isEmpty) {
+      c.abort(c.enclosingPosition, s"Cannot derive a Codec for $tpe: it has no known members. Define them before deriving it.")
+    }
+
+    val codecs = members.zipWithIndex map {
+      case (m, i) =>
+        val mc = m.asClass
+        if (!mc.isCaseClass && !mc.isModuleClass) {
+          c.abort(c.enclosingPosition, s"Cannot derive a Codec for $tpe: its member ${mc.name} is neither a case class nor a case object.")
+        }
+        if (mc.typeParams.nonEmpty) {
+          c.abort(c.enclosingPosition, s"Cannot derive a Codec for $tpe: its member ${mc.name} has type parameters.")
+        }
+        val mtpe = if (mc.isModuleClass) mc.module.typeSignature else mc.toType
+        (mc.name.decodedName.toString, mtpe, TermName(s"codec$i"))
+    }
+
+    val instances = codecs map {
+      case (name, mtpe, codec) => q"private[this] lazy val $codec = ${product(mtpe, Some(name))}"
+    }
+
+    val decodes = codecs map {
+      case (name, _, codec) => cq"$name => $codec.decode(value, path)"
+    }
+
+    val encodes = codecs map {
+      case (_, mtpe, codec) => cq"m: $mtpe => $codec.encode(m)"
+    }
+
+    val names = codecs map { _._1 } mkString ", "
+
+    q"""
+      new $V.Codec[$tpe] {
+        ..$instances
+
+        def decode(value: $V.Value, path: $V.FieldPath): $V.Result[$tpe] =
+          value match {
+            case $V.ObjectV(fields) =>
+              fields.get($TypeField) match {
+                case _root_.scala.Some($V.StringV(tag)) =>
+                  tag match {
+                    case ..$decodes
+                    case _ => $V.Result.Unexpected($V.StringV(tag), ${"one of " + names}, path ++ $V.FieldPathField($TypeField))
+                  }
+                case _root_.scala.Some(v) => $V.Result.Unexpected(v, "String", path ++ $V.FieldPathField($TypeField))
+                case _root_.scala.None => $V.Result.NotFound(path ++ $V.FieldPathField($TypeField))
+              }
+
+            case v => $V.Result.Unexpected(v, "Object", path)
+          }
+
+        def encode(t: $tpe): $V.Value =
+          t match {
+            case ..$encodes
+          }
+      }
+    """
+  }
+}
@@ -0,0 +1,85 @@
+package faunadb
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import faunadb.query._
+import faunadb.values._
+import java.time.Instant
+import org.scalatest.{ FlatSpec, Matchers }
+
+object CodecSpec {
+  case class Book(title: String, author: Ref)
+  object Book { implicit val codec: Codec[Book] = Codec.derive[Book] }
+
+  case class Spell(name: String, elements: Seq[String], cost: Long, level: Int, damage: Double,
+    offensive: Boolean, ref: Ref, cast: Instant, book: Book, school: Option[String])
+  object Spell { implicit val codec: Codec[Spell] = Codec.derive[Spell] }
+
+  sealed trait Effect
+  case class Burn(damage: Long) extends Effect
+  case class Freeze(turns: Int, shatter: Option[Boolean]) extends Effect
+  case object Dispel extends Effect
+  object Effect { implicit val codec: Codec[Effect] = Codec.derive[Effect] }
+}
+
+class CodecSpec extends FlatSpec with Matchers {
+  import CodecSpec._
+
+  val json = new ObjectMapper()
+
+  val spell = Spell("fire", Seq("fire", "air"), 10, 2, 2.5, true, Ref("classes/spells/1"),
+    Instant.parse("2016-01-01T00:00:00Z"), Book("flames", Ref("classes/wizards/1")), None)
+
+  val spellV = ObjectV(
+    "name" -> StringV("fire"),
+    "elements" -> ArrayV(StringV("fire"), StringV("air")),
+    "cost" -> LongV(10),
+    "level" -> LongV(2),
+    "damage" -> DoubleV(2.5),
+    "offensive" -> TrueV,
+    "ref" -> Ref("classes/spells/1"),
+    "cast" -> Timestamp(Instant.parse("2016-01-01T00:00:00Z")),
+    "book" -> ObjectV("title" -> StringV("flames"), "author" -> Ref("classes/wizards/1")),
+    "school" -> NullV)
+
+  "Derived codecs" should "decode a case class from an object" in {
+    spellV.as[Spell].get should equal (spell)
+    (spellV match { case ObjectV(fs) => ObjectV(fs - "school" + ("extra" -> LongV(1))) }).as[Spell].get should equal (spell)
+    spellV(Field.collect(Field.as[Spell])).isFailure should be (true)
+    ArrayV(spellV, spellV).as[Seq[Spell]].get should equal (Seq(spell, spell))
+    (spellV match { case ObjectV(fs) => ObjectV(fs + ("school" -> StringV("evocation"))) }).as[Spell].get.school should equal (Some("evocation"))
+  }
+
+  it should "collect the errors of every failing field" in {
+    val invalid = spellV match {
+      case ObjectV(fs) => ObjectV(fs - "cost" + ("name" -> LongV(1)) + ("book" -> ObjectV("title" -> StringV("flames"))))
+    }
+    val errors = invalid.as[Spell].toEither.left.get
+
+    errors map { _.path.toString } should contain theSameElementsAs (Seq("/name", "/cost", "/book/author"))
+    ObjectV("data" -> invalid).apply("data").as[Spell].toEither.left.get map { _.path.toString } should contain ("/data/name")
+    StringV("fire").as[Spell].isFailure should be (true)
+  }
+
+  it should "encode a case class as an object" in {
+    Spell.codec.encode(spell) should equal (spellV)
+    Spell.codec.encode(spell.copy(school = Some("evocation")))("school").get should equal (StringV("evocation"))
+  }
+
+  it should "encode and decode sealed hierarchies by their type" in {
+    Effect.codec.encode(Burn(5)) should equal (ObjectV("type" -> StringV("Burn"), "damage" -> LongV(5)))
+    Effect.codec.encode(Dispel) should equal (ObjectV("type" -> StringV("Dispel")))
+
+    Seq(Burn(5), Freeze(2, Some(true)), Freeze(1, None), Dispel) foreach { effect =>
+      Effect.codec.encode(effect).as[Effect].get should equal (effect)
+    }
+
+    ObjectV("type" -> StringV("Heal")).as[Effect].isFailure should be (true)
+    ObjectV("damage" -> LongV(5)).as[Effect].isFailure should be (true)
+  }
+
+  it should "encode values into expressions" in {
+    val expr = Create(Ref("classes/spells"), Obj("data" -> spell))
+    json.writeValueAsString(expr) should equal (json.writeValueAsString(
+      Create(Ref("classes/spells"), Obj("data" -> Spell.codec.encode(spell)))))
+  }
+}
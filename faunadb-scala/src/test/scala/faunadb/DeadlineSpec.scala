@@ -0,0 +1,83 @@
+package faunadb
+
+import com.faunadb.common.{ ConcurrencyPolicy, Connection, RetryPolicy, Transport, TransportHandler, TransportRequest }
+import com.google.common.util.concurrent.AbstractFuture
+import faunadb.errors.DeadlineExceededException
+import faunadb.query._
+import faunadb.values._
+import java.util.concurrent.{ CancellationException, Future => JFuture }
+import java.util.concurrent.atomic.AtomicInteger
+import org.scalatest.{ FlatSpec, Matchers }
+import scala.concurrent.{ Await, ExecutionContext }
+import scala.concurrent.duration._
+
+/**
+  * A transport that never answers. Cancelling a request reports a
+  * CancellationException to its handler.
+  */
+class SilentTransport extends Transport {
+  val sent = new AtomicInteger
+
+  def execute(request: TransportRequest, handler: TransportHandler): JFuture[_] = {
+    sent.incrementAndGet()
+    new AbstractFuture[Void] {
+      override def cancel(mayInterruptIfRunning: Boolean): Boolean = {
+        handler.onThrowable(new CancellationException)
+        super.cancel(mayInterruptIfRunning)
+      }
+    }
+  }
+
+  def close(): Unit = ()
+}
+
+class DeadlineSpec extends FlatSpec with Matchers {
+  implicit val ec = ExecutionContext.global
+
+  def client(transport: Transport) =
+    new FaunaClient(Connection.builder
+      .withFaunaRoot("http://localhost:8443")
+      .withAuthToken("secret")
+      .withRetryPolicy(RetryPolicy.NONE)
+      .withTransport(transport)
+      .build)
+
+  "A query with a deadline" should "fail once its deadline passes unanswered" in {
+    val transport = new SilentTransport
+    val result = client(transport).query(Get(Ref("classes/spells/1")), 500.millis.fromNow)
+
+    a[DeadlineExceededException] should be thrownBy Await.result(result, 5.seconds)
+    transport.sent.get shouldBe 1
+  }
+
+  it should "not be sent if its deadline has already passed" in {
+    val transport = new SilentTransport
+    val result = client(transport).query(Get(Ref("classes/spells/1")), Deadline.now - 1.second)
+
+    a[DeadlineExceededException] should be thrownBy Await.result(result, 5.seconds)
+    transport.sent.get shouldBe 0
+  }
+
+  "A batch of queries with a deadline" should "fail once its deadline passes unanswered" in {
+    val transport = new SilentTransport
+    val result = client(transport).query(Seq(Get(Ref("classes/spells/1")), Get(Ref("classes/spells/2"))), 50.millis.fromNow)
+
+    a[DeadlineExceededException] should be thrownBy Await.result(result, 5.seconds)
+  }
+
+  "A client built with the factory" should "send queries through its transport across its endpoints" in {
+    val transport = new SilentTransport
+    val client = FaunaClient(
+      secret = "secret",
+      endpoints = Seq("http://localhost:8443", "http://localhost:8444"),
+      ejectionThreshold = Some(3),
+      probeInterval = 1.second,
+      retryPolicy = RetryPolicy.NONE,
+      concurrencyPolicy = ConcurrencyPolicy.NONE,
+      transport = transport)
+    val result = client.query(Get(Ref("classes/spells/1")), 500.millis.fromNow)
+
+    a[DeadlineExceededException] should be thrownBy Await.result(result, 5.seconds)
+    transport.sent.get shouldBe 1
+  }
+}
@@ -0,0 +1,33 @@
+package faunadb
+
+import faunadb.query._
+import faunadb.values._
+import org.scalatest.{ FlatSpec, Matchers }
+
+class QueryClassifierSpec extends FlatSpec with Matchers {
+  "The query classifier" should "treat reads as read-only" in {
+    QueryClassifier.isReadOnly(Get(Ref("classes/spells/1"))) shouldBe true
+    QueryClassifier.isReadOnly(Paginate(Match(Ref("indexes/spells_by_element"), "fire"))) shouldBe true
+    QueryClassifier.isReadOnly(Map(Lambda(x => Get(x)), Arr(Ref("classes/spells/1")))) shouldBe true
+    QueryClassifier.isReadOnly(Let { val x = Get(Ref("a/1")); x }) shouldBe true
+  }
+
+  it should "find writes at any depth" in {
+    QueryClassifier.isReadOnly(Create(Ref("classes/spells"), Obj())) shouldBe false
+    QueryClassifier.isReadOnly(Do(Get(Ref("a/1")), Delete(Ref("a/1")))) shouldBe false
+    QueryClassifier.isReadOnly(If(true, Get(Ref("a/1")), Update(Ref("a/1"), Obj()))) shouldBe false
+    QueryClassifier.isReadOnly(Foreach(Lambda(x => Delete(x)), Arr(Ref("a/1")))) shouldBe false
+  }
+
+  it should "ignore object fields and quoted data" in {
+    QueryClassifier.isReadOnly(Obj("create" -> "not a call")) shouldBe true
+    QueryClassifier.isReadOnly(ObjectV("delete" -> Ref("a/1"))) shouldBe true
+    QueryClassifier.isReadOnly(Obj("data" -> Create(Ref("a"), Obj()))) shouldBe false
+    QueryClassifier.isReadOnly(Let(Seq("quote" -> Get(Ref("a/1")), "r" -> Create(Ref("a"), Obj())), Var("r"))) shouldBe false
+  }
+
+  it should "classify batches" in {
+    QueryClassifier.allReadOnly(Seq(Get(Ref("a/1")), Get(Ref("a/2")))) shouldBe true
+    QueryClassifier.allReadOnly(Seq(Get(Ref("a/1")), Delete(Ref("a/2")))) shouldBe false
+  }
+}
@@ -8,6 +8,7 @@ import com.fasterxml.jackson.module.scala.DefaultScalaModule
 import faunadb.query._
 import faunadb.values._
 import org.scalatest.{FlatSpec, Matchers}
+import scala.collection.JavaConverters._
 
 class SerializationSpec extends FlatSpec with Matchers {
   val json = new ObjectMapper()
@@ -239,4 +240,44 @@ class SerializationSpec extends FlatSpec with Matchers {
     val not = Not(false)
     json.writeValueAsString(not) shouldBe "{\"not\":false}"
   }
+
+  it should "serialize prepared queries with their parameters in place" in {
+    val client = FaunaClient(endpoint = "http://localhost:8443")
+    try {
+      def query(element: Expr, size: Expr) =
+        Map(Lambda(r => Get(r)), Paginate(Match(Ref("indexes/spells_by_element"), element), size = size))
+
+      val prepared = client.prepare(query(Param("element"), Param("size")))
+      prepared.parameters shouldBe Set("element", "size")
+
+      val out = new java.io.ByteArrayOutputStream
+      prepared.template.bind(Predef.Map("element" -> json.writeValueAsBytes(Expr.stringToExpr("fire")),
+        "size" -> json.writeValueAsBytes(Expr.intToExpr(10))).asJava).writeTo(out)
+      out.toString("UTF-8") shouldBe json.writeValueAsString(query("fire", 10))
+
+      an[IllegalArgumentException] should be thrownBy {
+        prepared.template.bind(Predef.Map("element" -> json.writeValueAsBytes(Expr.stringToExpr("fire"))).asJava)
+      }
+    } finally {
+      client.close()
+    }
+  }
+
+  it should "serialize with the dedicated serializers as with the annotations" in {
+    val module = new ObjectMapper().registerModule(jackson.ValueModule)
+    val query = Let { val x = 1; val y = 2.5; Create(Ref("classes/spells"), ObjectV(
+      "name" -> StringV("fire"),
+      "flags" -> ArrayV(TrueV, FalseV, NullV),
+      "at" -> Timestamp(Instant.EPOCH),
+      "on" -> values.Date(LocalDate.ofEpochDay(2)),
+      "set" -> SetRef(ObjectV("match" -> StringV("fire"))),
+      "x" -> LongV(1))) }
+
+    module.writeValueAsString(query) shouldBe json.writeValueAsString(query)
+    module.writeValueAsString(query.value) shouldBe json.writeValueAsString(query.value)
+
+    module.configure(com.fasterxml.jackson.databind.SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true)
+    module.writeValueAsString(ObjectV("b" -> LongV(1), "a" -> ObjectV("d" -> LongV(2), "c" -> LongV(3)))) shouldBe
+      "{\"a\":{\"c\":3,\"d\":2},\"b\":1}"
+  }
 }